@@ -0,0 +1,50 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import ru.sergkorot.dynamic.OperationProcessorAutoConfiguration;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of application context with operation beans: classpath scanning of the library package
+ * against explicit auto-configuration. Each fork measures the first start only, as application does
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ContextStartupBenchmark {
+
+    private static final String LIBRARY_PACKAGE = "ru.sergkorot.dynamic";
+
+    @Benchmark
+    public Object componentScan() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(context);
+            // nested configurations are processed through enclosing ones, scanned directly they would skip its conditions
+            scanner.addExcludeFilter((metadataReader, metadataReaderFactory) -> metadataReader.getClassMetadata().hasEnclosingClass());
+            scanner.scan(LIBRARY_PACKAGE);
+            context.refresh();
+            return context.getBean(SpecificationOperationService.class);
+        }
+    }
+
+    @Benchmark
+    public Object autoConfiguration() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(OperationProcessorAutoConfiguration.class);
+            context.refresh();
+            return context.getBean(SpecificationOperationService.class);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.ConversionService;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.memory.PredicateOperationService;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Filtering of detached rows by flat params joined by or:
+ * predicate compiled by {@link PredicateOperationService} against reflective evaluation of params for every row
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryPredicateBenchmark {
+
+    private static final ConversionService CONVERSION_SERVICE = ApplicationConversionService.getSharedInstance();
+
+    @Param({"1", "5", "20"})
+    private int paramCount;
+
+    private List<Person> persons;
+    private List<BaseSearchParam> params;
+    private Predicate<Person> predicate;
+
+    @Setup
+    public void setUp() {
+        persons = SearchFixture.persons();
+        params = SearchFixture.baseParams(paramCount);
+        predicate = new PredicateOperationService<>(Person.class, new ObjectMapper()).buildBaseByParams(params, GlueOperation.OR);
+    }
+
+    @Benchmark
+    public int compiledPredicate() {
+        int matched = 0;
+        for (Person person : persons) {
+            if (predicate.test(person)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int reflection() {
+        int matched = 0;
+        for (Person person : persons) {
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(person);
+            for (BaseSearchParam param : params) {
+                if (matches(wrapper, param)) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean matches(BeanWrapper wrapper, BaseSearchParam param) {
+        Object value = wrapper.getPropertyValue(param.getName());
+        if (value == null) {
+            return false;
+        }
+        Class<?> type = wrapper.getPropertyType(param.getName());
+        return switch (param.getOperation()) {
+            case "eq" -> value.equals(CONVERSION_SERVICE.convert(param.getValue(), type));
+            case "like" -> value.toString().toLowerCase().contains(param.getValue().toString().toLowerCase());
+            case "in" -> Arrays.stream(param.getValue().toString().split(","))
+                    .map(element -> CONVERSION_SERVICE.convert(element.trim(), type))
+                    .anyMatch(value::equals);
+            case "gt" -> ((Comparable) value).compareTo(CONVERSION_SERVICE.convert(param.getValue(), type)) > 0;
+            default -> throw new IllegalArgumentException(param.getOperation());
+        };
+    }
+}
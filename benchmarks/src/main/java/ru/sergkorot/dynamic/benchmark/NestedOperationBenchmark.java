@@ -0,0 +1,65 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and rendering deeply nested nst: operations
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestedOperationBenchmark {
+
+    @Param({"1", "4", "8"})
+    private int depth;
+
+    private SearchFixture fixture;
+    private EntityManager entityManager;
+    private SpecificationOperationService<Person> operationService;
+    private List<BaseSearchParam> params;
+
+    @Setup
+    public void setUp() {
+        fixture = new SearchFixture();
+        entityManager = fixture.createEntityManager();
+        operationService = SearchFixture.operationService();
+        params = SearchFixture.nestedParams(depth);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Person> buildAndRender() {
+        return SearchFixture.toQuery(
+                entityManager,
+                operationService.buildBaseByParams(params, GlueOperation.AND)
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full path from params to SQL execution on H2: specification building, toPredicate,
+ * criteria to SQL rendering and execution. Template variant uses query template cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredicateRenderingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int paramCount;
+
+    private SearchFixture fixture;
+    private EntityManager entityManager;
+    private List<ComplexSearchParam> params;
+    private SpecificationOperationService<Person> operationService;
+    private SpecificationOperationService<Person> cachedOperationService;
+
+    @Setup
+    public void setUp() {
+        fixture = new SearchFixture();
+        entityManager = fixture.createEntityManager();
+        params = List.of(SearchFixture.complexParam(SearchFixture.baseParams(paramCount)));
+        operationService = SearchFixture.operationService();
+        cachedOperationService = SearchFixture.cachedOperationService();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Person> criteria() {
+        List<Person> result = SearchFixture.toQuery(entityManager, operationService.buildComplexByParams(params, GlueOperation.AND))
+                .setMaxResults(10)
+                .getResultList();
+        entityManager.clear();
+        return result;
+    }
+
+    @Benchmark
+    public List<Person> template() {
+        List<Person> result = cachedOperationService
+                .buildQueryByParams(entityManager, Person.class, params, GlueOperation.AND, PageRequest.of(0, 10))
+                .getResultList();
+        entityManager.clear();
+        return result;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.cache.QueryCacheProperties;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Shared model, data and services of the benchmarks
+ */
+public final class SearchFixture {
+
+    public static final int ROWS = 1_000;
+
+    private static final String[] NAMES = {"name", "surname", "description", "version", "age"};
+    private static final String[] OPERATIONS = {"eq", "like", "like", "in", "gt"};
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SearchFixture() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("benchmark");
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (Person person : persons()) {
+            entityManager.persist(person);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    public EntityManager createEntityManager() {
+        return entityManagerFactory.createEntityManager();
+    }
+
+    public void close() {
+        entityManagerFactory.close();
+    }
+
+    /**
+     * Detached rows of the fixture, same as rows in the database
+     */
+    public static List<Person> persons() {
+        List<Person> persons = new ArrayList<>(ROWS);
+        for (long i = 0; i < ROWS; i++) {
+            Person person = new Person();
+            person.setId(i);
+            person.setName("name" + i);
+            person.setSurname("surname" + i % 100);
+            person.setDescription("description of person " + i);
+            person.setVersion((int) (i % 10));
+            person.setAge((int) (i % 90));
+            person.setBirthDate(LocalDate.of(1950, 1, 1).plusDays(i));
+            persons.add(person);
+        }
+        return persons;
+    }
+
+    public static SpecificationOperationService<Person> operationService() {
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER
+        );
+    }
+
+    public static SpecificationOperationService<Person> cachedOperationService() {
+        NestedQueryProperties nestedQueryProperties = new NestedQueryProperties();
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder()
+                        .queryTemplateCache(new QueryTemplateCache(new QueryCacheProperties(), nestedQueryProperties))
+                        .nestedQueryProperties(nestedQueryProperties)
+                        .build()
+        );
+    }
+
+    /**
+     * Flat params over the entity columns with mixed operations
+     */
+    public static List<BaseSearchParam> baseParams(int count) {
+        List<BaseSearchParam> params = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int column = i % NAMES.length;
+            Object value = switch (OPERATIONS[column]) {
+                case "in" -> "1,2,3";
+                case "gt" -> String.valueOf(i % 50);
+                default -> NAMES[column] + i;
+            };
+            params.add(param(NAMES[column], OPERATIONS[column], value));
+        }
+        return params;
+    }
+
+    /**
+     * Chain of nested nst:in params of the given depth
+     */
+    public static List<BaseSearchParam> nestedParams(int depth) {
+        Object value = complex(List.of(param("age", "gt", "18")));
+        for (int i = 1; i < depth; i++) {
+            value = complex(List.of(param("name", "nst:in", value)));
+        }
+        return List.of(param("name", "nst:in", value));
+    }
+
+    /**
+     * Single in param with list of the given size
+     */
+    public static List<BaseSearchParam> inParams(int size) {
+        String values = IntStream.range(0, size)
+                .mapToObj(Integer::toString)
+                .collect(Collectors.joining(","));
+        return List.of(param("id", "in", values));
+    }
+
+    public static ComplexSearchParam complexParam(List<BaseSearchParam> params) {
+        ComplexSearchParam complexSearchParam = new ComplexSearchParam();
+        complexSearchParam.setBaseSearchParams(params);
+        complexSearchParam.setInternalGlue(GlueOperation.AND);
+        return complexSearchParam;
+    }
+
+    /**
+     * Build criteria query for specification, which renders predicate tree
+     */
+    public static TypedQuery<Person> toQuery(EntityManager entityManager, Specification<Person> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Person> criteriaQuery = criteriaBuilder.createQuery(Person.class);
+        Root<Person> root = criteriaQuery.from(Person.class);
+        Predicate predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        return entityManager.createQuery(criteriaQuery);
+    }
+
+    public static BaseSearchParam param(String name, String operation, Object value) {
+        BaseSearchParam param = new BaseSearchParam();
+        param.setName(name);
+        param.setOperation(operation);
+        param.setValue(value);
+        return param;
+    }
+
+    private static Map<String, Object> complex(List<BaseSearchParam> params) {
+        return Map.of("baseSearchParams", params, "internalGlue", GlueOperation.AND.name());
+    }
+}
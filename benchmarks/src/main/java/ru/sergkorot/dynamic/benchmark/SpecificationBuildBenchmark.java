@@ -0,0 +1,50 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building specification from flat params without rendering
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecificationBuildBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int paramCount;
+
+    private List<BaseSearchParam> params;
+    private SpecificationOperationService<Person> operationService;
+
+    @Setup
+    public void setUp() {
+        params = SearchFixture.baseParams(paramCount);
+        operationService = SearchFixture.operationService();
+    }
+
+    @Benchmark
+    public Specification<Person> buildBaseByParams() {
+        return operationService.buildBaseByParams(params, GlueOperation.AND);
+    }
+}
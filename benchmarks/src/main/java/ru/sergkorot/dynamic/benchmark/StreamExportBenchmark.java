@@ -0,0 +1,142 @@
+package ru.sergkorot.dynamic.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.FileSystemUtils;
+import ru.sergkorot.dynamic.benchmark.model.Person;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export of all rows of file based database under small heap:
+ * streaming by {@link SpecificationOperationService#forEach} against offset paging.
+ * Streaming must complete under {@code -Xmx64m} whatever the number of rows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx64m")
+public class StreamExportBenchmark {
+
+    private static final int BATCH_SIZE = 100_000;
+    private static final int PAGE_SIZE = 1_000;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private Path directory;
+    private EntityManagerFactory entityManagerFactory;
+    private SpecificationOperationService<Person> operationService;
+    private Specification<Person> specification;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stream-export");
+        entityManagerFactory = Persistence.createEntityManagerFactory(
+                "benchmark",
+                Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:file:" + directory.resolve("export").toAbsolutePath())
+        );
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        for (int from = 0; from < rows; from += BATCH_SIZE) {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("""
+                            insert into person (id, name, surname, description, version, age, birthDate)
+                            select x, 'name' || x, 'surname' || mod(x, 100), 'description of person ' || x,
+                                   mod(x, 10), mod(x, 90), dateadd('DAY', x, date '1950-01-01')
+                            from system_range(?1, ?2)
+                            """)
+                    .setParameter(1, from)
+                    .setParameter(2, Math.min(from + BATCH_SIZE, rows) - 1)
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        }
+        entityManager.close();
+
+        operationService = SearchFixture.operationService();
+        specification = operationService.buildBaseByParams(List.of(SearchFixture.param("age", "ge", "0")), GlueOperation.AND);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        entityManagerFactory.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long stream(Blackhole blackhole) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        try {
+            long exported = operationService.forEach(entityManager, Person.class, specification, Sort.by("id"),
+                    person -> blackhole.consume(line(person)));
+            return checkExported(exported);
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public long offsetPaging(Blackhole blackhole) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            long exported = 0;
+            List<Person> page;
+            do {
+                TypedQuery<Person> query = SearchFixture.toQuery(entityManager, specification.and(orderById()));
+                page = query.setFirstResult((int) exported).setMaxResults(PAGE_SIZE).getResultList();
+                page.forEach(person -> blackhole.consume(line(person)));
+                exported += page.size();
+                entityManager.clear();
+            } while (page.size() == PAGE_SIZE);
+            return checkExported(exported);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private long checkExported(long exported) {
+        if (exported != rows) {
+            throw new IllegalStateException(String.format("exported %d rows of %d", exported, rows));
+        }
+        return exported;
+    }
+
+    private static Specification<Person> orderById() {
+        return (root, query, criteriaBuilder) -> {
+            query.orderBy(criteriaBuilder.asc(root.get("id")));
+            return null;
+        };
+    }
+
+    private static String line(Person person) {
+        return person.getId() + ";" + person.getName() + ";" + person.getSurname() + ";" + person.getDescription()
+                + ";" + person.getVersion() + ";" + person.getAge() + ";" + person.getBirthDate();
+    }
+}
@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.benchmark.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Entity of the benchmark model
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "person", indexes = @Index(name = "person_name_idx", columnList = "name"))
+public class Person {
+
+    @Id
+    private Long id;
+    private String name;
+    private String surname;
+    private String description;
+    private Integer version;
+    private Integer age;
+    private LocalDate birthDate;
+}
@@ -1,10 +1,433 @@
 package ru.sergkorot.dynamic;
 
-import org.springframework.context.annotation.ComponentScan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.relational.core.query.Criteria;
+import ru.sergkorot.dynamic.admission.AdmissionProperties;
+import ru.sergkorot.dynamic.admission.SearchAdmissionController;
+import ru.sergkorot.dynamic.audit.IndexAuditListener;
+import ru.sergkorot.dynamic.audit.IndexAuditProperties;
+import ru.sergkorot.dynamic.audit.IndexAuditor;
+import ru.sergkorot.dynamic.batch.BatchProperties;
+import ru.sergkorot.dynamic.ast.SearchRequestParser;
+import ru.sergkorot.dynamic.batch.BatchSearchExecutor;
+import ru.sergkorot.dynamic.cache.QueryCacheProperties;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.facet.FacetProperties;
+import ru.sergkorot.dynamic.facet.FacetQueryExecutor;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.metamodel.EntityIndexesListener;
+import ru.sergkorot.dynamic.metrics.MicrometerOperationMetrics;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.operation.ManualOperationProvider;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountProperties;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.r2dbc.CriteriaGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.r2dbc.CriteriaOperationProviderImpl;
+import ru.sergkorot.dynamic.r2dbc.CriteriaOperationService;
+import ru.sergkorot.dynamic.r2dbc.CriteriaQueryProperties;
+import ru.sergkorot.dynamic.result.LocalResultCacheStore;
+import ru.sergkorot.dynamic.result.ResultCacheInvalidationListener;
+import ru.sergkorot.dynamic.result.ResultCacheProperties;
+import ru.sergkorot.dynamic.result.ResultCacheStore;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingPostProcessor;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingProperties;
+import ru.sergkorot.dynamic.slow.ExplainCapturePostProcessor;
+import ru.sergkorot.dynamic.slow.SlowSearchEndpoint;
+import ru.sergkorot.dynamic.slow.SlowSearchProperties;
+import ru.sergkorot.dynamic.slow.SlowSearchRecorder;
+import ru.sergkorot.dynamic.stream.StreamProperties;
+import ru.sergkorot.dynamic.stream.StreamQueryExecutor;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+import ru.sergkorot.dynamic.union.UnionProperties;
+import ru.sergkorot.dynamic.union.UnionQueryExecutor;
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * Main library class
+ * Main library class. Beans are declared explicitly without classpath scanning, each of them backs off
+ * when application declares its own bean of the same type, so configuration is processed ahead of time
+ * for native images
  */
-@ComponentScan
+@AutoConfiguration(after = {HibernateJpaAutoConfiguration.class, JacksonAutoConfiguration.class})
+@ImportRuntimeHints(OperationRuntimeHints.class)
+@EnableConfigurationProperties({
+        QueryCacheProperties.class,
+        NestedQueryProperties.class,
+        InListProperties.class,
+        CountProperties.class,
+        TextMatchProperties.class,
+        StreamProperties.class,
+        FacetProperties.class,
+        AdmissionProperties.class,
+        ResultCacheProperties.class,
+        UnionProperties.class,
+        BatchProperties.class,
+        ReplicaRoutingProperties.class,
+        SlowSearchProperties.class,
+        IndexAuditProperties.class,
+        CriteriaQueryProperties.class
+})
 public class OperationProcessorAutoConfiguration {
-}
\ No newline at end of file
+
+    /**
+     * Operation service over Spring Data JPA specifications.
+     * Is enabled when Spring Data JPA is on classpath
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EntityManagerFactory.class, Specification.class})
+    static class JpaOperationConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        InListStrategy inListStrategy(InListProperties properties) {
+            return new InListStrategy(properties);
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "operation.in-list", name = "padding", havingValue = "true")
+        HibernatePropertiesCustomizer inListPaddingCustomizer() {
+            return hibernateProperties -> hibernateProperties.putIfAbsent(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        TextMatchStrategy textMatchStrategy(TextMatchProperties properties) {
+            return new TextMatchStrategy(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnBean(EntityManagerFactory.class)
+        EntityAttributeRegistry entityAttributeRegistry(EntityManagerFactory entityManagerFactory) {
+            return new EntityAttributeRegistry(entityManagerFactory);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "operation.query-cache", name = "enabled", havingValue = "true")
+        QueryTemplateCache queryTemplateCache(QueryCacheProperties properties,
+                                              NestedQueryProperties nestedQueryProperties,
+                                              InListStrategy inListStrategy) {
+            return new QueryTemplateCache(properties, nestedQueryProperties, inListStrategy);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        CountQueryExecutor countQueryExecutor(CountProperties properties) {
+            return new CountQueryExecutor(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        StreamQueryExecutor streamQueryExecutor(StreamProperties properties) {
+            return new StreamQueryExecutor(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        FacetQueryExecutor facetQueryExecutor(FacetProperties properties) {
+            return new FacetQueryExecutor(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        EntityIndexes entityIndexes(AdmissionProperties properties) {
+            return new EntityIndexes(properties.getIndexedFields(), properties.isInspectDatabase());
+        }
+
+        @Bean
+        @ConditionalOnExpression("${operation.admission.enabled:false} or ${operation.union.enabled:false}")
+        EntityIndexesListener entityIndexesListener(EntityIndexes entityIndexes,
+                                                    ObjectProvider<EntityManagerFactory> entityManagerFactories) {
+            return new EntityIndexesListener(entityIndexes, entityManagerFactories);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        SearchAdmissionController searchAdmissionController(AdmissionProperties properties,
+                                                            TextMatchStrategy textMatchStrategy,
+                                                            ObjectProvider<OperationMetrics> operationMetrics,
+                                                            EntityIndexes entityIndexes) {
+            return new SearchAdmissionController(properties, textMatchStrategy, operationMetrics.getIfAvailable(), entityIndexes);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(prefix = "operation.union", name = "enabled", havingValue = "true")
+        UnionQueryExecutor unionQueryExecutor(UnionProperties properties, EntityIndexes entityIndexes) {
+            return new UnionQueryExecutor(properties, entityIndexes);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        BatchSearchExecutor batchSearchExecutor(BatchProperties properties) {
+            return new BatchSearchExecutor(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        <T> SpecificationOperationProviderImpl<T> specificationOperationProvider(InListStrategy inListStrategy,
+                                                                                ObjectProvider<EntityAttributeRegistry> attributeRegistry,
+                                                                                TextMatchStrategy textMatchStrategy) {
+            return new SpecificationOperationProviderImpl<>(inListStrategy, attributeRegistry.getIfAvailable(), textMatchStrategy);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        <T> SpecificationGlueOperationProviderImpl<T> specificationGlueOperationProvider() {
+            return new SpecificationGlueOperationProviderImpl<>();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        SearchFeatures searchFeatures(ObjectProvider<QueryTemplateCache> queryTemplateCache,
+                                      NestedQueryProperties nestedQueryProperties,
+                                      ObjectProvider<OperationMetrics> operationMetrics,
+                                      ObjectProvider<EntityAttributeRegistry> attributeRegistry,
+                                      CountQueryExecutor countQueryExecutor,
+                                      TextMatchStrategy textMatchStrategy,
+                                      StreamQueryExecutor streamQueryExecutor,
+                                      FacetQueryExecutor facetQueryExecutor,
+                                      SearchAdmissionController admissionController,
+                                      ObjectProvider<SearchResultCache> resultCache,
+                                      ObjectProvider<UnionQueryExecutor> unionQueryExecutor,
+                                      BatchSearchExecutor batchSearchExecutor,
+                                      ObjectProvider<SlowSearchRecorder> slowSearchRecorder,
+                                      ObjectProvider<IndexAuditor> indexAuditor) {
+            return SearchFeatures.builder()
+                    .queryTemplateCache(queryTemplateCache.getIfAvailable())
+                    .nestedQueryProperties(nestedQueryProperties)
+                    .operationMetrics(operationMetrics.getIfAvailable())
+                    .attributeRegistry(attributeRegistry.getIfAvailable())
+                    .countQueryExecutor(countQueryExecutor)
+                    .textMatchStrategy(textMatchStrategy)
+                    .streamQueryExecutor(streamQueryExecutor)
+                    .facetQueryExecutor(facetQueryExecutor)
+                    .admissionController(admissionController)
+                    .resultCache(resultCache.getIfAvailable())
+                    .unionQueryExecutor(unionQueryExecutor.getIfAvailable())
+                    .batchSearchExecutor(batchSearchExecutor)
+                    .slowSearchRecorder(slowSearchRecorder.getIfAvailable())
+                    .indexAuditor(indexAuditor.getIfAvailable())
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        <T> SpecificationOperationService<T> specificationOperationService(SpecificationOperationProviderImpl<T> operationProvider,
+                                                                          SpecificationGlueOperationProviderImpl<T> glueOperationProvider,
+                                                                          ObjectProvider<ManualOperationProvider<Specification<T>>> manualOperationProviders,
+                                                                          ObjectProvider<ObjectMapper> objectMapper,
+                                                                          SearchFeatures searchFeatures) {
+            return new SpecificationOperationService<>(
+                    operationProvider,
+                    glueOperationProvider,
+                    manualOperationProviders.orderedStream().toList(),
+                    objectMapper.getIfAvailable(ObjectMapper::new),
+                    searchFeatures
+            );
+        }
+    }
+
+    /**
+     * Micrometer instrumentation of operation service.
+     * Is enabled when Micrometer is on classpath and {@code operation.metrics.enabled} is not false
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(prefix = "operation.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static class OperationMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        OperationMetrics operationMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                          ObjectProvider<OperationProvider<?>> operationProviders) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return OperationMetrics.NOOP;
+            }
+            Set<String> operations = new HashSet<>(SearchRequestParser.STANDARD_OPERATIONS);
+            operationProviders.orderedStream().forEach(provider -> operations.addAll(SearchRequestParser.operationsOf(provider)));
+            return new MicrometerOperationMetrics(registry, operations);
+        }
+    }
+
+    /**
+     * Cache of search results with eviction by Hibernate entity events.
+     * Is enabled when {@code operation.result-cache.enabled} is true, local store can be replaced by own bean
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EntityManagerFactory.class, Specification.class})
+    @ConditionalOnProperty(prefix = "operation.result-cache", name = "enabled", havingValue = "true")
+    static class ResultCacheConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        ResultCacheStore resultCacheStore(ResultCacheProperties properties) {
+            return new LocalResultCacheStore(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        SearchResultCache searchResultCache(ResultCacheStore store, ObjectProvider<OperationMetrics> operationMetrics) {
+            return new SearchResultCache(store, operationMetrics.getIfAvailable());
+        }
+
+        @Bean
+        ResultCacheInvalidationListener resultCacheInvalidationListener(SearchResultCache resultCache,
+                                                                        ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+            ResultCacheInvalidationListener listener = new ResultCacheInvalidationListener(resultCache);
+            entityManagerFactory.orderedStream().forEach(listener::register);
+            return listener;
+        }
+    }
+
+    /**
+     * Routing of search requests to replica data sources.
+     * Is enabled when {@code operation.replica.enabled} is true, primary {@code dataSource} bean is wrapped
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({DataSource.class, DataSourceBuilder.class})
+    @ConditionalOnProperty(prefix = "operation.replica", name = "enabled", havingValue = "true")
+    static class ReplicaRoutingConfiguration {
+
+        @Bean
+        static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaRoutingProperties> properties) {
+            return new ReplicaRoutingPostProcessor(properties);
+        }
+    }
+
+    /**
+     * Latency of search requests by shape and plans of slow ones.
+     * Is enabled when {@code operation.slow-search.enabled} is true, with {@code explain} primary {@code dataSource}
+     * bean is wrapped for capture of statements, with Spring Boot Actuator the slowest shapes are exposed
+     * by {@code slowsearches} endpoint
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EntityManagerFactory.class, Specification.class})
+    @ConditionalOnProperty(prefix = "operation.slow-search", name = "enabled", havingValue = "true")
+    static class SlowSearchConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(prefix = "operation.slow-search", name = "explain", havingValue = "true")
+        static ExplainCapturePostProcessor explainCapturePostProcessor() {
+            return new ExplainCapturePostProcessor();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        SlowSearchRecorder slowSearchRecorder(SlowSearchProperties properties, ObjectProvider<DataSource> dataSource) {
+            return new SlowSearchRecorder(properties, dataSource::getIfAvailable);
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(Endpoint.class)
+        static class SlowSearchEndpointConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            SlowSearchEndpoint slowSearchEndpoint(SlowSearchRecorder recorder) {
+                return new SlowSearchEndpoint(recorder);
+            }
+        }
+    }
+
+    /**
+     * Audit of indexes for declared searchable and sortable fields at startup.
+     * Is enabled when {@code operation.index-audit.enabled} is true, with {@code reject} conditions
+     * which can not use index are rejected
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({EntityManagerFactory.class, Specification.class})
+    @ConditionalOnProperty(prefix = "operation.index-audit", name = "enabled", havingValue = "true")
+    static class IndexAuditConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        IndexAuditor indexAuditor(IndexAuditProperties properties,
+                                  ObjectProvider<TextMatchStrategy> textMatchStrategy,
+                                  ObjectProvider<OperationMetrics> operationMetrics) {
+            return new IndexAuditor(properties, textMatchStrategy.getIfAvailable(), operationMetrics.getIfAvailable());
+        }
+
+        @Bean
+        IndexAuditListener indexAuditListener(IndexAuditor indexAuditor,
+                                              ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+            return new IndexAuditListener(indexAuditor, entityManagerFactory);
+        }
+    }
+
+    /**
+     * Reactive operation service over Spring Data R2DBC criteria.
+     * Is enabled when Spring Data R2DBC and Reactor are on classpath
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({R2dbcEntityOperations.class, Flux.class})
+    static class R2dbcOperationConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        CriteriaOperationProviderImpl criteriaOperationProvider() {
+            return new CriteriaOperationProviderImpl();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        CriteriaGlueOperationProviderImpl criteriaGlueOperationProvider() {
+            return new CriteriaGlueOperationProviderImpl();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        CriteriaOperationService criteriaOperationService(CriteriaOperationProviderImpl operationProvider,
+                                                          CriteriaGlueOperationProviderImpl glueOperationProvider,
+                                                          ObjectProvider<ManualOperationProvider<Criteria>> manualOperationProviders,
+                                                          ObjectProvider<ObjectMapper> objectMapper,
+                                                          ObjectProvider<R2dbcEntityOperations> entityOperations,
+                                                          CriteriaQueryProperties properties) {
+            return new CriteriaOperationService(
+                    operationProvider,
+                    glueOperationProvider,
+                    manualOperationProviders.orderedStream().toList(),
+                    objectMapper.getIfAvailable(ObjectMapper::new),
+                    entityOperations.getIfAvailable(),
+                    properties
+            );
+        }
+    }
+}
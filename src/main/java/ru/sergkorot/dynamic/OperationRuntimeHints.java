@@ -0,0 +1,50 @@
+package ru.sergkorot.dynamic;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.facet.FacetCount;
+import ru.sergkorot.dynamic.function.OperationFunctionContributor;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.PageAttribute;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * @author Sergey Korotaev
+ * Reflection and resource hints for native images: search models are read and written by Jackson
+ * and Hibernate functions are loaded by service loader, connections of replicas and statements of slow searches are tracked by JDK proxies
+ */
+class OperationRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerTypes(
+                TypeReference.listOf(BaseSearchParam.class, ComplexSearchParam.class, PageAttribute.class),
+                hint -> hint.withMembers(
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS,
+                        MemberCategory.DECLARED_FIELDS
+                )
+        );
+        hints.reflection().registerTypes(
+                TypeReference.listOf(GlueOperation.class, NestedOperation.class),
+                hint -> hint.withMembers(MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.PUBLIC_FIELDS)
+        );
+        hints.reflection().registerTypes(
+                TypeReference.listOf(CountedPage.class, FacetCount.class),
+                hint -> hint.withMembers(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+        );
+        hints.reflection().registerType(OperationFunctionContributor.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.proxies().registerJdkProxy(Connection.class);
+        hints.proxies().registerJdkProxy(PreparedStatement.class);
+        hints.resources().registerPattern("META-INF/services/org.hibernate.boot.model.FunctionContributor");
+    }
+}
@@ -0,0 +1,86 @@
+package ru.sergkorot.dynamic.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.sergkorot.dynamic.enums.OverBudgetAction;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of cost estimation and admission of search requests
+ * @see SearchAdmissionController
+ * @see SearchCostEstimator
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.admission")
+public class AdmissionProperties {
+
+    /**
+     * Estimate cost of search requests and limit expensive ones
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum estimated cost of one request
+     */
+    private double maxCost = 1000;
+
+    /**
+     * Action for requests above {@link #maxCost}
+     */
+    private OverBudgetAction overBudget = OverBudgetAction.REJECT;
+
+    /**
+     * Requests with estimated cost from this value are heavy and are executed within {@link #maxConcurrentHeavy}
+     */
+    private double heavyCost = 100;
+
+    /**
+     * Maximum number of concurrently executed heavy requests per entity
+     */
+    private int maxConcurrentHeavy = 4;
+
+    /**
+     * Time of waiting for free slot of heavy requests, zero rejects request at once
+     */
+    private Duration acquireTimeout = Duration.ZERO;
+
+    /**
+     * Cost of each condition
+     */
+    private double conditionCost = 1;
+
+    /**
+     * Cost of each value of in and notIn operations
+     */
+    private double inValueCost = 0.01;
+
+    /**
+     * Cost of nested (nst:) operation, is multiplied by its nesting level
+     */
+    private double nestedCost = 20;
+
+    /**
+     * Cost of like and contains operations which are rendered with leading wildcard and can not use B-tree index
+     */
+    private double leadingWildcardCost = 25;
+
+    /**
+     * Cost of condition on field without index, is applied only to entities of metamodel
+     */
+    private double unindexedFieldCost = 10;
+
+    /**
+     * Read indexes of entity tables from the database at startup in addition to indexes of the mapping
+     */
+    private boolean inspectDatabase = true;
+
+    /**
+     * Indexed fields by simple or fully qualified name of entity class in addition to indexes of the mapping and the database
+     */
+    private Map<String, List<String>> indexedFields = new HashMap<>();
+}
@@ -0,0 +1,157 @@
+package ru.sergkorot.dynamic.admission;
+
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.enums.OverBudgetAction;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sergey Korotaev
+ * Admission control of search requests. Cost of parsed request is estimated before any SQL is built,
+ * requests above {@code max-cost} are rejected or downgraded to heavy ones and heavy requests are executed
+ * only within limit of concurrent heavy searches per entity (bulkhead)
+ * @see AdmissionProperties
+ * @see SearchCostEstimator
+ */
+public class SearchAdmissionController {
+
+    private static final String UNKNOWN_ENTITY = "unknown";
+
+    private final AdmissionProperties properties;
+    private final SearchCostEstimator costEstimator;
+    private final OperationMetrics operationMetrics;
+    private final Map<Object, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+    public SearchAdmissionController(AdmissionProperties properties,
+                                     @Nullable TextMatchStrategy textMatchStrategy,
+                                     @Nullable OperationMetrics operationMetrics) {
+        this(properties, textMatchStrategy, operationMetrics, new EntityIndexes(properties.getIndexedFields()));
+    }
+
+    public SearchAdmissionController(AdmissionProperties properties,
+                                     @Nullable TextMatchStrategy textMatchStrategy,
+                                     @Nullable OperationMetrics operationMetrics,
+                                     EntityIndexes entityIndexes) {
+        this.properties = properties;
+        this.costEstimator = new SearchCostEstimator(properties, textMatchStrategy, entityIndexes);
+        this.operationMetrics = Objects.requireNonNullElse(operationMetrics, OperationMetrics.NOOP);
+    }
+
+    /**
+     * Check cost of request which is only built and not executed by operation service
+     *
+     * @param entityClass - the entity for which the request is being built or null if it is unknown
+     * @param tree        - parsed request
+     * @throws SearchRejectedException if cost is above maximum and over budget requests are rejected
+     */
+    public void check(@Nullable Class<?> entityClass, GroupNode tree) {
+        if (properties.isEnabled()) {
+            checkCost(entityClass, tree);
+        }
+    }
+
+    /**
+     * Admit request for execution. Heavy requests hold slot of the entity until admission is closed
+     *
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed request
+     * @return admission which must be closed after execution
+     * @throws SearchRejectedException if cost is above maximum and over budget requests are rejected
+     *                                 or all slots of heavy requests are busy
+     */
+    public Admission admit(Class<?> entityClass, GroupNode tree) {
+        if (!properties.isEnabled()) {
+            return Admission.NOOP;
+        }
+        return acquire(entityClass, checkCost(entityClass, tree));
+    }
+
+    /**
+     * Admit requests of one batch for execution. Cost of each request is checked and the batch holds
+     * single slot of heavy requests of the entity if any of its requests is heavy, so requests of the batch
+     * do not compete with each other for slots
+     *
+     * @param entityClass - the entity for which the requests are being built
+     * @param trees       - parsed requests of the batch
+     * @return admission which must be closed after execution of the whole batch
+     * @throws SearchRejectedException if cost of any request is above maximum and over budget requests are rejected
+     *                                 or all slots of heavy requests are busy
+     */
+    public Admission admitAll(Class<?> entityClass, Collection<GroupNode> trees) {
+        if (!properties.isEnabled()) {
+            return Admission.NOOP;
+        }
+        double cost = 0;
+        for (GroupNode tree : trees) {
+            cost = Math.max(cost, checkCost(entityClass, tree));
+        }
+        return acquire(entityClass, cost);
+    }
+
+    private Admission acquire(Class<?> entityClass, double cost) {
+        if (cost < properties.getHeavyCost() && cost <= properties.getMaxCost()) {
+            return Admission.NOOP;
+        }
+
+        Semaphore bulkhead = bulkheads.computeIfAbsent(entityClass, key -> new Semaphore(properties.getMaxConcurrentHeavy()));
+        if (!tryAcquire(bulkhead)) {
+            reject(SearchRejectedException.Reason.CONCURRENCY, cost, String.format(
+                    "too many concurrent heavy searches of %s, limit is %d", entityClass.getSimpleName(), properties.getMaxConcurrentHeavy()));
+        }
+        return bulkhead::release;
+    }
+
+    private double checkCost(Class<?> entityClass, GroupNode tree) {
+        double cost = costEstimator.estimate(entityClass, tree);
+        operationMetrics.recordCost(cost);
+        if (cost > properties.getMaxCost() && properties.getOverBudget() == OverBudgetAction.REJECT) {
+            reject(SearchRejectedException.Reason.COST, cost, String.format(
+                    "search request of %s is too expensive: cost %.1f is above %.1f",
+                    entityClass == null ? UNKNOWN_ENTITY : entityClass.getSimpleName(), cost, properties.getMaxCost()));
+        }
+        return cost;
+    }
+
+    private boolean tryAcquire(Semaphore bulkhead) {
+        long timeout = properties.getAcquireTimeout().toNanos();
+        if (timeout <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(SearchRejectedException.Reason reason, double cost, String message) {
+        operationMetrics.recordRejection(reason.name().toLowerCase());
+        throw new SearchRejectedException(reason, cost, message);
+    }
+
+    /**
+     * Admitted request, closing releases slot of heavy requests
+     */
+    @FunctionalInterface
+    public interface Admission extends AutoCloseable {
+
+        /**
+         * Admission of not heavy request which holds nothing
+         */
+        Admission NOOP = () -> {
+        };
+
+        @Override
+        void close();
+    }
+}
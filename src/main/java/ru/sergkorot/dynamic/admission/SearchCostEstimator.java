@@ -0,0 +1,105 @@
+package ru.sergkorot.dynamic.admission;
+
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
+
+/**
+ * @author Sergey Korotaev
+ * Estimation of search request cost by parsed tree before any SQL is built.
+ * Cost is a sum of weights from {@link AdmissionProperties}: each condition, each value of in lists,
+ * nested operations by their nesting level, like and contains with leading wildcard and conditions
+ * on fields of the entity without index
+ */
+public class SearchCostEstimator {
+
+    private final AdmissionProperties properties;
+    private final TextMatchStrategy textMatchStrategy;
+    private final EntityIndexes entityIndexes;
+
+    public SearchCostEstimator(AdmissionProperties properties, @Nullable TextMatchStrategy textMatchStrategy) {
+        this(properties, textMatchStrategy, new EntityIndexes(properties.getIndexedFields()));
+    }
+
+    public SearchCostEstimator(AdmissionProperties properties,
+                               @Nullable TextMatchStrategy textMatchStrategy,
+                               EntityIndexes entityIndexes) {
+        this.properties = properties;
+        this.textMatchStrategy = textMatchStrategy;
+        this.entityIndexes = entityIndexes;
+    }
+
+    /**
+     * Estimate cost of request
+     *
+     * @param entityClass - the entity for which the request is being built or null if it is unknown
+     * @param tree        - parsed request
+     * @return estimated cost
+     */
+    public double estimate(@Nullable Class<?> entityClass, GroupNode tree) {
+        return estimateGroup(tree, entityIndexes.isEntity(entityClass) ? entityClass : null, 0);
+    }
+
+    private double estimateGroup(GroupNode group, Class<?> entityClass, int level) {
+        double cost = 0;
+        for (SearchNode child : group.children()) {
+            cost += estimateNode(child, entityClass, level);
+        }
+        return cost;
+    }
+
+    private double estimateNode(SearchNode node, Class<?> entityClass, int level) {
+        if (node instanceof GroupNode group) {
+            return estimateGroup(group, entityClass, level);
+        }
+        if (node instanceof NestedNode nested) {
+            return properties.getConditionCost()
+                    + fieldCost(nested.field(), entityClass)
+                    + properties.getNestedCost() * (level + 1)
+                    + estimateGroup(nested.group(), entityClass, level + 1);
+        }
+        if (node instanceof ConditionNode condition) {
+            if (condition.manual()) {
+                return properties.getConditionCost();
+            }
+            return properties.getConditionCost()
+                    + fieldCost(condition.field(), entityClass)
+                    + valuesCost(condition);
+        }
+        return 0;
+    }
+
+    private double fieldCost(String field, Class<?> entityClass) {
+        if (entityClass == null || field.indexOf('.') >= 0 || entityIndexes.isIndexed(entityClass, field)) {
+            return 0;
+        }
+        return properties.getUnindexedFieldCost();
+    }
+
+    private double valuesCost(ConditionNode condition) {
+        if (condition.value() == null) {
+            return 0;
+        }
+        return switch (condition.operation()) {
+            case "in", "notIn" -> properties.getInValueCost() * collectionCast(condition.value()).size();
+            case "like" -> {
+                String pattern = condition.value().toString();
+                boolean leadingWildcard = pattern.contains("%")
+                        ? pattern.startsWith("%") || pattern.startsWith("_")
+                        : textMatchStrategy == null || textMatchStrategy.likeModeFor(condition.field()) == TextMatchMode.SUBSTRING;
+                yield leadingWildcard ? properties.getLeadingWildcardCost() : 0;
+            }
+            case "contains" -> textMatchStrategy == null || textMatchStrategy.containsModeFor(condition.field()) == TextMatchMode.SUBSTRING
+                    ? properties.getLeadingWildcardCost()
+                    : 0;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package ru.sergkorot.dynamic.admission;
+
+/**
+ * @author Sergey Korotaev
+ * Search request is not admitted for execution
+ * @see SearchAdmissionController
+ */
+public class SearchRejectedException extends RuntimeException {
+
+    private final Reason reason;
+    private final double cost;
+
+    public SearchRejectedException(Reason reason, double cost, String message) {
+        super(message);
+        this.reason = reason;
+        this.cost = cost;
+    }
+
+    /**
+     * @return reason of rejection
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return estimated cost of request
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Reason of rejection
+     */
+    public enum Reason {
+
+        /**
+         * Estimated cost of request is above maximum, client should narrow request
+         */
+        COST,
+
+        /**
+         * All slots of heavy requests are busy, client may retry later
+         */
+        CONCURRENCY,
+
+        /**
+         * Condition of request can not use index of the database, see index audit
+         */
+        INDEX
+    }
+}
@@ -0,0 +1,39 @@
+package ru.sergkorot.dynamic.ast;
+
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * @author Sergey Korotaev
+ * Condition by field, operation and value
+ *
+ * @param field     - field name or dotted path
+ * @param operation - operation name
+ * @param value     - value of search param
+ * @param manual    - true if condition is built by manual operation provider of the field
+ */
+public record ConditionNode(String field, String operation, Object value, boolean manual) implements SearchNode {
+
+    public ConditionNode {
+        if (value instanceof Collection<?> collection) {
+            value = Collections.unmodifiableList(new ArrayList<>(collection));
+        }
+    }
+
+    /**
+     * Create search param for operation providers, new param is created for each call,
+     * so providers can not change the node
+     *
+     * @return BaseSearchParam
+     */
+    public BaseSearchParam toParam() {
+        BaseSearchParam param = new BaseSearchParam();
+        param.setName(field);
+        param.setOperation(operation);
+        param.setValue(value);
+        return param;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.sergkorot.dynamic.ast;
+
+/**
+ * @author Sergey Korotaev
+ * Condition which is known without data: always true ({@code findAll}) or always false ({@code findNothing}).
+ * Is produced by simplification of the tree
+ *
+ * @param value - result of the condition
+ * @see SearchTreeSimplifier
+ */
+public record ConstantNode(boolean value) implements SearchNode {
+
+    /**
+     * Condition which matches everything
+     */
+    public static final ConstantNode TRUE = new ConstantNode(true);
+
+    /**
+     * Condition which matches nothing
+     */
+    public static final ConstantNode FALSE = new ConstantNode(false);
+}
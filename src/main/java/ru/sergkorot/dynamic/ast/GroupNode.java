@@ -0,0 +1,49 @@
+package ru.sergkorot.dynamic.ast;
+
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Group of nodes glued by condition. Root of complex request is group of groups glued by external glue
+ *
+ * @param glue     - condition for gluing children
+ * @param children - nodes of the group
+ */
+public record GroupNode(GlueOperation glue, List<SearchNode> children) implements SearchNode {
+
+    public GroupNode {
+        glue = glue == null ? GlueOperation.AND : glue;
+        children = List.copyOf(children);
+    }
+
+    /**
+     * Remove conditions on the field which restrict the whole group, i.e. conditions reached only through and.
+     * Conditions under or are kept, because without them alternatives of or would be changed
+     *
+     * @param field - field name or dotted path
+     * @return group without conditions on the field or this group if there are no such conditions
+     */
+    public GroupNode withoutConditionsOn(String field) {
+        if (glue == GlueOperation.OR && children.size() > 1) {
+            return this;
+        }
+        List<SearchNode> remaining = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (SearchNode child : children) {
+            if ((child instanceof ConditionNode condition && field.equals(condition.field()))
+                    || (child instanceof NestedNode nested && field.equals(nested.field()))) {
+                changed = true;
+            } else if (child instanceof GroupNode group) {
+                GroupNode reduced = group.withoutConditionsOn(field);
+                changed |= reduced != group;
+                remaining.add(reduced);
+            } else {
+                remaining.add(child);
+            }
+        }
+        return changed ? new GroupNode(glue, remaining) : this;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.sergkorot.dynamic.ast;
+
+import ru.sergkorot.dynamic.enums.NestedOperation;
+
+/**
+ * @author Sergey Korotaev
+ * Nested (nst:) condition: field of the entity is compared with the same field of entities matched by nested group
+ *
+ * @param field     - field name or dotted path
+ * @param operation - nested operation
+ * @param group     - conditions of nested query
+ */
+public record NestedNode(String field, NestedOperation operation, GroupNode group) implements SearchNode {
+}
@@ -0,0 +1,10 @@
+package ru.sergkorot.dynamic.ast;
+
+/**
+ * @author Sergey Korotaev
+ * Node of parsed search request. Tree is immutable and validated, so it can be parsed once
+ * and compiled into specifications or query templates many times
+ * @see SearchRequestParser
+ */
+public sealed interface SearchNode permits GroupNode, ConditionNode, NestedNode, ConstantNode {
+}
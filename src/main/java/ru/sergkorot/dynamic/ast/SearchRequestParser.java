@@ -0,0 +1,131 @@
+package ru.sergkorot.dynamic.ast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.Operation;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Sergey Korotaev
+ * Parser of search request models into immutable tree. Field names and operations are validated, nested payloads
+ * are converted once, search params of the request are not changed. Operations of plain and manual fields
+ * must be supported by operation provider: standard operations ({@code eq}, {@code in}, {@code lt}...)
+ * and public methods of the provider which return {@link Operation}, as {@code OperationService.buildOperation} resolves them
+ * @see SearchNode
+ */
+public final class SearchRequestParser {
+
+    private static final String NESTED = "nst:";
+
+    /**
+     * Operations which are resolved by {@code OperationService.buildOperation} without reflection
+     */
+    public static final Set<String> STANDARD_OPERATIONS = Set.of("eq", "notEq", "like", "in", "notIn", "isNull", "lt", "gt", "ge", "le");
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> manualFields;
+    private final Set<String> operations;
+
+    /**
+     * @param objectMapper - mapper for nested search params
+     * @param manualFields - fields which are processed by manual operation providers
+     * @param operations   - operations of plain and manual fields
+     * @see #operationsOf(OperationProvider)
+     */
+    public SearchRequestParser(ObjectMapper objectMapper, Set<String> manualFields, Set<String> operations) {
+        this.objectMapper = objectMapper;
+        this.manualFields = Set.copyOf(manualFields);
+        this.operations = Set.copyOf(operations);
+    }
+
+    /**
+     * @param operationProvider - provider of operations
+     * @return standard operations and names of public methods of the provider without parameters which return {@link Operation}
+     */
+    public static Set<String> operationsOf(OperationProvider<?> operationProvider) {
+        Set<String> operations = new HashSet<>(STANDARD_OPERATIONS);
+        for (Method method : operationProvider.getClass().getMethods()) {
+            if (method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers())
+                    && Operation.class.isAssignableFrom(method.getReturnType())) {
+                operations.add(method.getName());
+            }
+        }
+        return Set.copyOf(operations);
+    }
+
+    /**
+     * Parse complex search request
+     *
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex params between each other
+     * @return group of groups by complex params
+     * @throws IllegalArgumentException if request is not valid
+     */
+    public GroupNode parseComplex(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        List<SearchNode> groups = new ArrayList<>(CollectionUtils.isEmpty(complexSearchParams) ? 0 : complexSearchParams.size());
+        if (!CollectionUtils.isEmpty(complexSearchParams)) {
+            for (ComplexSearchParam complexSearchParam : complexSearchParams) {
+                if (complexSearchParam == null) {
+                    throw new IllegalArgumentException("complex search param is required");
+                }
+                groups.add(parseBase(complexSearchParam.getBaseSearchParams(), complexSearchParam.getInternalGlue()));
+            }
+        }
+        return new GroupNode(externalGlue, groups);
+    }
+
+    /**
+     * Parse base search request
+     *
+     * @param baseSearchParams - model for base search request
+     * @param glue             - condition for gluing params
+     * @return group of conditions
+     * @throws IllegalArgumentException if request is not valid
+     */
+    public GroupNode parseBase(List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
+        List<SearchNode> conditions = new ArrayList<>(CollectionUtils.isEmpty(baseSearchParams) ? 0 : baseSearchParams.size());
+        if (!CollectionUtils.isEmpty(baseSearchParams)) {
+            for (BaseSearchParam param : baseSearchParams) {
+                conditions.add(parseParam(param));
+            }
+        }
+        return new GroupNode(glue, conditions);
+    }
+
+    private SearchNode parseParam(BaseSearchParam param) {
+        if (param == null || param.getName() == null || param.getName().isBlank()) {
+            throw new IllegalArgumentException("field name of search param is required");
+        }
+        String name = param.getName();
+        String operation = param.getOperation();
+        if (operation == null || operation.isBlank()) {
+            throw new IllegalArgumentException(String.format("operation for field %s is required", name));
+        }
+
+        if (!operation.startsWith(NESTED) || manualFields.contains(name)) {
+            if (!operations.contains(operation)) {
+                throw new IllegalArgumentException(String.format("operation %s for field %s not supported", operation, name));
+            }
+            return new ConditionNode(name, operation, param.getValue(), manualFields.contains(name));
+        }
+
+        NestedOperation nestedOperation = NestedOperation.of(operation.substring(NESTED.length()));
+        if (param.getValue() == null) {
+            throw new IllegalArgumentException(String.format("nested search params for field %s are required", name));
+        }
+        ComplexSearchParam nestedParam = objectMapper.convertValue(param.getValue(), ComplexSearchParam.class);
+        return new NestedNode(name, nestedOperation, parseBase(nestedParam.getBaseSearchParams(), nestedParam.getInternalGlue()));
+    }
+}
@@ -0,0 +1,256 @@
+package ru.sergkorot.dynamic.ast;
+
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.metamodel.EntityAttribute;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.cast;
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
+
+/**
+ * @author Sergey Korotaev
+ * Rewrite of parsed search request into equivalent smaller tree:
+ * <ul>
+ *     <li>nested groups with the same glue and groups of single node are flattened</li>
+ *     <li>always true conditions are removed from and, always false from or; the whole group is folded
+ *     when its result is known without data</li>
+ *     <li>eq and in on the same field under or are merged into single in, notIn under and into single notIn</li>
+ *     <li>eq and in on the same field under and are intersected, if values are converted to attribute types</li>
+ *     <li>duplicated conditions are removed</li>
+ * </ul>
+ * Conditions of manual operation providers are not changed
+ */
+public final class SearchTreeSimplifier {
+
+    private static final String EQ = "eq";
+    private static final String IN = "in";
+    private static final String NOT_IN = "notIn";
+
+    private final Class<?> entityClass;
+    private final EntityAttributeRegistry attributeRegistry;
+
+    private SearchTreeSimplifier(Class<?> entityClass, EntityAttributeRegistry attributeRegistry) {
+        this.entityClass = entityClass;
+        this.attributeRegistry = attributeRegistry;
+    }
+
+    /**
+     * Simplify tree without knowledge of entity. Values of the same field are merged only by union
+     * and only if they have the same java type
+     *
+     * @param tree - parsed request
+     * @return simplified request
+     */
+    public static GroupNode simplify(GroupNode tree) {
+        return new SearchTreeSimplifier(null, null).simplifyRoot(tree);
+    }
+
+    /**
+     * Simplify tree of the entity. If entity is registered in attribute registry, fields are checked,
+     * values are converted to attribute types and conditions on the same field under and are intersected
+     *
+     * @param tree              - parsed request
+     * @param entityClass       - the entity for which the request is being built
+     * @param attributeRegistry - registry for values conversion
+     * @return simplified request
+     * @throws IllegalArgumentException if entity has no field of condition
+     */
+    public static GroupNode simplify(GroupNode tree, Class<?> entityClass, @Nullable EntityAttributeRegistry attributeRegistry) {
+        return attributeRegistry != null && attributeRegistry.isEntity(entityClass)
+                ? new SearchTreeSimplifier(entityClass, attributeRegistry).simplifyRoot(tree)
+                : simplify(tree);
+    }
+
+    /**
+     * @param tree - simplified request
+     * @return true if request matches nothing and database can be skipped
+     */
+    public static boolean isAlwaysFalse(GroupNode tree) {
+        return tree.children().size() == 1 && ConstantNode.FALSE.equals(tree.children().get(0));
+    }
+
+    private GroupNode simplifyRoot(GroupNode tree) {
+        SearchNode node = simplifyGroup(tree);
+        if (node instanceof GroupNode group) {
+            return group;
+        }
+        if (ConstantNode.TRUE.equals(node)) {
+            return new GroupNode(tree.glue(), List.of());
+        }
+        return new GroupNode(tree.glue(), List.of(node));
+    }
+
+    private SearchNode simplify(SearchNode node) {
+        validate(node);
+        if (node instanceof GroupNode group) {
+            return simplifyGroup(group);
+        }
+        if (node instanceof NestedNode nested) {
+            return simplifyNested(nested);
+        }
+        if (node instanceof ConditionNode condition && !condition.manual()
+                && (IN.equals(condition.operation()) || NOT_IN.equals(condition.operation()))
+                && condition.value() != null && collectionCast(condition.value()).isEmpty()) {
+            return ConstantNode.FALSE;
+        }
+        return node;
+    }
+
+    /**
+     * Reject unknown fields of the entity before specification is built
+     */
+    private void validate(SearchNode node) {
+        if (attributeRegistry == null) {
+            return;
+        }
+        if (node instanceof ConditionNode condition && !condition.manual()) {
+            attributeRegistry.get(entityClass, condition.field());
+        } else if (node instanceof NestedNode nested) {
+            attributeRegistry.get(entityClass, nested.field());
+        }
+    }
+
+    private SearchNode simplifyNested(NestedNode node) {
+        SearchNode group = simplifyGroup(node.group());
+        if (ConstantNode.FALSE.equals(group)) {
+            return switch (node.operation()) {
+                case IN, EQUAL, NOT_EQUAL, LESS_THAN, GREATER_THAN, LESS_THAN_OR_EQUALS, GREATER_THAN_OR_EQUALS -> ConstantNode.FALSE;
+                case NOT_IN -> ConstantNode.TRUE;
+                default -> new NestedNode(node.field(), node.operation(), asGroup(group));
+            };
+        }
+        return new NestedNode(node.field(), node.operation(), asGroup(group));
+    }
+
+    private SearchNode simplifyGroup(GroupNode group) {
+        boolean and = group.glue() != GlueOperation.OR;
+        ConstantNode neutral = and ? ConstantNode.TRUE : ConstantNode.FALSE;
+        ConstantNode absorbing = and ? ConstantNode.FALSE : ConstantNode.TRUE;
+
+        List<SearchNode> flat = new ArrayList<>(group.children().size());
+        boolean empty = group.children().isEmpty();
+        for (SearchNode child : group.children()) {
+            SearchNode simplified = simplify(child);
+            if (absorbing.equals(simplified)) {
+                return absorbing;
+            }
+            if (simplified instanceof GroupNode nested && nested.glue() == group.glue()) {
+                flat.addAll(nested.children());
+            } else if (!neutral.equals(simplified)) {
+                flat.add(simplified);
+            }
+        }
+        if (empty) {
+            return ConstantNode.TRUE;
+        }
+
+        List<SearchNode> children = merge(flat, and);
+        if (children.contains(absorbing)) {
+            return absorbing;
+        }
+        if (children.isEmpty()) {
+            return neutral;
+        }
+        return children.size() == 1 ? children.get(0) : new GroupNode(group.glue(), children);
+    }
+
+    private List<SearchNode> merge(List<SearchNode> nodes, boolean and) {
+        Map<String, List<ConditionNode>> byField = new LinkedHashMap<>();
+        Set<SearchNode> result = new LinkedHashSet<>();
+        for (SearchNode node : nodes) {
+            if (node instanceof ConditionNode condition && isMergeable(condition, and)) {
+                List<ConditionNode> conditions = byField.computeIfAbsent(condition.field() + ':' + mergeKey(condition, and), k -> new ArrayList<>());
+                if (conditions.isEmpty()) {
+                    result.add(condition);
+                }
+                conditions.add(condition);
+            } else {
+                result.add(node);
+            }
+        }
+
+        List<SearchNode> merged = new ArrayList<>(result.size());
+        for (SearchNode node : result) {
+            if (node instanceof ConditionNode condition && isMergeable(condition, and)) {
+                List<ConditionNode> conditions = byField.get(condition.field() + ':' + mergeKey(condition, and));
+                merged.addAll(conditions.size() == 1 ? conditions : mergeConditions(conditions, and));
+            } else {
+                merged.add(node);
+            }
+        }
+        return merged;
+    }
+
+    private boolean isMergeable(ConditionNode condition, boolean and) {
+        if (condition.manual() || condition.value() == null) {
+            return false;
+        }
+        String operation = condition.operation();
+        return EQ.equals(operation) || IN.equals(operation) || (and && NOT_IN.equals(operation));
+    }
+
+    private static String mergeKey(ConditionNode condition, boolean and) {
+        return and && NOT_IN.equals(condition.operation()) ? NOT_IN : IN;
+    }
+
+    /**
+     * Values are converted only to compare them, merged conditions keep raw values of the request
+     * as elements of list, so they are converted once when predicate is built
+     */
+    private List<SearchNode> mergeConditions(List<ConditionNode> conditions, boolean and) {
+        String field = conditions.get(0).field();
+        EntityAttribute attribute = attributeRegistry == null ? null : attributeRegistry.get(entityClass, field);
+        List<Map<Object, Object>> valueSets = new ArrayList<>(conditions.size());
+        Class<?> valueType = null;
+        for (ConditionNode condition : conditions) {
+            Collection<?> values = EQ.equals(condition.operation()) ? List.of(cast(condition.value())) : collectionCast(condition.value());
+            Map<Object, Object> rawByConverted = new LinkedHashMap<>();
+            for (Object value : values) {
+                Object element = attribute == null ? value : attribute.convert(value);
+                if (element == null || (valueType != null && valueType != element.getClass())) {
+                    return List.copyOf(new LinkedHashSet<>(conditions));
+                }
+                valueType = element.getClass();
+                rawByConverted.putIfAbsent(element, value);
+            }
+            valueSets.add(rawByConverted);
+        }
+
+        boolean notIn = NOT_IN.equals(conditions.get(0).operation());
+        if (!and || notIn) {
+            Map<Object, Object> union = new LinkedHashMap<>();
+            valueSets.forEach(values -> values.forEach(union::putIfAbsent));
+            return List.of(new ConditionNode(field, notIn ? NOT_IN : IN, List.copyOf(union.values()), false));
+        }
+        if (attribute == null) {
+            return List.copyOf(new LinkedHashSet<>(conditions));
+        }
+
+        Map<Object, Object> intersection = new LinkedHashMap<>(valueSets.get(0));
+        valueSets.forEach(values -> intersection.keySet().retainAll(values.keySet()));
+        if (intersection.isEmpty()) {
+            return List.of(ConstantNode.FALSE);
+        }
+        return List.of(intersection.size() == 1
+                ? new ConditionNode(field, EQ, intersection.values().iterator().next(), false)
+                : new ConditionNode(field, IN, List.copyOf(intersection.values()), false));
+    }
+
+    private static GroupNode asGroup(SearchNode node) {
+        if (node instanceof GroupNode group) {
+            return group;
+        }
+        return ConstantNode.TRUE.equals(node)
+                ? new GroupNode(GlueOperation.AND, List.of())
+                : new GroupNode(GlueOperation.AND, List.of(node));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.sergkorot.dynamic.audit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Runs {@link IndexAuditor} for each persistence unit after all singletons are created
+ * and reports findings to the log, indexes of each unit are read from its own database
+ */
+public class IndexAuditListener implements SmartInitializingSingleton {
+
+    private static final Log LOG = LogFactory.getLog(IndexAuditListener.class);
+
+    private final IndexAuditor indexAuditor;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactories;
+
+    public IndexAuditListener(IndexAuditor indexAuditor, ObjectProvider<EntityManagerFactory> entityManagerFactories) {
+        this.indexAuditor = indexAuditor;
+        this.entityManagerFactories = entityManagerFactories;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        entityManagerFactories.orderedStream().forEach(entityManagerFactory -> {
+            List<IndexFinding> findings = indexAuditor.audit(entityManagerFactory);
+            findings.forEach(finding -> LOG.warn(String.format("index audit: %s.%s %s - %s, %s",
+                    finding.entity(), finding.field(), finding.operation(), finding.problem(), finding.detail())));
+            LOG.info(String.format("index audit completed with %d findings", findings.size()));
+        });
+    }
+}
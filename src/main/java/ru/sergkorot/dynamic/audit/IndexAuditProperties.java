@@ -0,0 +1,57 @@
+package ru.sergkorot.dynamic.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of audit of indexes for searchable and sortable fields
+ * @see IndexAuditor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.index-audit")
+public class IndexAuditProperties {
+
+    /**
+     * Audit declared fields on startup and report operations which can not use index
+     */
+    private boolean enabled = false;
+
+    /**
+     * Read indexes of tables by JDBC {@code DatabaseMetaData.getIndexInfo} in addition to mapping annotations
+     */
+    private boolean inspectDatabase = true;
+
+    /**
+     * Reject search requests with conditions which can not use index, only declared fields and operations are checked
+     */
+    private boolean reject = false;
+
+    /**
+     * Searchable and sortable fields by simple or fully qualified name of entity class, fully qualified name
+     * is needed if persistence unit has entities with the same simple name
+     */
+    private Map<String, AuditedEntity> entities = new LinkedHashMap<>();
+
+    /**
+     * Fields of entity exposed to clients
+     */
+    @Data
+    public static class AuditedEntity {
+
+        /**
+         * Operations by field name or dotted path, for example {@code name: [eq, like]}
+         */
+        private Map<String, List<String>> searchable = new LinkedHashMap<>();
+
+        /**
+         * Field names or dotted paths which can be used for sorting
+         */
+        private List<String> sortable = new ArrayList<>();
+    }
+}
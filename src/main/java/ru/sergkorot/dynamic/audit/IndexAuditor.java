@@ -0,0 +1,312 @@
+package ru.sergkorot.dynamic.audit;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.admission.SearchRejectedException;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.metamodel.TableIndexes;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Sergey Korotaev
+ * Audit of indexes for declared searchable and sortable fields of entities. Columns of fields are resolved
+ * by JPA metamodel and Hibernate mapping, indexes of tables are read by {@link EntityIndexes}: identifiers, unique
+ * columns, {@code @Table} indexes and unique constraints and, if enabled, indexes of the database of the persistence unit.
+ * Comparisons need index with the column as the first column, like and contains are checked according to their
+ * text match mode. With {@code reject} conditions on audited fields which can not use index are rejected
+ * @see IndexAuditProperties
+ * @see IndexFinding
+ */
+public class IndexAuditor {
+
+    private static final String SORT = "sort";
+    private static final String NESTED = "nst:";
+
+    private final IndexAuditProperties properties;
+    private final TextMatchStrategy textMatchStrategy;
+    private final OperationMetrics operationMetrics;
+    private final EntityIndexes entityIndexes;
+    private final Map<Class<?>, Map<String, Audit>> audits = new ConcurrentHashMap<>();
+    private final List<IndexFinding> findings = new ArrayList<>();
+
+    public IndexAuditor(IndexAuditProperties properties,
+                        @Nullable TextMatchStrategy textMatchStrategy,
+                        @Nullable OperationMetrics operationMetrics) {
+        this.properties = properties;
+        this.textMatchStrategy = textMatchStrategy;
+        this.operationMetrics = Objects.requireNonNullElse(operationMetrics, OperationMetrics.NOOP);
+        this.entityIndexes = new EntityIndexes(Map.of(), properties.isInspectDatabase());
+    }
+
+    /**
+     * Audit declared entities of the persistence unit, indexes of the database are read by connection provider
+     * of the persistence unit
+     *
+     * @param entityManagerFactory - factory of the persistence unit
+     * @return findings of the persistence unit
+     * @throws IllegalArgumentException if declared field is not found in the entity or simple name of declared entity
+     *                                  is ambiguous, entities of other persistence units are skipped
+     */
+    public List<IndexFinding> audit(EntityManagerFactory entityManagerFactory) {
+        Metamodel metamodel = entityManagerFactory.getMetamodel();
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        List<IndexFinding> unitFindings = new ArrayList<>();
+        boolean registered = false;
+
+        for (Map.Entry<String, IndexAuditProperties.AuditedEntity> declared : properties.getEntities().entrySet()) {
+            Class<?> entityClass = findEntity(metamodel, declared.getKey());
+            if (entityClass == null) {
+                continue;
+            }
+            if (!registered) {
+                entityIndexes.register(entityManagerFactory);
+                registered = true;
+            }
+            Map<String, Audit> entityAudits = new ConcurrentHashMap<>();
+            declared.getValue().getSearchable().forEach((field, operations) -> {
+                for (String operation : operations) {
+                    audit(metamodel, sessionFactory, entityClass, field, operation)
+                            .ifPresent(audit -> {
+                                entityAudits.put(key(field, operation), audit);
+                                unitFindings.add(audit.finding());
+                            });
+                }
+            });
+            for (String field : declared.getValue().getSortable()) {
+                audit(metamodel, sessionFactory, entityClass, field, SORT)
+                        .ifPresent(audit -> unitFindings.add(audit.finding()));
+            }
+            audits.put(entityClass, entityAudits);
+        }
+
+        synchronized (findings) {
+            findings.addAll(unitFindings);
+        }
+        return unitFindings;
+    }
+
+    /**
+     * @return findings of all audited persistence units
+     */
+    public List<IndexFinding> getFindings() {
+        synchronized (findings) {
+            return List.copyOf(findings);
+        }
+    }
+
+    /**
+     * Reject request if it has condition on audited field which can not use index
+     *
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed and simplified request
+     * @throws SearchRejectedException if rejection is enabled and condition can not use index
+     */
+    public void check(Class<?> entityClass, GroupNode tree) {
+        if (!properties.isReject()) {
+            return;
+        }
+        Map<String, Audit> entityAudits = audits.get(entityClass);
+        if (entityAudits != null && !entityAudits.isEmpty()) {
+            check(entityAudits, tree);
+        }
+    }
+
+    private void check(Map<String, Audit> entityAudits, SearchNode node) {
+        if (node instanceof GroupNode group) {
+            group.children().forEach(child -> check(entityAudits, child));
+        } else if (node instanceof NestedNode nested) {
+            reject(entityAudits.get(key(nested.field(), NESTED + nested.operation().getOperationName())), null);
+            check(entityAudits, nested.group());
+        } else if (node instanceof ConditionNode condition && !condition.manual()) {
+            reject(entityAudits.get(key(condition.field(), condition.operation())), condition.value());
+        }
+    }
+
+    private void reject(Audit audit, Object value) {
+        if (audit == null || audit.accepts(value)) {
+            return;
+        }
+        IndexFinding finding = audit.finding();
+        operationMetrics.recordRejection(SearchRejectedException.Reason.INDEX.name().toLowerCase());
+        throw new SearchRejectedException(SearchRejectedException.Reason.INDEX, 0, String.format(
+                "operation %s on field %s of %s can not use index: %s",
+                finding.operation(), finding.field(), finding.entity(), finding.detail()));
+    }
+
+    private Optional<Audit> audit(Metamodel metamodel,
+                                  SessionFactoryImplementor sessionFactory,
+                                  Class<?> entityClass,
+                                  String field,
+                                  String operation) {
+        Column column = resolve(metamodel, sessionFactory, entityClass, field);
+        if (column == null) {
+            return Optional.empty();
+        }
+        TableIndexes indexes = Objects.requireNonNullElseGet(entityIndexes.getTableIndexes(column.entityClass()), TableIndexes::new);
+        String entity = entityClass.getSimpleName();
+        String name = column.name();
+
+        return Optional.ofNullable(switch (operation) {
+            case "notEq", "notIn", "nst:notEq", "nst:notIn" -> new Audit(
+                    new IndexFinding(entity, field, operation, IndexFinding.Problem.NEGATION,
+                            String.format("negation on column %s is executed by scan", name)),
+                    false);
+            case "like" -> textAudit(entity, field, operation, name, indexes, likeMode(field));
+            case "contains" -> textAudit(entity, field, operation, name, indexes, containsMode(field));
+            default -> operation.equals(SORT) || isComparison(operation) ? leadingAudit(entity, field, operation, name, indexes) : null;
+        });
+    }
+
+    private Audit textAudit(String entity, String field, String operation, String column, TableIndexes indexes, TextMatchMode mode) {
+        return switch (mode) {
+            case PREFIX -> leadingAudit(entity, field, operation, column, indexes);
+            case SUBSTRING -> {
+                if (operation.equals("contains")) {
+                    yield new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.LEADING_WILDCARD, String.format(
+                            "substring mode renders cast(%s as text) like '%%value%%'", column)), false);
+                }
+                boolean lowerIndexed = indexes.hasFunctionIndex("lower", column);
+                yield lowerIndexed
+                        ? new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.LEADING_WILDCARD, String.format(
+                        "substring mode renders lower(%s) like '%%value%%' for values without wildcard, prefix patterns use index", column)), true)
+                        : new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.FUNCTION_WITHOUT_INDEX, String.format(
+                        "substring mode renders lower(%s) like ?, table has no index on lower(%s): %s", column, column, indexes.describe())), false);
+            }
+            default -> indexes.covers(column)
+                    ? null
+                    : new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.NO_INDEX, String.format(
+                    "%s mode needs GIN, GiST or trigram index on column %s, table has %s", mode, column, indexes.describe())), false);
+        };
+    }
+
+    private static Audit leadingAudit(String entity, String field, String operation, String column, TableIndexes indexes) {
+        int position = indexes.position(column);
+        if (position == 1) {
+            return null;
+        }
+        if (position > 1) {
+            return new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.NON_LEADING_COLUMN, String.format(
+                    "column %s is at position %d of composite indexes %s", column, position, indexes.describe())), false);
+        }
+        return new Audit(new IndexFinding(entity, field, operation, IndexFinding.Problem.NO_INDEX, String.format(
+                "column %s is not in any index, table has %s", column, indexes.describe())), false);
+    }
+
+    private static boolean isComparison(String operation) {
+        return switch (operation) {
+            case "eq", "in", "lt", "gt", "le", "ge", "isNull" -> true;
+            default -> operation.startsWith(NESTED);
+        };
+    }
+
+    private TextMatchMode likeMode(String field) {
+        return textMatchStrategy == null ? TextMatchMode.SUBSTRING : textMatchStrategy.likeModeFor(field);
+    }
+
+    private TextMatchMode containsMode(String field) {
+        return textMatchStrategy == null ? TextMatchMode.SUBSTRING : textMatchStrategy.containsModeFor(field);
+    }
+
+    private static Column resolve(Metamodel metamodel, SessionFactoryImplementor sessionFactory, Class<?> entityClass, String field) {
+        Class<?> entity = entityClass;
+        ManagedType<?> type = metamodel.managedType(entityClass);
+        StringBuilder property = new StringBuilder();
+        String[] segments = field.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            Attribute<?, ?> attribute;
+            try {
+                attribute = type.getAttribute(segments[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("field %s of index audit is not found in %s", field, entityClass.getSimpleName()), e);
+            }
+            boolean last = i == segments.length - 1;
+            if (attribute instanceof PluralAttribute<?, ?, ?> plural) {
+                if (last) {
+                    return null;
+                }
+                entity = plural.getElementType().getJavaType();
+                type = metamodel.managedType(entity);
+                property.setLength(0);
+            } else if (attribute.isAssociation() && !last) {
+                entity = attribute.getJavaType();
+                type = metamodel.managedType(entity);
+                property.setLength(0);
+            } else if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED && !last) {
+                property.append(segments[i]).append('.');
+                type = metamodel.managedType(attribute.getJavaType());
+            } else {
+                property.append(segments[i]);
+            }
+        }
+
+        EntityPersister persister = sessionFactory.getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(entity);
+        if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+            return null;
+        }
+        String[] columns = entityPersister.getPropertyColumnNames(property.toString());
+        return columns == null || columns.length == 0 ? null : new Column(entity, TableIndexes.normalize(columns[0]));
+    }
+
+    /**
+     * @param metamodel - metamodel of the persistence unit
+     * @param name      - simple or fully qualified name of entity class
+     * @return entity class or null if the persistence unit has no such entity
+     */
+    private static Class<?> findEntity(Metamodel metamodel, String name) {
+        List<Class<?>> entities = metamodel.getEntities()
+                .stream()
+                .<Class<?>>map(EntityType::getJavaType)
+                .filter(type -> type.getName().equals(name) || type.getSimpleName().equals(name))
+                .toList();
+        if (entities.size() > 1) {
+            throw new IllegalArgumentException(String.format(
+                    "entity %s of index audit is ambiguous, use fully qualified name of one of %s", name, entities));
+        }
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
+    private static String key(String field, String operation) {
+        return field + ':' + operation;
+    }
+
+    private record Column(Class<?> entityClass, String name) {
+    }
+
+    /**
+     * Finding of operation on field
+     *
+     * @param finding      - problem of operation
+     * @param lowerIndexed - for like in substring mode, prefix patterns can use index on {@code lower(column)}
+     */
+    private record Audit(IndexFinding finding, boolean lowerIndexed) {
+
+        boolean accepts(Object value) {
+            if (!lowerIndexed || value == null) {
+                return false;
+            }
+            String pattern = value.toString();
+            return pattern.contains("%") && !pattern.startsWith("%") && !pattern.startsWith("_");
+        }
+    }
+}
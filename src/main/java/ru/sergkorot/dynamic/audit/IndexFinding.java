@@ -0,0 +1,45 @@
+package ru.sergkorot.dynamic.audit;
+
+/**
+ * @author Sergey Korotaev
+ * Operation on field which can not use index of the database
+ *
+ * @param entity    - simple name of entity class
+ * @param field     - field name or dotted path
+ * @param operation - search operation or {@code sort}
+ * @param problem   - why index can not be used
+ * @param detail    - readable explanation with column and indexes
+ */
+public record IndexFinding(String entity, String field, String operation, Problem problem, String detail) {
+
+    /**
+     * Why index can not be used
+     */
+    public enum Problem {
+
+        /**
+         * Column is not in any index
+         */
+        NO_INDEX,
+
+        /**
+         * Column is only in composite indexes and not the first column of them
+         */
+        NON_LEADING_COLUMN,
+
+        /**
+         * Pattern starts with wildcard, B-tree index can not be used whatever indexes exist
+         */
+        LEADING_WILDCARD,
+
+        /**
+         * Column is wrapped by function, for example {@code lower()}, and there is no index by the same expression
+         */
+        FUNCTION_WITHOUT_INDEX,
+
+        /**
+         * Negation matches most of rows and is not searched by index
+         */
+        NEGATION
+    }
+}
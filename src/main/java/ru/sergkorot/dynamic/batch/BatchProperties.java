@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of execution of batch of named search requests
+ * @see BatchSearchExecutor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.batch")
+public class BatchProperties {
+
+    /**
+     * Number of threads executing requests of batches, is shared by all batches
+     */
+    private int parallelism = 8;
+
+    /**
+     * Maximum number of waiting requests, when queue is full request is executed by the caller thread
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Maximum time of execution of the whole batch
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+}
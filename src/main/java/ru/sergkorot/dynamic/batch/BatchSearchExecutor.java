@@ -0,0 +1,87 @@
+package ru.sergkorot.dynamic.batch;
+
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.QueryTimeoutException;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Sergey Korotaev
+ * Concurrent execution of tasks of batch by bounded pool under single deadline of the whole batch.
+ * When deadline is over or any task fails, the rest of tasks are cancelled. Queries of tasks get the rest of time
+ * as query timeout, so statements which are already executed are stopped by the database, see {@link QueryDeadline}
+ * @see BatchProperties
+ */
+public class BatchSearchExecutor implements AutoCloseable {
+
+    private final BatchProperties properties;
+    private final ExecutorService executor;
+
+    public BatchSearchExecutor(BatchProperties properties) {
+        this.properties = properties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                properties.getParallelism(),
+                properties.getParallelism(),
+                1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "operation-batch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Execute tasks concurrently and wait for all of them
+     *
+     * @param tasks - tasks by keys
+     * @param <K>   - type of keys
+     * @param <R>   - type of results
+     * @return results by keys in order of tasks
+     * @throws QueryTimeoutException if tasks are not executed in time
+     */
+    public <K, R> Map<K, R> invokeAll(Map<K, Callable<R>> tasks) {
+        long deadline = System.nanoTime() + properties.getTimeout().toNanos();
+        Map<K, Future<R>> futures = new LinkedHashMap<>();
+        try {
+            tasks.forEach((key, task) -> futures.put(key, executor.submit(ReplicaRoutingContext.propagate(QueryDeadline.within(deadline, task)))));
+            Map<K, R> results = new LinkedHashMap<>();
+            for (Map.Entry<K, Future<R>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException(String.format("batch of %d requests is not executed in %s", tasks.size(), properties.getTimeout()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("execution of batch is interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new PersistenceException("execution of batch request failed", e.getCause());
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.sergkorot.dynamic.batch;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * One named search request of the batch
+ *
+ * @param complexSearchParams - model for complex search request
+ * @param externalGlue        - condition for gluing complex specification between each other
+ * @param pageable            - paging and sorting settings, null if only number of matched entities is needed
+ */
+public record BatchSearchRequest(List<ComplexSearchParam> complexSearchParams,
+                                 GlueOperation externalGlue,
+                                 @Nullable Pageable pageable) {
+
+    /**
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @param pageable            - paging and sorting settings, null for all matched entities without sorting
+     * @return request for page of entities
+     */
+    public static BatchSearchRequest page(List<ComplexSearchParam> complexSearchParams,
+                                          GlueOperation externalGlue,
+                                          @Nullable Pageable pageable) {
+        return new BatchSearchRequest(complexSearchParams, externalGlue, pageable == null ? Pageable.unpaged() : pageable);
+    }
+
+    /**
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @return request for number of matched entities only
+     */
+    public static BatchSearchRequest count(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        return new BatchSearchRequest(complexSearchParams, externalGlue, null);
+    }
+
+    /**
+     * @return true if only number of matched entities is needed
+     */
+    public boolean isCountOnly() {
+        return pageable == null;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.sergkorot.dynamic.batch;
+
+import jakarta.persistence.Query;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.jpa.SpecHints;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sergey Korotaev
+ * Deadline of queries of current thread. Cancellation of task does not stop JDBC statement which is already executed,
+ * so each query of the task gets the rest of time as {@code jakarta.persistence.query.timeout} and is stopped
+ * by the database. JDBC query timeout is set in whole seconds, so the rest of time is rounded up to seconds
+ * @see BatchSearchExecutor
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * @param deadline - deadline by {@link System#nanoTime()}
+     * @param task     - task executing queries
+     * @param <R>      - type of result
+     * @return task whose queries are limited by deadline
+     */
+    public static <R> Callable<R> within(long deadline, Callable<R> task) {
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(previous == null ? deadline : Math.min(previous, deadline));
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    DEADLINE.remove();
+                } else {
+                    DEADLINE.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Set the rest of time of current deadline as query timeout, query is not changed without deadline
+     *
+     * @param query - created query
+     * @param <Q>   - type of query
+     * @return the same query
+     * @throws QueryTimeoutException if deadline is already over
+     */
+    public static <Q extends Query> Q apply(Q query) {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? query : apply(query, deadline);
+    }
+
+    /**
+     * Set the rest of time until deadline as query timeout
+     *
+     * @param query    - created query
+     * @param deadline - deadline by {@link System#nanoTime()}
+     * @param <Q>      - type of query
+     * @return the same query
+     * @throws QueryTimeoutException if deadline is already over
+     */
+    public static <Q extends Query> Q apply(Q query, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("deadline of queries is over");
+        }
+        long second = TimeUnit.SECONDS.toNanos(1);
+        long seconds = Math.min(Integer.MAX_VALUE / 1000, (remaining + second - 1) / second);
+        query.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) seconds * 1000);
+        return query;
+    }
+
+    /**
+     * @param deadline - deadline by {@link System#nanoTime()}
+     * @return the earlier of deadline and deadline of current thread
+     */
+    public static long earliest(long deadline) {
+        Long current = DEADLINE.get();
+        return current == null ? deadline : Math.min(current, deadline);
+    }
+}
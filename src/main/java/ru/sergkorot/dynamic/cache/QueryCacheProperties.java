@@ -0,0 +1,24 @@
+package ru.sergkorot.dynamic.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of the query template cache
+ * @see QueryTemplateCache
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.query-cache")
+public class QueryCacheProperties {
+
+    /**
+     * Enable caching of compiled query templates by search shape
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of cached templates, least recently used are evicted
+     */
+    private int maxSize = 256;
+}
@@ -0,0 +1,267 @@
+package ru.sergkorot.dynamic.cache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.enums.NestedStrategy;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Precompiled JPQL query with named bind parameters for one search shape
+ * @see SearchShape
+ */
+public final class QueryTemplate {
+
+    private static final String ROOT_ALIAS = "e";
+    private static final String LIMIT_PARAMETER = "countLimit";
+
+    private final String jpql;
+    private final String countJpql;
+    private final String boundedCountJpql;
+    private final String[] parameterNames;
+
+    private QueryTemplate(String select, String body, String orderBy, int parameterCount) {
+        this.jpql = select + body + orderBy;
+        this.countJpql = "select count(" + ROOT_ALIAS + ")" + body;
+        // HQL accepts limit only after order by, ordering by constant select item does not sort rows
+        this.boundedCountJpql = "select count(*) from (select 1 as one" + body + " order by 1 limit :" + LIMIT_PARAMETER + ") c";
+        this.parameterNames = new String[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            parameterNames[i] = "p" + i;
+        }
+    }
+
+    /**
+     * Compile JPQL template for search shape
+     *
+     * @param entityName            - JPA entity name
+     * @param shape                 - shape of the search request
+     * @param nestedQueryProperties - settings of nested queries building
+     * @return QueryTemplate
+     */
+    static QueryTemplate compile(String entityName, SearchShape shape, NestedQueryProperties nestedQueryProperties) {
+        Compiler compiler = new Compiler(entityName, nestedQueryProperties);
+        String where = compiler.glue(shape.getGroups(), shape.getExternalGlue(), ROOT_ALIAS);
+
+        StringBuilder body = new StringBuilder(" from ").append(entityName).append(' ').append(ROOT_ALIAS)
+                .append(compiler.joins(ROOT_ALIAS));
+        if (!where.isEmpty()) {
+            body.append(" where ").append(where);
+        }
+
+        StringBuilder orderBy = new StringBuilder();
+        if (shape.getSort().isSorted()) {
+            orderBy.append(" order by ");
+            String delimiter = "";
+            for (Sort.Order order : shape.getSort()) {
+                orderBy.append(delimiter).append(ROOT_ALIAS).append('.').append(order.getProperty())
+                        .append(order.isAscending() ? " asc" : " desc");
+                delimiter = ", ";
+            }
+        }
+        return new QueryTemplate("select " + ROOT_ALIAS, body.toString(), orderBy.toString(), compiler.parameterIndex);
+    }
+
+    /**
+     * Create query by template and bind values of the request
+     *
+     * @param entityManager - entity manager for query creation
+     * @param entityClass   - the entity for which the request is being built
+     * @param values        - values of the request in order of parameters
+     * @param <T>           - the entity for which the request is being built
+     * @return TypedQuery with bound values
+     */
+    public <T> TypedQuery<T> createQuery(EntityManager entityManager, Class<T> entityClass, List<Object> values) {
+        return bind(entityManager.createQuery(jpql, entityClass), values);
+    }
+
+    /**
+     * Create count query by template without ordering and bind values of the request
+     *
+     * @param entityManager - entity manager for query creation
+     * @param values        - values of the request in order of parameters
+     * @return TypedQuery with bound values
+     */
+    public TypedQuery<Long> createCountQuery(EntityManager entityManager, List<Object> values) {
+        return bind(entityManager.createQuery(countJpql, Long.class), values);
+    }
+
+    /**
+     * Create query which counts matched rows up to the limit. Rows are limited in derived table,
+     * so the database stops after the limit and no rows are transferred
+     *
+     * @param entityManager - entity manager for query creation
+     * @param values        - values of the request in order of parameters
+     * @param limit         - maximum number of counted rows
+     * @return TypedQuery with bound values
+     */
+    public TypedQuery<Long> createBoundedCountQuery(EntityManager entityManager, List<Object> values, int limit) {
+        return bind(entityManager.createQuery(boundedCountJpql, Long.class), values)
+                .setParameter(LIMIT_PARAMETER, limit);
+    }
+
+    private <R> TypedQuery<R> bind(TypedQuery<R> query, List<Object> values) {
+        for (int i = 0; i < parameterNames.length; i++) {
+            query.setParameter(parameterNames[i], values.get(i));
+        }
+        return query;
+    }
+
+    /**
+     * @return JPQL of the template
+     */
+    public String getJpql() {
+        return jpql;
+    }
+
+    @Override
+    public String toString() {
+        return jpql;
+    }
+
+    private static final class Compiler {
+
+        private final String entityName;
+        private final NestedQueryProperties nestedQueryProperties;
+        private final Map<String, Map<String, String>> joinAliases = new HashMap<>();
+        private final Map<String, StringBuilder> joinClauses = new HashMap<>();
+        private int parameterIndex;
+        private int aliasIndex;
+        private int joinIndex;
+
+        private Compiler(String entityName, NestedQueryProperties nestedQueryProperties) {
+            this.entityName = entityName;
+            this.nestedQueryProperties = nestedQueryProperties;
+        }
+
+        private String glue(List<SearchShape.Group> groups, GlueOperation glue, String alias) {
+            StringBuilder result = new StringBuilder();
+            for (SearchShape.Group group : groups) {
+                if (!result.isEmpty()) {
+                    result.append(glue == GlueOperation.OR ? " or " : " and ");
+                }
+                result.append('(').append(group(group, alias)).append(')');
+            }
+            return result.toString();
+        }
+
+        private String group(SearchShape.Group group, String alias) {
+            if (group.terms().isEmpty()) {
+                return "1 = 1";
+            }
+            StringBuilder result = new StringBuilder();
+            for (SearchShape.Term term : group.terms()) {
+                if (!result.isEmpty()) {
+                    result.append(group.glue() == GlueOperation.OR ? " or " : " and ");
+                }
+                result.append('(').append(term(term, alias)).append(')');
+            }
+            return result.toString();
+        }
+
+        private String term(SearchShape.Term term, String alias) {
+            String path = path(alias, term);
+            if (term.nested() != null) {
+                return nested(term, path);
+            }
+            if (term.arity() < 0) {
+                return "1 = 0";
+            }
+            return switch (term.operation()) {
+                case "like" -> "lower(" + path + ") like " + parameter();
+                case "eq" -> path + " = " + parameter();
+                case "notEq" -> path + " <> " + parameter();
+                case "in" -> path + " in " + parameter();
+                case "notIn" -> path + " not in " + parameter();
+                case "isNull" -> path + " is null";
+                case "lt" -> path + " < " + parameter();
+                case "gt" -> path + " > " + parameter();
+                case "le" -> path + " <= " + parameter();
+                case "ge" -> path + " >= " + parameter();
+                case "contains" -> {
+                    StringBuilder contains = new StringBuilder();
+                    for (int i = 0; i < term.arity(); i++) {
+                        if (i > 0) {
+                            contains.append(" and ");
+                        }
+                        contains.append("cast(").append(path).append(" as String) like ").append(parameter());
+                    }
+                    yield contains.toString();
+                }
+                default -> throw new IllegalArgumentException(String.format("operation %s not supported", term.operation()));
+            };
+        }
+
+        private String nested(SearchShape.Term term, String path) {
+            String subAlias = "s" + aliasIndex++;
+            NestedOperation nestedOperation = NestedOperation.of(term.operation());
+            String subPath = path(subAlias, term);
+            String where = group(term.nested(), subAlias);
+            String from = " from " + entityName + ' ' + subAlias + joins(subAlias);
+            if (nestedQueryProperties.strategyFor(nestedOperation) == NestedStrategy.EXISTS) {
+                String exists = "exists (select 1" + from + " where " + subPath + " = " + path + " and (" + where + "))";
+                if (!nestedOperation.isNullSubqueryRequired()) {
+                    return exists;
+                }
+                return "(" + path + " is not null or not exists (select 1" + from + " where " + where + "))"
+                        + " and not " + exists
+                        + " and not exists (select 1" + from + " where " + subPath + " is null and (" + where + "))";
+            }
+            String subquery = "(select " + subPath + from + " where " + where + ")";
+
+            return switch (term.operation()) {
+                case "in" -> path + " in " + subquery;
+                case "notIn" -> path + " not in " + subquery;
+                case "eq" -> path + " = " + subquery;
+                case "notEq" -> path + " <> " + subquery;
+                default -> throw new IllegalArgumentException(String.format("operation %s not supported", term.operation()));
+            };
+        }
+
+        /**
+         * Path of term from alias, associations of dotted name are replaced by left joins,
+         * which are registered once per alias and shared by all terms
+         */
+        private String path(String alias, SearchShape.Term term) {
+            if (term.joins().isEmpty()) {
+                return alias + "." + term.name();
+            }
+            Map<String, String> aliases = joinAliases.computeIfAbsent(alias, a -> new HashMap<>());
+            String parentAlias = alias;
+            String parentPath = null;
+            for (String joinPath : term.joins()) {
+                String joinAlias = aliases.get(joinPath);
+                if (joinAlias == null) {
+                    joinAlias = "j" + joinIndex++;
+                    aliases.put(joinPath, joinAlias);
+                    joinClauses.computeIfAbsent(alias, a -> new StringBuilder())
+                            .append(" left join ").append(parentAlias).append('.').append(relative(parentPath, joinPath))
+                            .append(' ').append(joinAlias);
+                }
+                parentAlias = joinAlias;
+                parentPath = joinPath;
+            }
+            return parentAlias + "." + relative(parentPath, term.name());
+        }
+
+        private String joins(String alias) {
+            StringBuilder clauses = joinClauses.get(alias);
+            return clauses == null ? "" : clauses.toString();
+        }
+
+        private static String relative(String parentPath, String path) {
+            return parentPath == null ? path : path.substring(parentPath.length() + 1);
+        }
+
+        private String parameter() {
+            return ":p" + parameterIndex++;
+        }
+    }
+}
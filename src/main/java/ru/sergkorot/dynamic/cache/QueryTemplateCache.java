@@ -0,0 +1,143 @@
+package ru.sergkorot.dynamic.cache;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Sergey Korotaev
+ * Bounded LRU cache of compiled query templates by search shape.
+ * Is enabled by property {@code operation.query-cache.enabled=true}.
+ * Templates are JPQL strings, so parsing and SQL translation of them is cached by Hibernate query plan cache
+ * ({@code hibernate.query.plan_cache_enabled}), which does not cache criteria queries. Only requests which criteria
+ * renders the same way are templated, other requests are built from specification
+ * @see SearchShape
+ * @see QueryTemplate
+ */
+public class QueryTemplateCache {
+
+    private final int maxSize;
+    private final NestedQueryProperties nestedQueryProperties;
+    private final InListStrategy inListStrategy;
+    private final Map<SearchShape, QueryTemplate> templates;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public QueryTemplateCache(QueryCacheProperties properties, NestedQueryProperties nestedQueryProperties) {
+        this(properties, nestedQueryProperties, new InListStrategy(new InListProperties()));
+    }
+
+    public QueryTemplateCache(QueryCacheProperties properties,
+                              NestedQueryProperties nestedQueryProperties,
+                              InListStrategy inListStrategy) {
+        this.maxSize = properties.getMaxSize();
+        this.nestedQueryProperties = nestedQueryProperties;
+        this.inListStrategy = inListStrategy;
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchShape, QueryTemplate> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict) {
+                    evictionCount.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Normalize parsed complex search request into the shape
+     *
+     * @param entityClass       - the entity for which the request is being built
+     * @param tree              - parsed complex search request
+     * @param sort              - sorting of the request
+     * @param attributeRegistry - registry for values coercion, if null values are bound as is
+     * @param textMatchStrategy - modes of text search
+     * @return shape of the request or empty if request is not templated
+     * @see SearchShape#of(Class, GroupNode, Sort, EntityAttributeRegistry, TextMatchStrategy, InListStrategy)
+     */
+    public Optional<SearchShape> shape(Class<?> entityClass,
+                                       GroupNode tree,
+                                       Sort sort,
+                                       @Nullable EntityAttributeRegistry attributeRegistry,
+                                       @Nullable TextMatchStrategy textMatchStrategy) {
+        return SearchShape.of(entityClass, tree, sort, attributeRegistry, textMatchStrategy, inListStrategy);
+    }
+
+    /**
+     * Get compiled template for shape or compile and put it into the cache
+     *
+     * @param entityManager - entity manager for resolving entity name
+     * @param shape         - shape of the search request
+     * @return QueryTemplate
+     */
+    public QueryTemplate getTemplate(EntityManager entityManager, SearchShape shape) {
+        synchronized (templates) {
+            QueryTemplate template = templates.get(shape);
+            if (template != null) {
+                hitCount.incrementAndGet();
+                return template;
+            }
+        }
+
+        missCount.incrementAndGet();
+        String entityName = entityManager.getMetamodel().entity(shape.getEntityClass()).getName();
+        QueryTemplate template = QueryTemplate.compile(entityName, shape, nestedQueryProperties);
+
+        synchronized (templates) {
+            QueryTemplate existed = templates.putIfAbsent(shape, template);
+            return existed == null ? template : existed;
+        }
+    }
+
+    /**
+     * Remove all templates from the cache
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    /**
+     * @return number of requests served by already compiled templates
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of requests which required template compilation
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return number of templates removed as least recently used
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return number of templates in the cache
+     */
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+}
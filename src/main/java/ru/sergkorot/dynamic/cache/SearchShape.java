@@ -0,0 +1,321 @@
+package ru.sergkorot.dynamic.cache;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.enums.InListMode;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttribute;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.cast;
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
+
+/**
+ * @author Sergey Korotaev
+ * Normalized form of a search request: entity, glue, field names, operations and sorting without values.
+ * Requests with the same shape are served by the same query template and differ only in bound values.
+ * Conditions which are rendered by criteria differently from the template (text modes other than substring,
+ * chunked and array in-lists, manual operations) make the request not templated
+ */
+public final class SearchShape {
+
+    private static final String NESTED = "nst:";
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+    private static final Set<String> NESTED_OPERATIONS = Set.of("in", "notIn", "eq", "notEq");
+
+    private final String key;
+    private final Class<?> entityClass;
+    private final GlueOperation externalGlue;
+    private final List<Group> groups;
+    private final Sort sort;
+    private final List<Object> values;
+
+    private SearchShape(String key, Class<?> entityClass, GlueOperation externalGlue,
+                        List<Group> groups, Sort sort, List<Object> values) {
+        this.key = key;
+        this.entityClass = entityClass;
+        this.externalGlue = externalGlue;
+        this.groups = groups;
+        this.sort = sort;
+        this.values = values;
+    }
+
+    /**
+     * Normalize parsed complex search request into the shape
+     *
+     * @param entityClass       - the entity for which the request is being built
+     * @param tree              - parsed complex search request, group of groups glued by external glue
+     * @param sort              - sorting of the request
+     * @param attributeRegistry - registry for values coercion, if null values are bound as is
+     * @param textMatchStrategy - modes of text search, like and contains are templated only in substring mode
+     * @param inListStrategy    - modes of in-lists, in and notIn are templated only in plain and padding modes
+     * @return shape of the request or empty if request can not be expressed by query template,
+     * including unknown fields, which are reported by criteria building
+     * @see ru.sergkorot.dynamic.ast.SearchRequestParser
+     */
+    public static Optional<SearchShape> of(Class<?> entityClass,
+                                           GroupNode tree,
+                                           Sort sort,
+                                           @Nullable EntityAttributeRegistry attributeRegistry,
+                                           @Nullable TextMatchStrategy textMatchStrategy,
+                                           @Nullable InListStrategy inListStrategy) {
+        GlueOperation externalGlue = tree.glue();
+        StringBuilder key = new StringBuilder(entityClass.getName()).append('|').append(externalGlue).append('|');
+        List<Object> values = new ArrayList<>();
+        List<Group> groups = new ArrayList<>(tree.children().size());
+        ShapeReader reader = new ShapeReader(
+                key,
+                values,
+                attributeRegistry != null && attributeRegistry.isEntity(entityClass) ? attributeRegistry : null,
+                textMatchStrategy,
+                inListStrategy,
+                entityClass
+        );
+
+        try {
+            for (SearchNode node : tree.children()) {
+                Group group = reader.readGroup(node instanceof GroupNode groupNode ? groupNode : new GroupNode(GlueOperation.AND, List.of(node)));
+                if (group == null) {
+                    return Optional.empty();
+                }
+                groups.add(group);
+            }
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        key.append('|');
+        for (Sort.Order order : sort) {
+            if (!IDENTIFIER.matcher(order.getProperty()).matches() || order.getProperty().indexOf('.') >= 0) {
+                return Optional.empty();
+            }
+            key.append(order.getProperty()).append(':').append(order.getDirection()).append(',');
+        }
+
+        return Optional.of(new SearchShape(key.toString(), entityClass, externalGlue, groups, sort, values));
+    }
+
+    /**
+     * @return values for binding into the query template in order of their parameters
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    GlueOperation getExternalGlue() {
+        return externalGlue;
+    }
+
+    List<Group> getGroups() {
+        return groups;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof SearchShape other && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+    /**
+     * Group of terms glued by internal glue
+     */
+    record Group(GlueOperation glue, List<Term> terms) {
+    }
+
+    /**
+     * Single condition of the shape.
+     * {@code arity} is number of bound values, {@code -1} means condition which is always false,
+     * {@code joins} are association prefixes of dotted name which are joined by left join
+     */
+    record Term(String name, List<String> joins, String operation, int arity, Group nested) {
+    }
+
+    private record ShapeReader(StringBuilder key,
+                               List<Object> values,
+                               EntityAttributeRegistry attributeRegistry,
+                               TextMatchStrategy textMatchStrategy,
+                               InListStrategy inListStrategy,
+                               Class<?> entityClass) {
+
+        Group readGroup(GroupNode groupNode) {
+            GlueOperation glue = groupNode.glue();
+            key.append(glue).append('(');
+            List<Term> terms = new ArrayList<>(groupNode.children().size());
+            for (SearchNode node : groupNode.children()) {
+                Term term = readTerm(node);
+                if (term == null) {
+                    return null;
+                }
+                terms.add(term);
+            }
+            key.append(')');
+            return new Group(glue, terms);
+        }
+
+        private Term readTerm(SearchNode node) {
+            if (node instanceof NestedNode nestedNode) {
+                return readNested(nestedNode);
+            }
+            if (!(node instanceof ConditionNode condition) || condition.manual()) {
+                return null;
+            }
+            String name = condition.field();
+            String operation = condition.operation();
+            if (!IDENTIFIER.matcher(name).matches()) {
+                return null;
+            }
+            List<String> joins = joins(name);
+            if (joins == null || !isSubstringMatch(name, operation)) {
+                return null;
+            }
+            key.append(name).append(':').append(operation);
+
+            EntityAttribute attribute = attributeRegistry == null ? null : attributeRegistry.get(entityClass, name);
+            int arity = readValues(operation, condition.value(), attribute);
+            if (arity == Integer.MIN_VALUE) {
+                return null;
+            }
+            key.append('#').append(arity).append(',');
+            return new Term(name, joins, operation, arity, null);
+        }
+
+        private Term readNested(NestedNode node) {
+            String name = node.field();
+            String nestedOperation = node.operation().getOperationName();
+            if (!IDENTIFIER.matcher(name).matches() || !NESTED_OPERATIONS.contains(nestedOperation)) {
+                return null;
+            }
+            List<String> joins = joins(name);
+            if (joins == null) {
+                return null;
+            }
+            key.append(name).append(':').append(NESTED).append(nestedOperation);
+            Group nested = readGroup(node.group());
+            key.append(',');
+            return nested == null ? null : new Term(name, joins, nestedOperation, 0, nested);
+        }
+
+        /**
+         * Association prefixes of dotted name, empty list for direct attribute
+         * or null if path can not be joined in template (unknown associations or collections)
+         */
+        private List<String> joins(String name) {
+            if (name.indexOf('.') < 0) {
+                return List.of();
+            }
+            if (attributeRegistry == null) {
+                return null;
+            }
+            List<String> joins = new ArrayList<>();
+            int index = name.indexOf('.');
+            while (index > 0) {
+                String prefix = name.substring(0, index);
+                EntityAttribute attribute = attributeRegistry.get(entityClass, prefix);
+                if (attribute.isCollection()) {
+                    return null;
+                }
+                if (attribute.isAssociation()) {
+                    joins.add(prefix);
+                }
+                index = name.indexOf('.', index + 1);
+            }
+            return joins;
+        }
+
+        private boolean isSubstringMatch(String name, String operation) {
+            if (textMatchStrategy == null) {
+                return true;
+            }
+            return switch (operation) {
+                case "like" -> textMatchStrategy.likeModeFor(name) == TextMatchMode.SUBSTRING;
+                case "contains" -> textMatchStrategy.containsModeFor(name) == TextMatchMode.SUBSTRING;
+                default -> true;
+            };
+        }
+
+        private static boolean isBoundAsCollection(InListMode mode) {
+            return mode == InListMode.PLAIN || mode == InListMode.PADDING;
+        }
+
+        private int readValues(String operation, Object value, EntityAttribute attribute) {
+            if ("isNull".equals(operation)) {
+                return 0;
+            }
+            if (value == null) {
+                return Integer.MIN_VALUE;
+            }
+            switch (operation) {
+                case "like" -> {
+                    String pattern = value.toString();
+                    if (!pattern.contains("%")) {
+                        pattern = "%" + pattern + "%";
+                    }
+                    values.add(pattern.toLowerCase());
+                    return 1;
+                }
+                case "eq", "notEq" -> {
+                    values.add(attribute == null ? cast(value) : attribute.convert(value));
+                    return 1;
+                }
+                case "in", "notIn" -> {
+                    Collection<?> collection = collectionCast(value);
+                    if (CollectionUtils.isEmpty(collection)) {
+                        return -1;
+                    }
+                    if (inListStrategy != null && !isBoundAsCollection(inListStrategy.modeFor(collection.size()))) {
+                        return Integer.MIN_VALUE;
+                    }
+                    values.add(attribute == null ? collection : attribute.convertAll(collection));
+                    return 1;
+                }
+                case "lt", "gt", "le", "ge" -> {
+                    values.add(attribute == null ? value.toString() : attribute.convertComparable(value));
+                    return 1;
+                }
+                case "contains" -> {
+                    List<String> parts = Arrays.stream(value.toString().split(","))
+                            .map(v -> "%" + v.trim() + "%")
+                            .toList();
+                    values.addAll(parts);
+                    return parts.size();
+                }
+                default -> {
+                    return Integer.MIN_VALUE;
+                }
+            }
+        }
+    }
+}
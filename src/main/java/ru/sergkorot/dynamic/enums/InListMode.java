@@ -0,0 +1,32 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Mode of rendering in and notIn operations depending on collection size
+ */
+public enum InListMode {
+
+    /**
+     * Collection is bound as is: {@code field in (?, ?, ?)}
+     */
+    PLAIN,
+
+    /**
+     * Collection is bound as is, bind parameters are padded to the next power of two by Hibernate
+     * ({@code hibernate.query.in_clause_parameter_padding}), so lists of different sizes share the same query plan
+     */
+    PADDING,
+
+    /**
+     * Collection is split into chunks: {@code field in (...) or field in (...)},
+     * which keeps number of elements in single in below database limit. Every element is still bound
+     * as separate parameter, so number of elements is limited by max parameters
+     */
+    CHUNKED,
+
+    /**
+     * Collection is bound as single array parameter: {@code field = any(?)}.
+     * Is supported by PostgreSQL, other dialects render {@code array_contains(?, field)} (H2, HSQLDB).
+     * Array has element type of the field
+     */
+    ARRAY
+}
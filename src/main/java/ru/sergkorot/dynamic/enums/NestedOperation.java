@@ -4,6 +4,8 @@ import jakarta.persistence.criteria.Subquery;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.util.PathUtils;
 import ru.sergkorot.dynamic.util.SpecificationUtils;
 
 import java.util.Map;
@@ -26,7 +28,17 @@ public enum NestedOperation {
     IN("in") {
         @Override
         public <T> Specification<T> buildQuery(String fieldName, Subquery<Object> subquery) {
-            return (root, query, criteriaBuilder) -> criteriaBuilder.in(root.get(fieldName)).value(subquery);
+            return (root, query, criteriaBuilder) -> criteriaBuilder.in(PathUtils.get(root, query, fieldName)).value(subquery);
+        }
+
+        @Override
+        public <T> Specification<T> buildExistsQuery(String fieldName, Subquery<?> subquery, Subquery<?> nullSubquery, Subquery<?> anySubquery) {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.exists(subquery);
+        }
+
+        @Override
+        public boolean isNullSubqueryRequired() {
+            return false;
         }
     },
 
@@ -36,7 +48,19 @@ public enum NestedOperation {
     NOT_IN("notIn") {
         @Override
         public <T> Specification<T> buildQuery(String fieldName, Subquery<Object> subquery) {
-            return (root, query, criteriaBuilder) -> criteriaBuilder.not(criteriaBuilder.in(root.get(fieldName)).value(subquery));
+            return (root, query, criteriaBuilder) -> criteriaBuilder.not(criteriaBuilder.in(PathUtils.get(root, query, fieldName)).value(subquery));
+        }
+
+        @Override
+        public <T> Specification<T> buildExistsQuery(String fieldName, Subquery<?> subquery, Subquery<?> nullSubquery, Subquery<?> anySubquery) {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                    criteriaBuilder.or(
+                            criteriaBuilder.isNotNull(PathUtils.get(root, query, fieldName)),
+                            criteriaBuilder.not(criteriaBuilder.exists(anySubquery))
+                    ),
+                    criteriaBuilder.not(criteriaBuilder.exists(subquery)),
+                    criteriaBuilder.not(criteriaBuilder.exists(nullSubquery))
+            );
         }
     },
 
@@ -149,4 +173,39 @@ public enum NestedOperation {
      */
     public abstract <T> Specification<T> buildQuery(String fieldName,
                                                     Subquery<Object> subquery);
+
+    /**
+     * Build specification for nested query by correlated subquery existence.
+     * Result is the same as of {@link #buildQuery(String, Subquery)}: for not in operation rows with null field
+     * are excluded unless subquery returns no rows, and nothing is found if subquery returns null, like {@code not in} does
+     *
+     * @param fieldName    - field for returning in nested query
+     * @param subquery     - sub query in request correlated with root by field
+     * @param nullSubquery - sub query in request which finds nested rows with null field,
+     *                     required if {@link #isNullSubqueryRequired()}
+     * @param anySubquery  - sub query in request which finds any nested row, required if {@link #isNullSubqueryRequired()}
+     * @param <T>          - type of entity
+     * @return Specification for field
+     * @see NestedStrategy#EXISTS
+     */
+    public <T> Specification<T> buildExistsQuery(String fieldName,
+                                                 Subquery<?> subquery,
+                                                 @Nullable Subquery<?> nullSubquery,
+                                                 @Nullable Subquery<?> anySubquery) {
+        throw new IllegalArgumentException(String.format("operation %s does not support exists strategy", operationName));
+    }
+
+    /**
+     * @return true if exists strategy of operation needs sub queries of nested rows with null field and of any nested row
+     */
+    public boolean isNullSubqueryRequired() {
+        return isExistsSupported();
+    }
+
+    /**
+     * @return true if operation can be built by correlated subquery existence
+     */
+    public boolean isExistsSupported() {
+        return this == IN || this == NOT_IN;
+    }
 }
@@ -0,0 +1,21 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Strategy of rendering nested (nst:) query for in and notIn operations
+ */
+public enum NestedStrategy {
+
+    /**
+     * Field is compared with uncorrelated subquery: {@code field in (select field from ...)}
+     */
+    SUBQUERY,
+
+    /**
+     * Subquery is correlated by field and checked for existence: {@code exists (select 1 from ... where s.field = field)},
+     * so the database is able to use semi-join and anti-join. Result is the same as of {@link #SUBQUERY}:
+     * {@code not in} is rendered as {@code field is not null and not exists (... s.field = field ...)
+     * and not exists (... s.field is null ...)}, because {@code not in} finds nothing when subquery returns null
+     * and never matches null field, while plain {@code not exists} would match both
+     */
+    EXISTS
+}
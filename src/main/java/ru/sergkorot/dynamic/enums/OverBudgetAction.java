@@ -0,0 +1,17 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Action for search requests whose estimated cost exceeds {@code operation.admission.max-cost}
+ */
+public enum OverBudgetAction {
+
+    /**
+     * Request is rejected before any SQL is built
+     */
+    REJECT,
+
+    /**
+     * Request is executed as heavy one, i.e. only within limit of concurrent heavy searches of the entity
+     */
+    DOWNGRADE
+}
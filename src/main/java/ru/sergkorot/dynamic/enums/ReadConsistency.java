@@ -0,0 +1,17 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Consistency of data required by search requests, see {@code ReplicaRoutingContext}
+ */
+public enum ReadConsistency {
+
+    /**
+     * Data may be read from replica and may not contain latest changes
+     */
+    EVENTUAL,
+
+    /**
+     * Data is read from primary, so changes committed before the request are visible
+     */
+    READ_YOUR_WRITES
+}
@@ -0,0 +1,17 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Choice of replica data source for search requests, see {@code operation.replica.selection}
+ */
+public enum ReplicaSelection {
+
+    /**
+     * Replicas are used one after another
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Replica with the least number of connections in use is chosen
+     */
+    LEAST_OUTSTANDING
+}
@@ -0,0 +1,44 @@
+package ru.sergkorot.dynamic.enums;
+
+/**
+ * Mode of rendering like and contains operations for text search
+ */
+public enum TextMatchMode {
+
+    /**
+     * Search of substring: {@code lower(field) like '%v%'} for like
+     * and {@code cast(field as String) like '%v%'} for each element of contains.
+     * Can not use B-tree index
+     */
+    SUBSTRING,
+
+    /**
+     * Search by prefix: {@code field like 'v%'}, value with wildcard is used as is.
+     * Uses B-tree index (on PostgreSQL with {@code text_pattern_ops} or C collation)
+     */
+    PREFIX,
+
+    /**
+     * Case-insensitive search of substring: {@code field ilike '%v%'}.
+     * Uses trigram (pg_trgm) GIN or GiST index on PostgreSQL, other dialects render {@code lower(field) like lower(?)}
+     */
+    ILIKE,
+
+    /**
+     * Full text search: {@code to_tsvector(config, field) @@ plainto_tsquery(config, ?)}.
+     * Uses GIN index by the same tsvector expression on PostgreSQL, other dialects render case-insensitive substring search
+     */
+    FULL_TEXT,
+
+    /**
+     * Array column contains element: {@code field @> array[?]}.
+     * Uses GIN index on PostgreSQL, other dialects render {@code array_contains(field, ?)}
+     */
+    ARRAY,
+
+    /**
+     * JSONB column contains array with element: {@code field @> '["v"]'}.
+     * Uses GIN index on PostgreSQL, other dialects render substring search in json text
+     */
+    JSONB
+}
@@ -0,0 +1,11 @@
+package ru.sergkorot.dynamic.facet;
+
+/**
+ * @author Sergey Korotaev
+ * Number of entities with the value of facet field
+ *
+ * @param value - value of the field, null for entities without value
+ * @param count - number of entities
+ */
+public record FacetCount(Object value, long count) {
+}
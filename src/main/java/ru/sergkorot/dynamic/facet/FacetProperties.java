@@ -0,0 +1,37 @@
+package ru.sergkorot.dynamic.facet;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of facet counts calculation
+ * @see FacetQueryExecutor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.facet")
+public class FacetProperties {
+
+    /**
+     * Conditions on the facet field are not applied to its own counts,
+     * so all values of the facet stay selectable
+     */
+    private boolean excludeOwnFilter = true;
+
+    /**
+     * Maximum number of values of one facet, the most frequent values are returned. Non-positive value disables limit
+     */
+    private int limit = 100;
+
+    /**
+     * Time to live of cached facet counts by request conditions and values, zero disables caching
+     */
+    private Duration cacheTtl = Duration.ZERO;
+
+    /**
+     * Maximum number of cached facets, least recently used are evicted
+     */
+    private int cacheMaxSize = 1024;
+}
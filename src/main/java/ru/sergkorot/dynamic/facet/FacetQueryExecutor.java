@@ -0,0 +1,77 @@
+package ru.sergkorot.dynamic.facet;
+
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * @author Sergey Korotaev
+ * Execution of facet count queries with caching of results by request conditions, values and facet field
+ * @see FacetProperties
+ */
+public class FacetQueryExecutor {
+
+    private final FacetProperties properties;
+    private final Map<Object, CachedFacet> facets;
+
+    public FacetQueryExecutor(FacetProperties properties) {
+        this.properties = properties;
+        this.facets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedFacet> eldest) {
+                return size() > properties.getCacheMaxSize();
+            }
+        };
+    }
+
+    /**
+     * @return settings of facets
+     */
+    public FacetProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Get counts of the facet from cache or by query
+     *
+     * @param cacheKey - key of the request conditions and facet field or null if facet can not be cached
+     * @param query    - query of counts
+     * @return counts of facet values
+     */
+    public List<FacetCount> counts(@Nullable Object cacheKey, Supplier<List<FacetCount>> query) {
+        boolean cacheable = cacheKey != null && !properties.getCacheTtl().isZero() && !properties.getCacheTtl().isNegative();
+        if (!cacheable) {
+            return query.get();
+        }
+
+        long now = System.nanoTime();
+        CachedFacet cached;
+        synchronized (facets) {
+            cached = facets.get(cacheKey);
+        }
+        if (cached != null && cached.expiresAt() - now > 0) {
+            return cached.counts();
+        }
+
+        List<FacetCount> counts = List.copyOf(query.get());
+        synchronized (facets) {
+            facets.put(cacheKey, new CachedFacet(counts, now + properties.getCacheTtl().toNanos()));
+        }
+        return counts;
+    }
+
+    /**
+     * Remove all cached facets
+     */
+    public void clear() {
+        synchronized (facets) {
+            facets.clear();
+        }
+    }
+
+    private record CachedFacet(List<FacetCount> counts, long expiresAt) {
+    }
+}
@@ -0,0 +1,81 @@
+package ru.sergkorot.dynamic.function;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.regex.Pattern;
+
+/**
+ * @author Sergey Korotaev
+ * Registers functions which are used by library operations and have database specific syntax.
+ * Functions are rendered by PostgreSQL syntax on PostgreSQL and by portable equivalent on other databases
+ */
+public class OperationFunctionContributor implements FunctionContributor {
+
+    /**
+     * Function checking that value is an element of array parameter: {@code array_any(field, array)}
+     */
+    public static final String ARRAY_ANY = "array_any";
+
+    /**
+     * Case-insensitive like: {@code text_ilike(field, pattern)}
+     */
+    public static final String TEXT_ILIKE = "text_ilike";
+
+    /**
+     * Full text search by plain text query: {@code text_search(field, text, config)},
+     * config must be string literal, it is rendered inline
+     * @see TextSearchFunction
+     */
+    public static final String TEXT_SEARCH = "text_search";
+
+    /**
+     * Allowed names of text search configuration, they are rendered into SQL as is
+     */
+    public static final Pattern TEXT_SEARCH_CONFIG = Pattern.compile("[a-z_]+");
+
+    /**
+     * Checking that array field contains element: {@code array_has(field, element)}
+     */
+    public static final String ARRAY_HAS = "array_has";
+
+    /**
+     * Checking that jsonb field contains json value: {@code jsonb_has(field, json)}
+     */
+    public static final String JSONB_HAS = "jsonb_has";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        boolean postgres = functionContributions.getDialect() instanceof PostgreSQLDialect;
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                ARRAY_ANY,
+                postgres ? "(?1 = any(?2))" : "array_contains(?2, ?1)",
+                booleanType
+        );
+        functionContributions.getFunctionRegistry().registerPattern(
+                TEXT_ILIKE,
+                postgres ? "(?1 ilike ?2)" : "(lower(?1) like lower(?2))",
+                booleanType
+        );
+        functionContributions.getFunctionRegistry().register(TEXT_SEARCH, new TextSearchFunction(booleanType, postgres));
+        functionContributions.getFunctionRegistry().registerPattern(
+                ARRAY_HAS,
+                postgres ? "(?1 @> array[?2])" : "array_contains(?1, ?2)",
+                booleanType
+        );
+        functionContributions.getFunctionRegistry().registerPattern(
+                JSONB_HAS,
+                postgres
+                        ? "(?1 @> cast(?2 as jsonb))"
+                        : "(cast(?1 as varchar) like concat('%', substring(?2, 2, length(?2) - 2), '%'))",
+                booleanType
+        );
+    }
+}
@@ -0,0 +1,64 @@
+package ru.sergkorot.dynamic.function;
+
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.Literal;
+import org.hibernate.type.BasicType;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Full text search function {@code text_search(field, text, config)}. Configuration must be a literal,
+ * it is validated by {@link OperationFunctionContributor#TEXT_SEARCH_CONFIG} and rendered inline,
+ * so PostgreSQL sees the same expression as in GIN index and can use it
+ */
+class TextSearchFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+    private final boolean postgres;
+
+    TextSearchFunction(BasicType<Boolean> booleanType, boolean postgres) {
+        super(
+                OperationFunctionContributor.TEXT_SEARCH,
+                StandardArgumentsValidators.exactly(3),
+                StandardFunctionReturnTypeResolvers.invariant(booleanType),
+                StandardFunctionArgumentTypeResolvers.NULL
+        );
+        this.postgres = postgres;
+    }
+
+    @Override
+    public void render(SqlAppender sqlAppender, List<? extends SqlAstNode> arguments, SqlAstTranslator<?> walker) {
+        String config = config(arguments.get(2));
+        if (postgres) {
+            sqlAppender.appendSql("(to_tsvector(cast('" + config + "' as regconfig), ");
+            arguments.get(0).accept(walker);
+            sqlAppender.appendSql(") @@ plainto_tsquery(cast('" + config + "' as regconfig), ");
+            arguments.get(1).accept(walker);
+            sqlAppender.appendSql("))");
+            return;
+        }
+        sqlAppender.appendSql("(lower(");
+        arguments.get(0).accept(walker);
+        sqlAppender.appendSql(") like concat('%', lower(");
+        arguments.get(1).accept(walker);
+        sqlAppender.appendSql("), '%'))");
+    }
+
+    private static String config(SqlAstNode argument) {
+        if (!(argument instanceof Literal literal) || !(literal.getLiteralValue() instanceof String config)) {
+            throw new IllegalArgumentException(String.format(
+                    "text search configuration of %s must be string literal", OperationFunctionContributor.TEXT_SEARCH));
+        }
+        if (!OperationFunctionContributor.TEXT_SEARCH_CONFIG.matcher(config).matches()) {
+            throw new IllegalArgumentException(String.format(
+                    "text search configuration %s does not match %s", config, OperationFunctionContributor.TEXT_SEARCH_CONFIG.pattern()));
+        }
+        return config;
+    }
+}
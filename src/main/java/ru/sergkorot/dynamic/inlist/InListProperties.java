@@ -0,0 +1,45 @@
+package ru.sergkorot.dynamic.inlist;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of in and notIn operations rendering
+ * @see InListStrategy
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.in-list")
+public class InListProperties {
+
+    /**
+     * Pad bind parameters of in to the next power of two by Hibernate, so lists of different sizes share the same
+     * query plan. Auto-configuration sets Hibernate property {@code hibernate.query.in_clause_parameter_padding},
+     * with own entity manager factory the property must be set manually
+     */
+    private boolean padding = false;
+
+    /**
+     * Collections larger than threshold are split into chunks, if they are not bound as array
+     */
+    private int chunkThreshold = 1000;
+
+    /**
+     * Maximum number of elements in single in of chunked collection.
+     * Chunks keep number of elements of single in below database limit (1000 for Oracle),
+     * every element is still bound as separate parameter
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Collections of this size and larger, and all chunked collections, are bound as single array parameter,
+     * non-positive value disables arrays. Array binding requires database support (PostgreSQL, H2)
+     */
+    private int arrayThreshold = -1;
+
+    /**
+     * Maximum number of elements bound as separate parameters in single in, larger collections are rejected
+     * if they are not bound as array. Keeps request below bind parameter limit of the driver
+     */
+    private int maxParameters = 30000;
+}
@@ -0,0 +1,106 @@
+package ru.sergkorot.dynamic.inlist;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.NonNull;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.enums.InListMode;
+import ru.sergkorot.dynamic.util.SpecificationUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Chooses how in and notIn operations are rendered by collection size
+ * @see InListMode
+ * @see InListProperties
+ */
+public class InListStrategy {
+
+    private final InListProperties properties;
+
+    public InListStrategy(InListProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Get mode for collection of the given size
+     *
+     * @param size - number of elements
+     * @return InListMode
+     * @throws IllegalArgumentException if collection is larger than max parameters and array binding is disabled
+     */
+    public InListMode modeFor(int size) {
+        boolean arrays = properties.getArrayThreshold() > 0;
+        if (arrays && (size >= properties.getArrayThreshold() || size > properties.getChunkThreshold())) {
+            return InListMode.ARRAY;
+        }
+        if (size > properties.getMaxParameters()) {
+            throw new IllegalArgumentException(String.format(
+                    "in list of %d elements exceeds limit of %d bind parameters, enable array binding by operation.in-list.array-threshold",
+                    size, properties.getMaxParameters()));
+        }
+        if (size > properties.getChunkThreshold()) {
+            return InListMode.CHUNKED;
+        }
+        return properties.isPadding() ? InListMode.PADDING : InListMode.PLAIN;
+    }
+
+    /**
+     * Find entry where value into the column contains in specified collection
+     *
+     * @param collection - collection values for searching
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public <T> Specification<T> in(@NonNull Collection<?> collection, @NonNull String columnName) {
+        if (CollectionUtils.isEmpty(collection)) {
+            return SpecificationUtils.findByCollectionIn(collection, columnName);
+        }
+        return switch (modeFor(collection.size())) {
+            case PLAIN, PADDING -> SpecificationUtils.findByCollectionIn(collection, columnName);
+            case CHUNKED -> Specification.anyOf(chunk(collection).stream()
+                    .map(chunk -> SpecificationUtils.<T>findByCollectionIn(chunk, columnName))
+                    .toList());
+            case ARRAY -> SpecificationUtils.findByArrayAny(collection, columnName);
+        };
+    }
+
+    /**
+     * Find entry where value into the column not contains in specified collection.
+     * Like {@code not in}, entries with null value are not found in all modes
+     *
+     * @param collection - collection values for searching
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public <T> Specification<T> notIn(@NonNull Collection<?> collection, @NonNull String columnName) {
+        if (CollectionUtils.isEmpty(collection)) {
+            return SpecificationUtils.findByCollectionNotIn(collection, columnName);
+        }
+        return switch (modeFor(collection.size())) {
+            case PLAIN, PADDING -> SpecificationUtils.findByCollectionNotIn(collection, columnName);
+            case CHUNKED -> Specification.allOf(chunk(collection).stream()
+                    .map(chunk -> SpecificationUtils.<T>findByCollectionNotIn(chunk, columnName))
+                    .toList());
+            case ARRAY -> Specification.<T>not(SpecificationUtils.findByArrayAny(collection, columnName))
+                    .and(Specification.not(SpecificationUtils.findByColumnIsNull(columnName)));
+        };
+    }
+
+    private List<List<?>> chunk(Collection<?> collection) {
+        List<?> elements = new ArrayList<>(collection);
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        List<List<?>> chunks = new ArrayList<>(elements.size() / chunkSize + 1);
+        for (int from = 0; from < elements.size(); from += chunkSize) {
+            List<?> chunk = elements.subList(from, Math.min(from + chunkSize, elements.size()));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
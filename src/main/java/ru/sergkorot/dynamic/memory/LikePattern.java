@@ -0,0 +1,110 @@
+package ru.sergkorot.dynamic.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * @author Sergey Korotaev
+ * Matcher of sql like pattern for strings in memory. Patterns with {@code %} only are matched
+ * by segments without allocation, patterns with {@code _} are matched by regular expression
+ */
+final class LikePattern {
+
+    private final String[] segments;
+    private final boolean anchoredStart;
+    private final boolean anchoredEnd;
+    private final boolean ignoreCase;
+    private final Pattern regex;
+
+    private LikePattern(String[] segments, boolean anchoredStart, boolean anchoredEnd, boolean ignoreCase, Pattern regex) {
+        this.segments = segments;
+        this.anchoredStart = anchoredStart;
+        this.anchoredEnd = anchoredEnd;
+        this.ignoreCase = ignoreCase;
+        this.regex = regex;
+    }
+
+    /**
+     * Compile like pattern
+     *
+     * @param pattern    - pattern with {@code %} and {@code _} wildcards
+     * @param ignoreCase - true if case of letters is ignored
+     * @return LikePattern
+     */
+    static LikePattern compile(String pattern, boolean ignoreCase) {
+        if (pattern.indexOf('_') >= 0) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char c : pattern.toCharArray()) {
+                if (c == '%' || c == '_') {
+                    regex.append(Pattern.quote(literal.toString())).append(c == '%' ? ".*" : ".");
+                    literal.setLength(0);
+                } else {
+                    literal.append(c);
+                }
+            }
+            regex.append(Pattern.quote(literal.toString()));
+            int flags = Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            return new LikePattern(null, false, false, ignoreCase, Pattern.compile(regex.toString(), flags));
+        }
+
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("%", -1)) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return new LikePattern(
+                segments.toArray(String[]::new),
+                !pattern.startsWith("%"),
+                !pattern.endsWith("%"),
+                ignoreCase,
+                null
+        );
+    }
+
+    /**
+     * @param value - string value
+     * @return true if value matches the pattern
+     */
+    boolean matches(String value) {
+        if (regex != null) {
+            return regex.matcher(value).matches();
+        }
+        if (segments.length == 0) {
+            return !anchoredStart || value.isEmpty();
+        }
+
+        int from = 0;
+        int last = segments.length - 1;
+        for (int i = 0; i <= last; i++) {
+            String segment = segments[i];
+            if (i == 0 && anchoredStart) {
+                if (!value.regionMatches(ignoreCase, 0, segment, 0, segment.length())) {
+                    return false;
+                }
+                from = segment.length();
+            } else if (i == last && anchoredEnd) {
+                int start = value.length() - segment.length();
+                return start >= from && value.regionMatches(ignoreCase, start, segment, 0, segment.length());
+            } else {
+                int index = indexOf(value, segment, from);
+                if (index < 0) {
+                    return false;
+                }
+                from = index + segment.length();
+            }
+        }
+        return !anchoredEnd || from == value.length();
+    }
+
+    private int indexOf(String value, String segment, int from) {
+        for (int i = from; i <= value.length() - segment.length(); i++) {
+            if (value.regionMatches(ignoreCase, i, segment, 0, segment.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
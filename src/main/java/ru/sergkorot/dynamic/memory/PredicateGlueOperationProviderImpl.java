@@ -0,0 +1,79 @@
+package ru.sergkorot.dynamic.memory;
+
+import ru.sergkorot.dynamic.glue.Glue;
+import ru.sergkorot.dynamic.glue.GlueOperationProvider;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * @author Sergey Korotaev
+ * Realization of Glue operation provider interface for predicates over java objects.
+ * Glued predicates are kept in array and tested in a loop instead of chain of {@link Predicate#and},
+ * so deep requests do not produce deep call stacks
+ * @param <T> - type of objects
+ * @see GlueOperationProvider
+ */
+public class PredicateGlueOperationProviderImpl<T> implements GlueOperationProvider<Predicate<T>> {
+
+    private static final Predicate<?> ALL = target -> true;
+
+    @Override
+    public Glue<Predicate<T>> and() {
+        return predicates -> {
+            Predicate<T>[] conditions = toArray(predicates);
+            if (conditions.length == 0) {
+                return all();
+            }
+            if (conditions.length == 1) {
+                return conditions[0];
+            }
+            return target -> {
+                for (Predicate<T> condition : conditions) {
+                    if (!condition.test(target)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        };
+    }
+
+    @Override
+    public Glue<Predicate<T>> or() {
+        return predicates -> {
+            Predicate<T>[] conditions = toArray(predicates);
+            if (conditions.length == 0) {
+                return all();
+            }
+            if (conditions.length == 1) {
+                return conditions[0];
+            }
+            return target -> {
+                for (Predicate<T> condition : conditions) {
+                    if (condition.test(target)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        };
+    }
+
+    /**
+     * Predicate which matches everything, same as {@code findAll} for specifications
+     *
+     * @param <T> - type of objects
+     * @return Predicate
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Predicate<T> all() {
+        return (Predicate<T>) ALL;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Predicate<T>[] toArray(List<Predicate<T>> predicates) {
+        return predicates.stream().filter(Objects::nonNull).toArray(Predicate[]::new);
+    }
+}
@@ -0,0 +1,195 @@
+package ru.sergkorot.dynamic.memory;
+
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.operation.Operation;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
+
+/**
+ * @author Sergey Korotaev
+ * Realization of Operation provider interface for building predicates over java objects.
+ * Values of search params are converted to field types once, when predicate is built, so testing
+ * of objects does not allocate. Semantics follow the database: null values do not match any comparison,
+ * empty in and notIn lists do not match anything, like ignores case and contains does not
+ * @param <T> - type of objects
+ * @see PropertyPath
+ * @see PredicateOperationService
+ */
+public class PredicateOperationProviderImpl<T> implements OperationProvider<Predicate<T>> {
+
+    private static final Predicate<?> NOTHING = target -> false;
+
+    private final Class<T> type;
+    private final ConversionService conversionService;
+
+    public PredicateOperationProviderImpl(Class<T> type) {
+        this(type, ApplicationConversionService.getSharedInstance());
+    }
+
+    public PredicateOperationProviderImpl(Class<T> type, ConversionService conversionService) {
+        this.type = type;
+        this.conversionService = conversionService;
+    }
+
+    @Override
+    public Operation<Predicate<T>> like() {
+        return param -> {
+            String value = param.getValue().toString();
+            LikePattern pattern = LikePattern.compile(value.contains("%") ? value : "%" + value + "%", true);
+            return matches(param.getName(), v -> v != null && pattern.matches(v.toString()));
+        };
+    }
+
+    @Override
+    public Operation<Predicate<T>> eq() {
+        return param -> {
+            PropertyPath path = path(param.getName());
+            Object value = convert(param.getValue(), path);
+            return matches(path, v -> v != null && v.equals(value));
+        };
+    }
+
+    @Override
+    public Operation<Predicate<T>> notEq() {
+        return param -> {
+            PropertyPath path = path(param.getName());
+            Object value = convert(param.getValue(), path);
+            return matches(path, v -> v != null && !v.equals(value));
+        };
+    }
+
+    @Override
+    public Operation<Predicate<T>> in() {
+        return param -> {
+            PropertyPath path = path(param.getName());
+            Set<Object> values = convertAll(collectionCast(param.getValue()), path);
+            return values.isEmpty() ? nothing() : matches(path, v -> v != null && values.contains(v));
+        };
+    }
+
+    @Override
+    public Operation<Predicate<T>> notIn() {
+        return param -> {
+            PropertyPath path = path(param.getName());
+            Set<Object> values = convertAll(collectionCast(param.getValue()), path);
+            return values.isEmpty() ? nothing() : matches(path, v -> v != null && !values.contains(v));
+        };
+    }
+
+    @Override
+    public Operation<Predicate<T>> isNull() {
+        return param -> matches(param.getName(), v -> v == null);
+    }
+
+    @Override
+    public Operation<Predicate<T>> lessThan() {
+        return param -> compare(param.getName(), param.getValue(), result -> result < 0);
+    }
+
+    @Override
+    public Operation<Predicate<T>> greaterThan() {
+        return param -> compare(param.getName(), param.getValue(), result -> result > 0);
+    }
+
+    @Override
+    public Operation<Predicate<T>> greaterThanOrEquals() {
+        return param -> compare(param.getName(), param.getValue(), result -> result >= 0);
+    }
+
+    @Override
+    public Operation<Predicate<T>> lessThanOrEquals() {
+        return param -> compare(param.getName(), param.getValue(), result -> result <= 0);
+    }
+
+    public Operation<Predicate<T>> contains() {
+        return param -> {
+            List<LikePattern> patterns = Arrays.stream(param.getValue().toString().split(","))
+                    .map(v -> LikePattern.compile("%" + v.trim() + "%", false))
+                    .toList();
+            return matches(param.getName(), v -> {
+                if (v == null) {
+                    return false;
+                }
+                String value = v.toString();
+                for (LikePattern pattern : patterns) {
+                    if (!pattern.matches(value)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        };
+    }
+
+    /**
+     * Predicate which does not match anything, same as {@code findNothing} for specifications
+     *
+     * @param <T> - type of objects
+     * @return Predicate
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Predicate<T> nothing() {
+        return (Predicate<T>) NOTHING;
+    }
+
+    private PropertyPath path(String name) {
+        return PropertyPath.of(type, name);
+    }
+
+    private Predicate<T> matches(String name, Predicate<Object> test) {
+        return matches(path(name), test);
+    }
+
+    private Predicate<T> matches(PropertyPath path, Predicate<Object> test) {
+        return target -> path.test(target, test);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate<T> compare(String name, Object value, IntPredicate result) {
+        PropertyPath path = path(name);
+        if (!Comparable.class.isAssignableFrom(path.getType())) {
+            throw new IllegalArgumentException(String.format("field %s of type %s is not comparable", name, path.getType().getSimpleName()));
+        }
+        Comparable comparable = (Comparable) convert(value, path);
+        return matches(path, v -> v != null && result.test(((Comparable) v).compareTo(comparable)));
+    }
+
+    private Set<Object> convertAll(Collection<?> values, PropertyPath path) {
+        if (CollectionUtils.isEmpty(values)) {
+            return Set.of();
+        }
+        Set<Object> converted = new HashSet<>(values.size() * 2);
+        for (Object value : values) {
+            converted.add(convert(value, path));
+        }
+        return converted;
+    }
+
+    private Object convert(Object value, PropertyPath path) {
+        Class<?> fieldType = path.getType();
+        if (value == null || fieldType.isInstance(value)) {
+            return value;
+        }
+        try {
+            Object converted = conversionService.convert(value instanceof String string ? string.trim() : value, fieldType);
+            if (converted == null) {
+                throw new IllegalArgumentException(String.format("value %s can not be converted to type of field %s", value, path.getPath()));
+            }
+            return converted;
+        } catch (ConversionException e) {
+            throw new IllegalArgumentException(String.format("value %s can not be converted to type of field %s", value, path.getPath()), e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ru.sergkorot.dynamic.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.ConstantNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.ast.SearchRequestParser;
+import ru.sergkorot.dynamic.ast.SearchTreeSimplifier;
+import ru.sergkorot.dynamic.glue.GlueOperationProvider;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.PageAttribute;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.model.paging.PageRequestWithOffset;
+import ru.sergkorot.dynamic.operation.ManualOperationProvider;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+import ru.sergkorot.dynamic.operation.OperationService;
+import ru.sergkorot.dynamic.util.SortUtils;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sergey Korotaev
+ * Service for building predicates over java objects for base and complex requests, for example for filtering
+ * of local caches and event streams by the same search params as for database search.
+ * Predicates are built once and can be tested by many threads. Nested operations are resolved against
+ * collection of objects, which plays role of the table, see {@link #buildComplexByParams(List, GlueOperation, Collection)}
+ * @param <T> - type of objects
+ * @see PredicateOperationProviderImpl
+ * @see PredicateGlueOperationProviderImpl
+ */
+public class PredicateOperationService<T> implements OperationService<Predicate<T>> {
+
+    private final Class<T> type;
+    private final OperationProvider<Predicate<T>> operationProvider;
+    private final GlueOperationProvider<Predicate<T>> glueOperationProvider;
+    private final Map<String, ManualOperationProvider<Predicate<T>>> manualOperationProviderMap;
+    private final SearchRequestParser searchRequestParser;
+
+    public PredicateOperationService(Class<T> type, ObjectMapper objectMapper) {
+        this(type, new PredicateOperationProviderImpl<>(type), new PredicateGlueOperationProviderImpl<>(), List.of(), objectMapper);
+    }
+
+    public PredicateOperationService(Class<T> type,
+                                     OperationProvider<Predicate<T>> operationProvider,
+                                     GlueOperationProvider<Predicate<T>> glueOperationProvider,
+                                     List<ManualOperationProvider<Predicate<T>>> manualOperationProviders,
+                                     ObjectMapper objectMapper) {
+        this.type = type;
+        this.operationProvider = operationProvider;
+        this.glueOperationProvider = glueOperationProvider;
+        this.manualOperationProviderMap = CollectionUtils.isEmpty(manualOperationProviders)
+                ? Map.of()
+                : manualOperationProviders.stream().collect(Collectors.toMap(ManualOperationProvider::fieldName, Function.identity()));
+        this.searchRequestParser = new SearchRequestParser(objectMapper, manualOperationProviderMap.keySet(),
+                SearchRequestParser.operationsOf(operationProvider));
+    }
+
+    /**
+     * Create predicate for base search request without nested operations
+     *
+     * @param baseSearchParams - model for base search request
+     * @param glue             - condition for gluing predicates
+     * @return - predicate for objects
+     * @throws IllegalArgumentException if request contains nested operation
+     * @see BaseSearchParam
+     * @see GlueOperation
+     */
+    @Override
+    public Predicate<T> buildBaseByParams(List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
+        return buildByTree(SearchTreeSimplifier.simplify(searchRequestParser.parseBase(baseSearchParams, glue)), null);
+    }
+
+    /**
+     * Create predicate for complex search request without nested operations
+     *
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex predicates between each other
+     * @return - predicate for objects
+     * @throws IllegalArgumentException if request contains nested operation
+     * @see ComplexSearchParam
+     * @see GlueOperation
+     */
+    @Override
+    public Predicate<T> buildComplexByParams(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        return buildComplexByParams(complexSearchParams, externalGlue, null);
+    }
+
+    /**
+     * Create predicate for complex search request, nested operations are resolved against source objects
+     *
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex predicates between each other
+     * @param source              - objects which are searched by nested operations, if null nested operations are rejected
+     * @return - predicate for objects
+     */
+    public Predicate<T> buildComplexByParams(List<ComplexSearchParam> complexSearchParams,
+                                             GlueOperation externalGlue,
+                                             @Nullable Collection<? extends T> source) {
+        return buildByTree(SearchTreeSimplifier.simplify(searchRequestParser.parseComplex(complexSearchParams, externalGlue)), source);
+    }
+
+    /**
+     * Filter objects by complex search request
+     *
+     * @param source              - objects for filtering, nested operations are resolved against them too
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex predicates between each other
+     * @return - matched objects in order of source
+     */
+    public List<T> filter(Collection<? extends T> source,
+                          List<ComplexSearchParam> complexSearchParams,
+                          GlueOperation externalGlue) {
+        Predicate<T> predicate = buildComplexByParams(complexSearchParams, externalGlue, source);
+        return source.stream().filter(predicate).map(type::cast).toList();
+    }
+
+    /**
+     * Create PageRequest extension for paging and sorting settings
+     *
+     * @param pageAttribute    - attribute class for pagination and sorting
+     * @param searchSortFields - fields by which sorting is possible
+     * @return - PageRequestWithOffset
+     * @see PageRequestWithOffset
+     * @see PageAttribute
+     */
+    @Override
+    public PageRequestWithOffset buildPageSettings(PageAttribute pageAttribute, List<String> searchSortFields) {
+        if (Objects.isNull(pageAttribute)) {
+            return PageRequestWithOffset.of(SortUtils.DEFAULT_OFFSET, SortUtils.DEFAULT_LIMIT, List.of());
+        }
+        return PageRequestWithOffset.of(
+                pageAttribute.getOffset(),
+                pageAttribute.getLimit(),
+                SortUtils.makeSortOrders(searchSortFields, pageAttribute.getSortBy())
+        );
+    }
+
+    private Predicate<T> buildByTree(GroupNode group, Collection<? extends T> source) {
+        if (group.children().isEmpty()) {
+            return PredicateGlueOperationProviderImpl.all();
+        }
+        List<Predicate<T>> predicates = group.children()
+                .stream()
+                .map(node -> buildByNode(node, source))
+                .toList();
+        return buildGlue(glueOperationProvider, predicates, group.glue());
+    }
+
+    private Predicate<T> buildByNode(SearchNode node, Collection<? extends T> source) {
+        if (node instanceof GroupNode group) {
+            return buildByTree(group, source);
+        }
+        if (node instanceof NestedNode nested) {
+            return buildNestedOperation(nested, source);
+        }
+        if (node instanceof ConstantNode constant) {
+            return constant.value() ? PredicateGlueOperationProviderImpl.all() : PredicateOperationProviderImpl.nothing();
+        }
+        ConditionNode condition = (ConditionNode) node;
+        if (condition.manual()) {
+            return manualOperationProviderMap.get(condition.field()).buildOperation(condition.toParam());
+        }
+        return buildOperation(condition.toParam(), operationProvider);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate<T> buildNestedOperation(NestedNode node, Collection<? extends T> source) {
+        String name = node.field();
+        if (source == null) {
+            throw new IllegalArgumentException(String.format(
+                    "nested operation %s for field %s requires source objects, use filter or buildComplexByParams with source",
+                    node.operation().getOperationName(), name));
+        }
+
+        PropertyPath path = PropertyPath.of(type, name);
+        Predicate<T> nestedPredicate = buildByTree(node.group(), source);
+        Set<Object> values = new HashSet<>();
+        boolean[] hasNull = new boolean[1];
+        for (T element : source) {
+            if (nestedPredicate.test(element)) {
+                path.test(element, value -> {
+                    if (value == null) {
+                        hasNull[0] = true;
+                    } else {
+                        values.add(value);
+                    }
+                    return false;
+                });
+            }
+        }
+
+        return switch (node.operation()) {
+            case IN -> values.isEmpty()
+                    ? PredicateOperationProviderImpl.nothing()
+                    : target -> path.test(target, v -> v != null && values.contains(v));
+            case NOT_IN -> {
+                if (hasNull[0]) {
+                    yield PredicateOperationProviderImpl.nothing();
+                }
+                yield values.isEmpty()
+                        ? PredicateGlueOperationProviderImpl.all()
+                        : target -> path.test(target, v -> v != null && !values.contains(v));
+            }
+            case IS_NULL -> target -> path.test(target, Objects::isNull);
+            case EQUAL, NOT_EQUAL, LESS_THAN, GREATER_THAN, LESS_THAN_OR_EQUALS, GREATER_THAN_OR_EQUALS -> {
+                if (values.size() > 1) {
+                    throw new IllegalArgumentException(String.format("nested query for field %s returned more than one value", name));
+                }
+                if (values.isEmpty()) {
+                    yield PredicateOperationProviderImpl.nothing();
+                }
+                Object value = values.iterator().next();
+                yield switch (node.operation()) {
+                    case EQUAL -> target -> path.test(target, v -> v != null && v.equals(value));
+                    case NOT_EQUAL -> target -> path.test(target, v -> v != null && !v.equals(value));
+                    case LESS_THAN -> target -> path.test(target, v -> v != null && ((Comparable) v).compareTo(value) < 0);
+                    case GREATER_THAN -> target -> path.test(target, v -> v != null && ((Comparable) v).compareTo(value) > 0);
+                    case LESS_THAN_OR_EQUALS -> target -> path.test(target, v -> v != null && ((Comparable) v).compareTo(value) <= 0);
+                    default -> target -> path.test(target, v -> v != null && ((Comparable) v).compareTo(value) >= 0);
+                };
+            }
+            default -> throw new IllegalArgumentException(
+                    String.format("nested operation %s is not supported for objects", node.operation().getOperationName()));
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package ru.sergkorot.dynamic.memory;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * @author Sergey Korotaev
+ * Compiled accessor of field or dotted path ({@code customer.region.code}) of java objects.
+ * Public getters are called through functions generated by {@link LambdaMetafactory}, other members
+ * through method handles. Accessors are resolved once per class and path and cached.
+ * Path through a collection matches if any element matches, empty collection and null on the path
+ * are tested as null value, same as left join in the database
+ */
+public final class PropertyPath {
+
+    private static final ClassValue<Map<String, PropertyPath>> CACHE = new ClassValue<>() {
+        @Override
+        protected Map<String, PropertyPath> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final String path;
+    private final Function<Object, Object>[] steps;
+    private final boolean[] iterable;
+    private final Class<?> type;
+
+    private PropertyPath(String path, Function<Object, Object>[] steps, boolean[] iterable, Class<?> type) {
+        this.path = path;
+        this.steps = steps;
+        this.iterable = iterable;
+        this.type = type;
+    }
+
+    /**
+     * Get accessor of field or dotted path
+     *
+     * @param rootType - class of objects
+     * @param path     - field name or dotted path
+     * @return PropertyPath
+     * @throws IllegalArgumentException if field is not found
+     */
+    public static PropertyPath of(Class<?> rootType, String path) {
+        return CACHE.get(rootType).computeIfAbsent(path, p -> compile(rootType, p));
+    }
+
+    /**
+     * @return field name or dotted path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return java type of the last field, element type for collections
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Test values of the path
+     *
+     * @param target - object from which path starts
+     * @param test   - test of the value, null is passed for missing values
+     * @return true if value or any of values of the path through collections matches
+     */
+    public boolean test(Object target, Predicate<Object> test) {
+        return test(target, 0, test);
+    }
+
+    /**
+     * Get value of the path without collections
+     *
+     * @param target - object from which path starts
+     * @return value or null if any object on the path is null
+     */
+    public Object get(Object target) {
+        Object current = target;
+        for (Function<Object, Object> step : steps) {
+            if (current == null) {
+                return null;
+            }
+            current = step.apply(current);
+        }
+        return current;
+    }
+
+    private boolean test(Object current, int index, Predicate<Object> test) {
+        for (int i = index; i < steps.length; i++) {
+            if (current == null) {
+                return test.test(null);
+            }
+            current = steps[i].apply(current);
+            if (iterable[i] && current instanceof Iterable<?> elements) {
+                boolean empty = true;
+                for (Object element : elements) {
+                    empty = false;
+                    if (test(element, i + 1, test)) {
+                        return true;
+                    }
+                }
+                return empty && test.test(null);
+            }
+        }
+        return test.test(current);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PropertyPath compile(Class<?> rootType, String path) {
+        String[] parts = path.split("\\.");
+        Function<Object, Object>[] steps = new Function[parts.length];
+        boolean[] iterable = new boolean[parts.length];
+        Class<?> current = rootType;
+        for (int i = 0; i < parts.length; i++) {
+            Member member = member(current, parts[i], path);
+            steps[i] = member.accessor();
+            ResolvableType memberType = member.type();
+            iterable[i] = Iterable.class.isAssignableFrom(memberType.toClass());
+            current = iterable[i] ? memberType.as(Iterable.class).getGeneric(0).toClass() : memberType.toClass();
+        }
+        return new PropertyPath(path, steps, iterable, ClassUtils.resolvePrimitiveIfNecessary(current));
+    }
+
+    private static Member member(Class<?> type, String name, String path) {
+        Method getter = getter(type, name);
+        if (getter != null) {
+            return new Member(accessor(getter), ResolvableType.forMethodReturnType(getter, type));
+        }
+        for (Class<?> owner = type; owner != null && owner != Object.class; owner = owner.getSuperclass()) {
+            try {
+                Field field = owner.getDeclaredField(name);
+                MethodHandle handle = MethodHandles.privateLookupIn(owner, MethodHandles.lookup()).unreflectGetter(field);
+                return new Member(handleAccessor(handle), ResolvableType.forField(field, type));
+            } catch (NoSuchFieldException e) {
+                // field is declared in superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("field %s of %s is not accessible", name, type.getSimpleName()), e);
+            }
+        }
+        throw new IllegalArgumentException(String.format("field %s is not found in %s by path %s", name, type.getSimpleName(), path));
+    }
+
+    private static Method getter(Class<?> type, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String candidate : new String[]{"get" + suffix, "is" + suffix, name}) {
+            Method method = ClassUtils.getMethodIfAvailable(type, candidate);
+            if (method != null && method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())
+                    && (!candidate.equals(name) || type.isRecord())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> accessor(Method getter) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle handle = lookup.unreflect(getter);
+            if (Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(getter.getReturnType()), getter.getDeclaringClass())
+                );
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+            return handleAccessor(handle);
+        } catch (Throwable e) {
+            try {
+                getter.setAccessible(true);
+                return handleAccessor(lookup.unreflect(getter));
+            } catch (RuntimeException | IllegalAccessException ex) {
+                throw new IllegalArgumentException(String.format("getter %s is not accessible", getter), ex);
+            }
+        }
+    }
+
+    private static Function<Object, Object> handleAccessor(MethodHandle handle) {
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return target -> {
+            try {
+                return generic.invokeExact(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return path + ":" + type.getSimpleName();
+    }
+
+    private record Member(Function<Object, Object> accessor, ResolvableType type) {
+    }
+}
@@ -0,0 +1,46 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Specification which resolves attribute of the entity by root type and creates delegate specification
+ * with value coerced to attribute type. Attribute is resolved and value is converted once per entity type,
+ * so repeated toPredicate calls (data and count queries) reuse converted value
+ *
+ * @param <T> - the entity for which the request is being built
+ */
+public final class AttributeSpecification<T> implements Specification<T> {
+
+    private final EntityAttributeRegistry registry;
+    private final String path;
+    private final Function<EntityAttribute, Specification<T>> factory;
+    private volatile Resolved<T> resolved;
+
+    public AttributeSpecification(EntityAttributeRegistry registry,
+                                  String path,
+                                  Function<EntityAttribute, Specification<T>> factory) {
+        this.registry = registry;
+        this.path = path;
+        this.factory = factory;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Resolved<T> current = resolved;
+        if (current == null || current.entityClass() != root.getJavaType()) {
+            current = new Resolved<>(root.getJavaType(), factory.apply(registry.get(root.getJavaType(), path)));
+            resolved = current;
+        }
+        return current.specification().toPredicate(root, query, criteriaBuilder);
+    }
+
+    private record Resolved<T>(Class<?> entityClass, Specification<T> specification) {
+    }
+}
@@ -0,0 +1,134 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Resolved attribute of the entity by field name or dotted path with its java type
+ * @see EntityAttributeRegistry
+ */
+public final class EntityAttribute {
+
+    private final String path;
+    private final Class<?> javaType;
+    private final boolean association;
+    private final boolean collection;
+    private final ConversionService conversionService;
+
+    EntityAttribute(String path, Class<?> javaType, boolean association, boolean collection, ConversionService conversionService) {
+        this.path = path;
+        this.javaType = ClassUtils.resolvePrimitiveIfNecessary(javaType);
+        this.association = association;
+        this.collection = collection;
+        this.conversionService = conversionService;
+    }
+
+    /**
+     * @return field name or dotted path from the entity
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return java type of attribute, element type for collections
+     */
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * @return true if attribute is an entity association
+     */
+    public boolean isAssociation() {
+        return association;
+    }
+
+    /**
+     * @return true if attribute is a collection or path goes through a collection
+     */
+    public boolean isCollection() {
+        return collection;
+    }
+
+    /**
+     * @return true if values of attribute can be compared by less and greater operations
+     */
+    public boolean isComparable() {
+        return Comparable.class.isAssignableFrom(javaType);
+    }
+
+    /**
+     * Convert value to java type of the attribute
+     *
+     * @param value - value from search param
+     * @return converted value
+     */
+    public Object convert(Object value) {
+        return convert(value, javaType);
+    }
+
+    /**
+     * Convert value to element type of array attribute or to java type of other attributes
+     *
+     * @param value - element from search param
+     * @return converted value
+     */
+    public Object convertElement(Object value) {
+        return convert(value, javaType.isArray() ? ClassUtils.resolvePrimitiveIfNecessary(javaType.getComponentType()) : javaType);
+    }
+
+    private Object convert(Object value, Class<?> type) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        try {
+            Object converted = conversionService.convert(value instanceof String string ? string.trim() : value, type);
+            if (converted == null) {
+                throw new IllegalArgumentException(String.format("value %s can not be converted to type of field %s", value, path));
+            }
+            return converted;
+        } catch (ConversionException e) {
+            throw new IllegalArgumentException(String.format("value %s can not be converted to type of field %s", value, path), e);
+        }
+    }
+
+    /**
+     * Convert each element of collection to java type of the attribute
+     *
+     * @param values - values from search param
+     * @return converted values
+     */
+    public List<Object> convertAll(Collection<?> values) {
+        List<Object> converted = new ArrayList<>(values.size());
+        for (Object value : values) {
+            converted.add(convert(value));
+        }
+        return converted;
+    }
+
+    /**
+     * Convert value to comparable java type of the attribute
+     *
+     * @param value - value from search param
+     * @return converted value
+     */
+    @SuppressWarnings("rawtypes")
+    public Comparable convertComparable(Object value) {
+        if (!isComparable()) {
+            throw new IllegalArgumentException(String.format("field %s of type %s is not comparable", path, javaType.getSimpleName()));
+        }
+        return (Comparable) convert(value);
+    }
+
+    @Override
+    public String toString() {
+        return path + ":" + javaType.getSimpleName();
+    }
+}
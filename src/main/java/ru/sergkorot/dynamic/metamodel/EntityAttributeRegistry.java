@@ -0,0 +1,147 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.lang.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Sergey Korotaev
+ * Cache of entity attributes by field names and dotted paths over JPA metamodel.
+ * Paths are resolved on demand segment by segment, so self references ({@code parent.parent.name})
+ * and cycles between entities are resolved up to {@link #MAX_PATH_DEPTH} segments,
+ * resolved attributes are cached per entity up to {@link #MAX_CACHED_PATHS}.
+ * Is used for coercing search values to attribute types and rejecting unknown fields before query building
+ * @see EntityAttribute
+ */
+public class EntityAttributeRegistry {
+
+    /**
+     * Maximum number of segments of dotted path
+     */
+    public static final int MAX_PATH_DEPTH = 8;
+
+    /**
+     * Maximum number of cached paths of single entity, paths above it are resolved for each request
+     */
+    public static final int MAX_CACHED_PATHS = 4096;
+
+    private final Map<Class<?>, EntityType<?>> entities;
+    private final Map<Class<?>, Map<String, EntityAttribute>> attributes = new ConcurrentHashMap<>();
+    private final ConversionService conversionService;
+
+    @Autowired
+    public EntityAttributeRegistry(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    public EntityAttributeRegistry(Metamodel metamodel, ConversionService conversionService) {
+        Map<Class<?>, EntityType<?>> result = new HashMap<>();
+        for (EntityType<?> entityType : metamodel.getEntities()) {
+            result.put(entityType.getJavaType(), entityType);
+        }
+        this.entities = Map.copyOf(result);
+        this.conversionService = conversionService;
+    }
+
+    /**
+     * Find attribute of entity
+     *
+     * @param entityClass - the entity for which the request is being built
+     * @param path        - field name or dotted path
+     * @return attribute or empty if entity has no such field
+     * @throws IllegalArgumentException if path has more than {@link #MAX_PATH_DEPTH} segments
+     */
+    public Optional<EntityAttribute> find(@NonNull Class<?> entityClass, @NonNull String path) {
+        EntityType<?> entityType = entities.get(entityClass);
+        if (entityType == null) {
+            return Optional.empty();
+        }
+        Map<String, EntityAttribute> entityAttributes = attributes.computeIfAbsent(entityClass, k -> new ConcurrentHashMap<>());
+        EntityAttribute attribute = entityAttributes.get(path);
+        if (attribute == null) {
+            attribute = resolve(entityType, path);
+            if (attribute != null && entityAttributes.size() < MAX_CACHED_PATHS) {
+                entityAttributes.putIfAbsent(path, attribute);
+            }
+        }
+        return Optional.ofNullable(attribute);
+    }
+
+    /**
+     * Get attribute of entity
+     *
+     * @param entityClass - the entity for which the request is being built
+     * @param path        - field name or dotted path
+     * @return EntityAttribute
+     * @throws IllegalArgumentException if entity has no such field or path is too deep
+     */
+    @NonNull
+    public EntityAttribute get(@NonNull Class<?> entityClass, @NonNull String path) {
+        return find(entityClass, path)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        String.format("field %s not found for entity %s", path, entityClass.getSimpleName())));
+    }
+
+    /**
+     * @param entityClass - entity class
+     * @return true if entity is registered in the metamodel
+     */
+    public boolean isEntity(Class<?> entityClass) {
+        return entities.containsKey(entityClass);
+    }
+
+    private EntityAttribute resolve(EntityType<?> entityType, String path) {
+        String[] segments = path.split("\\.", -1);
+        if (segments.length > MAX_PATH_DEPTH) {
+            throw new IllegalArgumentException(String.format(
+                    "path %s of entity %s has %d segments, maximum depth is %d",
+                    path, entityType.getJavaType().getSimpleName(), segments.length, MAX_PATH_DEPTH));
+        }
+        ManagedType<?> type = entityType;
+        boolean collection = false;
+        Attribute<?, ?> attribute = null;
+        Type<?> target = null;
+        for (String segment : segments) {
+            if (type == null) {
+                return null;
+            }
+            attribute = attribute(type, segment);
+            if (attribute == null) {
+                return null;
+            }
+            if (attribute instanceof PluralAttribute<?, ?, ?> pluralAttribute) {
+                target = pluralAttribute.getElementType();
+                collection = true;
+            } else {
+                target = ((SingularAttribute<?, ?>) attribute).getType();
+            }
+            type = target instanceof ManagedType<?> managedType ? managedType : null;
+        }
+        return new EntityAttribute(path, target.getJavaType(), attribute.isAssociation(), collection, conversionService);
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> type, String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        try {
+            return type.getAttribute(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
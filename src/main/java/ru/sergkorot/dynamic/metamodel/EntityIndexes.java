@@ -0,0 +1,225 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Sergey Korotaev
+ * Indexed fields of entities. For entities of registered entity manager factories indexes are taken from Hibernate
+ * mapping (identifiers, unique columns, {@code @Table} indexes and unique constraints) and, if enabled,
+ * from the database by JDBC {@code DatabaseMetaData.getIndexInfo}; field is indexed if its column is the first column
+ * of some index. Indexes of other entities are guessed by mapping annotations, column names are matched with field names
+ * directly and in snake case, as default naming strategy of Spring Boot does. Configured fields are indexed in any case
+ */
+public class EntityIndexes {
+
+    private final Map<String, List<String>> configuredFields;
+    private final boolean inspectDatabase;
+    private final Map<Class<?>, Set<String>> registeredFields = new ConcurrentHashMap<>();
+    private final Map<Class<?>, TableIndexes> registeredIndexes = new ConcurrentHashMap<>();
+    private final ClassValue<Set<String>> annotatedFields = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            return resolveAnnotatedFields(type);
+        }
+    };
+
+    /**
+     * @param configuredFields - indexed fields by simple or fully qualified name of entity class
+     */
+    public EntityIndexes(Map<String, List<String>> configuredFields) {
+        this(configuredFields, false);
+    }
+
+    /**
+     * @param configuredFields - indexed fields by simple or fully qualified name of entity class
+     * @param inspectDatabase  - read indexes of registered entities from the database
+     */
+    public EntityIndexes(Map<String, List<String>> configuredFields, boolean inspectDatabase) {
+        this.configuredFields = configuredFields;
+        this.inspectDatabase = inspectDatabase;
+    }
+
+    /**
+     * Read indexes of all entities of the persistence unit by its mapping and, if enabled, by its database
+     *
+     * @param entityManagerFactory - factory of the persistence unit
+     * @throws IllegalStateException if indexes of the database can not be read
+     */
+    public void register(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        ConnectionProvider connectionProvider = inspectDatabase
+                ? sessionFactory.getServiceRegistry().getService(ConnectionProvider.class)
+                : null;
+        for (EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+            Class<?> entityClass = entityType.getJavaType();
+            EntityPersister persister = sessionFactory.getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(entityClass);
+            if (persister instanceof AbstractEntityPersister entityPersister) {
+                TableIndexes indexes = mappingIndexes(entityClass, entityPersister);
+                if (connectionProvider != null) {
+                    readDatabaseIndexes(connectionProvider, entityPersister.getTableName(), indexes);
+                }
+                registeredIndexes.put(entityClass, indexes);
+                registeredFields.put(entityClass, leadingFields(entityPersister, indexes));
+            }
+        }
+    }
+
+    /**
+     * @param entityClass - class to check
+     * @return true if class is mapped entity and its indexes are known
+     */
+    public boolean isEntity(Class<?> entityClass) {
+        return entityClass != null && (registeredFields.containsKey(entityClass) || entityClass.isAnnotationPresent(Entity.class));
+    }
+
+    /**
+     * @param entityClass - entity class
+     * @param field       - field name or dotted path
+     * @return true if field is indexed
+     */
+    public boolean isIndexed(Class<?> entityClass, String field) {
+        Set<String> registered = registeredFields.get(entityClass);
+        return (registered == null ? annotatedFields.get(entityClass) : registered).contains(field)
+                || configuredFields.getOrDefault(entityClass.getSimpleName(), List.of()).contains(field)
+                || configuredFields.getOrDefault(entityClass.getName(), List.of()).contains(field);
+    }
+
+    /**
+     * @param entityClass - entity class
+     * @return indexes of table of registered entity or null if entity is not registered
+     */
+    @Nullable
+    public TableIndexes getTableIndexes(Class<?> entityClass) {
+        return registeredIndexes.get(entityClass);
+    }
+
+    private static TableIndexes mappingIndexes(Class<?> entityClass, AbstractEntityPersister persister) {
+        TableIndexes indexes = new TableIndexes();
+        indexes.add(Arrays.asList(persister.getIdentifierColumnNames()));
+        for (String property : persister.getPropertyNames()) {
+            Field field = findField(entityClass, property);
+            Column column = field == null ? null : field.getAnnotation(Column.class);
+            JoinColumn joinColumn = field == null ? null : field.getAnnotation(JoinColumn.class);
+            if ((column != null && column.unique()) || (joinColumn != null && joinColumn.unique())) {
+                indexes.add(Arrays.asList(persister.getPropertyColumnNames(property)));
+            }
+        }
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table != null) {
+            for (Index index : table.indexes()) {
+                indexes.add(Arrays.stream(index.columnList().split(",")).map(column -> column.trim().split("\\s+")[0]).toList());
+            }
+            for (UniqueConstraint constraint : table.uniqueConstraints()) {
+                indexes.add(Arrays.asList(constraint.columnNames()));
+            }
+        }
+        return indexes;
+    }
+
+    private static void readDatabaseIndexes(ConnectionProvider connectionProvider, String table, TableIndexes indexes) {
+        try {
+            Connection connection = connectionProvider.getConnection();
+            try {
+                indexes.addDatabaseIndexes(connection, table);
+            } finally {
+                connectionProvider.closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("connection for reading indexes of %s can not be obtained", table), e);
+        }
+    }
+
+    private static Set<String> leadingFields(AbstractEntityPersister persister, TableIndexes indexes) {
+        Set<String> fields = new HashSet<>();
+        String identifier = persister.getIdentifierPropertyName();
+        if (identifier != null) {
+            fields.add(identifier);
+        }
+        for (String property : persister.getPropertyNames()) {
+            String[] columns = persister.getPropertyColumnNames(property);
+            if (columns != null && columns.length > 0 && indexes.position(columns[0]) == 1) {
+                fields.add(property);
+            }
+        }
+        return Set.copyOf(fields);
+    }
+
+    private static Field findField(Class<?> entityClass, String name) {
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // field is declared by superclass
+            }
+        }
+        return null;
+    }
+
+    private Set<String> resolveAnnotatedFields(Class<?> entityClass) {
+        Set<String> indexedColumns = new HashSet<>();
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table != null) {
+            for (Index index : table.indexes()) {
+                String firstColumn = index.columnList().split(",")[0].trim().split("\\s+")[0];
+                indexedColumns.add(firstColumn.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        Set<String> indexed = new HashSet<>();
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                Column column = field.getAnnotation(Column.class);
+                JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+                String columnName = column != null && !column.name().isEmpty()
+                        ? column.name()
+                        : joinColumn != null && !joinColumn.name().isEmpty() ? joinColumn.name() : snakeCase(field.getName());
+                if (field.isAnnotationPresent(Id.class)
+                        || field.isAnnotationPresent(EmbeddedId.class)
+                        || (column != null && column.unique())
+                        || (joinColumn != null && joinColumn.unique())
+                        || indexedColumns.contains(columnName.toLowerCase(Locale.ROOT))
+                        || indexedColumns.contains(field.getName().toLowerCase(Locale.ROOT))) {
+                    indexed.add(field.getName());
+                }
+            }
+        }
+        return Set.copyOf(indexed);
+    }
+
+    private static String snakeCase(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                builder.append('_');
+            }
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * @author Sergey Korotaev
+ * Registers indexes of each persistence unit in {@link EntityIndexes} after all singletons are created
+ */
+public class EntityIndexesListener implements SmartInitializingSingleton {
+
+    private final EntityIndexes entityIndexes;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactories;
+
+    public EntityIndexesListener(EntityIndexes entityIndexes, ObjectProvider<EntityManagerFactory> entityManagerFactories) {
+        this.entityIndexes = entityIndexes;
+        this.entityManagerFactories = entityManagerFactories;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        entityManagerFactories.orderedStream().forEach(entityIndexes::register);
+    }
+}
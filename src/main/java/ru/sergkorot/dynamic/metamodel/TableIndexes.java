@@ -0,0 +1,128 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sergey Korotaev
+ * Indexes of one table as lists of unquoted lower-case columns or expressions in order of index
+ */
+public final class TableIndexes {
+
+    private final List<List<String>> indexes = new ArrayList<>();
+
+    /**
+     * Add index
+     *
+     * @param columns - columns or expressions of index in order of index
+     */
+    public void add(List<String> columns) {
+        if (!columns.isEmpty()) {
+            indexes.add(columns.stream().map(TableIndexes::normalize).toList());
+        }
+    }
+
+    /**
+     * Add indexes of the table from the database by JDBC {@code DatabaseMetaData.getIndexInfo}
+     *
+     * @param connection     - connection to the database
+     * @param qualifiedTable - table name with optional schema
+     * @throws IllegalStateException if indexes can not be read
+     */
+    public void addDatabaseIndexes(Connection connection, String qualifiedTable) {
+        String[] parts = qualifiedTable.replace("\"", "").replace("`", "").split("\\.");
+        String table = parts[parts.length - 1];
+        String schema = parts.length > 1 ? parts[parts.length - 2] : null;
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (metaData.storesUpperCaseIdentifiers()) {
+                table = table.toUpperCase(Locale.ROOT);
+                schema = schema == null ? null : schema.toUpperCase(Locale.ROOT);
+            } else if (metaData.storesLowerCaseIdentifiers()) {
+                table = table.toLowerCase(Locale.ROOT);
+                schema = schema == null ? null : schema.toLowerCase(Locale.ROOT);
+            }
+            Map<String, Map<Short, String>> columnsByIndex = new TreeMap<>();
+            try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), schema, table, false, true)) {
+                while (resultSet.next()) {
+                    String indexName = resultSet.getString("INDEX_NAME");
+                    String column = resultSet.getString("COLUMN_NAME");
+                    if (indexName == null || column == null || resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                        continue;
+                    }
+                    columnsByIndex.computeIfAbsent(indexName, name -> new TreeMap<>()).put(resultSet.getShort("ORDINAL_POSITION"), column);
+                }
+            }
+            columnsByIndex.values().forEach(columns -> add(List.copyOf(columns.values())));
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("indexes of table %s can not be read: %s", qualifiedTable, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * @param column - column name
+     * @return the least position of column in indexes starting from 1, or 0 if column is not in any index
+     */
+    public int position(String column) {
+        String name = normalize(column);
+        int position = 0;
+        for (List<String> index : indexes) {
+            int current = index.indexOf(name) + 1;
+            if (current > 0 && (position == 0 || current < position)) {
+                position = current;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @param function - function name
+     * @param column   - column name
+     * @return true if some index starts with expression of the function over the column
+     */
+    public boolean hasFunctionIndex(String function, String column) {
+        Pattern columnPattern = columnPattern(column);
+        return indexes.stream()
+                .map(index -> index.get(0))
+                .anyMatch(expression -> expression.contains(function + "(") && columnPattern.matcher(expression).find());
+    }
+
+    /**
+     * @param column - column name
+     * @return true if some index contains the column or expression over it, for example GIN or trigram index
+     */
+    public boolean covers(String column) {
+        Pattern columnPattern = columnPattern(column);
+        return indexes.stream().flatMap(List::stream).anyMatch(expression -> columnPattern.matcher(expression).find());
+    }
+
+    /**
+     * @return readable list of indexes
+     */
+    public String describe() {
+        return indexes.isEmpty()
+                ? "no indexes"
+                : indexes.stream().map(index -> String.join(", ", index)).collect(Collectors.joining("), (", "(", ")"));
+    }
+
+    /**
+     * @param column - column name or expression
+     * @return unquoted lower-case column name
+     */
+    public static String normalize(String column) {
+        return column.replace("\"", "").replace("`", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Pattern columnPattern(String column) {
+        return Pattern.compile("(^|[^a-z0-9_])" + Pattern.quote(normalize(column)) + "([^a-z0-9_]|$)");
+    }
+}
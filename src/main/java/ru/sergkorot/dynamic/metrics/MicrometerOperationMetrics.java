@@ -0,0 +1,143 @@
+package ru.sergkorot.dynamic.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.ast.SearchRequestParser;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Sergey Korotaev
+ * Micrometer implementation of operation metrics. Operation tag of predicate timers takes only known operations,
+ * other operations are recorded as {@value #OTHER}, so requests can not create unbounded number of meters
+ * @see OperationMetrics
+ */
+public class MicrometerOperationMetrics implements OperationMetrics {
+
+    private static final String NONE = "none";
+    private static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> operations;
+    private final Map<String, Timer> buildTimers = new ConcurrentHashMap<>();
+    private final Map<PredicateKey, Timer> predicateTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejectionCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> resultCacheCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary paramsSummary;
+    private final DistributionSummary inListSummary;
+    private final DistributionSummary nestingSummary;
+    private final DistributionSummary costSummary;
+
+    /**
+     * @param meterRegistry - registry of meters
+     */
+    public MicrometerOperationMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, SearchRequestParser.STANDARD_OPERATIONS);
+    }
+
+    /**
+     * @param meterRegistry - registry of meters
+     * @param operations    - operations of providers which are recorded by own tag, operations of nested requests are known always
+     * @see SearchRequestParser#operationsOf(ru.sergkorot.dynamic.operation.OperationProvider)
+     */
+    public MicrometerOperationMetrics(MeterRegistry meterRegistry, Set<String> operations) {
+        this.meterRegistry = meterRegistry;
+        Set<String> known = new HashSet<>(operations);
+        for (NestedOperation nestedOperation : NestedOperation.values()) {
+            known.add(nestedOperation.getOperationName());
+        }
+        this.operations = Set.copyOf(known);
+        this.paramsSummary = DistributionSummary.builder("operation.search.params")
+                .description("Number of search params in request")
+                .register(meterRegistry);
+        this.inListSummary = DistributionSummary.builder("operation.search.in.size")
+                .description("Number of elements in in and notIn operations")
+                .register(meterRegistry);
+        this.nestingSummary = DistributionSummary.builder("operation.search.nesting.depth")
+                .description("Depth of nested operations")
+                .register(meterRegistry);
+        this.costSummary = DistributionSummary.builder("operation.search.cost")
+                .description("Estimated cost of search request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordBuild(String type, long nanos, int paramsCount) {
+        buildTimers.computeIfAbsent(type, key -> Timer.builder("operation.search.build")
+                        .description("Time of specification building")
+                        .tag("type", key)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        paramsSummary.record(paramsCount);
+    }
+
+    @Override
+    public <T> Specification<T> instrument(Specification<T> specification, String operation, boolean nested, String manualField) {
+        Timer timer = predicateTimers.computeIfAbsent(
+                new PredicateKey(operations.contains(operation) ? operation : OTHER, nested, manualField == null ? NONE : manualField),
+                key -> Timer.builder("operation.search.predicate")
+                        .description("Time of predicate materialization")
+                        .tag("operation", key.operation())
+                        .tag("nested", String.valueOf(key.nested()))
+                        .tag("manual", key.manualField())
+                        .register(meterRegistry)
+        );
+        return (root, query, criteriaBuilder) -> {
+            long start = System.nanoTime();
+            try {
+                return specification.toPredicate(root, query, criteriaBuilder);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    @Override
+    public void recordInListSize(int size) {
+        inListSummary.record(size);
+    }
+
+    @Override
+    public void recordNestingDepth(int depth) {
+        nestingSummary.record(depth);
+    }
+
+    @Override
+    public void recordCost(double cost) {
+        costSummary.record(cost);
+    }
+
+    @Override
+    public void recordRejection(String reason) {
+        rejectionCounters.computeIfAbsent(reason, key -> Counter.builder("operation.search.rejected")
+                        .description("Number of search requests rejected by admission control")
+                        .tag("reason", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Override
+    public void recordResultCache(String result) {
+        resultCacheCounters.computeIfAbsent(result, key -> Counter.builder("operation.search.result.cache")
+                        .description("Number of lookups in search results cache")
+                        .tag("result", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private record PredicateKey(String operation, boolean nested, String manualField) {
+    }
+}
@@ -0,0 +1,88 @@
+package ru.sergkorot.dynamic.metrics;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * @author Sergey Korotaev
+ * Instrumentation of specification building and predicate materialization.
+ * Default implementation does nothing, so disabled metrics cost only one check of {@link #isEnabled()}
+ */
+public interface OperationMetrics {
+
+    /**
+     * Instrumentation which does nothing
+     */
+    OperationMetrics NOOP = new OperationMetrics() {
+    };
+
+    /**
+     * @return true if metrics are recorded and operation service should collect values for them
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Record time of specification building
+     *
+     * @param type        - type of request (base or complex)
+     * @param nanos       - time of building in nanoseconds
+     * @param paramsCount - number of search params in request
+     */
+    default void recordBuild(String type, long nanos, int paramsCount) {
+    }
+
+    /**
+     * Wrap specification for timing of its predicate materialization
+     *
+     * @param specification - specification of single operation
+     * @param operation     - operation name
+     * @param nested        - true for nested (nst:) operation
+     * @param manualField   - field name of manual operation provider or null
+     * @param <T>           - the entity for which the request is being built
+     * @return instrumented specification
+     */
+    default <T> Specification<T> instrument(Specification<T> specification, String operation, boolean nested, String manualField) {
+        return specification;
+    }
+
+    /**
+     * Record number of elements in in/notIn operation
+     *
+     * @param size - size of collection
+     */
+    default void recordInListSize(int size) {
+    }
+
+    /**
+     * Record depth of nested (nst:) operation
+     *
+     * @param depth - nesting level starting from 1
+     */
+    default void recordNestingDepth(int depth) {
+    }
+
+    /**
+     * Record estimated cost of search request
+     *
+     * @param cost - cost estimated by admission control
+     */
+    default void recordCost(double cost) {
+    }
+
+    /**
+     * Record rejection of search request by admission control
+     *
+     * @param reason - reason of rejection (cost or concurrency)
+     */
+    default void recordRejection(String reason) {
+    }
+
+    /**
+     * Record lookup in search results cache
+     *
+     * @param result - hit, miss, wait for concurrent query of the same key or bypass of session with not flushed changes
+     */
+    default void recordResultCache(String result) {
+    }
+}
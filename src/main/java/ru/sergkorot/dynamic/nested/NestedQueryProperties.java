@@ -0,0 +1,43 @@
+package ru.sergkorot.dynamic.nested;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.enums.NestedStrategy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of nested (nst:) queries building
+ * @see NestedStrategy
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.nested")
+public class NestedQueryProperties {
+
+    /**
+     * Strategy for operations which are absent in {@link #strategies}
+     */
+    private NestedStrategy defaultStrategy = NestedStrategy.SUBQUERY;
+
+    /**
+     * Strategy by nested operation name (in, notIn)
+     */
+    private Map<String, NestedStrategy> strategies = new HashMap<>();
+
+    /**
+     * Get strategy for nested operation. Strategy other than subquery is applied only
+     * if operation supports it
+     *
+     * @param operation - nested operation
+     * @return NestedStrategy
+     */
+    public NestedStrategy strategyFor(NestedOperation operation) {
+        NestedStrategy strategy = strategies.getOrDefault(operation.getOperationName(), defaultStrategy);
+        return strategy == NestedStrategy.EXISTS && !operation.isExistsSupported()
+                ? NestedStrategy.SUBQUERY
+                : strategy;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.sergkorot.dynamic.operation;
+
+import ru.sergkorot.dynamic.admission.SearchAdmissionController;
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of page search which holds slot of heavy requests of the entity while the rest of the chain is executed.
+ * Requests of batch are admitted with the whole batch and pass through
+ *
+ * @param <T> - entity type
+ * @see SearchAdmissionController
+ */
+final class AdmissionStage<T> implements PageSearchStage<T> {
+
+    private final SearchAdmissionController admissionController;
+
+    /**
+     * @param admissionController - controller of costs and concurrency of requests
+     */
+    AdmissionStage(SearchAdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        if (search.admitted()) {
+            return next.apply(search);
+        }
+        try (SearchAdmissionController.Admission admission = admissionController.admit(search.entityClass(), search.tree())) {
+            return next.apply(search);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaExpression;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.sergkorot.dynamic.batch.QueryDeadline;
+import ru.sergkorot.dynamic.paging.CountQuery;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Criteria queries of entities and their counts by specification
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class CriteriaQueries {
+
+    /**
+     * @param entityManager - entity manager for query creation
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param sort          - sorting of rows, ordering is not added for unsorted
+     * @param <T>           - entity type
+     * @return query of entities matched by specification
+     */
+    static <T> CriteriaQuery<T> select(EntityManager entityManager, Class<T> entityClass, Specification<T> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClass);
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        Predicate predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        if (sort.isSorted()) {
+            criteriaQuery.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+
+        return criteriaQuery;
+    }
+
+    /**
+     * Limit query by page and by deadline of the batch
+     *
+     * @param query    - query of rows
+     * @param pageable - paging settings, unpaged query is not limited
+     * @param <R>      - type of rows
+     * @return the same query
+     */
+    static <R> TypedQuery<R> page(TypedQuery<R> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return QueryDeadline.apply(query);
+    }
+
+    /**
+     * @param entityManager - entity manager for query creation
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param <T>           - entity type
+     * @return exact and bounded counts of entities matched by specification
+     */
+    static <T> CountQuery count(EntityManager entityManager, Class<T> entityClass, Specification<T> specification) {
+        return CountQuery.of(
+                () -> countAll(entityManager, entityClass, specification),
+                limit -> countUpTo(entityManager, entityClass, specification, limit)
+        );
+    }
+
+    /**
+     * @param entityManager - entity manager for query creation
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param <T>           - entity type
+     * @return number of entities matched by specification, distinct entities for distinct specification
+     */
+    static <T> long countAll(EntityManager entityManager, Class<T> entityClass, Specification<T> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        Predicate predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        criteriaQuery.select(criteriaQuery.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root));
+        criteriaQuery.orderBy(List.of());
+
+        return QueryDeadline.apply(entityManager.createQuery(criteriaQuery)).getSingleResult();
+    }
+
+    /**
+     * Count rows up to the limit by {@code select count(*) from (select 1 from ... limit n)},
+     * so the database stops after the limit and no rows are transferred
+     */
+    private static <T> long countUpTo(EntityManager entityManager, Class<T> entityClass, Specification<T> specification, long limit) {
+        HibernateCriteriaBuilder criteriaBuilder = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        JpaCriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+        JpaSubQuery<Integer> rowsQuery = countQuery.subquery(Integer.class);
+        Root<T> root = rowsQuery.from(entityClass);
+
+        Predicate predicate = specification.toPredicate(root, countQuery, criteriaBuilder);
+        if (predicate != null) {
+            rowsQuery.where(predicate);
+        }
+        JpaExpression<Integer> row = criteriaBuilder.literal(1);
+        row.alias("one");
+        rowsQuery.select(row)
+                .fetch((int) Math.min(limit, Integer.MAX_VALUE));
+
+        countQuery.from(rowsQuery);
+        countQuery.select(criteriaBuilder.count(criteriaBuilder.literal(1)));
+
+        return QueryDeadline.apply(entityManager.createQuery(countQuery)).getSingleResult();
+    }
+}
@@ -0,0 +1,48 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * The last stage of page search, finds rows and counts them by criteria query built from specification of the request
+ *
+ * @param <T> - entity type
+ * @see CountQueryExecutor
+ */
+final class CriteriaStage<T> implements PageSearchStage<T> {
+
+    private final SpecificationOperationService<T> operationService;
+    private final CountQueryExecutor countQueryExecutor;
+
+    /**
+     * @param operationService   - builder of specification of the request
+     * @param countQueryExecutor - executor of count of the request
+     */
+    CriteriaStage(SpecificationOperationService<T> operationService, CountQueryExecutor countQueryExecutor) {
+        this.operationService = operationService;
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        EntityManager entityManager = search.entityManager();
+        Specification<T> specification = operationService.buildByTree(search.tree());
+
+        List<T> content = CriteriaQueries.page(
+                entityManager.createQuery(CriteriaQueries.select(entityManager, search.entityClass(), specification, search.pageable().getSort())),
+                search.pageable()
+        ).getResultList();
+        return countQueryExecutor.toPage(
+                content,
+                search.pageable(),
+                search.countKey(),
+                CriteriaQueries.count(entityManager, search.entityClass(), specification)
+        );
+    }
+}
@@ -0,0 +1,35 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Pageable;
+import ru.sergkorot.dynamic.ast.GroupNode;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Search of page of entities by parsed request, is passed through stages of {@link PageSearchChain}
+ *
+ * @param entityManager - entity manager for query creation
+ * @param entityClass   - the entity for which the request is being built
+ * @param tree          - parsed and simplified request
+ * @param pageable      - paging and sorting settings
+ * @param admitted      - true if request is already admitted as a part of batch
+ * @param <T>           - entity type
+ */
+record PageSearch<T>(EntityManager entityManager,
+                     Class<T> entityClass,
+                     GroupNode tree,
+                     Pageable pageable,
+                     boolean admitted) {
+
+    /**
+     * Key of counts cache: entity and simplified request without sorting, requests with manual conditions
+     * are not cached, because manual operations may depend on state out of the request
+     *
+     * @return key of counts cache or null if count must not be cached
+     */
+    Object countKey() {
+        return SpecificationOperationService.hasManualConditions(tree) ? null : List.of(entityClass, tree);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.sergkorot.dynamic.operation;
+
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Ordered stages of search of page: result cache, admission, slow search recording, union of or branches,
+ * query template and criteria query. Stages of features which are not configured are not included,
+ * the last stage must find page without calling the next one
+ *
+ * @param <T> - entity type
+ */
+final class PageSearchChain<T> {
+
+    private final List<PageSearchStage<T>> stages;
+
+    /**
+     * @param stages - stages in order of execution, the last one finds page by query
+     */
+    PageSearchChain(List<PageSearchStage<T>> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("chain of page search requires at least one stage");
+        }
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * @param search - search of page
+     * @return page of found entities
+     */
+    CountedPage<T> find(PageSearch<T> search) {
+        return find(search, 0);
+    }
+
+    private CountedPage<T> find(PageSearch<T> search, int index) {
+        if (index == stages.size()) {
+            throw new IllegalStateException(String.format("page of %s is not found by the last stage", search.entityClass().getName()));
+        }
+        return stages.get(index).find(search, next -> find(next, index + 1));
+    }
+}
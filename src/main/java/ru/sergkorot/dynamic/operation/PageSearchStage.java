@@ -0,0 +1,24 @@
+package ru.sergkorot.dynamic.operation;
+
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of search of page. Stage either finds page itself or passes search to the next stage,
+ * possibly wrapping it by caching, admission or recording
+ *
+ * @param <T> - entity type
+ * @see PageSearchChain
+ */
+@FunctionalInterface
+interface PageSearchStage<T> {
+
+    /**
+     * @param search - search of page
+     * @param next   - the rest of the chain
+     * @return page of found entities
+     */
+    CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next);
+}
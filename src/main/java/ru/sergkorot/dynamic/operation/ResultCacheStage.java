@@ -0,0 +1,39 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.result.CachedPage;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of page search which caches identifiers and total of found pages by request, paging and sorting,
+ * entities of cached page are loaded by identifiers
+ *
+ * @param <T> - entity type
+ * @see SearchResultCache
+ */
+final class ResultCacheStage<T> implements PageSearchStage<T> {
+
+    private final SearchResultCache resultCache;
+
+    /**
+     * @param resultCache - cache of found pages
+     */
+    ResultCacheStage(SearchResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        EntityManager entityManager = search.entityManager();
+        return resultCache.get(
+                entityManager,
+                resultCache.key(search.entityClass(), search.tree(), search.pageable()),
+                resultCache.entityTypes(entityManager.getMetamodel(), search.entityClass(), search.tree()),
+                () -> CachedPage.of(next.apply(search), entityManager.getEntityManagerFactory().getPersistenceUnitUtil())
+        ).load(entityManager, search.entityClass());
+    }
+}
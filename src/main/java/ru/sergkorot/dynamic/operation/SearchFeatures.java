@@ -0,0 +1,127 @@
+package ru.sergkorot.dynamic.operation;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.admission.SearchAdmissionController;
+import ru.sergkorot.dynamic.audit.IndexAuditor;
+import ru.sergkorot.dynamic.batch.BatchSearchExecutor;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.facet.FacetQueryExecutor;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+import ru.sergkorot.dynamic.slow.SlowSearchRecorder;
+import ru.sergkorot.dynamic.stream.StreamQueryExecutor;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+import ru.sergkorot.dynamic.union.UnionQueryExecutor;
+
+/**
+ * @author Sergey Korotaev
+ * Optional collaborators of {@link SpecificationOperationService}, only collaborators of used features are set.
+ * Missing executors of counting, streaming, facets, admission and batches are created with default settings,
+ * other missing collaborators disable their features
+ * <pre>{@code
+ * SearchFeatures.builder()
+ *         .queryTemplateCache(cache)
+ *         .resultCache(resultCache)
+ *         .build();
+ * }</pre>
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SearchFeatures {
+
+    /**
+     * Cache of query templates by shape of request, null if templates are not cached
+     */
+    @Nullable
+    private final QueryTemplateCache queryTemplateCache;
+
+    /**
+     * Settings of nested operations
+     */
+    @Builder.Default
+    private final NestedQueryProperties nestedQueryProperties = new NestedQueryProperties();
+
+    /**
+     * Metrics of search requests, null if metrics are not recorded
+     */
+    @Nullable
+    private final OperationMetrics operationMetrics;
+
+    /**
+     * Attributes of entities for conversion and simplification of requests
+     */
+    @Nullable
+    private final EntityAttributeRegistry attributeRegistry;
+
+    /**
+     * Execution of count queries of pages
+     */
+    @Nullable
+    private final CountQueryExecutor countQueryExecutor;
+
+    /**
+     * Text match modes of like and contains operations
+     */
+    @Nullable
+    private final TextMatchStrategy textMatchStrategy;
+
+    /**
+     * Streaming of large results
+     */
+    @Nullable
+    private final StreamQueryExecutor streamQueryExecutor;
+
+    /**
+     * Counting of facets
+     */
+    @Nullable
+    private final FacetQueryExecutor facetQueryExecutor;
+
+    /**
+     * Admission control of heavy requests
+     */
+    @Nullable
+    private final SearchAdmissionController admissionController;
+
+    /**
+     * Cache of search results, null if results are not cached
+     */
+    @Nullable
+    private final SearchResultCache resultCache;
+
+    /**
+     * Execution of or branches by union of indexed queries, null if or is executed as one query
+     */
+    @Nullable
+    private final UnionQueryExecutor unionQueryExecutor;
+
+    /**
+     * Execution of batches of named requests
+     */
+    @Nullable
+    private final BatchSearchExecutor batchSearchExecutor;
+
+    /**
+     * Recording of latency by shape of request, null if latency is not recorded
+     */
+    @Nullable
+    private final SlowSearchRecorder slowSearchRecorder;
+
+    /**
+     * Rejection of conditions which can not use index, null if requests are not checked
+     */
+    @Nullable
+    private final IndexAuditor indexAuditor;
+
+    /**
+     * @return features with defaults only
+     */
+    public static SearchFeatures defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.operation;
+
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.slow.SlowSearchRecorder;
+
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of page search which records latency of the rest of the chain and reports slow requests
+ *
+ * @param <T> - entity type
+ * @see SlowSearchRecorder
+ */
+final class SlowSearchStage<T> implements PageSearchStage<T> {
+
+    private final SlowSearchRecorder slowSearchRecorder;
+
+    /**
+     * @param slowSearchRecorder - recorder of slow requests
+     */
+    SlowSearchStage(SlowSearchRecorder slowSearchRecorder) {
+        this.slowSearchRecorder = slowSearchRecorder;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        return slowSearchRecorder.record("findPage", search.entityClass(), search.tree(), search.pageable().getSort(),
+                () -> next.apply(search));
+    }
+}
@@ -1,10 +1,20 @@
 package ru.sergkorot.dynamic.operation;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.stereotype.Component;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.AttributeSpecification;
+import ru.sergkorot.dynamic.metamodel.EntityAttribute;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
 import ru.sergkorot.dynamic.util.SpecificationUtils;
 
-import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.springframework.data.jpa.domain.Specification.where;
 import static ru.sergkorot.dynamic.model.enums.ValueType.cast;
@@ -12,66 +22,161 @@ import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
 
 /**
  * @author Sergey Korotaev
- * Service is realization Operation provider interface for building different specifications
+ * Service is realization Operation provider interface for building different specifications.
+ * If entity attribute registry is available, fields are checked against entity metamodel
+ * and values are converted to attribute types
  * @param <T> - the entity for which the request is being built
  * @see OperationProvider
+ * @see EntityAttributeRegistry
  */
-@Component
 public class SpecificationOperationProviderImpl<T> implements OperationProvider<Specification<T>> {
 
+    private final InListStrategy inListStrategy;
+    private final EntityAttributeRegistry attributeRegistry;
+    private final TextMatchStrategy textMatchStrategy;
+
+    public SpecificationOperationProviderImpl() {
+        this(new InListStrategy(new InListProperties()), null, new TextMatchStrategy(new TextMatchProperties()));
+    }
+
+    @Autowired
+    public SpecificationOperationProviderImpl(InListStrategy inListStrategy,
+                                              @Nullable EntityAttributeRegistry attributeRegistry,
+                                              TextMatchStrategy textMatchStrategy) {
+        this.inListStrategy = inListStrategy;
+        this.attributeRegistry = attributeRegistry;
+        this.textMatchStrategy = textMatchStrategy;
+    }
+
     @Override
     public Operation<Specification<T>> like() {
-        return param -> where(SpecificationUtils.findByColumnsLike(param.getValue().toString(), Collections.singleton(param.getName())));
+        return param -> {
+            String value = param.getValue().toString();
+            String name = param.getName();
+            return build(param,
+                    attribute -> textMatchStrategy.like(value, name),
+                    () -> textMatchStrategy.like(value, name));
+        };
     }
 
     @Override
     public Operation<Specification<T>> eq() {
-        return param -> where(SpecificationUtils.findByColumnEquals(cast(param.getValue()), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.findByColumnEquals(attribute.convert(value), name),
+                    () -> SpecificationUtils.findByColumnEquals(cast(value), name));
+        };
     }
 
     @Override
     public Operation<Specification<T>> notEq() {
-        return param -> where(SpecificationUtils.findByColumnNotEquals(cast(param.getValue()), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.findByColumnNotEquals(attribute.convert(value), name),
+                    () -> SpecificationUtils.findByColumnNotEquals(cast(value), name));
+        };
     }
 
     @Override
     public Operation<Specification<T>> in() {
-        return param ->
-                where(SpecificationUtils.findByCollectionIn(collectionCast(param.getValue()), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> inListStrategy.in(attribute.convertAll(collectionCast(value)), name),
+                    () -> inListStrategy.in(collectionCast(value), name));
+        };
     }
 
     @Override
     public Operation<Specification<T>> notIn() {
-        return param ->
-                where(SpecificationUtils.findByCollectionNotIn(collectionCast(param.getValue()), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> inListStrategy.notIn(attribute.convertAll(collectionCast(value)), name),
+                    () -> inListStrategy.notIn(collectionCast(value), name));
+        };
     }
 
     @Override
     public Operation<Specification<T>> isNull() {
-        return param -> where(SpecificationUtils.findByColumnIsNull(param.getName()));
+        return param -> {
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.findByColumnIsNull(name),
+                    () -> SpecificationUtils.findByColumnIsNull(name));
+        };
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Operation<Specification<T>> lessThan() {
-        return param -> where(SpecificationUtils.lessThan(param.getValue().toString(), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.lessThan(attribute.convertComparable(value), name),
+                    () -> SpecificationUtils.lessThan(value.toString(), name));
+        };
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Operation<Specification<T>> greaterThan() {
-        return param -> where(SpecificationUtils.greaterThan(param.getValue().toString(), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.greaterThan(attribute.convertComparable(value), name),
+                    () -> SpecificationUtils.greaterThan(value.toString(), name));
+        };
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Operation<Specification<T>> greaterThanOrEquals() {
-        return param -> where(SpecificationUtils.greaterThanOrEqual(param.getValue().toString(), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.greaterThanOrEqual(attribute.convertComparable(value), name),
+                    () -> SpecificationUtils.greaterThanOrEqual(value.toString(), name));
+        };
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Operation<Specification<T>> lessThanOrEquals() {
-        return param -> where(SpecificationUtils.lessThanOrEqual(param.getValue().toString(), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> SpecificationUtils.lessThanOrEqual(attribute.convertComparable(value), name),
+                    () -> SpecificationUtils.lessThanOrEqual(value.toString(), name));
+        };
     }
 
     public Operation<Specification<T>> contains() {
-        return param -> where(SpecificationUtils.contains(param.getValue(), param.getName()));
+        return param -> {
+            Object value = param.getValue();
+            String name = param.getName();
+            return build(param,
+                    attribute -> textMatchStrategy.contains(value, name, attribute::convertElement),
+                    () -> textMatchStrategy.contains(value, name, Function.identity()));
+        };
+    }
+
+    private Specification<T> build(BaseSearchParam param,
+                                   Function<EntityAttribute, Specification<T>> typed,
+                                   Supplier<Specification<T>> untyped) {
+        if (attributeRegistry == null) {
+            return where(untyped.get());
+        }
+        return new AttributeSpecification<>(attributeRegistry, param.getName(), typed);
     }
 }
@@ -1,27 +1,94 @@
 package ru.sergkorot.dynamic.operation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import jakarta.persistence.criteria.Subquery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.stereotype.Service;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.admission.AdmissionProperties;
+import ru.sergkorot.dynamic.admission.SearchAdmissionController;
+import ru.sergkorot.dynamic.admission.SearchRejectedException;
+import ru.sergkorot.dynamic.batch.BatchProperties;
+import ru.sergkorot.dynamic.batch.BatchSearchExecutor;
+import ru.sergkorot.dynamic.batch.BatchSearchRequest;
+import ru.sergkorot.dynamic.batch.QueryDeadline;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.ConstantNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.ast.SearchRequestParser;
+import ru.sergkorot.dynamic.ast.SearchTreeSimplifier;
+import ru.sergkorot.dynamic.audit.IndexAuditor;
+import ru.sergkorot.dynamic.cache.QueryTemplate;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.cache.SearchShape;
 import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.enums.NestedStrategy;
+import ru.sergkorot.dynamic.facet.FacetCount;
+import ru.sergkorot.dynamic.facet.FacetProperties;
+import ru.sergkorot.dynamic.facet.FacetQueryExecutor;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
 import ru.sergkorot.dynamic.glue.GlueOperationProvider;
 import ru.sergkorot.dynamic.model.BaseSearchParam;
 import ru.sergkorot.dynamic.model.ComplexSearchParam;
 import ru.sergkorot.dynamic.model.PageAttribute;
 import ru.sergkorot.dynamic.model.enums.GlueOperation;
 import ru.sergkorot.dynamic.model.paging.PageRequestWithOffset;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.paging.CountProperties;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.paging.KeysetPageRequest;
+import ru.sergkorot.dynamic.result.ResultCacheProperties;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingContext;
+import ru.sergkorot.dynamic.slow.SlowSearchRecorder;
+import ru.sergkorot.dynamic.stream.StreamProperties;
+import ru.sergkorot.dynamic.stream.StreamQueryExecutor;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+import ru.sergkorot.dynamic.union.UnionProperties;
+import ru.sergkorot.dynamic.union.UnionQueryExecutor;
 import ru.sergkorot.dynamic.util.SortUtils;
+import ru.sergkorot.dynamic.util.PathUtils;
 import ru.sergkorot.dynamic.util.SpecificationUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
 
 /**
  * @param <T> - entity for which building condition
@@ -29,27 +96,99 @@ import java.util.stream.Collectors;
  * Service for building specification for base and complex requests.
  * Also for building page request settings
  */
-@Service
 @SuppressWarnings("unused")
 public class SpecificationOperationService<T> implements OperationService<Specification<T>> {
 
-    private static final String NESTED = "nst:";
+    private static final String IN = "in";
+    private static final String NOT_IN = "notIn";
+    private static final Object COUNT_TASK = new Object();
     private final OperationProvider<Specification<T>> operationProvider;
     private final GlueOperationProvider<Specification<T>> glueOperationProvider;
     private final Map<String, ManualOperationProvider<Specification<T>>> manualOperationProviderMap;
     private final ObjectMapper objectMapper;
+    private final QueryTemplateCache queryTemplateCache;
+    private final NestedQueryProperties nestedQueryProperties;
+    private final OperationMetrics operationMetrics;
+    private final EntityAttributeRegistry attributeRegistry;
+    private final CountQueryExecutor countQueryExecutor;
+    private final TextMatchStrategy textMatchStrategy;
+    private final StreamQueryExecutor streamQueryExecutor;
+    private final FacetQueryExecutor facetQueryExecutor;
+    private final SearchAdmissionController admissionController;
+    private final SearchResultCache resultCache;
+    private final UnionQueryExecutor unionQueryExecutor;
+    private final BatchSearchExecutor batchSearchExecutor;
+    private final SlowSearchRecorder slowSearchRecorder;
+    private final IndexAuditor indexAuditor;
+    private final SearchRequestParser searchRequestParser;
+    private final PageSearchChain<T> pageSearchChain;
 
 
     public SpecificationOperationService(OperationProvider<Specification<T>> operationProvider,
                                          GlueOperationProvider<Specification<T>> glueOperationProvider,
                                          List<ManualOperationProvider<Specification<T>>> manualOperationProviders,
                                          ObjectMapper objectMapper) {
+        this(operationProvider, glueOperationProvider, manualOperationProviders, objectMapper, SearchFeatures.defaults());
+    }
+
+    /**
+     * @param operationProvider        - provider of search operations
+     * @param glueOperationProvider    - provider of glue operations
+     * @param manualOperationProviders - operations of fields with manual conditions
+     * @param objectMapper             - mapper of nested requests
+     * @param features                 - optional collaborators of search features
+     */
+    @Autowired
+    public SpecificationOperationService(OperationProvider<Specification<T>> operationProvider,
+                                         GlueOperationProvider<Specification<T>> glueOperationProvider,
+                                         List<ManualOperationProvider<Specification<T>>> manualOperationProviders,
+                                         ObjectMapper objectMapper,
+                                         SearchFeatures features) {
         this.operationProvider = operationProvider;
         this.glueOperationProvider = glueOperationProvider;
         this.manualOperationProviderMap = CollectionUtils.isEmpty(manualOperationProviders)
                 ? null
                 : manualOperationProviders.stream().collect(Collectors.toMap(ManualOperationProvider::fieldName, Function.identity()));
         this.objectMapper = objectMapper;
+        this.queryTemplateCache = features.getQueryTemplateCache();
+        this.nestedQueryProperties = features.getNestedQueryProperties();
+        this.operationMetrics = Objects.requireNonNullElse(features.getOperationMetrics(), OperationMetrics.NOOP);
+        this.attributeRegistry = features.getAttributeRegistry();
+        this.countQueryExecutor = Objects.requireNonNullElseGet(features.getCountQueryExecutor(), () -> new CountQueryExecutor(new CountProperties()));
+        this.textMatchStrategy = features.getTextMatchStrategy();
+        this.streamQueryExecutor = Objects.requireNonNullElseGet(features.getStreamQueryExecutor(), () -> new StreamQueryExecutor(new StreamProperties()));
+        this.facetQueryExecutor = Objects.requireNonNullElseGet(features.getFacetQueryExecutor(), () -> new FacetQueryExecutor(new FacetProperties()));
+        this.admissionController = Objects.requireNonNullElseGet(features.getAdmissionController(), () -> new SearchAdmissionController(new AdmissionProperties(), null, null));
+        this.resultCache = features.getResultCache();
+        this.unionQueryExecutor = features.getUnionQueryExecutor();
+        this.batchSearchExecutor = Objects.requireNonNullElseGet(features.getBatchSearchExecutor(), () -> new BatchSearchExecutor(new BatchProperties()));
+        this.slowSearchRecorder = features.getSlowSearchRecorder();
+        this.indexAuditor = features.getIndexAuditor();
+        this.searchRequestParser = new SearchRequestParser(
+                objectMapper,
+                manualOperationProviderMap == null ? Set.of() : manualOperationProviderMap.keySet(),
+                SearchRequestParser.operationsOf(operationProvider)
+        );
+        this.pageSearchChain = pageSearchChain();
+    }
+
+    private PageSearchChain<T> pageSearchChain() {
+        List<PageSearchStage<T>> stages = new ArrayList<>();
+        if (resultCache != null) {
+            stages.add(new ResultCacheStage<>(resultCache));
+        }
+        stages.add(new AdmissionStage<>(admissionController));
+        if (slowSearchRecorder != null) {
+            stages.add(new SlowSearchStage<>(slowSearchRecorder));
+        }
+        if (unionQueryExecutor != null) {
+            stages.add(new UnionStage<>(this, unionQueryExecutor, countQueryExecutor));
+        }
+        if (queryTemplateCache != null) {
+            stages.add(new TemplateStage<>(this, queryTemplateCache, countQueryExecutor));
+        }
+        stages.add(new CriteriaStage<>(this, countQueryExecutor));
+        return new PageSearchChain<>(stages);
     }
 
     /**
@@ -62,16 +201,13 @@ public class SpecificationOperationService<T> implements OperationService<Specif
      * @see GlueOperation
      */
     public Specification<T> buildBaseByParams(List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
-        if (CollectionUtils.isEmpty(baseSearchParams)) {
-            return SpecificationUtils.findAll();
+        if (!operationMetrics.isEnabled()) {
+            return buildByTree(parseBaseParams(baseSearchParams, glue), 0);
         }
-
-        List<Specification<T>> specifications = baseSearchParams
-                .stream()
-                .map(this::constructSpecification)
-                .toList();
-
-        return buildGlue(glueOperationProvider, specifications, glue);
+        long start = System.nanoTime();
+        Specification<T> specification = buildByTree(parseBaseParams(baseSearchParams, glue), 0);
+        operationMetrics.recordBuild("base", System.nanoTime() - start, CollectionUtils.isEmpty(baseSearchParams) ? 0 : baseSearchParams.size());
+        return specification;
     }
 
     /**
@@ -84,17 +220,71 @@ public class SpecificationOperationService<T> implements OperationService<Specif
      * @see GlueOperation
      */
     public Specification<T> buildComplexByParams(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        long start = operationMetrics.isEnabled() ? System.nanoTime() : 0L;
 
-        List<Specification<T>> specifications = complexSearchParams.stream()
-                .map(complexSearchParam ->
-                        buildBaseByParams(
-                                complexSearchParam.getBaseSearchParams(),
-                                complexSearchParam.getInternalGlue()
-                        )
-                )
-                .toList();
+        Specification<T> specification = buildByTree(parseComplexParams(complexSearchParams, externalGlue));
+        if (operationMetrics.isEnabled()) {
+            operationMetrics.recordBuild(
+                    "complex",
+                    System.nanoTime() - start,
+                    complexSearchParams.stream()
+                            .map(ComplexSearchParam::getBaseSearchParams)
+                            .mapToInt(params -> CollectionUtils.isEmpty(params) ? 0 : params.size())
+                            .sum()
+            );
+        }
+        return specification;
+    }
+
+    /**
+     * Parse complex search request into immutable simplified tree. Tree can be parsed once and built many times,
+     * search params of the request are not changed
+     *
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @return - parsed request
+     * @throws IllegalArgumentException if request is not valid
+     * @throws SearchRejectedException   if request is too expensive
+     * @see SearchRequestParser
+     * @see SearchTreeSimplifier
+     */
+    public GroupNode parseComplexParams(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        GroupNode tree = SearchTreeSimplifier.simplify(searchRequestParser.parseComplex(complexSearchParams, externalGlue));
+        admissionController.check(null, tree);
+        return tree;
+    }
 
-        return buildGlue(glueOperationProvider, specifications, externalGlue);
+    private GroupNode parseBaseParams(List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
+        GroupNode tree = SearchTreeSimplifier.simplify(searchRequestParser.parseBase(baseSearchParams, glue));
+        admissionController.check(null, tree);
+        return tree;
+    }
+
+    private GroupNode parseComplexParams(Class<T> entityClass, List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        GroupNode tree = SearchTreeSimplifier.simplify(
+                searchRequestParser.parseComplex(complexSearchParams, externalGlue),
+                entityClass,
+                attributeRegistry
+        );
+        if (indexAuditor != null) {
+            indexAuditor.check(entityClass, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Create specification for parsed search request
+     *
+     * @param tree - parsed request
+     * @return - specification for data request
+     * @see #parseComplexParams(List, GlueOperation)
+     */
+    public Specification<T> buildByTree(GroupNode tree) {
+        return buildGlue(
+                glueOperationProvider,
+                tree.children().stream().map(node -> buildByNode(node, 0)).toList(),
+                tree.glue()
+        );
     }
 
     /**
@@ -117,40 +307,646 @@ public class SpecificationOperationService<T> implements OperationService<Specif
         );
     }
 
-    private Specification<T> constructSpecification(BaseSearchParam param) {
-        if (!CollectionUtils.isEmpty(manualOperationProviderMap) && manualOperationProviderMap.containsKey(param.getName())) {
-            return manualOperationProviderMap.get(param.getName()).buildOperation(param);
+    /**
+     * Create keyset (seek) page settings. Offset of page attribute is ignored,
+     * next page is requested by cursor returned from previous one.
+     * Condition from {@link KeysetPageRequest#toSpecification()} must be glued with request specification
+     *
+     * @param pageAttribute    - attribute class for limit and sorting
+     * @param searchSortFields - fields by which sorting is possible in the database
+     * @param idField          - unique field which is added to sorting for stable order
+     * @param cursor           - cursor of the previous page or null for the first page
+     * @return - KeysetPageRequest
+     * @see KeysetPageRequest
+     * @see PageAttribute
+     */
+    public KeysetPageRequest buildKeysetPageSettings(PageAttribute pageAttribute,
+                                                     List<String> searchSortFields,
+                                                     String idField,
+                                                     String cursor) {
+        List<Sort.Order> orders = new ArrayList<>();
+        int limit = SortUtils.DEFAULT_LIMIT;
+        if (Objects.nonNull(pageAttribute)) {
+            orders.addAll(SortUtils.makeSortOrders(searchSortFields, pageAttribute.getSortBy()));
+            limit = Objects.requireNonNullElse(pageAttribute.getLimit(), SortUtils.DEFAULT_LIMIT);
         }
+        if (orders.stream().noneMatch(order -> order.getProperty().equals(idField))) {
+            orders.add(Sort.Order.asc(idField));
+        }
+        return KeysetPageRequest.of(limit, orders, cursor, objectMapper);
+    }
 
-        if (param.getOperation().startsWith(NESTED)) {
-            param.setOperation(param.getOperation().replace(NESTED, ""));
-            return buildNestedOperation(param);
+    /**
+     * Create query for complex search request with paging and sorting settings.
+     * When query template cache is enabled, requests with the same shape reuse precompiled JPQL
+     * and bind only values, otherwise query is built from specification
+     *
+     * @param entityManager       - entity manager for query creation
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @param pageable            - paging and sorting settings
+     * @return - query for data request
+     * @see QueryTemplateCache
+     */
+    public TypedQuery<T> buildQueryByParams(EntityManager entityManager,
+                                            Class<T> entityClass,
+                                            List<ComplexSearchParam> complexSearchParams,
+                                            GlueOperation externalGlue,
+                                            Pageable pageable) {
+        GroupNode tree = parseComplexParams(entityClass, complexSearchParams, externalGlue);
+        admissionController.check(entityClass, tree);
+        Optional<SearchShape> shape = searchShape(entityClass, tree, pageable.getSort());
+        Optional<QueryTemplate> template = shape.map(searchShape -> queryTemplateCache.getTemplate(entityManager, searchShape));
+
+        return buildQuery(entityManager, entityClass, pageable, shape, template, () -> buildByTree(tree));
+    }
+
+    /**
+     * Find page of entities by complex search request with total count.
+     * Count query has no ordering, it is skipped for short pages, cached by simplified request
+     * and estimated above threshold according to count settings.
+     * With result cache whole pages are cached by request, paging and sorting until entities are changed.
+     * Selective or branches can be executed as separate queries, see {@link UnionProperties}.
+     * Connections taken by the request may be routed to replica, see {@link ReplicaRoutingContext}
+     *
+     * @param entityManager       - entity manager for query creation
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @param pageable            - paging and sorting settings
+     * @return - page of found entities
+     * @throws SearchRejectedException if request is too expensive, too many heavy requests are executed or condition can not use index
+     * @see CountQueryExecutor
+     * @see CountProperties
+     * @see ResultCacheProperties
+     */
+    public CountedPage<T> findPage(EntityManager entityManager,
+                                   Class<T> entityClass,
+                                   List<ComplexSearchParam> complexSearchParams,
+                                   GlueOperation externalGlue,
+                                   Pageable pageable) {
+        GroupNode tree = parseComplexParams(entityClass, complexSearchParams, externalGlue);
+        return ReplicaRoutingContext.search(() -> findPageByTree(entityManager, entityClass, tree, pageable, false));
+    }
+
+    private CountedPage<T> findPageByTree(EntityManager entityManager,
+                                          Class<T> entityClass,
+                                          GroupNode tree,
+                                          Pageable pageable,
+                                          boolean admitted) {
+        if (SearchTreeSimplifier.isAlwaysFalse(tree)) {
+            return new CountedPage<>(List.of(), pageable, 0, true);
+        }
+        return pageSearchChain.find(new PageSearch<>(entityManager, entityClass, tree, pageable, admitted));
+    }
+
+    /**
+     * @param tree - parsed request
+     * @return specifications of children of the request, branches of or for request glued by or
+     */
+    List<Specification<T>> buildBranches(GroupNode tree) {
+        return tree.children()
+                .stream()
+                .map(node -> buildByNode(node, 0))
+                .toList();
+    }
+
+    /**
+     * Find pages and numbers of entities for batch of named requests, for example for widgets of dashboard.
+     * Requests are executed concurrently, each by its own entity manager, under single deadline of the batch.
+     * Equal requests are executed once. Count only requests without joins are counted by one query
+     * with {@code sum(case when ... then 1 else 0 end)} per request. The batch is admitted as a whole:
+     * cost of each request is checked and the batch holds single slot of heavy requests of the entity
+     *
+     * @param entityManagerFactory - factory for entity managers of requests
+     * @param entityClass          - the entity for which the requests are being built
+     * @param requests             - requests by names
+     * @return pages by names of requests in order of requests, pages of count only requests have no content
+     * @throws SearchRejectedException if any request is too expensive, too many heavy requests are executed or condition can not use index
+     * @throws jakarta.persistence.QueryTimeoutException if batch is not executed in time
+     * @see BatchProperties
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, CountedPage<T>> findBatch(EntityManagerFactory entityManagerFactory,
+                                                 Class<T> entityClass,
+                                                 Map<String, BatchSearchRequest> requests) {
+        Map<String, GroupNode> countTrees = new LinkedHashMap<>();
+        Map<String, List<Object>> pageKeys = new LinkedHashMap<>();
+        Map<Object, Callable<Object>> tasks = new LinkedHashMap<>();
+        requests.forEach((name, request) -> {
+            GroupNode tree = parseComplexParams(entityClass, request.complexSearchParams(), request.externalGlue());
+            if (request.isCountOnly()) {
+                countTrees.put(name, tree);
+                return;
+            }
+            List<Object> key = List.of(tree, request.pageable());
+            pageKeys.put(name, key);
+            tasks.computeIfAbsent(key, k -> () -> inEntityManager(entityManagerFactory,
+                    entityManager -> findPageByTree(entityManager, entityClass, tree, request.pageable(), true)));
+        });
+        Set<GroupNode> trees = new LinkedHashSet<>(countTrees.values());
+        if (!trees.isEmpty()) {
+            tasks.put(COUNT_TASK, () -> inEntityManager(entityManagerFactory,
+                    entityManager -> countAll(entityManager, entityClass, trees)));
         }
+        List<GroupNode> batchTrees = new ArrayList<>(trees);
+        pageKeys.values().forEach(key -> batchTrees.add((GroupNode) key.get(0)));
 
-        return buildOperation(param, operationProvider);
+        Map<Object, Object> results;
+        try (SearchAdmissionController.Admission admission = admissionController.admitAll(entityClass, batchTrees)) {
+            results = batchSearchExecutor.invokeAll(tasks);
+        }
+        Map<GroupNode, Long> counts = (Map<GroupNode, Long>) results.getOrDefault(COUNT_TASK, Map.of());
+        Map<String, CountedPage<T>> pages = new LinkedHashMap<>();
+        for (String name : requests.keySet()) {
+            GroupNode countTree = countTrees.get(name);
+            pages.put(name, countTree == null
+                    ? (CountedPage<T>) results.get(pageKeys.get(name))
+                    : new CountedPage<>(List.of(), Pageable.unpaged(), counts.get(countTree), true));
+        }
+        return pages;
     }
 
-    private Specification<T> buildNestedOperation(BaseSearchParam param) {
+    private static <R> R inEntityManager(EntityManagerFactory entityManagerFactory, Function<EntityManager, R> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return ReplicaRoutingContext.search(() -> action.apply(entityManager));
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Map<GroupNode, Long> countAll(EntityManager entityManager, Class<T> entityClass, Collection<GroupNode> trees) {
+        Map<GroupNode, Long> counts = new HashMap<>();
+        List<GroupNode> combined = new ArrayList<>();
+        for (GroupNode tree : trees) {
+            if (SearchTreeSimplifier.isAlwaysFalse(tree)) {
+                counts.put(tree, 0L);
+            } else if (hasJoins(tree)) {
+                counts.put(tree, CriteriaQueries.countAll(entityManager, entityClass, buildByTree(tree, 0)));
+            } else {
+                combined.add(tree);
+            }
+        }
+        if (combined.size() == 1) {
+            counts.put(combined.get(0), CriteriaQueries.countAll(entityManager, entityClass, buildByTree(combined.get(0), 0)));
+        } else if (!combined.isEmpty()) {
+            counts.putAll(countCombined(entityManager, entityClass, combined));
+        }
+        return counts;
+    }
+
+    private Map<GroupNode, Long> countCombined(EntityManager entityManager, Class<T> entityClass, List<GroupNode> trees) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        List<Predicate> predicates = new ArrayList<>(trees.size());
+        List<Selection<?>> selections = new ArrayList<>(trees.size());
+        for (GroupNode tree : trees) {
+            Predicate predicate = buildByTree(tree, 0).toPredicate(root, criteriaQuery, criteriaBuilder);
+            predicate = predicate == null ? criteriaBuilder.conjunction() : predicate;
+            predicates.add(predicate);
+            selections.add(criteriaBuilder.sum(criteriaBuilder.<Long>selectCase().when(predicate, 1L).otherwise(0L)));
+        }
+        criteriaQuery.multiselect(selections).where(criteriaBuilder.or(predicates.toArray(Predicate[]::new)));
+
+        Tuple tuple = QueryDeadline.apply(entityManager.createQuery(criteriaQuery)).getSingleResult();
+        Map<GroupNode, Long> counts = new HashMap<>();
+        for (int i = 0; i < trees.size(); i++) {
+            Number count = (Number) tuple.get(i);
+            counts.put(trees.get(i), count == null ? 0L : count.longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Conditions on paths and manual operations may join other tables and multiply rows,
+     * so such requests can not be counted by one query with others
+     */
+    private static boolean hasJoins(SearchNode node) {
+        if (node instanceof GroupNode group) {
+            return group.children().stream().anyMatch(SpecificationOperationService::hasJoins);
+        }
+        if (node instanceof NestedNode nested) {
+            return nested.field().indexOf('.') >= 0;
+        }
+        return node instanceof ConditionNode condition && (condition.manual() || condition.field().indexOf('.') >= 0);
+    }
+
+    /**
+     * Find page of selected fields of entities matched by specification. Only selected columns are read,
+     * entities are not created and not tracked by persistence context
+     *
+     * @param entityManager - entity manager for query execution
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param fields        - field names or dotted paths, they are aliases of tuple elements
+     * @param pageable      - paging and sorting settings
+     * @return - page of tuples with total count
+     * @throws IllegalArgumentException if fields are empty or not found in the entity
+     */
+    public CountedPage<Tuple> findPage(EntityManager entityManager,
+                                       Class<T> entityClass,
+                                       Specification<T> specification,
+                                       List<String> fields,
+                                       Pageable pageable) {
+        return ReplicaRoutingContext.search(() -> findProjectionPage(entityManager, entityClass, specification, Tuple.class, fields, pageable,
+                (criteriaBuilder, selections) -> criteriaBuilder.tuple(selections.toArray(Selection[]::new))));
+    }
+
+    /**
+     * Find page of DTOs, records or interface projections created from selected fields of entities matched by specification.
+     * DTO and record must have constructor with parameters of selected fields in the same order.
+     * Getters of projection interface are read by field names, dotted paths are read by nested projection interfaces
+     *
+     * @param entityManager  - entity manager for query execution
+     * @param entityClass    - the entity for which the request is being built
+     * @param specification  - built specification
+     * @param projectionType - class of DTO or record, or projection interface
+     * @param fields         - field names or dotted paths in order of constructor parameters
+     * @param pageable       - paging and sorting settings
+     * @param <R>            - type of projection
+     * @return - page of projections with total count
+     * @throws IllegalArgumentException if fields are empty or not found in the entity
+     */
+    public <R> CountedPage<R> findPage(EntityManager entityManager,
+                                       Class<T> entityClass,
+                                       Specification<T> specification,
+                                       Class<R> projectionType,
+                                       List<String> fields,
+                                       Pageable pageable) {
+        if (projectionType.isInterface()) {
+            CountedPage<Tuple> page = findPage(entityManager, entityClass, specification, fields, pageable);
+            return new CountedPage<>(
+                    page.getContent().stream().map(tuple -> TupleProjections.create(projectionType, tuple)).toList(),
+                    pageable,
+                    page.getTotalElements(),
+                    page.isTotalExact()
+            );
+        }
+        return ReplicaRoutingContext.search(() -> findProjectionPage(entityManager, entityClass, specification, projectionType, fields, pageable,
+                (criteriaBuilder, selections) -> criteriaBuilder.construct(projectionType, selections.toArray(Selection[]::new))));
+    }
+
+    /**
+     * Stream entities matched by specification with bounded memory, for exports over huge results.
+     * Rows are read by forward-only cursor without offset paging, persistence context is cleared while
+     * stream is consumed, so lazy associations of already consumed entities can not be loaded
+     *
+     * @param entityManager - entity manager, for PostgreSQL it must be in transaction, otherwise driver fetches all rows
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param sort          - sorting of rows
+     * @return - stream of entities which holds database cursor and must be closed
+     * @see StreamProperties
+     */
+    public Stream<T> stream(EntityManager entityManager, Class<T> entityClass, Specification<T> specification, Sort sort) {
+        return ReplicaRoutingContext.search(
+                () -> streamQueryExecutor.stream(entityManager, CriteriaQueries.select(entityManager, entityClass, specification, sort)));
+    }
+
+    /**
+     * Pass each entity matched by specification to consumer with bounded memory
+     *
+     * @param entityManager - entity manager, for PostgreSQL it must be in transaction, otherwise driver fetches all rows
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param sort          - sorting of rows
+     * @param consumer      - consumer of entities
+     * @return - number of consumed entities
+     * @see #stream(EntityManager, Class, Specification, Sort)
+     */
+    public long forEach(EntityManager entityManager,
+                        Class<T> entityClass,
+                        Specification<T> specification,
+                        Sort sort,
+                        Consumer<? super T> consumer) {
+        try (Stream<T> entities = stream(entityManager, entityClass, specification, sort)) {
+            long[] count = new long[1];
+            entities.forEach(entity -> {
+                consumer.accept(entity);
+                count[0]++;
+            });
+            return count[0];
+        }
+    }
+
+    /**
+     * Count entities matched by complex search request per value of each facet field. Search request is parsed once,
+     * specification is built once for all facets with the same effective filter and each facet is counted
+     * by single grouped query. With {@code exclude-own-filter} conditions on the facet field reached through and
+     * are not applied to its own counts, so other values of the facet stay selectable
+     *
+     * @param entityManager       - entity manager for query execution
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex specification between each other
+     * @param facetFields         - field names or dotted paths for counting
+     * @return - counts of values by facet field in order of facet fields, values are ordered by count descending
+     * @throws IllegalArgumentException if facet fields are empty or not found in the entity
+     * @throws SearchRejectedException   if request is too expensive, too many heavy requests are executed or condition can not use index
+     * @see FacetProperties
+     */
+    public Map<String, List<FacetCount>> findFacets(EntityManager entityManager,
+                                                    Class<T> entityClass,
+                                                    List<ComplexSearchParam> complexSearchParams,
+                                                    GlueOperation externalGlue,
+                                                    List<String> facetFields) {
+        validateFacetFields(entityClass, facetFields);
+        GroupNode parsed = searchRequestParser.parseComplex(complexSearchParams, externalGlue);
+        GroupNode tree = SearchTreeSimplifier.simplify(parsed, entityClass, attributeRegistry);
+        if (indexAuditor != null) {
+            indexAuditor.check(entityClass, tree);
+        }
+        try (SearchAdmissionController.Admission admission = admissionController.admit(entityClass, tree)) {
+            return recordLatency("findFacets[" + String.join(",", facetFields) + "]", entityClass, tree, Sort.unsorted(),
+                    () -> countFacets(entityManager, entityClass, parsed, tree, facetFields));
+        }
+    }
+
+    private Map<String, List<FacetCount>> countFacets(EntityManager entityManager,
+                                                      Class<T> entityClass,
+                                                      GroupNode parsed,
+                                                      GroupNode tree,
+                                                      List<String> facetFields) {
+        FacetProperties properties = facetQueryExecutor.getProperties();
+        Map<GroupNode, Specification<T>> specifications = new LinkedHashMap<>();
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        for (String field : facetFields) {
+            GroupNode facetTree = properties.isExcludeOwnFilter()
+                    ? SearchTreeSimplifier.simplify(parsed.withoutConditionsOn(field), entityClass, attributeRegistry)
+                    : tree;
+            if (SearchTreeSimplifier.isAlwaysFalse(facetTree)) {
+                facets.put(field, List.of());
+                continue;
+            }
+            facets.put(field, facetQueryExecutor.counts(
+                    hasManualConditions(facetTree) ? null : List.of(entityClass, facetTree, field, properties.getLimit()),
+                    () -> ReplicaRoutingContext.search(() -> countByFacet(
+                            entityManager,
+                            entityClass,
+                            specifications.computeIfAbsent(facetTree, node -> buildByTree(node, 0)),
+                            field,
+                            properties.getLimit()
+                    ))
+            ));
+        }
+        return facets;
+    }
+
+    /**
+     * Count entities matched by specification per value of each facet field, each facet is counted
+     * by single grouped query. Own filters of facets are not excluded and counts are not cached
+     *
+     * @param entityManager - entity manager for query execution
+     * @param entityClass   - the entity for which the request is being built
+     * @param specification - built specification
+     * @param facetFields   - field names or dotted paths for counting
+     * @return - counts of values by facet field in order of facet fields, values are ordered by count descending
+     * @throws IllegalArgumentException if facet fields are empty or not found in the entity
+     * @see #findFacets(EntityManager, Class, List, GlueOperation, List)
+     */
+    public Map<String, List<FacetCount>> findFacets(EntityManager entityManager,
+                                                    Class<T> entityClass,
+                                                    Specification<T> specification,
+                                                    List<String> facetFields) {
+        validateFacetFields(entityClass, facetFields);
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        for (String field : facetFields) {
+            facets.put(field, ReplicaRoutingContext.search(
+                    () -> countByFacet(entityManager, entityClass, specification, field, facetQueryExecutor.getProperties().getLimit())));
+        }
+        return facets;
+    }
+
+    private <R> R recordLatency(String operation, Class<T> entityClass, GroupNode tree, Sort sort, Supplier<R> search) {
+        return slowSearchRecorder == null ? search.get() : slowSearchRecorder.record(operation, entityClass, tree, sort, search);
+    }
+
+    /**
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed request
+     * @param sort        - sorting of rows
+     * @return shape of the request for query template cache, empty if cache is disabled or request can not be cached
+     */
+    Optional<SearchShape> searchShape(Class<T> entityClass, GroupNode tree, Sort sort) {
+        return queryTemplateCache == null
+                ? Optional.empty()
+                : queryTemplateCache.shape(entityClass, tree, sort, attributeRegistry, textMatchStrategy);
+    }
+
+    static boolean hasManualConditions(SearchNode node) {
+        if (node instanceof GroupNode group) {
+            return group.children().stream().anyMatch(SpecificationOperationService::hasManualConditions);
+        }
+        if (node instanceof NestedNode nested) {
+            return hasManualConditions(nested.group());
+        }
+        return node instanceof ConditionNode condition && condition.manual();
+    }
+
+    private TypedQuery<T> buildQuery(EntityManager entityManager,
+                                     Class<T> entityClass,
+                                     Pageable pageable,
+                                     Optional<SearchShape> shape,
+                                     Optional<QueryTemplate> template,
+                                     Supplier<Specification<T>> specification) {
+        TypedQuery<T> query = template
+                .map(queryTemplate -> queryTemplate.createQuery(entityManager, entityClass, shape.get().getValues()))
+                .orElseGet(() -> entityManager.createQuery(CriteriaQueries.select(entityManager, entityClass, specification.get(), pageable.getSort())));
+        return CriteriaQueries.page(query, pageable);
+    }
+
+    private <R> CountedPage<R> findProjectionPage(EntityManager entityManager,
+                                                  Class<T> entityClass,
+                                                  Specification<T> specification,
+                                                  Class<R> resultType,
+                                                  List<String> fields,
+                                                  Pageable pageable,
+                                                  BiFunction<CriteriaBuilder, List<Selection<?>>, Selection<R>> projection) {
+        if (CollectionUtils.isEmpty(fields)) {
+            throw new IllegalArgumentException("fields for projection are required");
+        }
+        if (attributeRegistry != null && attributeRegistry.isEntity(entityClass)) {
+            fields.forEach(field -> attributeRegistry.get(entityClass, field));
+        }
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> criteriaQuery = criteriaBuilder.createQuery(resultType);
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        Predicate predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(PathUtils.get(root, criteriaQuery, field).alias(field));
+        }
+        criteriaQuery.select(projection.apply(criteriaBuilder, selections));
+        if (pageable.getSort().isSorted()) {
+            criteriaQuery.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        TypedQuery<R> query = CriteriaQueries.page(entityManager.createQuery(criteriaQuery), pageable)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        return countQueryExecutor.toPage(query.getResultList(), pageable, null, CriteriaQueries.count(entityManager, entityClass, specification));
+    }
+
+    private void validateFacetFields(Class<T> entityClass, List<String> facetFields) {
+        if (CollectionUtils.isEmpty(facetFields)) {
+            throw new IllegalArgumentException("facet fields are required");
+        }
+        if (attributeRegistry != null && attributeRegistry.isEntity(entityClass)) {
+            facetFields.forEach(field -> attributeRegistry.get(entityClass, field));
+        }
+    }
+
+    private List<FacetCount> countByFacet(EntityManager entityManager,
+                                          Class<T> entityClass,
+                                          Specification<T> specification,
+                                          String field,
+                                          int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        Predicate predicate = specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        Path<Object> path = PathUtils.get(root, criteriaQuery, field);
+        Expression<Long> count = criteriaQuery.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root);
+        criteriaQuery.distinct(false);
+        criteriaQuery.multiselect(path, count)
+                .groupBy(path)
+                .orderBy(criteriaBuilder.desc(count), criteriaBuilder.asc(path));
+
+        TypedQuery<Tuple> query = QueryDeadline.apply(entityManager.createQuery(criteriaQuery))
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList()
+                .stream()
+                .map(tuple -> new FacetCount(tuple.get(0), tuple.get(1, Long.class)))
+                .toList();
+    }
+
+    private Specification<T> buildByTree(GroupNode group, int depth) {
+        if (group.children().isEmpty()) {
+            return SpecificationUtils.findAll();
+        }
+
+        List<Specification<T>> specifications = group.children()
+                .stream()
+                .map(node -> buildByNode(node, depth))
+                .toList();
+
+        return buildGlue(glueOperationProvider, specifications, group.glue());
+    }
+
+    private Specification<T> buildByNode(SearchNode node, int depth) {
+        if (node instanceof GroupNode group) {
+            return buildByTree(group, depth);
+        }
+        if (node instanceof NestedNode nested) {
+            if (!operationMetrics.isEnabled()) {
+                return buildNestedOperation(nested, depth + 1);
+            }
+            operationMetrics.recordNestingDepth(depth + 1);
+            return operationMetrics.instrument(buildNestedOperation(nested, depth + 1), nested.operation().getOperationName(), true, null);
+        }
+
+        if (node instanceof ConstantNode constant) {
+            return constant.value() ? SpecificationUtils.findAll() : SpecificationUtils.findNothing();
+        }
+
+        ConditionNode condition = (ConditionNode) node;
+        if (condition.manual()) {
+            Specification<T> specification = manualOperationProviderMap.get(condition.field()).buildOperation(condition.toParam());
+            return operationMetrics.isEnabled()
+                    ? operationMetrics.instrument(specification, condition.operation(), false, condition.field())
+                    : specification;
+        }
+
+        if (!operationMetrics.isEnabled()) {
+            return buildOperation(condition.toParam(), operationProvider);
+        }
+        if (IN.equals(condition.operation()) || NOT_IN.equals(condition.operation())) {
+            operationMetrics.recordInListSize(collectionCast(condition.value()).size());
+        }
+        return operationMetrics.instrument(buildOperation(condition.toParam(), operationProvider), condition.operation(), false, null);
+    }
+
+    private Specification<T> buildNestedOperation(NestedNode node, int depth) {
+        NestedOperation nestedOperation = node.operation();
+        String name = node.field();
+        Specification<T> nestedSpecification = buildByTree(node.group(), depth);
+        if (nestedQueryProperties.strategyFor(nestedOperation) == NestedStrategy.EXISTS) {
+            return buildExistsOperation(name, nestedOperation, nestedSpecification);
+        }
         return (root, query, criteriaBuilder) -> {
 
             Subquery<Object> subquery = query.subquery(Object.class);
             Root<T> subroot = subquery.from(root.getModel());
 
-            subquery.select(subroot.get(param.getName()));
-
-            ComplexSearchParam nestedParam = objectMapper.convertValue(param.getValue(), ComplexSearchParam.class);
+            subquery.select(PathUtils.get(subroot, subquery, name));
 
-            Predicate predicate = buildBaseByParams(nestedParam.getBaseSearchParams(), nestedParam.getInternalGlue())
-                    .toPredicate(subroot, query, criteriaBuilder);
+            Predicate predicate = nestedSpecification.toPredicate(subroot, query, criteriaBuilder);
 
             subquery.where(predicate);
 
-            return NestedOperation.of(param.getOperation())
+            return nestedOperation
                     .<T>buildQuery(
-                            param.getName(),
+                            name,
                             subquery
                     )
                     .toPredicate(root, query, criteriaBuilder);
         };
     }
+
+    private Specification<T> buildExistsOperation(String name, NestedOperation nestedOperation, Specification<T> nestedSpecification) {
+        return (root, query, criteriaBuilder) -> {
+
+            Subquery<Integer> subquery = query.subquery(Integer.class);
+            Root<T> subroot = subquery.from(root.getModel());
+
+            subquery.select(criteriaBuilder.literal(1));
+
+            Predicate predicate = nestedSpecification.toPredicate(subroot, query, criteriaBuilder);
+            Predicate correlation = criteriaBuilder.equal(
+                    PathUtils.get(subroot, subquery, name),
+                    PathUtils.get(root, query, name)
+            );
+
+            subquery.where(predicate == null ? correlation : criteriaBuilder.and(correlation, predicate));
+
+            Subquery<Integer> nullSubquery = null;
+            Subquery<Integer> anySubquery = null;
+            if (nestedOperation.isNullSubqueryRequired()) {
+                nullSubquery = query.subquery(Integer.class);
+                Root<T> nullSubroot = nullSubquery.from(root.getModel());
+                nullSubquery.select(criteriaBuilder.literal(1));
+                Predicate nullPredicate = nestedSpecification.toPredicate(nullSubroot, query, criteriaBuilder);
+                Predicate isNull = criteriaBuilder.isNull(PathUtils.get(nullSubroot, nullSubquery, name));
+                nullSubquery.where(nullPredicate == null ? isNull : criteriaBuilder.and(isNull, nullPredicate));
+
+                anySubquery = query.subquery(Integer.class);
+                Root<T> anySubroot = anySubquery.from(root.getModel());
+                anySubquery.select(criteriaBuilder.literal(1));
+                Predicate anyPredicate = nestedSpecification.toPredicate(anySubroot, query, criteriaBuilder);
+                if (anyPredicate != null) {
+                    anySubquery.where(anyPredicate);
+                }
+            }
+
+            return nestedOperation
+                    .<T>buildExistsQuery(name, subquery, nullSubquery, anySubquery)
+                    .toPredicate(root, query, criteriaBuilder);
+        };
+    }
 }
@@ -0,0 +1,62 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import ru.sergkorot.dynamic.batch.QueryDeadline;
+import ru.sergkorot.dynamic.cache.QueryTemplate;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.cache.SearchShape;
+import ru.sergkorot.dynamic.paging.CountQuery;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of page search which finds rows and counts them by precompiled JPQL of the request shape,
+ * requests whose shape can not be cached are passed to the next stage
+ *
+ * @param <T> - entity type
+ * @see QueryTemplateCache
+ */
+final class TemplateStage<T> implements PageSearchStage<T> {
+
+    private final SpecificationOperationService<T> operationService;
+    private final QueryTemplateCache queryTemplateCache;
+    private final CountQueryExecutor countQueryExecutor;
+
+    /**
+     * @param operationService   - resolver of request shapes
+     * @param queryTemplateCache - cache of precompiled queries
+     * @param countQueryExecutor - executor of count of the request
+     */
+    TemplateStage(SpecificationOperationService<T> operationService,
+                  QueryTemplateCache queryTemplateCache,
+                  CountQueryExecutor countQueryExecutor) {
+        this.operationService = operationService;
+        this.queryTemplateCache = queryTemplateCache;
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        Optional<SearchShape> shape = operationService.searchShape(search.entityClass(), search.tree(), search.pageable().getSort());
+        if (shape.isEmpty()) {
+            return next.apply(search);
+        }
+        EntityManager entityManager = search.entityManager();
+        QueryTemplate template = queryTemplateCache.getTemplate(entityManager, shape.get());
+        List<Object> values = shape.get().getValues();
+
+        List<T> content = CriteriaQueries.page(template.createQuery(entityManager, search.entityClass(), values), search.pageable())
+                .getResultList();
+        CountQuery countQuery = CountQuery.of(
+                () -> QueryDeadline.apply(template.createCountQuery(entityManager, values)).getSingleResult(),
+                limit -> QueryDeadline.apply(template.createBoundedCountQuery(entityManager, values, (int) Math.min(limit, Integer.MAX_VALUE)))
+                        .getSingleResult()
+        );
+        return countQueryExecutor.toPage(content, search.pageable(), search.countKey(), countQuery);
+    }
+}
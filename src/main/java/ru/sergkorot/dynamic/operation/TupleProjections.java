@@ -0,0 +1,48 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Interface projections over selected tuples. Aliases of tuple elements are property names,
+ * dotted aliases ({@code department.name}) are grouped into nested maps, so they are read by nested projection interfaces
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class TupleProjections {
+
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
+    /**
+     * Create projection of tuple
+     *
+     * @param projectionType - projection interface
+     * @param tuple          - selected values with field names as aliases
+     * @param <R>            - type of projection
+     * @return projection backed by values of tuple
+     */
+    static <R> R create(Class<R> projectionType, Tuple tuple) {
+        return PROJECTION_FACTORY.createProjection(projectionType, toMap(tuple));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            String[] parts = element.getAlias().split("\\.");
+            Map<String, Object> current = values;
+            for (int i = 0; i < parts.length - 1; i++) {
+                current = (Map<String, Object>) current.computeIfAbsent(parts[i], key -> new LinkedHashMap<String, Object>());
+            }
+            current.put(parts[parts.length - 1], tuple.get(element));
+        }
+        return values;
+    }
+}
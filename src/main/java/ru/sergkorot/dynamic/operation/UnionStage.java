@@ -0,0 +1,56 @@
+package ru.sergkorot.dynamic.operation;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.paging.CountQueryExecutor;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.union.UnionQueryExecutor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Stage of page search which finds rows of selective or branches by separate queries and merges them,
+ * other requests are passed to the next stage
+ *
+ * @param <T> - entity type
+ * @see UnionQueryExecutor
+ */
+final class UnionStage<T> implements PageSearchStage<T> {
+
+    private final SpecificationOperationService<T> operationService;
+    private final UnionQueryExecutor unionQueryExecutor;
+    private final CountQueryExecutor countQueryExecutor;
+
+    /**
+     * @param operationService   - builder of specifications of branches
+     * @param unionQueryExecutor - executor of branches
+     * @param countQueryExecutor - executor of count of the whole request
+     */
+    UnionStage(SpecificationOperationService<T> operationService,
+               UnionQueryExecutor unionQueryExecutor,
+               CountQueryExecutor countQueryExecutor) {
+        this.operationService = operationService;
+        this.unionQueryExecutor = unionQueryExecutor;
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
+    @Override
+    public CountedPage<T> find(PageSearch<T> search, Function<PageSearch<T>, CountedPage<T>> next) {
+        EntityManager entityManager = search.entityManager();
+        if (!unionQueryExecutor.isApplicable(entityManager.getEntityManagerFactory(), search.entityClass(), search.tree(), search.pageable())) {
+            return next.apply(search);
+        }
+        List<Specification<T>> branches = operationService.buildBranches(search.tree());
+        Specification<T> specification = operationService.buildByTree(search.tree());
+
+        List<T> content = unionQueryExecutor.findContent(entityManager, search.entityClass(), branches, search.pageable());
+        return countQueryExecutor.toPage(
+                content,
+                search.pageable(),
+                search.countKey(),
+                CriteriaQueries.count(entityManager, search.entityClass(), specification)
+        );
+    }
+}
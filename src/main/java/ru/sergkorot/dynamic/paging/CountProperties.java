@@ -0,0 +1,38 @@
+package ru.sergkorot.dynamic.paging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of total count calculation for paged searches
+ * @see CountQueryExecutor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.count")
+public class CountProperties {
+
+    /**
+     * Do not execute count query when page is not full and total is known from its content
+     */
+    private boolean skipShortPage = true;
+
+    /**
+     * Time to live of cached counts by simplified request, zero disables caching.
+     * Counts are not evicted on entity changes, so cached total may be stale up to this time
+     */
+    private Duration cacheTtl = Duration.ZERO;
+
+    /**
+     * Maximum number of cached counts, least recently used are evicted
+     */
+    private int cacheMaxSize = 1024;
+
+    /**
+     * Rows are counted only up to threshold by {@code select count(*) from (select 1 ... limit threshold + 1)},
+     * bigger totals are returned as estimated. Non-positive value disables estimation
+     */
+    private long estimateThreshold = -1;
+}
@@ -0,0 +1,46 @@
+package ru.sergkorot.dynamic.paging;
+
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * @author Sergey Korotaev
+ * Count of rows matched by search request
+ * @see CountQueryExecutor
+ */
+public interface CountQuery {
+
+    /**
+     * @return exact number of matched rows
+     */
+    long count();
+
+    /**
+     * Count matched rows, but stop after limit
+     *
+     * @param limit - maximum number of rows to count
+     * @return number of matched rows, not greater than limit
+     */
+    long countUpTo(long limit);
+
+    /**
+     * Create count query by functions
+     *
+     * @param count     - exact count of matched rows
+     * @param countUpTo - count of matched rows up to limit
+     * @return CountQuery
+     */
+    static CountQuery of(LongSupplier count, LongUnaryOperator countUpTo) {
+        return new CountQuery() {
+            @Override
+            public long count() {
+                return count.getAsLong();
+            }
+
+            @Override
+            public long countUpTo(long limit) {
+                return countUpTo.applyAsLong(limit);
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package ru.sergkorot.dynamic.paging;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Calculation of total count for paged searches.
+ * Count query is skipped for short pages, counts are cached by simplified request
+ * and totals above threshold are estimated by counting rows only up to threshold.
+ * Cached counts expire only by time to live, they are not evicted on entity changes
+ * @see CountProperties
+ * @see CountedPage
+ */
+public class CountQueryExecutor {
+
+    private final CountProperties properties;
+    private final Map<Object, CachedCount> counts;
+
+    public CountQueryExecutor(CountProperties properties) {
+        this.properties = properties;
+        this.counts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedCount> eldest) {
+                return size() > properties.getCacheMaxSize();
+            }
+        };
+    }
+
+    /**
+     * Create page with total count
+     *
+     * @param content    - rows of the page
+     * @param pageable   - paging settings of the page
+     * @param cacheKey   - key of the request for count caching or null if request can not be cached
+     * @param countQuery - count of rows matched by request
+     * @param <T>        - type of page content
+     * @return CountedPage
+     */
+    public <T> CountedPage<T> toPage(List<T> content, Pageable pageable, @Nullable Object cacheKey, CountQuery countQuery) {
+        if (properties.isSkipShortPage() && isTotalKnown(content, pageable)) {
+            return new CountedPage<>(content, pageable, pageable.isPaged() ? pageable.getOffset() + content.size() : content.size(), true);
+        }
+
+        long now = System.nanoTime();
+        boolean cacheable = cacheKey != null && !properties.getCacheTtl().isZero() && !properties.getCacheTtl().isNegative();
+        if (cacheable) {
+            CachedCount cached;
+            synchronized (counts) {
+                cached = counts.get(cacheKey);
+            }
+            if (cached != null && cached.expiresAt() - now > 0) {
+                return new CountedPage<>(content, pageable, cached.total(), cached.exact());
+            }
+        }
+
+        CachedCount count = count(content, pageable, countQuery, now);
+        if (cacheable) {
+            synchronized (counts) {
+                counts.put(cacheKey, count);
+            }
+        }
+        return new CountedPage<>(content, pageable, count.total(), count.exact());
+    }
+
+    /**
+     * Remove all cached counts
+     */
+    public void clear() {
+        synchronized (counts) {
+            counts.clear();
+        }
+    }
+
+    private CachedCount count(List<?> content, Pageable pageable, CountQuery countQuery, long now) {
+        long expiresAt = now + properties.getCacheTtl().toNanos();
+        long threshold = properties.getEstimateThreshold();
+        if (threshold <= 0) {
+            return new CachedCount(countQuery.count(), true, expiresAt);
+        }
+
+        long bounded = countQuery.countUpTo(threshold + 1);
+        if (bounded <= threshold) {
+            return new CachedCount(bounded, true, expiresAt);
+        }
+        long seen = pageable.isPaged() ? pageable.getOffset() + content.size() : content.size();
+        boolean full = pageable.isPaged() && content.size() == pageable.getPageSize();
+        return new CachedCount(Math.max(bounded, full ? seen + 1 : seen), false, expiresAt);
+    }
+
+    private static boolean isTotalKnown(List<?> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return true;
+        }
+        if (content.size() >= pageable.getPageSize()) {
+            return false;
+        }
+        return pageable.getOffset() == 0 || !content.isEmpty();
+    }
+
+    private record CachedCount(long total, boolean exact, long expiresAt) {
+    }
+}
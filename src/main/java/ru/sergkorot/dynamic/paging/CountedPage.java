@@ -0,0 +1,30 @@
+package ru.sergkorot.dynamic.paging;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Page with total which can be estimated instead of counted exactly
+ *
+ * @param <T> - type of page content
+ * @see CountQueryExecutor
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+    private final boolean totalExact;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+        super(content, pageable, total);
+        this.totalExact = totalExact;
+    }
+
+    /**
+     * @return true if total is exact number of rows, false if it is lower bound estimation
+     */
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+}
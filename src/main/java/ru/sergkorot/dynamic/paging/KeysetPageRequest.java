@@ -0,0 +1,343 @@
+package ru.sergkorot.dynamic.paging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Bindable;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.Hibernate;
+import org.hibernate.query.criteria.JpaOrder;
+import org.hibernate.query.sqm.NullPrecedence;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ReflectionUtils;
+import ru.sergkorot.dynamic.memory.PropertyPath;
+import ru.sergkorot.dynamic.model.paging.PageRequestWithOffset;
+import ru.sergkorot.dynamic.util.PathUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Page settings for keyset (seek) pagination.
+ * Instead of skipping offset rows, next page starts right after sort key values of the last row of previous page,
+ * which are passed between requests as opaque cursor.
+ * Null values of sort fields are ordered after all other values in both directions (NULLS LAST), so nullable
+ * fields can be used for sorting. Cursor keeps sort fields and directions it was created for
+ * and is rejected by page settings with another sorting
+ */
+public final class KeysetPageRequest {
+
+    private final int limit;
+    private final List<Sort.Order> orders;
+    private final List<Object> lastValues;
+    private final ObjectMapper objectMapper;
+    private volatile List<List<Attribute<?, ?>>> attributePaths;
+
+    private KeysetPageRequest(int limit, List<Sort.Order> orders, List<Object> lastValues, ObjectMapper objectMapper) {
+        this.limit = limit;
+        this.orders = orders;
+        this.lastValues = lastValues;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Create keyset page settings
+     *
+     * @param limit        - number of list items to return
+     * @param orders       - sort orders, last one must be unique (identifier) for stable paging
+     * @param cursor       - cursor returned by previous page or null for the first page
+     * @param objectMapper - mapper for cursor values
+     * @return KeysetPageRequest
+     * @throws IllegalArgumentException if cursor is malformed or was created for another sorting
+     */
+    public static KeysetPageRequest of(int limit,
+                                       @NonNull List<Sort.Order> orders,
+                                       @Nullable String cursor,
+                                       @NonNull ObjectMapper objectMapper) {
+        if (CollectionUtils.isEmpty(orders)) {
+            throw new IllegalArgumentException("keyset paging requires at least one sort order");
+        }
+        List<Sort.Order> nullsLast = orders.stream()
+                .map(Sort.Order::nullsLast)
+                .toList();
+        List<Object> lastValues = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor decoded = decode(cursor, objectMapper);
+            if (!sortKey(nullsLast).equals(decoded.sort()) || decoded.values().size() != nullsLast.size()) {
+                throw new IllegalArgumentException(String.format(
+                        "cursor was created for sorting %s, but page is sorted by %s", decoded.sort(), sortKey(nullsLast)));
+            }
+            lastValues = decoded.values();
+        }
+        return new KeysetPageRequest(limit, nullsLast, lastValues, objectMapper);
+    }
+
+    /**
+     * Page settings without offset and sorting for data request.
+     * Sorting with null precedence is applied by {@link #toSpecification()},
+     * because null handling of {@link Sort} is not passed to criteria queries by Spring Data JPA
+     *
+     * @return PageRequestWithOffset with zero offset
+     */
+    public PageRequestWithOffset toPageable() {
+        return PageRequestWithOffset.of(0, limit, List.of());
+    }
+
+    /**
+     * @return sort orders of the page
+     */
+    public List<Sort.Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return number of list items to return
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true if page is the first one and has no seek condition
+     */
+    public boolean isFirst() {
+        return lastValues == null;
+    }
+
+    /**
+     * Build seek condition for rows after the cursor and apply sorting of the page to the query.
+     * For orders (a, b, id) it is {@code a >= ? and (a > ? or (a = ? and b > ?) or (a = ? and b = ? and id > ?))},
+     * comparison is reversed for descending orders. For nullable fields {@code a > ?} is extended
+     * with {@code or a is null}, and if cursor value is null only rows with null value are left.
+     * Specification must be applied for every page, also the first one, before {@link #nextCursor(List)}
+     *
+     * @param <T> - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public <T> Specification<T> toSpecification() {
+        return (root, query, criteriaBuilder) -> {
+            List<Path<Object>> paths = new ArrayList<>(orders.size());
+            List<List<Attribute<?, ?>>> resolved = new ArrayList<>(orders.size());
+            for (Sort.Order order : orders) {
+                Path<Object> path = PathUtils.get(root, query, order.getProperty());
+                paths.add(path);
+                resolved.add(attributePath(path));
+            }
+            attributePaths = List.copyOf(resolved);
+            if (query != null) {
+                query.orderBy(toOrders(criteriaBuilder, paths));
+            }
+            if (isFirst()) {
+                return null;
+            }
+
+            List<Object> values = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                values.add(lastValues.get(i) == null ? null : objectMapper.convertValue(lastValues.get(i), paths.get(i).getJavaType()));
+            }
+
+            List<Predicate> branches = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                if (values.get(i) == null) {
+                    continue;
+                }
+                List<Predicate> branch = new ArrayList<>(i + 1);
+                for (int j = 0; j < i; j++) {
+                    branch.add(values.get(j) == null
+                            ? criteriaBuilder.isNull(paths.get(j))
+                            : criteriaBuilder.equal(paths.get(j), values.get(j)));
+                }
+                branch.add(after(criteriaBuilder, paths.get(i), values.get(i), orders.get(i).isAscending(), false));
+                branches.add(criteriaBuilder.and(branch.toArray(Predicate[]::new)));
+            }
+
+            Predicate seek = criteriaBuilder.or(branches.toArray(Predicate[]::new));
+            Predicate first = values.get(0) == null
+                    ? criteriaBuilder.isNull(paths.get(0))
+                    : after(criteriaBuilder, paths.get(0), values.get(0), orders.get(0).isAscending(), true);
+            return criteriaBuilder.and(first, seek);
+        };
+    }
+
+    /**
+     * Create cursor for the page following the given content.
+     * Sort values of entities are read by attributes resolved in {@link #toSpecification()}, sort values of projections
+     * (tuples, interface projections, DTOs and records) are read by names of sort fields, so sort fields must be selected
+     *
+     * @param content - rows of the current page
+     * @return cursor or null if there is no next page
+     * @throws IllegalStateException    if specification of the page was not applied to the query
+     * @throws IllegalArgumentException if sort field is not selected by projection
+     */
+    @Nullable
+    public String nextCursor(List<?> content) {
+        if (CollectionUtils.isEmpty(content) || content.size() < limit) {
+            return null;
+        }
+        List<List<Attribute<?, ?>>> paths = attributePaths;
+        if (paths == null) {
+            throw new IllegalStateException("keyset specification of the page was not applied to the query");
+        }
+        Object last = content.get(content.size() - 1);
+        List<Object> values = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            values.add(read(last, orders.get(i).getProperty(), paths.get(i)));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(new Cursor(sortKey(orders), values)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("cursor values can not be serialized", e);
+        }
+    }
+
+    private List<Order> toOrders(CriteriaBuilder criteriaBuilder, List<Path<Object>> paths) {
+        List<Order> result = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i).isAscending()
+                    ? criteriaBuilder.asc(paths.get(i))
+                    : criteriaBuilder.desc(paths.get(i));
+            result.add(((JpaOrder) order).nullPrecedence(NullPrecedence.LAST));
+        }
+        return result;
+    }
+
+    private static List<Attribute<?, ?>> attributePath(Path<?> path) {
+        List<Attribute<?, ?>> attributes = new ArrayList<>();
+        for (Path<?> current = path; current != null && current.getModel() instanceof Attribute<?, ?> attribute;
+             current = current.getParentPath()) {
+            attributes.add(0, attribute);
+        }
+        return attributes;
+    }
+
+    private static Object read(Object row, String property, List<Attribute<?, ?>> path) {
+        if (row instanceof Tuple tuple) {
+            return readTuple(tuple, property);
+        }
+        if (row instanceof TargetAware projection && projection.getTarget() instanceof Map<?, ?> values) {
+            return readMap(values, property);
+        }
+        if (!path.isEmpty() && path.get(0).getDeclaringType().getJavaType().isInstance(row)) {
+            return read(row, path);
+        }
+        try {
+            return PropertyPath.of(row.getClass(), property).get(row);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("sort field %s is not selected by projection", property), e);
+        }
+    }
+
+    private static Object readTuple(Tuple tuple, String property) {
+        try {
+            return tuple.get(property);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("sort field %s is not selected by projection", property), e);
+        }
+    }
+
+    private static Object readMap(Map<?, ?> values, String property) {
+        Object current = values;
+        for (String part : property.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(part)) {
+                throw new IllegalArgumentException(String.format("sort field %s is not selected by projection", property));
+            }
+            current = map.get(part);
+        }
+        return current;
+    }
+
+    private static Object read(Object entity, List<Attribute<?, ?>> path) {
+        Object current = entity;
+        for (Attribute<?, ?> attribute : path) {
+            if (current == null) {
+                return null;
+            }
+            current = Hibernate.unproxy(current);
+            Member member = attribute.getJavaMember();
+            if (member instanceof Field field) {
+                ReflectionUtils.makeAccessible(field);
+                current = ReflectionUtils.getField(field, current);
+            } else if (member instanceof Method method) {
+                ReflectionUtils.makeAccessible(method);
+                current = ReflectionUtils.invokeMethod(method, current);
+            } else {
+                throw new IllegalArgumentException(String.format("field %s can not be read", attribute.getName()));
+            }
+        }
+        return current;
+    }
+
+    private static boolean isNullable(Path<?> path) {
+        Bindable<?> model = path.getModel();
+        return !(model instanceof SingularAttribute<?, ?> attribute) || attribute.isOptional() && !attribute.isId();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder criteriaBuilder, Path<Object> path, Object value,
+                                   boolean ascending, boolean inclusive) {
+        Expression<Comparable> expression = (Expression<Comparable>) (Expression) path;
+        Comparable comparable = (Comparable) value;
+        Predicate compare;
+        if (ascending) {
+            compare = inclusive
+                    ? criteriaBuilder.greaterThanOrEqualTo(expression, comparable)
+                    : criteriaBuilder.greaterThan(expression, comparable);
+        } else {
+            compare = inclusive
+                    ? criteriaBuilder.lessThanOrEqualTo(expression, comparable)
+                    : criteriaBuilder.lessThan(expression, comparable);
+        }
+        return isNullable(path) ? criteriaBuilder.or(compare, criteriaBuilder.isNull(path)) : compare;
+    }
+
+    private static List<String> sortKey(List<Sort.Order> orders) {
+        return orders.stream()
+                .map(order -> order.getProperty() + ":" + order.getDirection())
+                .toList();
+    }
+
+    private static Cursor decode(String cursor, ObjectMapper objectMapper) {
+        Cursor decoded;
+        try {
+            decoded = objectMapper.readValue(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8),
+                    Cursor.class
+            );
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("cursor is malformed", e);
+        }
+        if (decoded == null || decoded.sort() == null || decoded.values() == null) {
+            throw new IllegalArgumentException("cursor is malformed");
+        }
+        return decoded;
+    }
+
+    /**
+     * Content of cursor: sort fields with directions and values of the last row
+     *
+     * @param sort   - sort fields with directions
+     * @param values - sort values of the last row
+     */
+    record Cursor(List<String> sort, List<Object> values) {
+    }
+}
@@ -0,0 +1,40 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import org.springframework.data.relational.core.query.Criteria;
+import ru.sergkorot.dynamic.glue.Glue;
+import ru.sergkorot.dynamic.glue.GlueOperationProvider;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Realization of Glue operation provider interface for Spring Data R2DBC criteria.
+ * Each glued criteria is wrapped into a group, so precedence of and/or is kept at any nesting level
+ * @see GlueOperationProvider
+ */
+public class CriteriaGlueOperationProviderImpl implements GlueOperationProvider<Criteria> {
+
+    @Override
+    public Glue<Criteria> and() {
+        return criteria -> glue(criteria, false);
+    }
+
+    @Override
+    public Glue<Criteria> or() {
+        return criteria -> glue(criteria, true);
+    }
+
+    static Criteria glue(List<Criteria> criteria, boolean or) {
+        Criteria result = Criteria.empty();
+        for (Criteria criterion : criteria) {
+            if (criterion == null || criterion.isEmpty()) {
+                if (or) {
+                    return Criteria.empty();
+                }
+                continue;
+            }
+            result = result.isEmpty() || !or ? result.and(criterion) : result.or(criterion);
+        }
+        return result;
+    }
+}
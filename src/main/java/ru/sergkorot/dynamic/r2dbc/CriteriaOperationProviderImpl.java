@@ -0,0 +1,107 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.operation.Operation;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static ru.sergkorot.dynamic.model.enums.ValueType.cast;
+import static ru.sergkorot.dynamic.model.enums.ValueType.collectionCast;
+
+/**
+ * @author Sergey Korotaev
+ * Realization of Operation provider interface for building Spring Data R2DBC criteria
+ * @see OperationProvider
+ * @see CriteriaOperationService
+ */
+public class CriteriaOperationProviderImpl implements OperationProvider<Criteria> {
+
+    @Override
+    public Operation<Criteria> like() {
+        return param -> {
+            String value = param.getValue().toString();
+            if (!value.contains("%")) {
+                value = "%" + value + "%";
+            }
+            return Criteria.where(param.getName()).like(value).ignoreCase(true);
+        };
+    }
+
+    @Override
+    public Operation<Criteria> eq() {
+        return param -> Criteria.where(param.getName()).is(cast(param.getValue()));
+    }
+
+    @Override
+    public Operation<Criteria> notEq() {
+        return param -> Criteria.where(param.getName()).not(cast(param.getValue()));
+    }
+
+    @Override
+    public Operation<Criteria> in() {
+        return param -> {
+            Collection<?> collection = collectionCast(param.getValue());
+            return CollectionUtils.isEmpty(collection)
+                    ? nothing(param.getName())
+                    : Criteria.where(param.getName()).in(collection);
+        };
+    }
+
+    @Override
+    public Operation<Criteria> notIn() {
+        return param -> {
+            Collection<?> collection = collectionCast(param.getValue());
+            return CollectionUtils.isEmpty(collection)
+                    ? nothing(param.getName())
+                    : Criteria.where(param.getName()).notIn(collection);
+        };
+    }
+
+    @Override
+    public Operation<Criteria> isNull() {
+        return param -> Criteria.where(param.getName()).isNull();
+    }
+
+    @Override
+    public Operation<Criteria> lessThan() {
+        return param -> Criteria.where(param.getName()).lessThan(cast(param.getValue()));
+    }
+
+    @Override
+    public Operation<Criteria> greaterThan() {
+        return param -> Criteria.where(param.getName()).greaterThan(cast(param.getValue()));
+    }
+
+    @Override
+    public Operation<Criteria> greaterThanOrEquals() {
+        return param -> Criteria.where(param.getName()).greaterThanOrEquals(cast(param.getValue()));
+    }
+
+    @Override
+    public Operation<Criteria> lessThanOrEquals() {
+        return param -> Criteria.where(param.getName()).lessThanOrEquals(cast(param.getValue()));
+    }
+
+    public Operation<Criteria> contains() {
+        return param -> {
+            List<Criteria> parts = Arrays.stream(param.getValue().toString().split(","))
+                    .map(v -> Criteria.where(param.getName()).like("%" + v.trim() + "%"))
+                    .toList();
+            return CriteriaGlueOperationProviderImpl.glue(parts, false);
+        };
+    }
+
+    /**
+     * Criteria which is always false, same as {@code findNothing} for specifications
+     *
+     * @param columnName - name of column into the database
+     * @return Criteria
+     */
+    static Criteria nothing(String columnName) {
+        return Criteria.where(columnName).isNull().and(columnName).isNotNull();
+    }
+}
@@ -0,0 +1,307 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.glue.GlueOperationProvider;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.PageAttribute;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.model.paging.PageRequestWithOffset;
+import ru.sergkorot.dynamic.operation.ManualOperationProvider;
+import ru.sergkorot.dynamic.operation.OperationProvider;
+import ru.sergkorot.dynamic.operation.OperationService;
+import ru.sergkorot.dynamic.util.SortUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sergey Korotaev
+ * Service for building Spring Data R2DBC criteria for base and complex requests and for reactive searching.
+ * Criteria has no subqueries, so nested operations are resolved by separate select of field values
+ * before the main request, this is done by {@link #resolveComplexByParams} and {@link #search}.
+ * Number of selected values is limited by {@link CriteriaQueryProperties#getMaxNestedValues()}.
+ * Like and contains are rendered without cast, with entity class they are rejected for non-string properties
+ * @see CriteriaOperationProviderImpl
+ * @see CriteriaGlueOperationProviderImpl
+ */
+public class CriteriaOperationService implements OperationService<Criteria> {
+
+    private static final String NESTED = "nst:";
+    private static final Set<String> TEXT_OPERATIONS = Set.of("like", "contains");
+    private final OperationProvider<Criteria> operationProvider;
+    private final GlueOperationProvider<Criteria> glueOperationProvider;
+    private final Map<String, ManualOperationProvider<Criteria>> manualOperationProviderMap;
+    private final ObjectMapper objectMapper;
+    private final R2dbcEntityOperations entityOperations;
+    private final CriteriaQueryProperties properties;
+
+    public CriteriaOperationService(OperationProvider<Criteria> operationProvider,
+                                    GlueOperationProvider<Criteria> glueOperationProvider,
+                                    List<ManualOperationProvider<Criteria>> manualOperationProviders,
+                                    ObjectMapper objectMapper,
+                                    R2dbcEntityOperations entityOperations) {
+        this(operationProvider, glueOperationProvider, manualOperationProviders, objectMapper, entityOperations, new CriteriaQueryProperties());
+    }
+
+    public CriteriaOperationService(OperationProvider<Criteria> operationProvider,
+                                    GlueOperationProvider<Criteria> glueOperationProvider,
+                                    List<ManualOperationProvider<Criteria>> manualOperationProviders,
+                                    ObjectMapper objectMapper,
+                                    R2dbcEntityOperations entityOperations,
+                                    CriteriaQueryProperties properties) {
+        this.operationProvider = operationProvider;
+        this.glueOperationProvider = glueOperationProvider;
+        this.manualOperationProviderMap = CollectionUtils.isEmpty(manualOperationProviders)
+                ? null
+                : manualOperationProviders.stream().collect(Collectors.toMap(ManualOperationProvider::fieldName, Function.identity()));
+        this.objectMapper = objectMapper;
+        this.entityOperations = entityOperations;
+        this.properties = properties;
+    }
+
+    /**
+     * Create criteria for base search request without nested operations
+     *
+     * @param baseSearchParams - model for base search request
+     * @param glue             - condition for gluing criteria
+     * @return - criteria for data request
+     * @throws IllegalArgumentException if request contains nested operation
+     * @see BaseSearchParam
+     * @see GlueOperation
+     */
+    @Override
+    public Criteria buildBaseByParams(List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
+        if (CollectionUtils.isEmpty(baseSearchParams)) {
+            return Criteria.empty();
+        }
+        return buildGlue(glueOperationProvider, baseSearchParams.stream().map(this::constructCriteria).toList(), glue);
+    }
+
+    /**
+     * Create criteria for complex search request without nested operations
+     *
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex criteria between each other
+     * @return - criteria for data request
+     * @throws IllegalArgumentException if request contains nested operation
+     * @see ComplexSearchParam
+     * @see GlueOperation
+     */
+    @Override
+    public Criteria buildComplexByParams(List<ComplexSearchParam> complexSearchParams, GlueOperation externalGlue) {
+        List<Criteria> criteria = complexSearchParams.stream()
+                .map(complexSearchParam -> buildBaseByParams(complexSearchParam.getBaseSearchParams(), complexSearchParam.getInternalGlue()))
+                .toList();
+        return buildGlue(glueOperationProvider, criteria, externalGlue);
+    }
+
+    /**
+     * Create PageRequest extension for paging and sorting settings
+     *
+     * @param pageAttribute    - attribute class for pagination and sorting
+     * @param searchSortFields - fields by which sorting is possible in the database
+     * @return - PageRequestWithOffset
+     * @see PageRequestWithOffset
+     * @see PageAttribute
+     */
+    @Override
+    public PageRequestWithOffset buildPageSettings(PageAttribute pageAttribute, List<String> searchSortFields) {
+        if (Objects.isNull(pageAttribute)) {
+            return PageRequestWithOffset.of(SortUtils.DEFAULT_OFFSET, SortUtils.DEFAULT_LIMIT, List.of());
+        }
+        return PageRequestWithOffset.of(
+                pageAttribute.getOffset(),
+                pageAttribute.getLimit(),
+                SortUtils.makeSortOrders(searchSortFields, pageAttribute.getSortBy())
+        );
+    }
+
+    /**
+     * Create criteria for complex search request, nested operations are resolved by the database
+     *
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex criteria between each other
+     * @return - criteria for data request
+     */
+    public Mono<Criteria> resolveComplexByParams(Class<?> entityClass,
+                                                 List<ComplexSearchParam> complexSearchParams,
+                                                 GlueOperation externalGlue) {
+        return Flux.fromIterable(complexSearchParams)
+                .concatMap(complexSearchParam -> resolveBaseByParams(
+                        entityClass,
+                        complexSearchParam.getBaseSearchParams(),
+                        complexSearchParam.getInternalGlue()
+                ))
+                .collectList()
+                .map(criteria -> buildGlue(glueOperationProvider, criteria, externalGlue));
+    }
+
+    /**
+     * Search entities by complex search request. Rows are streamed from the database
+     * with backpressure of the subscriber
+     *
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex criteria between each other
+     * @param pageable            - paging and sorting settings
+     * @param <T>                 - the entity for which the request is being built
+     * @return - found entities
+     */
+    public <T> Flux<T> search(Class<T> entityClass,
+                              List<ComplexSearchParam> complexSearchParams,
+                              GlueOperation externalGlue,
+                              Pageable pageable) {
+        return resolveComplexByParams(entityClass, complexSearchParams, externalGlue)
+                .flatMapMany(criteria -> getEntityOperations().select(Query.query(criteria).with(pageable), entityClass));
+    }
+
+    /**
+     * Count entities by complex search request
+     *
+     * @param entityClass         - the entity for which the request is being built
+     * @param complexSearchParams - model for complex search request
+     * @param externalGlue        - condition for gluing complex criteria between each other
+     * @return - number of found entities
+     */
+    public Mono<Long> count(Class<?> entityClass,
+                            List<ComplexSearchParam> complexSearchParams,
+                            GlueOperation externalGlue) {
+        return resolveComplexByParams(entityClass, complexSearchParams, externalGlue)
+                .flatMap(criteria -> getEntityOperations().count(Query.query(criteria), entityClass));
+    }
+
+    private Mono<Criteria> resolveBaseByParams(Class<?> entityClass, List<BaseSearchParam> baseSearchParams, GlueOperation glue) {
+        if (CollectionUtils.isEmpty(baseSearchParams)) {
+            return Mono.just(Criteria.empty());
+        }
+        return Flux.fromIterable(baseSearchParams)
+                .concatMap(param -> isNested(param)
+                        ? resolveNestedOperation(entityClass, param)
+                        : Mono.fromSupplier(() -> constructCriteria(entityClass, param)))
+                .collectList()
+                .map(criteria -> buildGlue(glueOperationProvider, criteria, glue));
+    }
+
+    private Mono<Criteria> resolveNestedOperation(Class<?> entityClass, BaseSearchParam param) {
+        String name = param.getName();
+        NestedOperation nestedOperation = NestedOperation.of(param.getOperation().substring(NESTED.length()));
+        ComplexSearchParam nestedParam = objectMapper.convertValue(param.getValue(), ComplexSearchParam.class);
+
+        int maxValues = properties.getMaxNestedValues();
+
+        return resolveBaseByParams(entityClass, nestedParam.getBaseSearchParams(), nestedParam.getInternalGlue())
+                .flatMap(criteria -> getEntityOperations().select(Query.query(criteria).columns(name), entityClass)
+                        .mapNotNull(entity -> PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(name))
+                        .distinct()
+                        .take(maxValues + 1L)
+                        .collectList())
+                .map(values -> {
+                    if (values.size() > maxValues) {
+                        throw new IllegalArgumentException(String.format(
+                                "nested query for field %s returned more than %d values", name, maxValues));
+                    }
+                    return nestedCriteria(nestedOperation, name, values);
+                });
+    }
+
+    private static Criteria nestedCriteria(NestedOperation nestedOperation, String name, List<Object> values) {
+        return switch (nestedOperation) {
+            case IN -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).in(values);
+            case NOT_IN -> values.isEmpty()
+                    ? Criteria.empty()
+                    : Criteria.where(name).notIn(values);
+            case EQUAL -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).is(singleValue(name, values));
+            case NOT_EQUAL -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).not(singleValue(name, values));
+            case IS_NULL -> Criteria.where(name).isNull();
+            case LESS_THAN -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).lessThan(singleValue(name, values));
+            case GREATER_THAN -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).greaterThan(singleValue(name, values));
+            case LESS_THAN_OR_EQUALS -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).lessThanOrEquals(singleValue(name, values));
+            case GREATER_THAN_OR_EQUALS -> values.isEmpty()
+                    ? CriteriaOperationProviderImpl.nothing(name)
+                    : Criteria.where(name).greaterThanOrEquals(singleValue(name, values));
+            default -> throw new IllegalArgumentException(
+                    String.format("nested operation %s is not supported for R2DBC", nestedOperation.getOperationName()));
+        };
+    }
+
+    private static Object singleValue(String name, List<Object> values) {
+        if (values.size() > 1) {
+            throw new IllegalArgumentException(String.format("nested query for field %s returned more than one value", name));
+        }
+        return values.get(0);
+    }
+
+    private Criteria constructCriteria(BaseSearchParam param) {
+        if (!CollectionUtils.isEmpty(manualOperationProviderMap) && manualOperationProviderMap.containsKey(param.getName())) {
+            return manualOperationProviderMap.get(param.getName()).buildOperation(param);
+        }
+        if (param.getOperation().startsWith(NESTED)) {
+            throw new IllegalArgumentException(String.format(
+                    "nested operation %s for field %s requires database request, use resolveComplexByParams or search",
+                    param.getOperation(), param.getName()));
+        }
+        return buildOperation(param, operationProvider);
+    }
+
+    private Criteria constructCriteria(Class<?> entityClass, BaseSearchParam param) {
+        if (TEXT_OPERATIONS.contains(param.getOperation())
+                && (CollectionUtils.isEmpty(manualOperationProviderMap) || !manualOperationProviderMap.containsKey(param.getName()))) {
+            checkTextField(entityClass, param);
+        }
+        return constructCriteria(param);
+    }
+
+    /**
+     * Like is rendered without cast, so like and contains are allowed only for string properties
+     */
+    private void checkTextField(Class<?> entityClass, BaseSearchParam param) {
+        RelationalPersistentEntity<?> entity = getEntityOperations().getConverter().getMappingContext().getPersistentEntity(entityClass);
+        RelationalPersistentProperty property = entity == null ? null : entity.getPersistentProperty(param.getName());
+        if (property != null && !CharSequence.class.isAssignableFrom(property.getType())) {
+            throw new IllegalArgumentException(String.format(
+                    "operation %s is supported only for string fields, field %s has type %s",
+                    param.getOperation(), param.getName(), property.getType().getSimpleName()));
+        }
+    }
+
+    private boolean isNested(BaseSearchParam param) {
+        return param.getOperation().startsWith(NESTED)
+                && (CollectionUtils.isEmpty(manualOperationProviderMap) || !manualOperationProviderMap.containsKey(param.getName()));
+    }
+
+    private R2dbcEntityOperations getEntityOperations() {
+        if (entityOperations == null) {
+            throw new IllegalStateException("R2dbcEntityOperations bean is not found");
+        }
+        return entityOperations;
+    }
+}
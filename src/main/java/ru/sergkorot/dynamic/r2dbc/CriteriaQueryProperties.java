@@ -0,0 +1,20 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of Spring Data R2DBC criteria building
+ * @see CriteriaOperationService
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.r2dbc")
+public class CriteriaQueryProperties {
+
+    /**
+     * Maximum number of distinct values selected for nested (nst:) operation. Values are bound into in of the main
+     * request, so nested request with more values is rejected instead of being read into memory
+     */
+    private int maxNestedValues = 1000;
+}
@@ -0,0 +1,64 @@
+package ru.sergkorot.dynamic.result;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.Session;
+import org.springframework.data.domain.Pageable;
+import ru.sergkorot.dynamic.paging.CountedPage;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Sergey Korotaev
+ * Cached page of search results as identifiers of found entities in page order. Entities are not cached:
+ * they are loaded by identifiers into entity manager of each caller, so callers never share entity instances
+ *
+ * @param ids        - identifiers of found entities in page order
+ * @param pageable   - paging and sorting settings
+ * @param total      - total number of found entities
+ * @param totalExact - true if total is exact and not estimated
+ */
+public record CachedPage(List<Object> ids, Pageable pageable, long total, boolean totalExact) implements Serializable {
+
+    public CachedPage {
+        ids = List.copyOf(ids);
+    }
+
+    /**
+     * @param page                - found page
+     * @param persistenceUnitUtil - utility of persistence unit of found entities
+     * @return cached form of page
+     */
+    public static CachedPage of(CountedPage<?> page, PersistenceUnitUtil persistenceUnitUtil) {
+        return new CachedPage(
+                page.getContent().stream().map(persistenceUnitUtil::getIdentifier).toList(),
+                page.getPageable(),
+                page.getTotalElements(),
+                page.isTotalExact()
+        );
+    }
+
+    /**
+     * Load entities of page by one query, entities already managed by entity manager are taken from it.
+     * Entities which were deleted after page was cached are skipped
+     *
+     * @param entityManager - entity manager of the caller
+     * @param entityClass   - class of found entities
+     * @param <T>           - type of entity
+     * @return page of entities managed by entity manager
+     */
+    public <T> CountedPage<T> load(EntityManager entityManager, Class<T> entityClass) {
+        List<T> content = ids.isEmpty()
+                ? List.of()
+                : entityManager.unwrap(Session.class)
+                .byMultipleIds(entityClass)
+                .enableSessionCheck(true)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+        return new CountedPage<>(content, pageable, total, totalExact);
+    }
+}
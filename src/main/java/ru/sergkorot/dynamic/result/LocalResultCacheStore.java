@@ -0,0 +1,75 @@
+package ru.sergkorot.dynamic.result;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Sergey Korotaev
+ * In-memory storage of search results bounded by size and time to live
+ * @see ResultCacheProperties
+ */
+public class LocalResultCacheStore implements ResultCacheStore {
+
+    private final ResultCacheProperties properties;
+    private final Map<Object, CachedResult> results;
+
+    public LocalResultCacheStore(ResultCacheProperties properties) {
+        this.properties = properties;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CachedResult> eldest) {
+                return size() > properties.getMaxSize();
+            }
+        };
+    }
+
+    @Override
+    public Object get(Object key) {
+        synchronized (results) {
+            CachedResult cached = results.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() - System.nanoTime() <= 0) {
+                results.remove(key);
+                return null;
+            }
+            return cached.value();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value, Set<Class<?>> entityTypes) {
+        CachedResult result = new CachedResult(value, Set.copyOf(entityTypes), System.nanoTime() + properties.getTtl().toNanos());
+        synchronized (results) {
+            results.put(key, result);
+        }
+    }
+
+    @Override
+    public void evict(Class<?> entityType) {
+        synchronized (results) {
+            Iterator<CachedResult> iterator = results.values().iterator();
+            while (iterator.hasNext()) {
+                for (Class<?> type : iterator.next().entityTypes()) {
+                    if (type.isAssignableFrom(entityType)) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    private record CachedResult(Object value, Set<Class<?>> entityTypes, long expiresAt) {
+    }
+}
@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.result;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of search results caching
+ * @see SearchResultCache
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.result-cache")
+public class ResultCacheProperties {
+
+    /**
+     * Cache results of {@code findPage} by search request, paging and sorting
+     */
+    private boolean enabled = false;
+
+    /**
+     * Time to live of cached result, it is also evicted on commit of changes of entities it was read from
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of cached results of local store, least recently used are evicted
+     */
+    private int maxSize = 1000;
+}
@@ -0,0 +1,42 @@
+package ru.sergkorot.dynamic.result;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Set;
+
+/**
+ * @author Sergey Korotaev
+ * Storage of cached search results. Default implementation is local {@link LocalResultCacheStore},
+ * other storages can be used by declaring bean of this interface
+ * @see SearchResultCache
+ */
+public interface ResultCacheStore {
+
+    /**
+     * @param key - canonical key of search request
+     * @return cached result or null if it is absent or expired
+     */
+    @Nullable
+    Object get(Object key);
+
+    /**
+     * Store result
+     *
+     * @param key         - canonical key of search request
+     * @param value       - search result
+     * @param entityTypes - entity types the result was read from
+     */
+    void put(Object key, Object value, Set<Class<?>> entityTypes);
+
+    /**
+     * Remove results read from the entity type or its superclasses
+     *
+     * @param entityType - changed entity type
+     */
+    void evict(Class<?> entityType);
+
+    /**
+     * Remove all results
+     */
+    void clear();
+}
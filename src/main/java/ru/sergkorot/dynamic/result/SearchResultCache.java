@@ -0,0 +1,255 @@
+package ru.sergkorot.dynamic.result;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.metrics.OperationMetrics;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author Sergey Korotaev
+ * Cache of search results by canonical form of search request, paging and sorting.
+ * Results are evicted by time to live and on commit of changes of entity types they were read from.
+ * Concurrent misses of the same key outside of transactions execute single query, other callers wait for its result.
+ * Results are shared between callers, so they must not contain entities, see {@link CachedPage}
+ * @see ResultCacheProperties
+ * @see ResultCacheStore
+ * @see ResultCacheInvalidationListener
+ */
+public class SearchResultCache {
+
+    private static final String HIT = "hit";
+    private static final String MISS = "miss";
+    private static final String WAIT = "wait";
+    private static final String BYPASS = "bypass";
+
+    private final ResultCacheStore store;
+    private final OperationMetrics operationMetrics;
+    private final Map<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong clears = new AtomicLong();
+
+    public SearchResultCache(ResultCacheStore store, @Nullable OperationMetrics operationMetrics) {
+        this.store = store;
+        this.operationMetrics = Objects.requireNonNullElse(operationMetrics, OperationMetrics.NOOP);
+    }
+
+    /**
+     * Create key of search request. Children of groups are ordered, so requests which differ only
+     * in order of conditions have the same key
+     *
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed request
+     * @param pageable    - paging and sorting settings
+     * @return key of the request
+     */
+    public Object key(Class<?> entityClass, GroupNode tree, Pageable pageable) {
+        return List.of(
+                entityClass,
+                canonical(tree),
+                pageable.isPaged() ? pageable.getOffset() : -1L,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort()
+        );
+    }
+
+    /**
+     * Resolve entity types which are read by request: the entity itself and targets of associations in field paths
+     *
+     * @param metamodel   - metamodel of persistence unit
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed request
+     * @return entity types of the request
+     */
+    public Set<Class<?>> entityTypes(Metamodel metamodel, Class<?> entityClass, GroupNode tree) {
+        Set<Class<?>> entityTypes = new HashSet<>();
+        entityTypes.add(entityClass);
+        collectEntityTypes(metamodel, entityClass, tree, entityTypes);
+        return entityTypes;
+    }
+
+    /**
+     * Get result from cache or load it. Each cached result keeps generation of its entity types from the moment
+     * its loading was started, result is returned only while generation is the same, so results loaded concurrently
+     * with changes of the entities are never returned. Within a transaction result is stored only after its commit
+     * and sessions with not flushed changes do not use cache at all
+     *
+     * @param entityManager - entity manager of the caller
+     * @param key           - key of the request
+     * @param entityTypes   - entity types of the request
+     * @param loader        - query of the result, result must not contain managed entities
+     * @param <R>           - type of result
+     * @return result
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(EntityManager entityManager, Object key, Set<Class<?>> entityTypes, Supplier<R> loader) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        if (session.isDirty()) {
+            operationMetrics.recordResultCache(BYPASS);
+            return loader.get();
+        }
+        long generation = generation(entityTypes);
+        if (store.get(key) instanceof VersionedResult cached && cached.generation() == generation) {
+            operationMetrics.recordResultCache(HIT);
+            return (R) cached.value();
+        }
+
+        if (session.isTransactionInProgress()) {
+            operationMetrics.recordResultCache(MISS);
+            R result = loader.get();
+            if (result != null) {
+                session.getActionQueue().registerProcess((success, completedSession) -> {
+                    if (success) {
+                        put(key, result, entityTypes, generation);
+                    }
+                });
+            }
+            return result;
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            operationMetrics.recordResultCache(WAIT);
+            try {
+                return (R) running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        operationMetrics.recordResultCache(MISS);
+        try {
+            R result = loader.get();
+            if (result != null) {
+                put(key, result, entityTypes, generation);
+            }
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Evict results read from the entity type
+     *
+     * @param entityType - changed entity type
+     */
+    public void evict(Class<?> entityType) {
+        for (Class<?> type = entityType; type != null && type != Object.class; type = type.getSuperclass()) {
+            generations.computeIfAbsent(type, t -> new AtomicLong()).incrementAndGet();
+        }
+        store.evict(entityType);
+    }
+
+    /**
+     * Remove all results, for example after bulk updates which are not tracked by entity events
+     */
+    public void clear() {
+        clears.incrementAndGet();
+        store.clear();
+    }
+
+    private void put(Object key, Object result, Set<Class<?>> entityTypes, long generation) {
+        // validity is checked on read, this only avoids storing results which are already stale
+        if (generation == generation(entityTypes)) {
+            store.put(key, new VersionedResult(result, generation), entityTypes);
+        }
+    }
+
+    /**
+     * Counters only grow, so their sum changes whenever any entity type of the request is evicted or cache is cleared
+     */
+    private long generation(Set<Class<?>> entityTypes) {
+        long generation = clears.get();
+        for (Class<?> entityType : entityTypes) {
+            AtomicLong counter = generations.get(entityType);
+            generation += counter == null ? 0 : counter.get();
+        }
+        return generation;
+    }
+
+    private static SearchNode canonical(SearchNode node) {
+        if (node instanceof GroupNode group) {
+            return new GroupNode(group.glue(), group.children()
+                    .stream()
+                    .map(SearchResultCache::canonical)
+                    .sorted(Comparator.comparing(SearchNode::toString))
+                    .toList());
+        }
+        if (node instanceof NestedNode nested) {
+            return new NestedNode(nested.field(), nested.operation(), (GroupNode) canonical(nested.group()));
+        }
+        return node;
+    }
+
+    private static void collectEntityTypes(Metamodel metamodel, Class<?> entityClass, GroupNode group, Set<Class<?>> entityTypes) {
+        for (SearchNode node : group.children()) {
+            if (node instanceof GroupNode child) {
+                collectEntityTypes(metamodel, entityClass, child, entityTypes);
+            } else if (node instanceof NestedNode nested) {
+                collectPathTypes(metamodel, entityClass, nested.field(), entityTypes);
+                collectEntityTypes(metamodel, entityClass, nested.group(), entityTypes);
+            } else if (node instanceof ConditionNode condition && !condition.manual()) {
+                collectPathTypes(metamodel, entityClass, condition.field(), entityTypes);
+            }
+        }
+    }
+
+    private static void collectPathTypes(Metamodel metamodel, Class<?> entityClass, String path, Set<Class<?>> entityTypes) {
+        if (path.indexOf('.') < 0) {
+            return;
+        }
+        Class<?> type = entityClass;
+        for (String name : path.split("\\.")) {
+            ManagedType<?> managedType;
+            try {
+                managedType = metamodel.managedType(type);
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            Attribute<?, ?> attribute = managedType.getAttributes()
+                    .stream()
+                    .filter(candidate -> candidate.getName().equals(name))
+                    .findFirst()
+                    .orElse(null);
+            if (attribute == null) {
+                return;
+            }
+            type = attribute instanceof PluralAttribute<?, ?, ?> plural
+                    ? plural.getElementType().getJavaType()
+                    : attribute.getJavaType();
+            if (attribute.isAssociation()) {
+                entityTypes.add(type);
+            }
+        }
+    }
+
+    private record VersionedResult(Object value, long generation) implements Serializable {
+    }
+}
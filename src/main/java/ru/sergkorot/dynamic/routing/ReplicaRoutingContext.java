@@ -0,0 +1,116 @@
+package ru.sergkorot.dynamic.routing;
+
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.enums.ReadConsistency;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * @author Sergey Korotaev
+ * Routing state of current thread. Connections are taken from replica only within search requests
+ * of {@code SpecificationOperationService} and only if the caller does not require {@link ReadConsistency#READ_YOUR_WRITES}.
+ * Routing is decided when connection is taken, so searches within transaction which already holds
+ * connection are executed by this connection
+ * @see ReplicaRoutingDataSource
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<ReadConsistency> CONSISTENCY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> SEARCH = new ThreadLocal<>();
+    private static final ThreadLocal<String> ROUTED_REPLICA = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * Execute action with required consistency of searches, for example read-your-writes after changes
+     * of the entity by the same user
+     *
+     * @param consistency - required consistency
+     * @param action      - action executing search requests
+     * @param <R>         - type of result
+     * @return result of action
+     */
+    public static <R> R withConsistency(ReadConsistency consistency, Supplier<R> action) {
+        ReadConsistency previous = CONSISTENCY.get();
+        CONSISTENCY.set(consistency);
+        try {
+            return action.get();
+        } finally {
+            restore(CONSISTENCY, previous);
+        }
+    }
+
+    /**
+     * Execute search request, connections taken by it may be routed to replica
+     *
+     * @param action - search request
+     * @param <R>    - type of result
+     * @return result of search
+     */
+    public static <R> R search(Supplier<R> action) {
+        Boolean previous = SEARCH.get();
+        SEARCH.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            restore(SEARCH, previous);
+        }
+    }
+
+    /**
+     * @return true if connection for current thread may be taken from replica
+     */
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(SEARCH.get()) && CONSISTENCY.get() != ReadConsistency.READ_YOUR_WRITES;
+    }
+
+    /**
+     * @return name of replica which gave the last connection taken by current thread from {@link ReplicaRoutingDataSource},
+     * null if it was given by primary
+     */
+    @Nullable
+    public static String routedReplica() {
+        return ROUTED_REPLICA.get();
+    }
+
+    static void routed(@Nullable String replica) {
+        restore(ROUTED_REPLICA, replica);
+    }
+
+    /**
+     * Transfer routing state of current thread to task executed by other thread
+     *
+     * @param task - task for other thread
+     * @param <R>  - type of result
+     * @return task with routing state of current thread
+     */
+    public static <R> Callable<R> propagate(Callable<R> task) {
+        ReadConsistency consistency = CONSISTENCY.get();
+        Boolean search = SEARCH.get();
+        if (consistency == null && search == null) {
+            return task;
+        }
+        return () -> {
+            ReadConsistency previousConsistency = CONSISTENCY.get();
+            Boolean previousSearch = SEARCH.get();
+            CONSISTENCY.set(consistency);
+            SEARCH.set(search);
+            try {
+                return task.call();
+            } finally {
+                restore(CONSISTENCY, previousConsistency);
+                restore(SEARCH, previousSearch);
+            }
+        };
+    }
+
+    private static <V> void restore(ThreadLocal<V> local, V previous) {
+        if (previous == null) {
+            local.remove();
+        } else {
+            local.set(previous);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package ru.sergkorot.dynamic.routing;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.sergkorot.dynamic.enums.ReplicaSelection;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Sergey Korotaev
+ * Data source which gives connections of replicas to search requests and connections of primary to everything else.
+ * Replica is chosen by round-robin or by the least number of connections in use. Primary is used when
+ * <ul>
+ *     <li>connection is taken outside of search request or within writable transaction</li>
+ *     <li>caller requires {@link ru.sergkorot.dynamic.enums.ReadConsistency#READ_YOUR_WRITES}</li>
+ *     <li>all replicas lag more than {@code max-lag} or are not available</li>
+ * </ul>
+ * Lag and availability of replicas are checked by background thread each {@code check-interval}, requests only read
+ * result of the last check. Until the first check replicas are not used. Replica data sources are owned by routing
+ * data source and are closed with it, primary data source is not closed
+ * @see ReplicaRoutingContext
+ * @see ReplicaRoutingProperties
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaRoutingProperties properties;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaRoutingProperties properties) {
+        this.primary = primary;
+        this.properties = properties;
+        this.replicas = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "operation-replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toNanos();
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * @return primary data source
+     */
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @param name - name of replica
+     * @return data source of replica, null if there is no replica with the name
+     */
+    @Nullable
+    public DataSource getReplica(String name) {
+        return replicas.stream().filter(replica -> replica.name.equals(name)).findFirst().map(replica -> replica.dataSource).orElse(null);
+    }
+
+    /**
+     * @return names of replicas which are used by search requests now
+     */
+    public List<String> getAvailableReplicas() {
+        return replicas.stream().filter(replica -> replica.available).map(Replica::getName).toList();
+    }
+
+    /**
+     * Stop checks and close replica data sources, primary data source is left to its owner
+     */
+    @Override
+    public void close() throws Exception {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Check lag and availability of all replicas, is called by background thread
+     */
+    void checkReplicas() {
+        replicas.forEach(Replica::check);
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        ReplicaRoutingContext.routed(null);
+        if (!ReplicaRoutingContext.isReplicaAllowed() || isWritableTransaction()) {
+            return source.get(primary);
+        }
+        Replica replica = select();
+        if (replica == null) {
+            return source.get(primary);
+        }
+
+        Connection connection;
+        try {
+            connection = source.get(replica.dataSource);
+        } catch (SQLException e) {
+            replica.markUnavailable();
+            return source.get(primary);
+        }
+        ReplicaRoutingContext.routed(replica.name);
+        return properties.getSelection() == ReplicaSelection.LEAST_OUTSTANDING
+                ? replica.track(connection)
+                : connection;
+    }
+
+    private static boolean isWritableTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Replica select() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        Replica selected = null;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.available) {
+                continue;
+            }
+            if (properties.getSelection() == ReplicaSelection.ROUND_ROBIN) {
+                return replica;
+            }
+            if (selected == null || replica.outstanding.get() < selected.outstanding.get()) {
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean available;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        /**
+         * Replica is not used until next check
+         */
+        private void markUnavailable() {
+            available = false;
+        }
+
+        private void check() {
+            available = isInTime();
+        }
+
+        private boolean isInTime() {
+            int timeout = (int) Math.max(1, properties.getCheckInterval().toSeconds());
+            try (Connection connection = dataSource.getConnection()) {
+                if (properties.getLagQuery() == null) {
+                    return connection.isValid(timeout);
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.setQueryTimeout(timeout);
+                    try (ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+                        double lag = resultSet.next() ? resultSet.getDouble(1) : 0;
+                        return lag * 1000 <= properties.getMaxLag().toMillis();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Count connection as outstanding until it is closed
+         */
+        private Connection track(Connection connection) {
+            outstanding.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    ReplicaRoutingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            case "close" -> {
+                                if (closed.compareAndSet(false, true)) {
+                                    outstanding.decrementAndGet();
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+            );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.sergkorot.dynamic.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Wraps primary data source bean {@code dataSource} by {@link ReplicaRoutingDataSource}
+ * with replicas created from {@code operation.replica.replicas}, so entity managers of the application
+ * take connections of replicas for search requests. As primary data source is hidden from the container
+ * by the wrapper, it is closed by this post processor when the wrapper is destroyed. Post processor is ordered before
+ * other wrappers of {@code dataSource}, such as {@code ExplainCaptureDataSource}, so they see connections of replicas
+ * @see ReplicaRoutingProperties
+ */
+public class ReplicaRoutingPostProcessor implements DestructionAwareBeanPostProcessor, Ordered {
+
+    /**
+     * Order of the post processor, other wrappers of {@code dataSource} are ordered after it
+     */
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 10;
+
+    private static final String PRIMARY_BEAN_NAME = "dataSource";
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource",
+            ReplicaRoutingPostProcessor.class.getClassLoader());
+
+    private final ObjectProvider<ReplicaRoutingProperties> properties;
+
+    public ReplicaRoutingPostProcessor(ObjectProvider<ReplicaRoutingProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!PRIMARY_BEAN_NAME.equals(beanName) || !(bean instanceof DataSource primary) || bean instanceof ReplicaRoutingDataSource) {
+            return bean;
+        }
+        ReplicaRoutingProperties routingProperties = properties.getObject();
+        if (routingProperties.getReplicas().isEmpty()) {
+            return bean;
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        routingProperties.getReplicas().forEach((name, replica) -> replicas.put(name, createReplica(name, replica)));
+        return new ReplicaRoutingDataSource(primary, replicas, routingProperties);
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        ReplicaRoutingDataSource routing = routing(bean);
+        if (routing != null && routing.getPrimary() instanceof AutoCloseable primary) {
+            try {
+                primary.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(String.format("primary data source of %s can not be closed", beanName), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return routing(bean) != null;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * @param bean - bean which is destroyed
+     * @return routing data source if bean is the routing data source or its wrapper
+     */
+    private static ReplicaRoutingDataSource routing(Object bean) {
+        try {
+            return bean instanceof DataSource dataSource && dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create data source of replica, pool settings are applied to HikariCP pool
+     *
+     * @param name    - name of replica
+     * @param replica - connection settings of replica
+     * @return data source of replica
+     */
+    static DataSource createReplica(String name, ReplicaRoutingProperties.Replica replica) {
+        if (replica.getUrl() == null) {
+            throw new IllegalArgumentException(String.format("url of replica %s is not set", name));
+        }
+        DataSourceBuilder<?> builder = DataSourceBuilder.create().url(replica.getUrl());
+        if (replica.getUsername() != null) {
+            builder.username(replica.getUsername()).password(replica.getPassword());
+        }
+        if (replica.getDriverClassName() != null) {
+            builder.driverClassName(replica.getDriverClassName());
+        }
+        DataSource dataSource = builder.build();
+        if (HIKARI_PRESENT) {
+            HikariPool.configure(name, dataSource, replica.getPool());
+        }
+        return dataSource;
+    }
+
+    /**
+     * Settings of HikariCP pool, class is loaded only if HikariCP is on classpath
+     */
+    private static final class HikariPool {
+
+        private static void configure(String name, DataSource dataSource, ReplicaRoutingProperties.Pool pool) {
+            if (!(dataSource instanceof HikariDataSource hikari)) {
+                return;
+            }
+            hikari.setPoolName("replica-" + name);
+            PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+            map.from(pool::getMaximumPoolSize).to(hikari::setMaximumPoolSize);
+            map.from(pool::getMinimumIdle).to(hikari::setMinimumIdle);
+            map.from(pool::getConnectionTimeout).as(Duration::toMillis).to(hikari::setConnectionTimeout);
+            map.from(pool::getValidationTimeout).as(Duration::toMillis).to(hikari::setValidationTimeout);
+            map.from(pool::getIdleTimeout).as(Duration::toMillis).to(hikari::setIdleTimeout);
+            map.from(pool::getMaxLifetime).as(Duration::toMillis).to(hikari::setMaxLifetime);
+        }
+    }
+}
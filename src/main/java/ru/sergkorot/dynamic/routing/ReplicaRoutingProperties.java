@@ -0,0 +1,108 @@
+package ru.sergkorot.dynamic.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.sergkorot.dynamic.enums.ReplicaSelection;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of routing of search requests to replica data sources
+ * @see ReplicaRoutingDataSource
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.replica")
+public class ReplicaRoutingProperties {
+
+    /**
+     * Route search requests to replicas, primary data source bean {@code dataSource} is wrapped by routing one
+     */
+    private boolean enabled = false;
+
+    /**
+     * Choice of replica for each connection
+     */
+    private ReplicaSelection selection = ReplicaSelection.ROUND_ROBIN;
+
+    /**
+     * Replica data sources by names
+     */
+    private Map<String, Replica> replicas = new LinkedHashMap<>();
+
+    /**
+     * Query returning lag of replica in seconds, for example for PostgreSQL
+     * {@code select extract(epoch from now() - pg_last_xact_replay_timestamp())}.
+     * If not set, only availability of replica is checked
+     */
+    private String lagQuery;
+
+    /**
+     * Replicas with greater lag are not used until next check
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * Interval of checks of lag and availability of each replica, checks are made by background thread
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /**
+     * Connection settings of replica
+     */
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        /**
+         * Pool settings of replica, are applied when replica pool is HikariCP
+         */
+        private Pool pool = new Pool();
+    }
+
+    /**
+     * Pool settings of replica, not set values are defaults of HikariCP
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * Maximum number of connections of replica
+         */
+        private Integer maximumPoolSize;
+
+        /**
+         * Minimum number of idle connections of replica
+         */
+        private Integer minimumIdle;
+
+        /**
+         * Maximum time of waiting for connection from the pool, search request falls back to primary after it
+         */
+        private Duration connectionTimeout;
+
+        /**
+         * Maximum time of validation of connection
+         */
+        private Duration validationTimeout;
+
+        /**
+         * Maximum time of idle connection in the pool
+         */
+        private Duration idleTimeout;
+
+        /**
+         * Maximum lifetime of connection in the pool
+         */
+        private Duration maxLifetime;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.lang.Nullable;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Statement executed by sampled search request with its parameters, parameters are bound to other
+ * statement by the same setters
+ *
+ * @param sql      - sql of the statement
+ * @param bindings - calls of parameter setters in order of parameters
+ * @param replica  - name of replica which executed the statement, null if it was executed by primary
+ */
+record CapturedStatement(String sql, List<Binding> bindings, @Nullable String replica) {
+
+    /**
+     * @return false if some parameter is a stream and can not be bound again
+     */
+    boolean isReplayable() {
+        for (Binding binding : bindings) {
+            for (Object arg : binding.args()) {
+                if (arg instanceof InputStream || arg instanceof Reader) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    void bind(PreparedStatement statement) throws SQLException {
+        for (Binding binding : bindings) {
+            try {
+                binding.method().invoke(statement, binding.args());
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            } catch (InvocationTargetException e) {
+                throw e.getCause() instanceof SQLException cause ? cause : new SQLException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Call of parameter setter
+     *
+     * @param method - setter of {@link PreparedStatement}
+     * @param args   - index of parameter and value
+     */
+    record Binding(Method method, Object[] args) {
+    }
+}
@@ -0,0 +1,104 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Sergey Korotaev
+ * Data source which captures sql and parameters of prepared statements executed by sampled search requests.
+ * Connections taken outside of sampled requests are returned as is. Statements are captured only if connection
+ * is taken within sampled request, so requests within transaction which already holds connection are not captured.
+ * If target is {@link ru.sergkorot.dynamic.routing.ReplicaRoutingDataSource}, statements remember the replica
+ * which gave the connection. As wrapper hides target from the container, target is closed with the wrapper
+ * @see SlowSearchRecorder
+ */
+public class ExplainCaptureDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public ExplainCaptureDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return capturing(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return capturing(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    private static Connection capturing(Connection connection) {
+        if (StatementCapture.current() == null) {
+            return connection;
+        }
+        String replica = ReplicaRoutingContext.routedReplica();
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(proxy, connection, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return capturing(statement, (String) args[0], replica);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement capturing(PreparedStatement statement, String sql, String replica) {
+        Map<Integer, CapturedStatement.Binding> bindings = new TreeMap<>();
+        return proxy(PreparedStatement.class, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bindings.put(index, new CapturedStatement.Binding(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if ((name.equals("executeQuery") || name.equals("execute")) && (args == null || args.length == 0)) {
+                StatementCapture capture = StatementCapture.current();
+                if (capture != null) {
+                    capture.add(new CapturedStatement(sql, List.copyOf(bindings.values()), replica));
+                }
+            }
+            return invoke(proxy, statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            default -> {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> P proxy(Class<P> type, P target, InvocationHandler handler) {
+        return (P) Proxy.newProxyInstance(ExplainCaptureDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * @author Sergey Korotaev
+ * Wraps primary data source bean {@code dataSource} by {@link ExplainCaptureDataSource},
+ * so statements of sampled search requests can be explained. Post processor is ordered after
+ * {@link ReplicaRoutingPostProcessor}, so the capture wraps routing data source and sees connections of replicas
+ */
+public class ExplainCapturePostProcessor implements BeanPostProcessor, Ordered {
+
+    private static final String PRIMARY_BEAN_NAME = "dataSource";
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!PRIMARY_BEAN_NAME.equals(beanName) || !(bean instanceof DataSource dataSource) || bean instanceof ExplainCaptureDataSource) {
+            return bean;
+        }
+        return new ExplainCaptureDataSource(dataSource);
+    }
+
+    @Override
+    public int getOrder() {
+        return ReplicaRoutingPostProcessor.ORDER + 1;
+    }
+}
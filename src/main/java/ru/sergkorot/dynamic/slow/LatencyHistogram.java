@@ -0,0 +1,70 @@
+package ru.sergkorot.dynamic.slow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Sergey Korotaev
+ * Lock-free histogram of latencies with fixed buckets in milliseconds, memory does not depend on number of executions.
+ * Percentiles are upper bounds of buckets, so they are estimated with precision of bucket
+ */
+class LatencyHistogram {
+
+    private static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000, 60_000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    double meanMillis() {
+        long executions = count.sum();
+        return executions == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / executions;
+    }
+
+    double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @param quantile - from 0 to 1
+     * @return upper bound of bucket with the quantile, not greater than maximum latency
+     */
+    double percentileMillis(double quantile) {
+        long executions = 0;
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            executions += counts[i];
+        }
+        if (executions == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * executions);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MILLIS.length ? Math.min(BOUNDS_MILLIS[i], maxMillis()) : maxMillis();
+            }
+        }
+        return maxMillis();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.ConstantNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.stream.Collectors;
+
+/**
+ * @author Sergey Korotaev
+ * Stable identifier of shape of search request: search operation, entity, field names, operations, nesting, glue and sorting
+ * without values. Order of conditions in group does not change the fingerprint
+ *
+ * @param id    - short hash of the shape
+ * @param shape - readable shape, for example {@code findPage Person and(age:gt,or(name:eq,name:like)) sort id:ASC}
+ */
+public record SearchFingerprint(String id, String shape) {
+
+    /**
+     * @param operation   - name of search operation
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed and simplified request
+     * @param sort        - sorting of request
+     * @return fingerprint of the request
+     */
+    public static SearchFingerprint of(String operation, Class<?> entityClass, GroupNode tree, Sort sort) {
+        StringBuilder shape = new StringBuilder(operation)
+                .append(' ').append(entityClass.getSimpleName())
+                .append(' ').append(render(tree));
+        if (sort.isSorted()) {
+            shape.append(" sort ").append(sort.stream()
+                    .map(order -> order.getProperty() + ':' + order.getDirection())
+                    .collect(Collectors.joining(",")));
+        }
+        return new SearchFingerprint(hash(shape.toString()), shape.toString());
+    }
+
+    private static String render(SearchNode node) {
+        if (node instanceof GroupNode group) {
+            return group.glue().name().toLowerCase() + group.children()
+                    .stream()
+                    .map(SearchFingerprint::render)
+                    .sorted()
+                    .collect(Collectors.joining(",", "(", ")"));
+        }
+        if (node instanceof NestedNode nested) {
+            return nested.field() + ':' + nested.operation().getOperationName() + render(nested.group());
+        }
+        if (node instanceof ConstantNode constant) {
+            return String.valueOf(constant.value());
+        }
+        ConditionNode condition = (ConditionNode) node;
+        return condition.field() + ':' + condition.operation();
+    }
+
+    private static String hash(String shape) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(shape.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
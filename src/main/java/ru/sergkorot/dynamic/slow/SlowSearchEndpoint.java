@@ -0,0 +1,43 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Actuator endpoint {@code slowsearches} with the slowest shapes of search requests:
+ * {@code GET /actuator/slowsearches?limit=10}, {@code GET /actuator/slowsearches/{fingerprint}}
+ * and {@code DELETE /actuator/slowsearches} for reset
+ * @see SlowSearchRecorder
+ */
+@Endpoint(id = "slowsearches")
+public class SlowSearchEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final SlowSearchRecorder recorder;
+
+    public SlowSearchEndpoint(SlowSearchRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<SlowSearchReport> top(@Nullable Integer limit) {
+        return recorder.top(limit == null ? DEFAULT_LIMIT : limit);
+    }
+
+    @ReadOperation
+    public SlowSearchReport fingerprint(@Selector String fingerprint) {
+        return recorder.report(fingerprint).orElse(null);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.sergkorot.dynamic.slow;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of latency recording of search requests by shape and capture of plans of slow ones
+ * @see SlowSearchRecorder
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.slow-search")
+public class SlowSearchProperties {
+
+    /**
+     * Record latency of search requests by fingerprint of their shape
+     */
+    private boolean enabled = false;
+
+    /**
+     * Requests executed longer are slow
+     */
+    private Duration threshold = Duration.ofMillis(500);
+
+    /**
+     * Maximum number of recorded fingerprints, least recently executed are evicted
+     */
+    private int maxFingerprints = 1000;
+
+    /**
+     * Capture plans of sampled slow requests, primary {@code dataSource} bean is wrapped
+     * to capture statements of sampled requests
+     */
+    private boolean explain = false;
+
+    /**
+     * Fraction of requests whose statements are captured for explain, from 0 to 1
+     */
+    private double explainSampleRate = 0.1;
+
+    /**
+     * Prefix of captured statement for getting its plan, default is for PostgreSQL.
+     * With {@code ANALYZE} statement is executed again, it is executed in read-only transaction which is rolled back
+     */
+    private String explainPrefix = "EXPLAIN (ANALYZE, BUFFERS) ";
+
+    /**
+     * Minimum interval between plan captures of the same fingerprint
+     */
+    private Duration explainInterval = Duration.ofMinutes(1);
+
+    /**
+     * Maximum number of waiting plan captures, others are dropped
+     */
+    private int explainQueueCapacity = 16;
+}
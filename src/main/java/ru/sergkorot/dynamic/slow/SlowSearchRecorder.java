@@ -0,0 +1,288 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @author Sergey Korotaev
+ * Recorder of latency of search requests by fingerprint of their shape. Latencies are kept in fixed histograms
+ * for bounded number of fingerprints. Fingerprints are kept in concurrent map, when the map outgrows
+ * {@code max-fingerprints} one of recording threads sweeps least recently executed fingerprints out of it,
+ * other threads do not wait for the sweep.
+ * With explain enabled statements of sampled requests are captured by {@link ExplainCaptureDataSource} and,
+ * if request is slow, their plans are captured by one background thread not more often than {@code explain-interval}
+ * per fingerprint. Statements are explained by the same database which executed them: statements executed
+ * by replica of {@link ReplicaRoutingDataSource} are explained by this replica
+ * @see SlowSearchProperties
+ * @see SearchFingerprint
+ */
+public class SlowSearchRecorder implements AutoCloseable {
+
+    private final SlowSearchProperties properties;
+    private final Supplier<DataSource> dataSource;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final ThreadPoolExecutor explainExecutor;
+
+    /**
+     * @param properties - settings of recording
+     * @param dataSource - data source for explain of captured statements, null if plans are not captured
+     */
+    public SlowSearchRecorder(SlowSearchProperties properties, @Nullable Supplier<DataSource> dataSource) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        if (properties.isExplain() && dataSource != null) {
+            this.explainExecutor = new ThreadPoolExecutor(
+                    1, 1,
+                    1, TimeUnit.MINUTES,
+                    new ArrayBlockingQueue<>(Math.max(1, properties.getExplainQueueCapacity())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "operation-explain");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.DiscardPolicy()
+            );
+            this.explainExecutor.allowCoreThreadTimeOut(true);
+        } else {
+            this.explainExecutor = null;
+        }
+    }
+
+    /**
+     * Execute search request and record its latency
+     *
+     * @param operation   - name of search operation, it is part of the shape
+     * @param entityClass - the entity for which the request is being built
+     * @param tree        - parsed and simplified request
+     * @param sort        - sorting of request
+     * @param search      - execution of request
+     * @param <R>         - type of result
+     * @return result of search
+     */
+    public <R> R record(String operation, Class<?> entityClass, GroupNode tree, Sort sort, Supplier<R> search) {
+        Entry entry = entry(SearchFingerprint.of(operation, entityClass, tree, sort));
+        StatementCapture capture = isSampled(entry) ? StatementCapture.start() : null;
+        long start = System.nanoTime();
+        try {
+            return search.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (capture != null) {
+                capture.stop();
+            }
+            boolean slow = elapsed >= properties.getThreshold().toNanos();
+            entry.record(elapsed, slow);
+            if (capture != null && slow && !capture.statements().isEmpty()) {
+                explain(entry, capture.statements(), elapsed);
+            }
+        }
+    }
+
+    /**
+     * @param limit - maximum number of fingerprints
+     * @return fingerprints with the greatest 95th percentile of latency
+     */
+    public List<SlowSearchReport> top(int limit) {
+        return snapshot().stream()
+                .map(Entry::report)
+                .sorted(Comparator.comparingDouble(SlowSearchReport::p95Millis)
+                        .thenComparingDouble(SlowSearchReport::maxMillis)
+                        .reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @param fingerprint - identifier of the shape
+     * @return report of the fingerprint if it is recorded
+     */
+    public Optional<SlowSearchReport> report(String fingerprint) {
+        return Optional.ofNullable(entries.get(fingerprint)).map(Entry::report);
+    }
+
+    /**
+     * Remove all recorded fingerprints
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        if (explainExecutor != null) {
+            explainExecutor.shutdownNow();
+        }
+    }
+
+    private Entry entry(SearchFingerprint fingerprint) {
+        Entry entry = entries.get(fingerprint.id());
+        if (entry == null) {
+            entry = entries.computeIfAbsent(fingerprint.id(), id -> new Entry(fingerprint));
+            sweep();
+        }
+        entry.touch();
+        return entry;
+    }
+
+    /**
+     * Remove least recently executed fingerprints above {@code max-fingerprints}. Only one thread sweeps
+     * at a time, others do not wait for it; the sweeping thread checks the size again after the sweep,
+     * so fingerprints added during the sweep are not left above the bound
+     */
+    private void sweep() {
+        while (entries.size() > properties.getMaxFingerprints() && sweeping.compareAndSet(false, true)) {
+            try {
+                int excess = entries.size() - properties.getMaxFingerprints();
+                // times of use are copied, as they change while entries are sorted
+                snapshot().stream()
+                        .map(entry -> Map.entry(entry, entry.lastUsed))
+                        .sorted(Map.Entry.comparingByValue())
+                        .limit(Math.max(excess, 0))
+                        .forEach(used -> entries.remove(used.getKey().fingerprint.id(), used.getKey()));
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private List<Entry> snapshot() {
+        return new ArrayList<>(entries.values());
+    }
+
+    private boolean isSampled(Entry entry) {
+        return explainExecutor != null
+                && System.nanoTime() - entry.explainedAt.get() >= properties.getExplainInterval().toNanos()
+                && ThreadLocalRandom.current().nextDouble() < properties.getExplainSampleRate();
+    }
+
+    private void explain(Entry entry, List<CapturedStatement> statements, long elapsed) {
+        long explainedAt = entry.explainedAt.get();
+        long now = System.nanoTime();
+        if (now - explainedAt < properties.getExplainInterval().toNanos() || !entry.explainedAt.compareAndSet(explainedAt, now)) {
+            return;
+        }
+        Instant capturedAt = Instant.now();
+        explainExecutor.execute(() -> {
+            List<SlowSearchReport.StatementPlan> plans = statements.stream()
+                    .map(statement -> new SlowSearchReport.StatementPlan(statement.sql(), explain(statement)))
+                    .toList();
+            entry.plan(plans, capturedAt, elapsed / 1_000_000.0);
+        });
+    }
+
+    private String explain(CapturedStatement statement) {
+        if (!statement.isReplayable()) {
+            return "not explained: statement has stream parameters";
+        }
+        try (Connection connection = connection(statement)) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement explain = connection.prepareStatement(properties.getExplainPrefix() + statement.sql())) {
+                statement.bind(explain);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException | RuntimeException e) {
+            return "not explained: " + e.getMessage();
+        }
+    }
+
+    /**
+     * @param statement - captured statement
+     * @return connection of the database which executed the statement
+     */
+    private Connection connection(CapturedStatement statement) throws SQLException {
+        DataSource source = dataSource.get();
+        if (statement.replica() == null) {
+            return source.getConnection();
+        }
+        DataSource replica = source.isWrapperFor(ReplicaRoutingDataSource.class)
+                ? source.unwrap(ReplicaRoutingDataSource.class).getReplica(statement.replica())
+                : null;
+        if (replica == null) {
+            throw new SQLException(String.format("replica %s which executed statement is not found", statement.replica()));
+        }
+        return replica.getConnection();
+    }
+
+    private final class Entry {
+
+        private final SearchFingerprint fingerprint;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder slowCount = new LongAdder();
+        private final AtomicLong explainedAt = new AtomicLong(System.nanoTime() - properties.getExplainInterval().toNanos());
+        private volatile Plan plan;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(SearchFingerprint fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private void touch() {
+            lastUsed = System.nanoTime();
+        }
+
+        private void record(long nanos, boolean slow) {
+            histogram.record(nanos);
+            if (slow) {
+                slowCount.increment();
+            }
+        }
+
+        private void plan(List<SlowSearchReport.StatementPlan> statements, Instant capturedAt, double durationMillis) {
+            plan = new Plan(statements, capturedAt, durationMillis);
+        }
+
+        private SlowSearchReport report() {
+            Plan current = plan;
+            return new SlowSearchReport(
+                    fingerprint.id(),
+                    fingerprint.shape(),
+                    histogram.count(),
+                    slowCount.sum(),
+                    histogram.meanMillis(),
+                    histogram.percentileMillis(0.5),
+                    histogram.percentileMillis(0.95),
+                    histogram.percentileMillis(0.99),
+                    histogram.maxMillis(),
+                    current == null ? List.of() : current.statements(),
+                    current == null ? null : current.capturedAt(),
+                    current == null ? null : current.durationMillis()
+            );
+        }
+    }
+
+    private record Plan(List<SlowSearchReport.StatementPlan> statements, Instant capturedAt, double durationMillis) {
+    }
+}
@@ -0,0 +1,46 @@
+package ru.sergkorot.dynamic.slow;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Latency of search requests of one shape and the last captured plan of slow request
+ *
+ * @param fingerprint        - identifier of the shape
+ * @param shape              - readable shape of requests
+ * @param count              - number of executions
+ * @param slowCount          - number of executions longer than threshold
+ * @param meanMillis         - mean latency
+ * @param p50Millis          - median latency, upper bound of histogram bucket
+ * @param p95Millis          - 95th percentile of latency, upper bound of histogram bucket
+ * @param p99Millis          - 99th percentile of latency, upper bound of histogram bucket
+ * @param maxMillis          - maximum latency
+ * @param plans              - plans of statements of the last explained slow request, empty if none was explained
+ * @param planCapturedAt     - time of the last explained slow request
+ * @param planDurationMillis - latency of the last explained slow request
+ */
+public record SlowSearchReport(String fingerprint,
+                               String shape,
+                               long count,
+                               long slowCount,
+                               double meanMillis,
+                               double p50Millis,
+                               double p95Millis,
+                               double p99Millis,
+                               double maxMillis,
+                               List<StatementPlan> plans,
+                               @Nullable Instant planCapturedAt,
+                               @Nullable Double planDurationMillis) {
+
+    /**
+     * Plan of statement of search request
+     *
+     * @param sql  - sql of statement
+     * @param plan - output of explain or reason why plan was not captured
+     */
+    public record StatementPlan(String sql, String plan) {
+    }
+}
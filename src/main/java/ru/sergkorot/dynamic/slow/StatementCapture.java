@@ -0,0 +1,50 @@
+package ru.sergkorot.dynamic.slow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Sergey Korotaev
+ * Statements executed by sampled search request in current thread
+ * @see ExplainCaptureDataSource
+ */
+final class StatementCapture {
+
+    private static final int MAX_STATEMENTS = 4;
+    private static final ThreadLocal<StatementCapture> CURRENT = new ThreadLocal<>();
+
+    private final StatementCapture previous;
+    private final List<CapturedStatement> statements = new ArrayList<>(MAX_STATEMENTS);
+
+    private StatementCapture(StatementCapture previous) {
+        this.previous = previous;
+    }
+
+    static StatementCapture start() {
+        StatementCapture capture = new StatementCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    static StatementCapture current() {
+        return CURRENT.get();
+    }
+
+    void stop() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void add(CapturedStatement statement) {
+        if (statements.size() < MAX_STATEMENTS) {
+            statements.add(statement);
+        }
+    }
+
+    List<CapturedStatement> statements() {
+        return statements;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.sergkorot.dynamic.stream;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of streaming of search results
+ * @see StreamQueryExecutor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.stream")
+public class StreamProperties {
+
+    /**
+     * Number of rows fetched from the database by one round trip
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Entities loaded by the stream are detached after each number of consumed rows, entities managed before streaming
+     * are not detached. Streaming fails if persistence context has changes which are not flushed.
+     * Non-positive value disables detaching
+     */
+    private int clearInterval = 1000;
+
+    /**
+     * Rows are read by stateless session without persistence context instead of entity manager of the caller
+     */
+    private boolean stateless = false;
+}
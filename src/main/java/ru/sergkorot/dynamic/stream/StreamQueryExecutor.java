@@ -0,0 +1,145 @@
+package ru.sergkorot.dynamic.stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author Sergey Korotaev
+ * Execution of search requests as forward-only stream of rows. Rows are fetched by {@code fetch-size}
+ * and entities loaded by the stream are detached while it is consumed, so memory does not depend on size of result.
+ * Entities which were managed by persistence context of the caller before streaming stay managed.
+ * Stream holds database cursor and must be closed
+ * @see StreamProperties
+ */
+public class StreamQueryExecutor {
+
+    private final StreamProperties properties;
+
+    public StreamQueryExecutor(StreamProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Stream rows of the query
+     *
+     * @param entityManager - entity manager, for PostgreSQL it must be in transaction, otherwise driver fetches all rows
+     * @param criteriaQuery - query for streaming
+     * @param <T>           - type of rows
+     * @return stream of rows which must be closed
+     * @throws IllegalStateException if persistence context has changes which are not flushed and loaded entities are detached
+     */
+    public <T> Stream<T> stream(EntityManager entityManager, CriteriaQuery<T> criteriaQuery) {
+        if (properties.isStateless()) {
+            return statelessStream(entityManager, criteriaQuery);
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        if (properties.getClearInterval() > 0 && session.isDirty()) {
+            throw new IllegalStateException("persistence context has changes which are not flushed, flush them before streaming");
+        }
+        Stream<T> rows = entityManager.createQuery(criteriaQuery)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, properties.getFetchSize())
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        if (properties.getClearInterval() <= 0) {
+            return rows;
+        }
+        return StreamSupport.stream(new DetachingSpliterator<>(rows.spliterator(), session, properties.getClearInterval()), false)
+                .onClose(rows::close);
+    }
+
+    private <T> Stream<T> statelessStream(EntityManager entityManager, CriteriaQuery<T> criteriaQuery) {
+        StatelessSession session = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .openStatelessSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            return session.createQuery(criteriaQuery)
+                    .setFetchSize(properties.getFetchSize())
+                    .getResultStream()
+                    .onClose(() -> {
+                        try {
+                            transaction.rollback();
+                        } finally {
+                            session.close();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Detaches entities loaded by the stream after each {@code interval} rows are consumed by downstream of the stream,
+     * so consumed entities can be collected. Entities which were managed before the stream was opened are not detached
+     */
+    private static final class DetachingSpliterator<T> implements Spliterator<T> {
+
+        private final Spliterator<T> delegate;
+        private final SessionImplementor session;
+        private final int interval;
+        private final Set<EntityKey> managedBefore;
+        private long consumed;
+
+        private DetachingSpliterator(Spliterator<T> delegate, SessionImplementor session, int interval) {
+            this.delegate = delegate;
+            this.session = session;
+            this.interval = interval;
+            this.managedBefore = new HashSet<>(session.getPersistenceContextInternal().getEntitiesByKey().keySet());
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            boolean advanced = delegate.tryAdvance(action);
+            if (advanced && ++consumed % interval == 0) {
+                detachLoaded();
+            }
+            return advanced;
+        }
+
+        private void detachLoaded() {
+            List<Object> loaded = new ArrayList<>();
+            session.getPersistenceContextInternal().getEntitiesByKey().forEach((key, entity) -> {
+                if (!managedBefore.contains(key)) {
+                    loaded.add(entity);
+                }
+            });
+            for (Object entity : loaded) {
+                if (session.contains(entity)) {
+                    session.evict(entity);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return delegate.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return delegate.characteristics() & ~(SIZED | SUBSIZED);
+        }
+    }
+}
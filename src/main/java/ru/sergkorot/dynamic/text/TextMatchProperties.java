@@ -0,0 +1,44 @@
+package ru.sergkorot.dynamic.text;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of like and contains operations rendering
+ * @see TextMatchStrategy
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.text-match")
+public class TextMatchProperties {
+
+    /**
+     * Mode of like operation for fields which are absent in {@link #likeFields}
+     */
+    private TextMatchMode defaultLike = TextMatchMode.SUBSTRING;
+
+    /**
+     * Mode of contains operation for fields which are absent in {@link #containsFields}
+     */
+    private TextMatchMode defaultContains = TextMatchMode.SUBSTRING;
+
+    /**
+     * Mode of like operation by field name
+     */
+    private Map<String, TextMatchMode> likeFields = new HashMap<>();
+
+    /**
+     * Mode of contains operation by field name
+     */
+    private Map<String, TextMatchMode> containsFields = new HashMap<>();
+
+    /**
+     * Text search configuration of PostgreSQL for full text mode, is rendered inline and may contain
+     * only lowercase letters and underscores
+     */
+    private String textSearchConfig = "simple";
+}
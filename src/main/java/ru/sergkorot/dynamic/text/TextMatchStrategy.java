@@ -0,0 +1,109 @@
+package ru.sergkorot.dynamic.text;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.NonNull;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+import ru.sergkorot.dynamic.function.OperationFunctionContributor;
+import ru.sergkorot.dynamic.util.SpecificationUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * @author Sergey Korotaev
+ * Chooses how like and contains operations are rendered by field name
+ * @see TextMatchMode
+ * @see TextMatchProperties
+ */
+public class TextMatchStrategy {
+
+    private final TextMatchProperties properties;
+
+    public TextMatchStrategy(TextMatchProperties properties) {
+        if (!OperationFunctionContributor.TEXT_SEARCH_CONFIG.matcher(properties.getTextSearchConfig()).matches()) {
+            throw new IllegalArgumentException(String.format(
+                    "text search configuration %s does not match %s",
+                    properties.getTextSearchConfig(), OperationFunctionContributor.TEXT_SEARCH_CONFIG.pattern()));
+        }
+        this.properties = properties;
+    }
+
+    /**
+     * Get mode of like operation for field
+     *
+     * @param columnName - name of column into the database
+     * @return TextMatchMode
+     */
+    public TextMatchMode likeModeFor(String columnName) {
+        return properties.getLikeFields().getOrDefault(columnName, properties.getDefaultLike());
+    }
+
+    /**
+     * Get mode of contains operation for field
+     *
+     * @param columnName - name of column into the database
+     * @return TextMatchMode
+     */
+    public TextMatchMode containsModeFor(String columnName) {
+        return properties.getContainsFields().getOrDefault(columnName, properties.getDefaultContains());
+    }
+
+    /**
+     * Find column like specified value
+     *
+     * @param value      - the value to which the entry in the database should be similar
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public <T> Specification<T> like(@NonNull String value, @NonNull String columnName) {
+        TextMatchMode mode = likeModeFor(columnName);
+        if (mode == TextMatchMode.SUBSTRING) {
+            return SpecificationUtils.findByColumnsLike(value, Collections.singleton(columnName));
+        }
+        return match(mode, value, columnName, Function.identity());
+    }
+
+    /**
+     * Find entry which value contains all specified elements
+     *
+     * @param value            - single or list elements with comma separator
+     * @param columnName       - name of column into the database
+     * @param elementConverter - conversion of element to type of array elements
+     * @param <T>              - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public <T> Specification<T> contains(@NonNull Object value,
+                                         @NonNull String columnName,
+                                         @NonNull Function<String, ?> elementConverter) {
+        TextMatchMode mode = containsModeFor(columnName);
+        if (mode == TextMatchMode.SUBSTRING) {
+            return SpecificationUtils.contains(value, columnName);
+        }
+        return Specification.allOf(Arrays.stream(value.toString().split(","))
+                .map(String::trim)
+                .map(element -> this.<T>match(mode, element, columnName, elementConverter))
+                .toList());
+    }
+
+    private <T> Specification<T> match(TextMatchMode mode,
+                                       String value,
+                                       String columnName,
+                                       Function<String, ?> elementConverter) {
+        return switch (mode) {
+            case SUBSTRING -> SpecificationUtils.findByColumnsLike(value, Collections.singleton(columnName));
+            case PREFIX -> SpecificationUtils.findByColumnStartsWith(value, columnName);
+            case ILIKE -> SpecificationUtils.findByColumnILike(value, columnName);
+            case FULL_TEXT -> SpecificationUtils.findByFullText(value, properties.getTextSearchConfig(), columnName);
+            case ARRAY -> SpecificationUtils.findByArrayHas(elementConverter.apply(value), columnName);
+            case JSONB -> SpecificationUtils.findByJsonbHas(
+                    "[\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"]",
+                    columnName
+            );
+        };
+    }
+}
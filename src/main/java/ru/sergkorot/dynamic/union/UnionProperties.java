@@ -0,0 +1,41 @@
+package ru.sergkorot.dynamic.union;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @author Sergey Korotaev
+ * Settings of execution of or branches as separate queries
+ * @see UnionQueryExecutor
+ */
+@Data
+@ConfigurationProperties(prefix = "operation.union")
+public class UnionProperties {
+
+    /**
+     * Execute selective or branches of {@code findPage} as separate queries
+     */
+    private boolean enabled = false;
+
+    /**
+     * Minimum number of or branches for separate execution
+     */
+    private int minBranches = 2;
+
+    /**
+     * Maximum number of or branches for separate execution
+     */
+    private int maxBranches = 8;
+
+    /**
+     * Maximum offset plus page size, each branch reads so many rows
+     */
+    private int maxRows = 1000;
+
+    /**
+     * Maximum time of execution of all branches of one request, rest of it is set as query timeout of each branch
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+}
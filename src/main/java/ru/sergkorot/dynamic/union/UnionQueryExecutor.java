@@ -0,0 +1,235 @@
+package ru.sergkorot.dynamic.union;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.QueryTimeoutException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.JpaOrder;
+import org.hibernate.query.sqm.NullPrecedence;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.ClassUtils;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.batch.QueryDeadline;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.SearchNode;
+import ru.sergkorot.dynamic.memory.PropertyPath;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * @author Sergey Korotaev
+ * Execution of request with or glue as separate query per branch instead of one query with or,
+ * so the database can use index of each branch. Branches are executed one by one by entity manager of the caller,
+ * so they take part in its transaction. Each of them reads identifiers and sort keys of first {@code offset + size}
+ * rows in page order, rows are merged by k-way merge, deduplicated by identifier and entities of the page
+ * are loaded by identifiers into the same entity manager.
+ * Request is executed so only if each branch has condition on indexed field and rows are ordered
+ * by numeric or temporal fields, which are ordered by the database the same way as by java
+ * @see UnionProperties
+ */
+public class UnionQueryExecutor {
+
+    private static final Set<String> SELECTIVE_OPERATIONS = Set.of("eq", "in", "lt", "gt", "le", "ge");
+
+    private final UnionProperties properties;
+    private final EntityIndexes entityIndexes;
+
+    public UnionQueryExecutor(UnionProperties properties, EntityIndexes entityIndexes) {
+        this.properties = properties;
+        this.entityIndexes = entityIndexes;
+    }
+
+    /**
+     * Check if request can be executed by branches
+     *
+     * @param entityManagerFactory - factory of the entity
+     * @param entityClass          - the entity for which the request is being built
+     * @param tree                 - parsed and simplified request
+     * @param pageable             - paging and sorting settings
+     * @return true if request has enough selective or branches and page can be merged from them
+     */
+    public boolean isApplicable(EntityManagerFactory entityManagerFactory, Class<?> entityClass, GroupNode tree, Pageable pageable) {
+        if (!properties.isEnabled()
+                || tree.glue() != GlueOperation.OR
+                || tree.children().size() < properties.getMinBranches()
+                || tree.children().size() > properties.getMaxBranches()
+                || pageable.isUnpaged()
+                || pageable.getOffset() + pageable.getPageSize() > properties.getMaxRows()
+                || !entityIndexes.isEntity(entityClass)) {
+            return false;
+        }
+
+        EntityType<?> entityType = entityManagerFactory.getMetamodel().entity(entityClass);
+        if (!entityType.hasSingleIdAttribute() || !isOrderedAlike(entityType.getIdType().getJavaType())) {
+            return false;
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (order.getProperty().indexOf('.') >= 0 || !isOrderedAlike(PropertyPath.of(entityClass, order.getProperty()).getType())) {
+                return false;
+            }
+        }
+        return tree.children().stream().allMatch(branch -> isSelective(entityClass, branch));
+    }
+
+    /**
+     * Find rows of the page by branches of or
+     *
+     * @param entityManager - entity manager of the caller
+     * @param entityClass   - the entity for which the request is being built
+     * @param branches      - specifications of or branches
+     * @param pageable      - paging and sorting settings
+     * @param <T>           - the entity for which the request is being built
+     * @return rows of the page managed by entity manager
+     * @throws QueryTimeoutException if branches are not executed in time
+     */
+    public <T> List<T> findContent(EntityManager entityManager,
+                                   Class<T> entityClass,
+                                   List<Specification<T>> branches,
+                                   Pageable pageable) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        Sort sort = pageable.getSort().getOrderFor(idName) == null
+                ? pageable.getSort().and(Sort.by(idName))
+                : pageable.getSort();
+        int rows = (int) pageable.getOffset() + pageable.getPageSize();
+
+        long deadline = QueryDeadline.earliest(System.nanoTime() + properties.getTimeout().toNanos());
+        List<List<Object[]>> results = new ArrayList<>(branches.size());
+        for (Specification<T> branch : branches) {
+            results.add(findBranch(entityManager, entityClass, idName, branch, sort, rows, deadline));
+        }
+
+        List<Object> ids = merge(results, comparator(sort), pageable);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(entityClass)
+                .enableSessionCheck(true)
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private boolean isSelective(Class<?> entityClass, SearchNode node) {
+        if (node instanceof ConditionNode condition) {
+            return !condition.manual()
+                    && condition.value() != null
+                    && SELECTIVE_OPERATIONS.contains(condition.operation())
+                    && entityIndexes.isIndexed(entityClass, condition.field());
+        }
+        if (node instanceof GroupNode group) {
+            return group.glue() == GlueOperation.OR
+                    ? !group.children().isEmpty() && group.children().stream().allMatch(child -> isSelective(entityClass, child))
+                    : group.children().stream().anyMatch(child -> isSelective(entityClass, child));
+        }
+        return false;
+    }
+
+    private static boolean isOrderedAlike(Class<?> type) {
+        Class<?> resolved = ClassUtils.resolvePrimitiveIfNecessary(type);
+        return Comparable.class.isAssignableFrom(resolved)
+                && (Number.class.isAssignableFrom(resolved) || Temporal.class.isAssignableFrom(resolved) || Date.class.isAssignableFrom(resolved));
+    }
+
+    /**
+     * @return rows of identifier followed by values of sort orders
+     */
+    private <T> List<Object[]> findBranch(EntityManager entityManager,
+                                          Class<T> entityClass,
+                                          String idName,
+                                          Specification<T> branch,
+                                          Sort sort,
+                                          int rows,
+                                          long deadline) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> criteriaQuery = criteriaBuilder.createQuery(Object[].class);
+        Root<T> root = criteriaQuery.from(entityClass);
+
+        Predicate predicate = branch.toPredicate(root, criteriaQuery, criteriaBuilder);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(idName));
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            selections.add(root.get(order.getProperty()));
+            Order criteriaOrder = order.isAscending()
+                    ? criteriaBuilder.asc(root.get(order.getProperty()))
+                    : criteriaBuilder.desc(root.get(order.getProperty()));
+            orders.add(criteriaOrder instanceof JpaOrder jpaOrder ? jpaOrder.nullPrecedence(NullPrecedence.LAST) : criteriaOrder);
+        }
+        criteriaQuery.multiselect(selections).orderBy(orders);
+
+        return QueryDeadline.apply(entityManager.createQuery(criteriaQuery), deadline)
+                .setMaxResults(rows)
+                .getResultList();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Object[]> comparator(Sort sort) {
+        Comparator<Object[]> comparator = null;
+        int column = 1;
+        for (Sort.Order order : sort) {
+            int index = column++;
+            Comparator<Comparable> values = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            Comparator<Object[]> byOrder = Comparator.comparing(row -> (Comparable) row[index], Comparator.nullsLast(values));
+            comparator = comparator == null ? byOrder : comparator.thenComparing(byOrder);
+        }
+        return comparator;
+    }
+
+    private static List<Object> merge(List<List<Object[]>> results, Comparator<Object[]> comparator, Pageable pageable) {
+        PriorityQueue<Branch> heads = new PriorityQueue<>(results.size(), (left, right) -> comparator.compare(left.head, right.head));
+        for (List<Object[]> result : results) {
+            Iterator<Object[]> rows = result.iterator();
+            if (rows.hasNext()) {
+                heads.add(new Branch(rows.next(), rows));
+            }
+        }
+
+        Set<Object> ids = new HashSet<>();
+        List<Object> content = new ArrayList<>(pageable.getPageSize());
+        long skip = pageable.getOffset();
+        while (!heads.isEmpty() && content.size() < pageable.getPageSize()) {
+            Branch branch = heads.poll();
+            Object id = branch.head[0];
+            if (ids.add(id)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(id);
+                }
+            }
+            if (branch.rows.hasNext()) {
+                heads.add(new Branch(branch.rows.next(), branch.rows));
+            }
+        }
+        return content;
+    }
+
+    private record Branch(Object[] head, Iterator<Object[]> rows) {
+    }
+}
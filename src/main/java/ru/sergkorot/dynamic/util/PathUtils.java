@@ -0,0 +1,100 @@
+package ru.sergkorot.dynamic.util;
+
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * @author Sergey Korotaev
+ * Util is used for resolving field names and dotted paths ({@code customer.region.code}) from the root of the request.
+ * Associations on the path are joined with left join once per query: existing join or fetch of the same attribute
+ * is reused, so all predicates of the request share the same joins
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PathUtils {
+
+    private static final String DELIMITER = ".";
+
+    /**
+     * Resolve path of field from the root of the request
+     *
+     * @param from  - root or join of the request
+     * @param query - request, if path goes through a collection it is marked as distinct
+     * @param name  - field name or dotted path
+     * @param <Y>   - type of field
+     * @return Path
+     * @throws IllegalArgumentException if field is not found
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static <Y> Path<Y> get(@NonNull From<?, ?> from, @Nullable AbstractQuery<?> query, @NonNull String name) {
+        if (!name.contains(DELIMITER)) {
+            return from.get(name);
+        }
+
+        String[] parts = name.split("\\.");
+        Path<?> current = from;
+        ManagedType<?> type = managedType(from);
+        for (int i = 0; i < parts.length - 1; i++) {
+            Attribute<?, ?> attribute = type == null ? null : type.getAttribute(parts[i]);
+            if (current instanceof From<?, ?> currentFrom
+                    && (attribute == null || attribute.isAssociation() || attribute.isCollection())) {
+                current = join(currentFrom, parts[i]);
+                if (query != null && attribute != null && attribute.isCollection()) {
+                    query.distinct(true);
+                }
+            } else {
+                current = current.get(parts[i]);
+            }
+            type = attribute == null ? null : targetType(attribute);
+        }
+        return (Path<Y>) current.get(parts[parts.length - 1]);
+    }
+
+    private static Join<?, ?> join(From<?, ?> from, String attributeName) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attributeName)) {
+                return join;
+            }
+        }
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            if (fetch instanceof Join<?, ?> join && fetch.getAttribute().getName().equals(attributeName)) {
+                return join;
+            }
+        }
+        return from.join(attributeName, JoinType.LEFT);
+    }
+
+    private static ManagedType<?> managedType(From<?, ?> from) {
+        if (from instanceof Root<?> root) {
+            return root.getModel();
+        }
+        if (from instanceof Join<?, ?> join) {
+            return targetType(join.getAttribute());
+        }
+        return null;
+    }
+
+    private static ManagedType<?> targetType(Attribute<?, ?> attribute) {
+        Type<?> type = null;
+        if (attribute instanceof PluralAttribute<?, ?, ?> pluralAttribute) {
+            type = pluralAttribute.getElementType();
+        } else if (attribute instanceof SingularAttribute<?, ?> singularAttribute) {
+            type = singularAttribute.getType();
+        }
+        return type instanceof ManagedType<?> managedType ? managedType : null;
+    }
+}
@@ -2,16 +2,23 @@ package ru.sergkorot.dynamic.util;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.apache.commons.lang3.function.TriFunction;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.NonNull;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import ru.sergkorot.dynamic.function.OperationFunctionContributor;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -32,7 +39,7 @@ public final class SpecificationUtils {
     @NonNull
     public static <T> Specification<T> findByColumnEquals(Object value, @NonNull String columnName) {
         return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.equal(root.get(columnName), value);
+                criteriaBuilder.equal(PathUtils.get(root, criteriaQuery, columnName), value);
     }
 
     /**
@@ -46,7 +53,7 @@ public final class SpecificationUtils {
     @NonNull
     public static <T> Specification<T> findByColumnNotEquals(Object value, @NonNull String columnName) {
         return (root, criteriaQuery, criteriaBuilder) ->
-                criteriaBuilder.notEqual(root.get(columnName), value);
+                criteriaBuilder.notEqual(PathUtils.get(root, criteriaQuery, columnName), value);
     }
 
     /**
@@ -65,7 +72,7 @@ public final class SpecificationUtils {
         String textForSearch = value.toLowerCase();
         return (root, criteriaQuery, criteriaBuilder) ->
                 criteriaBuilder.or(columnName.stream()
-                        .map(element -> criteriaBuilder.like(criteriaBuilder.lower(root.get(element)), textForSearch))
+                        .map(element -> criteriaBuilder.like(criteriaBuilder.lower(PathUtils.get(root, criteriaQuery, element)), textForSearch))
                         .toArray(Predicate[]::new));
     }
 
@@ -83,7 +90,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -100,7 +107,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThan(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -117,7 +124,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -134,7 +141,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -151,7 +158,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -168,7 +175,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -185,7 +192,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -202,7 +209,7 @@ public final class SpecificationUtils {
         if (value == null) {
             return Specification.where(null);
         }
-        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get(columnName), value);
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(PathUtils.get(root, query, columnName), value);
     }
 
     /**
@@ -220,7 +227,7 @@ public final class SpecificationUtils {
             specification = findNothing();
         } else {
             specification = (root, criteriaQuery, criteriaBuilder) ->
-                    root.get(columnName).in(collection);
+                    PathUtils.get(root, criteriaQuery, columnName).in(collection);
         }
         return specification;
     }
@@ -240,11 +247,138 @@ public final class SpecificationUtils {
             specification = findNothing();
         } else {
             specification = (root, criteriaQuery, criteriaBuilder) ->
-                    criteriaBuilder.not(root.get(columnName).in(collection));
+                    criteriaBuilder.not(PathUtils.get(root, criteriaQuery, columnName).in(collection));
         }
         return specification;
     }
 
+    /**
+     * Find entry where value into the column is an element of specified collection,
+     * which is bound as single array parameter. Array has element type of the column from the metamodel,
+     * elements of other types are converted to it. Null elements are skipped: they never match in {@code in},
+     * but are matched with null column by some databases in arrays
+     *
+     * @param collection - collection values for searching
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     * @throws IllegalArgumentException if element can not be converted to type of the column
+     * @see OperationFunctionContributor#ARRAY_ANY
+     */
+    @NonNull
+    public static <T> Specification<T> findByArrayAny(@NonNull Collection<?> collection, @NonNull String columnName) {
+        if (CollectionUtils.isEmpty(collection)) {
+            return findNothing();
+        }
+        return (root, criteriaQuery, criteriaBuilder) -> {
+            Path<Object> path = PathUtils.get(root, criteriaQuery, columnName);
+            return criteriaBuilder.isTrue(criteriaBuilder.function(
+                    OperationFunctionContributor.ARRAY_ANY,
+                    Boolean.class,
+                    path,
+                    criteriaBuilder.literal(toArray(collection, path.getJavaType(), columnName))
+            ));
+        };
+    }
+
+    /**
+     * Find column starts with specified value
+     *
+     * @param value      - prefix of the entry in the database, value with wildcard is used as is
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     */
+    @NonNull
+    public static <T> Specification<T> findByColumnStartsWith(@NonNull String value, @NonNull String columnName) {
+        String pattern = value.contains("%") ? value : value + "%";
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.like(PathUtils.get(root, query, columnName), pattern);
+    }
+
+    /**
+     * Find column like specified ignoring case
+     *
+     * @param value      - the value to which the entry in the database should be similar
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     * @see OperationFunctionContributor#TEXT_ILIKE
+     */
+    @NonNull
+    public static <T> Specification<T> findByColumnILike(@NonNull String value, @NonNull String columnName) {
+        String pattern = value.contains("%") ? value : "%" + value + "%";
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.isTrue(criteriaBuilder.function(
+                        OperationFunctionContributor.TEXT_ILIKE,
+                        Boolean.class,
+                        PathUtils.get(root, query, columnName),
+                        criteriaBuilder.literal(pattern)
+                ));
+    }
+
+    /**
+     * Find entry by full text search in column
+     *
+     * @param value            - plain text for searching
+     * @param textSearchConfig - text search configuration, is rendered inline and must match {@link OperationFunctionContributor#TEXT_SEARCH_CONFIG}
+     * @param columnName       - name of column into the database
+     * @param <T>              - the entity for which the request is being built
+     * @return Specification
+     * @see OperationFunctionContributor#TEXT_SEARCH
+     */
+    @NonNull
+    public static <T> Specification<T> findByFullText(@NonNull String value, @NonNull String textSearchConfig, @NonNull String columnName) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.isTrue(criteriaBuilder.function(
+                        OperationFunctionContributor.TEXT_SEARCH,
+                        Boolean.class,
+                        PathUtils.get(root, query, columnName),
+                        criteriaBuilder.literal(value),
+                        criteriaBuilder.literal(textSearchConfig)
+                ));
+    }
+
+    /**
+     * Find entry where array column contains specified element
+     *
+     * @param element    - element of array
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     * @see OperationFunctionContributor#ARRAY_HAS
+     */
+    @NonNull
+    public static <T> Specification<T> findByArrayHas(@NonNull Object element, @NonNull String columnName) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.isTrue(criteriaBuilder.function(
+                        OperationFunctionContributor.ARRAY_HAS,
+                        Boolean.class,
+                        PathUtils.get(root, query, columnName),
+                        criteriaBuilder.literal(element)
+                ));
+    }
+
+    /**
+     * Find entry where jsonb column contains specified json value
+     *
+     * @param json       - json value, for example array with element {@code ["v"]}
+     * @param columnName - name of column into the database
+     * @param <T>        - the entity for which the request is being built
+     * @return Specification
+     * @see OperationFunctionContributor#JSONB_HAS
+     */
+    @NonNull
+    public static <T> Specification<T> findByJsonbHas(@NonNull String json, @NonNull String columnName) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.isTrue(criteriaBuilder.function(
+                        OperationFunctionContributor.JSONB_HAS,
+                        Boolean.class,
+                        PathUtils.get(root, query, columnName),
+                        criteriaBuilder.literal(json)
+                ));
+    }
+
     /**
      * Find entry where specified column is null
      *
@@ -255,7 +389,7 @@ public final class SpecificationUtils {
     @NonNull
     public static <T> Specification<T> findByColumnIsNull(@NonNull String columnName) {
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.isNull(root.get(columnName));
+                criteriaBuilder.isNull(PathUtils.get(root, query, columnName));
     }
 
     /**
@@ -297,7 +431,7 @@ public final class SpecificationUtils {
                         .map(v ->
                                 createPredicate.apply(
                                         trimAndGlue.apply(v),
-                                        root.get(columnName),
+                                        PathUtils.get(root, query, columnName),
                                         criteriaBuilder)
                         )
                         .toArray(Predicate[]::new)
@@ -308,4 +442,22 @@ public final class SpecificationUtils {
     private static final Function<String, String> trimAndGlue = v -> "%" + v.trim() + "%";
     private static final TriFunction<String, Expression<?>, CriteriaBuilder, Predicate> createPredicate =
             (v, expression, cb) -> cb.like(expression.as(String.class), v);
+
+    private static Object[] toArray(Collection<?> collection, Class<?> type, String columnName) {
+        Class<?> elementType = ClassUtils.resolvePrimitiveIfNecessary(type);
+        Object[] array = (Object[]) Array.newInstance(elementType, (int) collection.stream().filter(Objects::nonNull).count());
+        int i = 0;
+        for (Object element : collection) {
+            if (element == null) {
+                continue;
+            }
+            try {
+                array[i++] = DefaultConversionService.getSharedInstance().convert(element, elementType);
+            } catch (ConversionException e) {
+                throw new IllegalArgumentException(String.format(
+                        "value %s can not be converted to type %s of field %s", element, elementType.getSimpleName(), columnName), e);
+            }
+        }
+        return array;
+    }
 }
@@ -0,0 +1,209 @@
+package ru.sergkorot.dynamic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metamodel.EntityIndexesListener;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.r2dbc.CriteriaOperationService;
+import ru.sergkorot.dynamic.result.ResultCacheInvalidationListener;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conditions of auto-configuration: beans back off for own beans of application and missing classes,
+ * optional features are registered by properties
+ */
+class OperationProcessorAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    HibernateJpaAutoConfiguration.class,
+                    OperationProcessorAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:auto_configuration;DB_CLOSE_DELAY=-1");
+
+    @Test
+    void jpaAndR2dbcBeansAreRegistered() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(SpecificationOperationService.class);
+            assertThat(context).hasSingleBean(SpecificationOperationProviderImpl.class);
+            assertThat(context).hasSingleBean(SpecificationGlueOperationProviderImpl.class);
+            assertThat(context).hasSingleBean(EntityAttributeRegistry.class);
+            assertThat(context).hasSingleBean(CriteriaOperationService.class);
+            assertThat(context).doesNotHaveBean(SearchResultCache.class);
+            assertThat(context).doesNotHaveBean(EntityIndexesListener.class);
+        });
+    }
+
+    @Test
+    void beansBackOffForOwnBeans() {
+        contextRunner.withUserConfiguration(OwnBeansConfiguration.class).run(context -> {
+            assertThat(context).hasSingleBean(SpecificationOperationService.class);
+            assertThat(context).getBean(SpecificationOperationService.class).isSameAs(OwnBeansConfiguration.SERVICE);
+            assertThat(context).getBean(InListStrategy.class).isSameAs(OwnBeansConfiguration.IN_LIST_STRATEGY);
+        });
+    }
+
+    @Test
+    void jpaBeansAreSkippedWithoutSpringDataJpa() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OperationProcessorAutoConfiguration.class))
+                .withClassLoader(new FilteredClassLoader(Specification.class))
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).doesNotHaveBean(SpecificationOperationService.class);
+                    assertThat(context).doesNotHaveBean(InListStrategy.class);
+                    assertThat(context).hasSingleBean(CriteriaOperationService.class);
+                });
+    }
+
+    @Test
+    void r2dbcBeansAreSkippedWithoutSpringDataR2dbc() {
+        contextRunner.withClassLoader(new FilteredClassLoader(R2dbcEntityOperations.class)).run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(SpecificationOperationService.class);
+            assertThat(context).doesNotHaveBean(CriteriaOperationService.class);
+        });
+    }
+
+    @Test
+    void inListPaddingIsEnabledByProperty() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(HibernatePropertiesCustomizer.class);
+            assertThat(padding(context.getBean(EntityManagerFactory.class))).isNotEqualTo("true");
+        });
+        contextRunner.withPropertyValues("operation.in-list.padding=true").run(context -> {
+            assertThat(context).hasSingleBean(HibernatePropertiesCustomizer.class);
+            assertThat(padding(context.getBean(EntityManagerFactory.class))).isEqualTo("true");
+        });
+    }
+
+    @Test
+    void inListPaddingKeepsExplicitHibernateSetting() {
+        contextRunner
+                .withPropertyValues(
+                        "operation.in-list.padding=true",
+                        "spring.jpa.properties." + AvailableSettings.IN_CLAUSE_PARAMETER_PADDING + "=false"
+                )
+                .run(context -> assertThat(padding(context.getBean(EntityManagerFactory.class))).isEqualTo("false"));
+    }
+
+    @Test
+    void optionalFeaturesAreRegisteredByProperties() {
+        contextRunner
+                .withPropertyValues("operation.result-cache.enabled=true", "operation.admission.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(SearchResultCache.class);
+                    assertThat(context.getBean(SearchFeatures.class).getResultCache()).isSameAs(context.getBean(SearchResultCache.class));
+                    assertThat(context).hasSingleBean(ResultCacheInvalidationListener.class);
+                    assertThat(context).hasSingleBean(EntityIndexesListener.class);
+                });
+    }
+
+    /**
+     * Explicit configuration must not start slower than classpath scanning of the library package,
+     * both contexts create the same operation service. Nested configurations are processed through
+     * their enclosing ones, as scanning them directly would skip conditions of enclosing configuration.
+     * Starts alternate and medians are compared with margin for noise of shared machines
+     */
+    @Test
+    void autoConfigurationStartsNotSlowerThanComponentScan() {
+        Supplier<AnnotationConfigApplicationContext> componentScan = () -> {
+            AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+            ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(context);
+            scanner.addExcludeFilter((metadataReader, metadataReaderFactory) -> metadataReader.getClassMetadata().hasEnclosingClass());
+            scanner.scan("ru.sergkorot.dynamic");
+            return context;
+        };
+        Supplier<AnnotationConfigApplicationContext> autoConfiguration = () -> {
+            AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+            context.register(OperationProcessorAutoConfiguration.class);
+            return context;
+        };
+        int runs = 7;
+        long[] scanTimes = new long[runs];
+        long[] configurationTimes = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            scanTimes[i] = startTime(componentScan);
+            configurationTimes[i] = startTime(autoConfiguration);
+        }
+
+        long scan = median(scanTimes);
+        long configuration = median(configurationTimes);
+        System.out.printf("context start: component scan %d ms, auto-configuration %d ms%n", scan / 1_000_000, configuration / 1_000_000);
+        assertThat(configuration).isLessThanOrEqualTo(scan * 3 / 2 + 50_000_000L);
+    }
+
+    private static long startTime(Supplier<AnnotationConfigApplicationContext> factory) {
+        long start = System.nanoTime();
+        try (AnnotationConfigApplicationContext context = factory.get()) {
+            context.refresh();
+            assertThat(context.getBean(SpecificationOperationService.class)).isNotNull();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static Object padding(EntityManagerFactory entityManagerFactory) {
+        Map<String, Object> properties = new HashMap<>(entityManagerFactory.getProperties());
+        Object value = properties.get(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING);
+        return value == null ? null : value.toString();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class OwnBeansConfiguration {
+
+        static final InListStrategy IN_LIST_STRATEGY = new InListStrategy(new InListProperties());
+        static final SpecificationOperationService<Object> SERVICE = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper()
+        );
+
+        @Bean
+        InListStrategy ownInListStrategy() {
+            return IN_LIST_STRATEGY;
+        }
+
+        @Bean
+        SpecificationOperationService<Object> ownOperationService() {
+            return SERVICE;
+        }
+    }
+}
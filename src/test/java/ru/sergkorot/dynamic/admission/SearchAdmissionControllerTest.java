@@ -0,0 +1,145 @@
+package ru.sergkorot.dynamic.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.batch.BatchSearchRequest;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Indexes are resolved from mapping and database, batches hold single slot of heavy requests
+ */
+class SearchAdmissionControllerTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("search_admission_controller");
+        TestDatabase.fill(entityManagerFactory);
+        TestDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager
+                .createNativeQuery("create index person_age_idx on person(age)")
+                .executeUpdate());
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void indexesAreTakenFromMappingAndDatabase() {
+        EntityIndexes entityIndexes = new EntityIndexes(Map.of(), true);
+        assertThat(entityIndexes.isIndexed(Person.class, "age"))
+                .as("annotations are used before registration")
+                .isFalse();
+
+        entityIndexes.register(entityManagerFactory);
+
+        assertThat(entityIndexes.isIndexed(Person.class, "id")).isTrue();
+        assertThat(entityIndexes.isIndexed(Person.class, "name")).isTrue();
+        assertThat(entityIndexes.isIndexed(Person.class, "surname")).isTrue();
+        assertThat(entityIndexes.isIndexed(Person.class, "age")).as("index created in the database").isTrue();
+        assertThat(entityIndexes.isIndexed(Person.class, "birthDate")).isFalse();
+    }
+
+    @Test
+    void indexesOfDatabaseAreSkippedWithoutInspection() {
+        EntityIndexes entityIndexes = new EntityIndexes(Map.of("Person", List.of("birthDate")), false);
+
+        entityIndexes.register(entityManagerFactory);
+
+        assertThat(entityIndexes.isIndexed(Person.class, "age")).isFalse();
+        assertThat(entityIndexes.isIndexed(Person.class, "birthDate")).as("configured field").isTrue();
+    }
+
+    @Test
+    void batchHoldsSingleSlot() {
+        SearchAdmissionController controller = heavyController();
+
+        Map<String, CountedPage<Person>> pages = service(controller).findBatch(entityManagerFactory, Person.class, batch());
+
+        assertThat(pages).hasSize(4);
+        assertThat(pages.get("young").getContent()).hasSize(2);
+        assertThat(pages.get("named").getContent()).hasSize(1);
+        assertThat(pages.get("total").getTotalElements()).isEqualTo(16);
+    }
+
+    @Test
+    void batchIsRejectedWhenSlotIsBusy() {
+        SearchAdmissionController controller = heavyController();
+        GroupNode any = new GroupNode(GlueOperation.AND, List.of());
+
+        try (SearchAdmissionController.Admission admission = controller.admit(Person.class, any)) {
+            assertThatThrownBy(() -> service(controller).findBatch(entityManagerFactory, Person.class, batch()))
+                    .isInstanceOf(SearchRejectedException.class)
+                    .extracting(e -> ((SearchRejectedException) e).getReason())
+                    .isEqualTo(SearchRejectedException.Reason.CONCURRENCY);
+        }
+    }
+
+    private static Map<String, BatchSearchRequest> batch() {
+        PageRequest page = PageRequest.of(0, 2, Sort.by("id"));
+        Map<String, BatchSearchRequest> requests = new LinkedHashMap<>();
+        requests.put("young", BatchSearchRequest.page(complex(param("age", "lt", "30")), GlueOperation.AND, page));
+        requests.put("named", BatchSearchRequest.page(complex(param("name", "eq", "Name3")), GlueOperation.AND, page));
+        requests.put("old", BatchSearchRequest.page(complex(param("age", "gt", "50")), GlueOperation.AND, page));
+        requests.put("total", BatchSearchRequest.count(complex(param("age", "gt", "0")), GlueOperation.AND));
+        return requests;
+    }
+
+    private static SearchAdmissionController heavyController() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setEnabled(true);
+        properties.setHeavyCost(0);
+        properties.setMaxConcurrentHeavy(1);
+        return new SearchAdmissionController(properties, null, null);
+    }
+
+    private static SpecificationOperationService<Person> service(SearchAdmissionController controller) {
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .admissionController(controller)
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package ru.sergkorot.dynamic.ast;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Validation of operations of plain and manual fields at parse time
+ */
+class SearchRequestParserTest {
+
+    private final SearchRequestParser parser = new SearchRequestParser(
+            new ObjectMapper(),
+            Set.of("fullName"),
+            SearchRequestParser.operationsOf(new SpecificationOperationProviderImpl<>())
+    );
+
+    @Test
+    void operationsOfProviderAreAccepted() {
+        GroupNode tree = parser.parseBase(List.of(
+                param("name", "eq", "Name1"),
+                param("surname", "contains", "sur"),
+                param("fullName", "like", "Name%")
+        ), GlueOperation.AND);
+
+        assertThat(tree.children()).containsExactly(
+                new ConditionNode("name", "eq", "Name1", false),
+                new ConditionNode("surname", "contains", "sur", false),
+                new ConditionNode("fullName", "like", "Name%", true)
+        );
+    }
+
+    @Test
+    void unknownOperationsAreRejected() {
+        assertThatThrownBy(() -> parser.parseBase(List.of(param("name", "startsWith", "N")), GlueOperation.AND))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("operation startsWith for field name not supported");
+        assertThatThrownBy(() -> parser.parseBase(List.of(param("fullName", "random-" + System.nanoTime(), "x")), GlueOperation.AND))
+                .as("manual field")
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parseBase(List.of(param("name", "hashCode", "x")), GlueOperation.AND))
+                .as("public method which is not operation")
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
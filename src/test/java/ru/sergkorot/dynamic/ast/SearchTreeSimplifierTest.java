@@ -0,0 +1,112 @@
+package ru.sergkorot.dynamic.ast;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merged conditions keep raw values of the request, persons 1..4 have ages 3..12
+ */
+class SearchTreeSimplifierTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("search_tree_simplifier");
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void equalValueWithCommaIsNotSplitByMerge() {
+        GroupNode tree = new GroupNode(GlueOperation.OR, List.of(
+                new ConditionNode("name", "eq", "Name3,Name4", false),
+                new ConditionNode("name", "eq", "Name5", false)
+        ));
+
+        GroupNode simplified = SearchTreeSimplifier.simplify(tree, Person.class, attributeRegistry);
+
+        assertThat(simplified.children()).containsExactly(new ConditionNode("name", "in", List.of("Name3,Name4", "Name5"), false));
+        assertThat(ids(simplified)).containsExactly(5L);
+    }
+
+    @Test
+    void mergedValuesAreRawAndDeduplicatedByConvertedValue() {
+        GroupNode tree = new GroupNode(GlueOperation.OR, List.of(
+                new ConditionNode("age", "eq", "3", false),
+                new ConditionNode("age", "in", "03, 6", false)
+        ));
+
+        GroupNode simplified = SearchTreeSimplifier.simplify(tree, Person.class, attributeRegistry);
+
+        assertThat(simplified.children()).containsExactly(new ConditionNode("age", "in", List.of("3", "6"), false));
+        assertThat(ids(simplified)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void intersectionKeepsRawValue() {
+        GroupNode tree = new GroupNode(GlueOperation.AND, List.of(
+                new ConditionNode("age", "in", "3,6,9", false),
+                new ConditionNode("age", "in", "06,12", false)
+        ));
+
+        GroupNode simplified = SearchTreeSimplifier.simplify(tree, Person.class, attributeRegistry);
+
+        assertThat(simplified.children()).containsExactly(new ConditionNode("age", "eq", "6", false));
+        assertThat(ids(simplified)).containsExactly(2L);
+    }
+
+    private static List<Long> ids(GroupNode tree) {
+        SpecificationOperationService<Person> service = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                null
+        );
+        Specification<Person> specification = service.buildByTree(tree);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Person> query = criteriaBuilder.createQuery(Person.class);
+            Root<Person> root = query.from(Person.class);
+            query.where(specification.toPredicate(root, query, criteriaBuilder)).orderBy(criteriaBuilder.asc(root.get("id")));
+            return entityManager.createQuery(query).getResultList().stream().map(Person::getId).toList();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
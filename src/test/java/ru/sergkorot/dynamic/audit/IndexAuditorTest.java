@@ -0,0 +1,81 @@
+package ru.sergkorot.dynamic.audit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.admission.SearchRejectedException;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Audit of the test model: person has indexes on name and on (surname, age), the database has index on birth date
+ * which is not declared by the mapping
+ */
+class IndexAuditorTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("index_audit");
+        TestDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager
+                .createNativeQuery("create index person_birth_date_idx on person(birthDate)")
+                .executeUpdate());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void fullyQualifiedEntityIsAuditedByIndexesOfItsDatabase() {
+        IndexAuditor auditor = new IndexAuditor(properties(Person.class.getName(), true), null, null);
+
+        List<IndexFinding> findings = auditor.audit(entityManagerFactory);
+
+        assertThat(findings)
+                .extracting(IndexFinding::field, IndexFinding::operation, IndexFinding::problem)
+                .containsExactlyInAnyOrder(
+                        tuple("age", "gt", IndexFinding.Problem.NON_LEADING_COLUMN),
+                        tuple("name", "notEq", IndexFinding.Problem.NEGATION)
+                );
+        assertThatThrownBy(() -> auditor.check(Person.class, new GroupNode(GlueOperation.AND,
+                List.of(new ConditionNode("age", "gt", "10", false)))))
+                .isInstanceOf(SearchRejectedException.class);
+    }
+
+    @Test
+    void withoutDatabaseOnlyMappingIndexesAreKnown() {
+        IndexAuditor auditor = new IndexAuditor(properties("Person", false), null, null);
+
+        List<IndexFinding> findings = auditor.audit(entityManagerFactory);
+
+        assertThat(findings)
+                .filteredOn(finding -> finding.field().equals("birthDate"))
+                .extracting(IndexFinding::problem)
+                .containsExactly(IndexFinding.Problem.NO_INDEX);
+    }
+
+    private static IndexAuditProperties properties(String entity, boolean inspectDatabase) {
+        IndexAuditProperties.AuditedEntity audited = new IndexAuditProperties.AuditedEntity();
+        audited.setSearchable(Map.of("name", List.of("eq", "notEq"), "surname", List.of("eq"), "age", List.of("gt")));
+        audited.setSortable(List.of("birthDate"));
+        IndexAuditProperties properties = new IndexAuditProperties();
+        properties.setInspectDatabase(inspectDatabase);
+        properties.setReject(true);
+        properties.setEntities(Map.of(entity, audited));
+        return properties;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.sergkorot.dynamic.batch;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.jpa.SpecHints;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Queries of batch tasks get the rest of the batch deadline as query timeout and are stopped by the database
+ */
+class BatchSearchExecutorTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("batch_search_executor");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void queryTimeoutIsRestOfDeadline() {
+        try (BatchSearchExecutor executor = executor(Duration.ofSeconds(30))) {
+            Map<String, Object> hints = executor.invokeAll(Map.of("task", (Callable<Object>) () -> inEntityManager(entityManager ->
+                    QueryDeadline.apply(entityManager.createQuery("select p from Person p", Person.class))
+                            .getHints()
+                            .get(SpecHints.HINT_SPEC_QUERY_TIMEOUT))));
+
+            assertThat(hints.get("task")).isEqualTo(30_000);
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertThat(QueryDeadline.apply(entityManager.createQuery("select p from Person p", Person.class)).getHints())
+                    .as("query out of batch")
+                    .doesNotContainKey(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void runningStatementIsStoppedAtDeadline() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        try (BatchSearchExecutor executor = executor(Duration.ofSeconds(1))) {
+            Callable<Object> slowQuery = () -> {
+                try {
+                    return inEntityManager(entityManager -> QueryDeadline.apply(entityManager
+                                    .createNativeQuery("select count(*) from system_range(1, 10000000000) where mod(x, 7) < rand()"))
+                            .getSingleResult());
+                } finally {
+                    finished.countDown();
+                }
+            };
+
+            assertThatThrownBy(() -> executor.invokeAll(Map.of("slow", slowQuery)))
+                    .isInstanceOf(QueryTimeoutException.class);
+            assertThat(finished.await(10, TimeUnit.SECONDS)).as("statement is cancelled by query timeout").isTrue();
+        }
+    }
+
+    private static BatchSearchExecutor executor(Duration timeout) {
+        BatchProperties properties = new BatchProperties();
+        properties.setTimeout(timeout);
+        return new BatchSearchExecutor(properties);
+    }
+
+    private static Object inEntityManager(Function<EntityManager, Object> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return action.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
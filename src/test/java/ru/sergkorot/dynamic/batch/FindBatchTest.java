@@ -0,0 +1,127 @@
+package ru.sergkorot.dynamic.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Named requests of batch: pages, numbers of entities, equal requests executed once
+ */
+class FindBatchTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 2, Sort.by("id"));
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static BatchSearchExecutor batchSearchExecutor;
+    private static SpecificationOperationService<Person> service;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("find_batch", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        EntityAttributeRegistry attributeRegistry =
+                new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+        batchSearchExecutor = new BatchSearchExecutor(new BatchProperties());
+        service = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .batchSearchExecutor(batchSearchExecutor)
+                        .build()
+        );
+    }
+
+    @AfterAll
+    static void tearDown() {
+        batchSearchExecutor.close();
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void pagesAndCountsAreFoundByNames() {
+        Map<String, BatchSearchRequest> requests = new LinkedHashMap<>();
+        requests.put("old", BatchSearchRequest.page(complex(param("age", "gt", "50")), GlueOperation.AND, PAGE));
+        requests.put("total", BatchSearchRequest.count(complex(param("age", "gt", "0")), GlueOperation.AND));
+        requests.put("sales", BatchSearchRequest.count(complex(param("department.name", "eq", "sales")), GlueOperation.AND));
+
+        Map<String, CountedPage<Person>> pages = service.findBatch(entityManagerFactory, Person.class, requests);
+
+        assertThat(pages).containsOnlyKeys("old", "total", "sales");
+        assertThat(pages.get("old").getContent()).extracting(Person::getId).containsExactly(17L, 18L);
+        assertThat(pages.get("old").getTotalElements()).isEqualTo(3);
+        assertThat(pages.get("total").getContent()).isEmpty();
+        assertThat(pages.get("total").getTotalElements()).isEqualTo(16);
+        assertThat(pages.get("sales").getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    void pageWithoutPageableHasAllEntities() {
+        BatchSearchRequest request = BatchSearchRequest.page(complex(param("age", "gt", "40")), GlueOperation.AND, null);
+
+        Map<String, CountedPage<Person>> pages = service.findBatch(entityManagerFactory, Person.class, Map.of("all", request));
+
+        assertThat(request.isCountOnly()).isFalse();
+        assertThat(pages.get("all").getContent()).hasSize(5);
+        assertThat(pages.get("all").getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void equalRequestsAreExecutedOnce() {
+        Map<String, BatchSearchRequest> requests = new LinkedHashMap<>();
+        requests.put("first", BatchSearchRequest.page(complex(param("name", "eq", "Name3")), GlueOperation.AND, PAGE));
+        requests.put("second", BatchSearchRequest.page(complex(param("name", "eq", "Name3")), GlueOperation.AND, PAGE));
+
+        Map<String, CountedPage<Person>> pages = service.findBatch(entityManagerFactory, Person.class, requests);
+
+        assertThat(pages.get("first")).isSameAs(pages.get("second"));
+        assertThat(pages.get("first").getContent()).extracting(Person::getId).containsExactly(3L);
+        assertThat(STATEMENTS).hasSize(1);
+    }
+}
@@ -0,0 +1,166 @@
+package ru.sergkorot.dynamic.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Templates must find the same rows as criteria built from specification, otherwise the two paths have drifted
+ */
+class QueryTemplateCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final PageRequest PAGE = PageRequest.of(0, 50, Sort.by("id"));
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("query_template_cache");
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void templatesFindTheSameRowsAsCriteria() {
+        List<List<ComplexSearchParam>> requests = List.of(
+                complex(param("name", "eq", "Name3")),
+                complex(param("surname", "notEq", "surname1")),
+                complex(param("name", "like", "AME1")),
+                complex(param("name", "like", "name1%")),
+                complex(param("age", "in", "3,6,9,12")),
+                complex(param("age", "notIn", "3,6")),
+                complex(param("surname", "isNull", null)),
+                complex(param("age", "gt", "30"), param("age", "le", "45")),
+                complex(param("age", "lt", "9")),
+                complex(param("age", "ge", "57")),
+                complex(param("name", "contains", "ame,1")),
+                complex(GlueOperation.OR, param("name", "eq", "Name1"), param("age", "gt", "50")),
+                complex(param("department.name", "eq", "sales")),
+                complex(param("id", "nst:in", nested(param("age", "gt", "30")))),
+                complex(param("id", "nst:notIn", nested(param("age", "gt", "30"))))
+        );
+
+        QueryTemplateCache cache = new QueryTemplateCache(new QueryCacheProperties(), new NestedQueryProperties());
+        SpecificationOperationService<Person> cached = service(cache, new InListProperties());
+        SpecificationOperationService<Person> plain = service(null, new InListProperties());
+
+        for (List<ComplexSearchParam> request : requests) {
+            long served = cache.getHitCount() + cache.getMissCount();
+            assertThat(ids(cached, request)).as("request %s", describe(request)).isEqualTo(ids(plain, request));
+            assertThat(cache.getHitCount() + cache.getMissCount()).as("request %s is templated", describe(request)).isEqualTo(served + 1);
+        }
+    }
+
+    @Test
+    void chunkedInListIsNotTemplated() {
+        InListProperties inListProperties = new InListProperties();
+        inListProperties.setChunkThreshold(2);
+        inListProperties.setChunkSize(2);
+        QueryTemplateCache cache = new QueryTemplateCache(
+                new QueryCacheProperties(),
+                new NestedQueryProperties(),
+                new InListStrategy(inListProperties)
+        );
+        SpecificationOperationService<Person> cached = service(cache, inListProperties);
+        List<ComplexSearchParam> request = complex(param("age", "in", "3,6,9,12"));
+
+        assertThat(ids(cached, request)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(cache.getMissCount()).isZero();
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    void unknownFieldIsReportedByCriteria() {
+        QueryTemplateCache cache = new QueryTemplateCache(new QueryCacheProperties(), new NestedQueryProperties());
+        SpecificationOperationService<Person> cached = service(cache, new InListProperties());
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> cached.findPage(entityManager, Person.class, complex(param("unknown", "eq", "1")), GlueOperation.AND, PAGE))
+                    .withMessageContaining("unknown");
+        } finally {
+            entityManager.close();
+        }
+        assertThat(cache.size()).isZero();
+    }
+
+    private static List<Long> ids(SpecificationOperationService<Person> service, List<ComplexSearchParam> request) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CountedPage<Person> page = service.findPage(entityManager, Person.class, request, GlueOperation.AND, PAGE);
+            assertThat(page.getTotalElements()).isEqualTo(page.getContent().size());
+            return page.getContent().stream().map(Person::getId).toList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static SpecificationOperationService<Person> service(QueryTemplateCache cache, InListProperties inListProperties) {
+        NestedQueryProperties nestedQueryProperties = new NestedQueryProperties();
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(inListProperties),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder()
+                        .queryTemplateCache(cache)
+                        .nestedQueryProperties(nestedQueryProperties)
+                        .attributeRegistry(attributeRegistry)
+                        .build()
+        );
+    }
+
+    private static Map<String, Object> nested(BaseSearchParam... params) {
+        return Map.of("baseSearchParams", List.of(params), "internalGlue", GlueOperation.AND.name());
+    }
+
+    private static String describe(List<ComplexSearchParam> request) {
+        return request.get(0).getBaseSearchParams()
+                .stream()
+                .map(param -> param.getName() + " " + param.getOperation() + " " + param.getValue())
+                .toList()
+                .toString();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.sergkorot.dynamic.facet;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Caching of facet counts by key with time to live and bounded size
+ */
+class FacetQueryExecutorTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final Supplier<List<FacetCount>> query = () -> List.of(new FacetCount("value", queries.incrementAndGet()));
+
+    @Test
+    void countsAreCachedByKey() {
+        FacetQueryExecutor executor = new FacetQueryExecutor(properties(Duration.ofMinutes(1), 10));
+
+        assertThat(executor.counts("first", query)).containsExactly(new FacetCount("value", 1));
+        assertThat(executor.counts("first", query)).containsExactly(new FacetCount("value", 1));
+        assertThat(executor.counts("second", query)).containsExactly(new FacetCount("value", 2));
+
+        executor.clear();
+        assertThat(executor.counts("first", query)).containsExactly(new FacetCount("value", 3));
+    }
+
+    @Test
+    void countsWithoutKeyOrTtlAreNotCached() {
+        FacetQueryExecutor disabled = new FacetQueryExecutor(properties(Duration.ZERO, 10));
+        disabled.counts("key", query);
+        disabled.counts("key", query);
+
+        FacetQueryExecutor enabled = new FacetQueryExecutor(properties(Duration.ofMinutes(1), 10));
+        enabled.counts(null, query);
+        enabled.counts(null, query);
+
+        assertThat(queries).hasValue(4);
+    }
+
+    @Test
+    void expiredCountsAreQueriedAgain() throws InterruptedException {
+        FacetQueryExecutor executor = new FacetQueryExecutor(properties(Duration.ofMillis(20), 10));
+
+        executor.counts("key", query);
+        Thread.sleep(40);
+        executor.counts("key", query);
+
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void leastRecentlyUsedCountsAreEvicted() {
+        FacetQueryExecutor executor = new FacetQueryExecutor(properties(Duration.ofMinutes(1), 2));
+
+        executor.counts("first", query);
+        executor.counts("second", query);
+        executor.counts("first", query);
+        executor.counts("third", query);
+        assertThat(queries).hasValue(3);
+
+        executor.counts("first", query);
+        assertThat(queries).as("first was used recently").hasValue(3);
+        executor.counts("second", query);
+        assertThat(queries).as("second was evicted").hasValue(4);
+    }
+
+    private static FacetProperties properties(Duration cacheTtl, int cacheMaxSize) {
+        FacetProperties properties = new FacetProperties();
+        properties.setCacheTtl(cacheTtl);
+        properties.setCacheMaxSize(cacheMaxSize);
+        return properties;
+    }
+}
@@ -0,0 +1,245 @@
+package ru.sergkorot.dynamic.facet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.ManualOperationProvider;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Facet counts by values of fields, exclusion of own filter of the facet and caching of counts
+ */
+class FindFacetsTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+    private static List<Person> persons;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("find_facets", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            persons = entityManager.createQuery("select p from Person p left join fetch p.department", Person.class).getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void valuesAreCountedByCountDescending() {
+        Map<String, List<FacetCount>> facets = findFacets(service(new FacetProperties()),
+                complex(param("age", "gt", "10")), List.of("surname", "department.name"));
+
+        assertThat(facets).containsOnlyKeys("surname", "department.name");
+        assertThat(facets.get("surname")).containsExactlyElementsOf(expected(olderThan(10), Person::getSurname));
+        assertThat(facets.get("department.name"))
+                .containsExactlyElementsOf(expected(olderThan(10), person -> person.getDepartment().getName()));
+        assertThat(facets.get("surname")).extracting(FacetCount::count).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void ownFilterIsExcludedFromFacetCounts() {
+        List<ComplexSearchParam> request = complex(param("surname", "eq", "surname1"), param("age", "gt", "30"));
+
+        Map<String, List<FacetCount>> facets = findFacets(service(new FacetProperties()), request, List.of("surname", "department.name"));
+
+        assertThat(facets.get("surname"))
+                .as("surname values are counted without surname condition")
+                .containsExactlyElementsOf(expected(olderThan(30), Person::getSurname));
+        assertThat(facets.get("department.name"))
+                .containsExactlyElementsOf(expected(olderThan(30).and(person -> "surname1".equals(person.getSurname())),
+                        person -> person.getDepartment().getName()));
+    }
+
+    @Test
+    void ownFilterIsAppliedWhenExclusionIsDisabled() {
+        FacetProperties properties = new FacetProperties();
+        properties.setExcludeOwnFilter(false);
+
+        Map<String, List<FacetCount>> facets = findFacets(service(properties),
+                complex(param("surname", "eq", "surname1"), param("age", "gt", "30")), List.of("surname"));
+
+        assertThat(facets.get("surname")).containsExactly(new FacetCount("surname1", 3));
+    }
+
+    @Test
+    void ownFilterUnderOrIsKept() {
+        List<ComplexSearchParam> request = complex(GlueOperation.OR, param("surname", "eq", "surname1"), param("age", "lt", "10"));
+
+        Map<String, List<FacetCount>> facets = findFacets(service(new FacetProperties()), request, List.of("surname"));
+
+        assertThat(facets.get("surname")).containsExactlyElementsOf(expected(
+                person -> "surname1".equals(person.getSurname()) || person.getAge() != null && person.getAge() < 10,
+                Person::getSurname));
+    }
+
+    @Test
+    void nestedFilterOnFacetFieldIsExcluded() {
+        List<ComplexSearchParam> request = complex(
+                param("surname", "nst:in", nested(param("name", "eq", "Name3"))),
+                param("age", "gt", "30"));
+
+        Map<String, List<FacetCount>> facets = findFacets(service(new FacetProperties()), request, List.of("surname", "age"));
+
+        assertThat(facets.get("surname")).containsExactlyElementsOf(expected(olderThan(30), Person::getSurname));
+        assertThat(facets.get("age"))
+                .as("ages of surname0 persons")
+                .containsExactly(new FacetCount(9, 1), new FacetCount(18, 1), new FacetCount(27, 1),
+                        new FacetCount(36, 1), new FacetCount(54, 1));
+    }
+
+    @Test
+    void facetOfFalseFilterIsEmptyWithoutQuery() {
+        Map<String, List<FacetCount>> facets = findFacets(service(new FacetProperties()),
+                complex(param("age", "in", List.of()), param("name", "eq", "Name1")), List.of("surname", "age"));
+
+        assertThat(facets.get("surname")).isEmpty();
+        assertThat(facets.get("age")).as("own false filter is excluded").containsExactly(new FacetCount(3, 1));
+        assertThat(STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    void valuesAreLimitedByMostFrequent() {
+        FacetProperties properties = new FacetProperties();
+        properties.setLimit(2);
+
+        Map<String, List<FacetCount>> facets = findFacets(service(properties), complex(), List.of("surname"));
+
+        assertThat(facets.get("surname")).containsExactlyElementsOf(expected(person -> true, Person::getSurname).subList(0, 2));
+    }
+
+    @Test
+    void countsAreCachedByRequestValues() {
+        FacetProperties properties = new FacetProperties();
+        properties.setCacheTtl(Duration.ofMinutes(1));
+        SpecificationOperationService<Person> service = service(properties);
+
+        findFacets(service, complex(param("age", "gt", "10")), List.of("surname"));
+        findFacets(service, complex(param("age", "gt", "10")), List.of("surname"));
+        assertThat(STATEMENTS).hasSize(1);
+
+        findFacets(service, complex(param("age", "gt", "20")), List.of("surname"));
+        assertThat(STATEMENTS).as("other value").hasSize(2);
+
+        findFacets(service, complex(param("fullName", "eq", "Name1 surname1")), List.of("surname"));
+        findFacets(service, complex(param("fullName", "eq", "Name1 surname1")), List.of("surname"));
+        assertThat(STATEMENTS).as("manual conditions are not cached").hasSize(4);
+    }
+
+    private static Predicate<Person> olderThan(int age) {
+        return person -> person.getAge() != null && person.getAge() > age;
+    }
+
+    /**
+     * Counts of values of matched persons in order of facet: count descending, then value with nulls first
+     */
+    private static List<FacetCount> expected(Predicate<Person> filter, Function<Person, Object> value) {
+        Map<Object, Long> counts = new HashMap<>();
+        persons.stream().filter(filter).forEach(person -> counts.merge(value.apply(person), 1L, Long::sum));
+        return counts.entrySet()
+                .stream()
+                .map(entry -> new FacetCount(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(FacetCount::count).reversed()
+                        .thenComparing(count -> (String) count.value(), Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    private static Map<String, List<FacetCount>> findFacets(SpecificationOperationService<Person> service,
+                                                            List<ComplexSearchParam> request,
+                                                            List<String> facetFields) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return service.findFacets(entityManager, Person.class, request, GlueOperation.AND, facetFields);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static SpecificationOperationService<Person> service(FacetProperties properties) {
+        ManualOperationProvider<Specification<Person>> fullName = new ManualOperationProvider<>() {
+            @Override
+            public String fieldName() {
+                return "fullName";
+            }
+
+            @Override
+            public Specification<Person> buildOperation(BaseSearchParam param) {
+                return (root, query, criteriaBuilder) -> criteriaBuilder.equal(
+                        criteriaBuilder.concat(criteriaBuilder.concat(root.get("name"), " "), root.get("surname")),
+                        Objects.toString(param.getValue()));
+            }
+        };
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(fullName),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .facetQueryExecutor(new FacetQueryExecutor(properties))
+                        .build()
+        );
+    }
+
+    private static Map<String, Object> nested(BaseSearchParam... params) {
+        return Map.of("baseSearchParams", List.of(params), "internalGlue", GlueOperation.AND.name());
+    }
+}
@@ -0,0 +1,123 @@
+package ru.sergkorot.dynamic.inlist;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.enums.InListMode;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * In-list modes over H2: persons 1..4 have ages 3..12, person 5 has no age
+ */
+class InListStrategyTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("in_list_strategy", Map.of(
+                AvailableSettings.STATEMENT_INSPECTOR, inspector,
+                AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true
+        ));
+        TestDatabase.fill(entityManagerFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void arrayHasElementTypeOfField() {
+        InListProperties properties = new InListProperties();
+        properties.setArrayThreshold(2);
+        InListStrategy strategy = new InListStrategy(properties);
+
+        assertThat(ids(strategy.in(Arrays.asList(null, 3L, "6"), "age"))).containsExactly(1L, 2L);
+        assertThat(lastStatement()).contains("array_contains");
+        assertThat(ids(strategy.notIn(List.of(3, 6, 9), "age"))).doesNotContain(1L, 2L, 3L, 5L).contains(4L);
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> ids(strategy.in(List.of(3, "three"), "age")))
+                .withMessageContaining("can not be converted to type Integer of field age");
+    }
+
+    @Test
+    void arrayReplacesChunks() {
+        InListProperties properties = new InListProperties();
+        properties.setChunkThreshold(2);
+        properties.setArrayThreshold(100);
+        InListStrategy strategy = new InListStrategy(properties);
+
+        assertThat(strategy.modeFor(3)).isEqualTo(InListMode.ARRAY);
+        assertThat(ids(strategy.in(List.of(3, 6, 9, 12, 15), "age"))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(lastStatement()).contains("array_contains").doesNotContain(" in ");
+    }
+
+    @Test
+    void chunksAreLimitedByMaxParameters() {
+        InListProperties properties = new InListProperties();
+        properties.setChunkThreshold(2);
+        properties.setChunkSize(2);
+        properties.setMaxParameters(5);
+        InListStrategy strategy = new InListStrategy(properties);
+
+        assertThat(ids(strategy.in(List.of(3, 6, 9, 12, 15), "age"))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(lastStatement()).contains(" or ");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> strategy.in(List.of(3, 6, 9, 12, 15, 18), "age"))
+                .withMessageContaining("exceeds limit of 5 bind parameters");
+    }
+
+    @Test
+    void paddingIsDoneByHibernate() {
+        InListProperties properties = new InListProperties();
+        assertThat(new InListStrategy(properties).modeFor(3)).isEqualTo(InListMode.PLAIN);
+
+        properties.setPadding(true);
+        InListStrategy strategy = new InListStrategy(properties);
+
+        assertThat(strategy.modeFor(3)).isEqualTo(InListMode.PADDING);
+        assertThat(ids(strategy.in(List.of(3, 6, 9), "age"))).containsExactly(1L, 2L, 3L);
+        assertThat(lastStatement()).contains("in (?,?,?,?)");
+    }
+
+    private static String lastStatement() {
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+
+    private static List<Long> ids(Specification<Person> specification) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Person> query = criteriaBuilder.createQuery(Person.class);
+            Root<Person> root = query.from(Person.class);
+            query.where(specification.toPredicate(root, query, criteriaBuilder)).orderBy(criteriaBuilder.asc(root.get("id")));
+            return entityManager.createQuery(query).getResultList().stream().map(Person::getId).toList();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
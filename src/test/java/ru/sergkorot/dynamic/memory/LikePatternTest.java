@@ -0,0 +1,57 @@
+package ru.sergkorot.dynamic.memory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Segment and regular expression matching of like patterns
+ */
+class LikePatternTest {
+
+    @Test
+    void percentMatchesAnySequence() {
+        assertThat(LikePattern.compile("%", false).matches("")).isTrue();
+        assertThat(LikePattern.compile("%", false).matches("any")).isTrue();
+        assertThat(LikePattern.compile("Na%", false).matches("Name")).isTrue();
+        assertThat(LikePattern.compile("Na%", false).matches("Ne")).isFalse();
+        assertThat(LikePattern.compile("%me", false).matches("Name")).isTrue();
+        assertThat(LikePattern.compile("%me", false).matches("Named")).isFalse();
+        assertThat(LikePattern.compile("%am%", false).matches("Name")).isTrue();
+        assertThat(LikePattern.compile("N%m%e", false).matches("Name")).isTrue();
+        assertThat(LikePattern.compile("N%e%m", false).matches("Name")).isFalse();
+    }
+
+    @Test
+    void anchoredSegmentsDoNotOverlap() {
+        assertThat(LikePattern.compile("a%a", false).matches("a")).isFalse();
+        assertThat(LikePattern.compile("a%a", false).matches("aa")).isTrue();
+        assertThat(LikePattern.compile("ab%bc", false).matches("abc")).isFalse();
+        assertThat(LikePattern.compile("%ab%ab", false).matches("xab")).isFalse();
+    }
+
+    @Test
+    void patternWithoutWildcardsMatchesWholeValue() {
+        assertThat(LikePattern.compile("Name", false).matches("Name")).isTrue();
+        assertThat(LikePattern.compile("Name", false).matches("Name1")).isFalse();
+        assertThat(LikePattern.compile("", false).matches("")).isTrue();
+        assertThat(LikePattern.compile("", false).matches("a")).isFalse();
+    }
+
+    @Test
+    void underscoreMatchesSingleCharacter() {
+        assertThat(LikePattern.compile("Name_", false).matches("Name1")).isTrue();
+        assertThat(LikePattern.compile("Name_", false).matches("Name12")).isFalse();
+        assertThat(LikePattern.compile("%m_1%", false).matches("Name12")).isTrue();
+        assertThat(LikePattern.compile("a.c_", false).matches("abcd")).as("literal is quoted").isFalse();
+        assertThat(LikePattern.compile("a.c_", false).matches("a.cd")).isTrue();
+    }
+
+    @Test
+    void caseIsIgnoredOnlyOnRequest() {
+        assertThat(LikePattern.compile("%NAME%", true).matches("name1")).isTrue();
+        assertThat(LikePattern.compile("%NAME%", false).matches("name1")).isFalse();
+        assertThat(LikePattern.compile("NAME_", true).matches("name1")).isTrue();
+        assertThat(LikePattern.compile("NAME_", false).matches("name1")).isFalse();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.sergkorot.dynamic.memory;
+
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.support.Department;
+import ru.sergkorot.dynamic.support.Person;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Conversion of values and semantics of single operations over java objects
+ */
+class PredicateOperationProviderImplTest {
+
+    private static final Department SALES = new Department(1L, "sales");
+    private static final Person FIRST = new Person(1L, "Name1", "surname1", 3, SALES);
+    private static final Person EMPTY = new Person(5L, "Name5", null, null, null);
+
+    private final PredicateOperationProviderImpl<Person> provider = new PredicateOperationProviderImpl<>(Person.class);
+
+    @Test
+    void valuesAreConvertedToFieldTypes() {
+        assertThat(provider.eq().buildPredicate(param("age", "eq", " 3 ")).test(FIRST)).isTrue();
+        assertThat(provider.in().buildPredicate(param("age", "in", List.of("3", 4L))).test(FIRST)).isTrue();
+        assertThat(provider.lessThan().buildPredicate(param("birthDate", "lt", "1998-01-01")).test(FIRST)).isTrue();
+        assertThat(provider.greaterThan().buildPredicate(param("id", "gt", 0)).test(FIRST)).isTrue();
+    }
+
+    @Test
+    void invalidValuesAreRejectedWhenPredicateIsBuilt() {
+        assertThatThrownBy(() -> provider.eq().buildPredicate(param("age", "eq", "three")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("value three can not be converted to type of field age");
+        assertThatThrownBy(() -> provider.lessThan().buildPredicate(param("department", "lt", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("field department of type Department is not comparable");
+    }
+
+    @Test
+    void nullValuesDoNotMatchComparisons() {
+        for (Predicate<Person> predicate : List.of(
+                provider.eq().buildPredicate(param("age", "eq", 3)),
+                provider.notEq().buildPredicate(param("age", "notEq", 3)),
+                provider.notIn().buildPredicate(param("age", "notIn", List.of(6))),
+                provider.lessThanOrEquals().buildPredicate(param("age", "le", 100)),
+                provider.like().buildPredicate(param("surname", "like", "%")),
+                provider.eq().buildPredicate(param("department.name", "eq", "sales"))
+        )) {
+            assertThat(predicate.test(EMPTY)).isFalse();
+        }
+        assertThat(provider.isNull().buildPredicate(param("department.name", "isNull", null)).test(EMPTY)).isTrue();
+        assertThat(provider.isNull().buildPredicate(param("department.name", "isNull", null)).test(FIRST)).isFalse();
+    }
+
+    @Test
+    void emptyListsMatchNothing() {
+        assertThat(provider.in().buildPredicate(param("age", "in", List.of())).test(FIRST)).isFalse();
+        assertThat(provider.notIn().buildPredicate(param("age", "notIn", List.of())).test(FIRST)).isFalse();
+    }
+
+    @Test
+    void likeIgnoresCaseAndContainsDoesNot() {
+        assertThat(provider.like().buildPredicate(param("name", "like", "NAME")).test(FIRST)).isTrue();
+        assertThat(provider.like().buildPredicate(param("name", "like", "name_")).test(FIRST)).isTrue();
+        assertThat(provider.contains().buildPredicate(param("surname", "contains", "sur, name1")).test(FIRST)).isTrue();
+        assertThat(provider.contains().buildPredicate(param("surname", "contains", "sur, Name1")).test(FIRST)).isFalse();
+    }
+}
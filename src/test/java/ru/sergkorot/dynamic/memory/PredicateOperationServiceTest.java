@@ -0,0 +1,176 @@
+package ru.sergkorot.dynamic.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Predicates over loaded entities must find the same rows as specifications in the database
+ */
+class PredicateOperationServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static SpecificationOperationService<Person> specificationService;
+    private static List<Person> persons;
+
+    private final PredicateOperationService<Person> predicateService = new PredicateOperationService<>(Person.class, OBJECT_MAPPER);
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("memory_predicates");
+        TestDatabase.fill(entityManagerFactory);
+        EntityAttributeRegistry attributeRegistry = new EntityAttributeRegistry(
+                entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+        specificationService = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder().attributeRegistry(attributeRegistry).build()
+        );
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            persons = entityManager.createQuery(
+                    "select p from Person p left join fetch p.department left join fetch p.parent order by p.id", Person.class)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void comparisonsMatchDatabase() {
+        assertSameRows(complex(param("name", "eq", "Name3")), 1);
+        assertSameRows(complex(param("age", "eq", "9")), 1);
+        assertSameRows(complex(param("surname", "notEq", "surname1")), 10);
+        assertSameRows(complex(param("age", "lt", "20")), 5);
+        assertSameRows(complex(param("age", "gt", "30")), 8);
+        assertSameRows(complex(param("age", "le", "12")), 4);
+        assertSameRows(complex(param("age", "ge", "57")), 1);
+        assertSameRows(complex(param("birthDate", "lt", "1960-01-01")), 5);
+    }
+
+    @Test
+    void textOperationsMatchDatabase() {
+        assertSameRows(complex(param("name", "like", "name1%")), 11);
+        assertSameRows(complex(param("name", "like", "AME2")), 2);
+        assertSameRows(complex(param("name", "like", "Name1_")), 10);
+        assertSameRows(complex(param("surname", "contains", "name1")), 6);
+        assertSameRows(complex(param("surname", "contains", "Name1")), 0);
+    }
+
+    @Test
+    void listsMatchDatabase() {
+        assertSameRows(complex(param("age", "in", List.of(3, 6, 9, 15))), 3);
+        assertSameRows(complex(param("age", "notIn", List.of("3", "6"))), 14);
+        assertSameRows(complex(param("age", "in", List.of())), 0);
+        assertSameRows(complex(param("age", "notIn", List.of())), 0);
+    }
+
+    @Test
+    void nullValuesMatchDatabase() {
+        assertSameRows(complex(param("surname", "isNull", null)), 4);
+        assertSameRows(complex(param("age", "notEq", "3")), 15);
+        assertSameRows(complex(GlueOperation.OR, param("age", "lt", "10"), param("surname", "isNull", null)), 7);
+    }
+
+    @Test
+    void dottedPathsMatchDatabase() {
+        assertSameRows(complex(param("department.name", "eq", "sales")), 6);
+        assertSameRows(complex(param("department.name", "in", List.of("sales", "support"))), 13);
+        assertSameRows(complex(param("parent.name", "eq", "Name1")), 1);
+        assertSameRows(complex(param("parent.age", "gt", "15")), 4);
+        assertSameRows(complex(param("parent.surname", "isNull", null)), 12);
+    }
+
+    @Test
+    void nestedOperationsMatchDatabase() {
+        assertSameRows(complex(param("surname", "nst:in", nested(param("age", "gt", "30")))), 16);
+        assertSameRows(complex(param("surname", "nst:notIn", nested(param("name", "eq", "Name3")))), 11);
+        assertSameRows(complex(param("surname", "nst:notIn", nested(param("name", "like", "name1%")))), 0);
+        assertSameRows(complex(param("surname", "nst:notIn", nested(param("name", "eq", "nobody")))), 20);
+        assertSameRows(complex(param("age", "nst:eq", nested(param("name", "eq", "Name2")))), 1);
+        assertSameRows(complex(param("name", "nst:gt", nested(param("name", "eq", "Name18")))), 10);
+        assertSameRows(complex(param("department.name", "nst:in", nested(param("name", "eq", "Name4")))), 7);
+    }
+
+    @Test
+    void nestedOperationRequiresSource() {
+        List<ComplexSearchParam> request = complex(param("surname", "nst:in", nested(param("age", "gt", "30"))));
+
+        assertThatThrownBy(() -> predicateService.buildComplexByParams(request, GlueOperation.AND))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("requires source objects");
+    }
+
+    private void assertSameRows(List<ComplexSearchParam> request, int expectedSize) {
+        List<Long> expected;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            expected = specificationService.findPage(entityManager, Person.class, request, GlueOperation.AND,
+                            PageRequest.of(0, 50, Sort.by("id")))
+                    .getContent()
+                    .stream()
+                    .map(Person::getId)
+                    .toList();
+        } finally {
+            entityManager.close();
+        }
+
+        List<Long> actual = predicateService.filter(persons, request, GlueOperation.AND)
+                .stream()
+                .map(Person::getId)
+                .toList();
+
+        String description = request.get(0).getBaseSearchParams()
+                .stream()
+                .map(param -> param.getName() + " " + param.getOperation() + " " + param.getValue())
+                .toList()
+                .toString();
+        assertThat(expected).as("database: %s", description).hasSize(expectedSize);
+        assertThat(actual).as("memory: %s", description).isEqualTo(expected);
+    }
+
+    private static Map<String, Object> nested(BaseSearchParam... params) {
+        return Map.of("baseSearchParams", List.of(params), "internalGlue", GlueOperation.AND.name());
+    }
+}
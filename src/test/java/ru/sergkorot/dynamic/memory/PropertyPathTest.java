@@ -0,0 +1,109 @@
+package ru.sergkorot.dynamic.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Accessors of fields and dotted paths through getters, record components, private fields and collections
+ */
+class PropertyPathTest {
+
+    @Test
+    void dottedPathReadsNestedValues() {
+        Order order = new Order(new Customer("Jo", new Region("EU")), List.of());
+        PropertyPath path = PropertyPath.of(Order.class, "customer.region.code");
+
+        assertThat(path.get(order)).isEqualTo("EU");
+        assertThat(path.getType()).isEqualTo(String.class);
+        assertThat(path.getPath()).isEqualTo("customer.region.code");
+        assertThat(PropertyPath.of(Order.class, "customer.region.code")).as("accessor is cached").isSameAs(path);
+    }
+
+    @Test
+    void nullOnPathIsTestedAsNullValue() {
+        PropertyPath path = PropertyPath.of(Order.class, "customer.region.code");
+
+        assertThat(path.get(new Order(null, List.of()))).isNull();
+        assertThat(path.test(new Order(new Customer("Jo", null), List.of()), Objects::isNull)).isTrue();
+        assertThat(path.test(new Order(new Customer("Jo", null), List.of()), "EU"::equals)).isFalse();
+    }
+
+    @Test
+    void pathThroughCollectionMatchesAnyElement() {
+        PropertyPath path = PropertyPath.of(Order.class, "lines.sku");
+        Order order = new Order(null, List.of(new Line("a", 1), new Line("b", 2)));
+
+        assertThat(path.getType()).isEqualTo(String.class);
+        assertThat(path.test(order, "b"::equals)).isTrue();
+        assertThat(path.test(order, "c"::equals)).isFalse();
+        assertThat(path.test(new Order(null, List.of()), Objects::isNull)).as("empty collection as left join").isTrue();
+    }
+
+    @Test
+    void primitiveAndPrivateMembersAreRead() {
+        PropertyPath quantity = PropertyPath.of(Order.class, "lines.quantity");
+        PropertyPath note = PropertyPath.of(Line.class, "note");
+
+        assertThat(quantity.getType()).isEqualTo(Integer.class);
+        assertThat(quantity.test(new Order(null, List.of(new Line("a", 3))), Integer.valueOf(3)::equals)).isTrue();
+        assertThat(note.get(new Line("a", 1))).isEqualTo("note of a");
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThatThrownBy(() -> PropertyPath.of(Order.class, "customer.phone"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("field phone is not found in Customer by path customer.phone");
+    }
+
+    record Region(String code) {
+    }
+
+    record Customer(String name, Region region) {
+    }
+
+    public static class Order {
+
+        private final Customer customer;
+        private final List<Line> lines;
+
+        Order(Customer customer, List<Line> lines) {
+            this.customer = customer;
+            this.lines = lines;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+    }
+
+    public static class Line {
+
+        private final String sku;
+        private final int quantity;
+        private final String note;
+
+        Line(String sku, int quantity) {
+            this.sku = sku;
+            this.quantity = quantity;
+            this.note = "note of " + sku;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.sergkorot.dynamic.metamodel;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.ast.NestedNode;
+import ru.sergkorot.dynamic.ast.SearchTreeSimplifier;
+import ru.sergkorot.dynamic.enums.NestedOperation;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.support.Department;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Paths are resolved through self references and associations on demand
+ */
+class EntityAttributeRegistryTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry registry;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("entity_attribute_registry");
+        registry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void selfReferencingAndDeepPathsAreResolved() {
+        assertThat(registry.get(Person.class, "age").getJavaType()).isEqualTo(Integer.class);
+        assertThat(registry.get(Person.class, "parent.parent.name").getJavaType()).isEqualTo(String.class);
+        assertThat(registry.get(Person.class, "parent.parent.parent.department.name").getJavaType()).isEqualTo(String.class);
+
+        EntityAttribute parent = registry.get(Person.class, "parent.parent");
+        assertThat(parent.isAssociation()).isTrue();
+        assertThat(parent.getJavaType()).isEqualTo(Person.class);
+        assertThat(registry.get(Person.class, "parent.parent")).isSameAs(parent);
+    }
+
+    @Test
+    void unknownPathsAreNotFound() {
+        assertThat(registry.find(Person.class, "unknown")).isEmpty();
+        assertThat(registry.find(Person.class, "department.unknown")).isEmpty();
+        assertThat(registry.find(Person.class, "name.length")).isEmpty();
+        assertThat(registry.find(Person.class, "parent..name")).isEmpty();
+        assertThat(registry.find(Department.class, "parent")).isEmpty();
+        assertThat(registry.find(String.class, "name")).isEmpty();
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> registry.get(Person.class, "department.unknown"))
+                .withMessage("field department.unknown not found for entity Person");
+    }
+
+    @Test
+    void tooDeepPathIsReportedSeparately() {
+        String path = "parent.".repeat(EntityAttributeRegistry.MAX_PATH_DEPTH) + "name";
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> registry.find(Person.class, path))
+                .withMessageContaining("maximum depth is " + EntityAttributeRegistry.MAX_PATH_DEPTH);
+    }
+
+    @Test
+    void unknownFieldsAreRejectedWhenRequestIsParsed() {
+        GroupNode condition = new GroupNode(GlueOperation.AND, List.of(new ConditionNode("unknown", "eq", "1", false)));
+        GroupNode nested = new GroupNode(GlueOperation.AND, List.of(new NestedNode("id", NestedOperation.IN, condition)));
+        GroupNode emptyIn = new GroupNode(GlueOperation.AND, List.of(new ConditionNode("unknown", "in", List.of(), false)));
+        GroupNode manual = new GroupNode(GlueOperation.AND, List.of(new ConditionNode("unknown", "eq", "1", true)));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> SearchTreeSimplifier.simplify(condition, Person.class, registry))
+                .withMessage("field unknown not found for entity Person");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> SearchTreeSimplifier.simplify(nested, Person.class, registry));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> SearchTreeSimplifier.simplify(emptyIn, Person.class, registry));
+        assertThat(SearchTreeSimplifier.simplify(manual, Person.class, registry)).isEqualTo(manual);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.sergkorot.dynamic.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.ast.SearchRequestParser;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Meters recorded by search requests and bounded operation tag of predicate timers
+ */
+class MicrometerOperationMetricsTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("micrometer_metrics");
+        TestDatabase.fill(entityManagerFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void searchRecordsBuildPredicatesInListAndNesting() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        SpecificationOperationProviderImpl<Person> operationProvider = new SpecificationOperationProviderImpl<>();
+        SpecificationOperationService<Person> service = new SpecificationOperationService<>(
+                operationProvider,
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .operationMetrics(new MicrometerOperationMetrics(registry, SearchRequestParser.operationsOf(operationProvider)))
+                        .build()
+        );
+
+        List<ComplexSearchParam> request = complex(
+                param("age", "in", List.of(3, 6, 9)),
+                param("name", "contains", "Name"),
+                param("surname", "nst:in", Map.of(
+                        "baseSearchParams", List.of(param("age", "gt", "30")),
+                        "internalGlue", GlueOperation.AND.name()))
+        );
+        service.buildComplexByParams(request, GlueOperation.AND);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            service.findPage(entityManager, Person.class, request, GlueOperation.AND, PageRequest.of(0, 10, Sort.by("id")));
+        } finally {
+            entityManager.close();
+        }
+
+        assertThat(registry.get("operation.search.build").tag("type", "complex").timer().count()).isEqualTo(1);
+        assertThat(registry.get("operation.search.params").summary().totalAmount()).isEqualTo(3);
+        assertThat(registry.get("operation.search.in.size").summary().max()).isEqualTo(3);
+        assertThat(registry.get("operation.search.nesting.depth").summary().max()).isEqualTo(1);
+        assertThat(predicateTimer(registry, "in", false).count()).isPositive();
+        assertThat(predicateTimer(registry, "contains", false).count()).isPositive();
+        assertThat(predicateTimer(registry, "in", true).count()).isPositive();
+        assertThat(predicateTimer(registry, "gt", false).count()).as("condition of nested request").isPositive();
+    }
+
+    @Test
+    void unknownOperationsShareOneTag() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerOperationMetrics metrics = new MicrometerOperationMetrics(registry);
+        Specification<Person> specification = (root, query, criteriaBuilder) -> null;
+
+        for (int i = 0; i < 100; i++) {
+            metrics.instrument(specification, "operation" + i, false, null).toPredicate(null, null, null);
+        }
+        metrics.instrument(specification, "eq", false, null).toPredicate(null, null, null);
+        metrics.instrument(specification, "contains", true, null).toPredicate(null, null, null);
+
+        assertThat(registry.find("operation.search.predicate").timers()).hasSize(3);
+        assertThat(predicateTimer(registry, "other", false).count()).isEqualTo(100);
+        assertThat(predicateTimer(registry, "eq", false).count()).isEqualTo(1);
+        assertThat(predicateTimer(registry, "contains", true).count()).as("operation of nested request").isEqualTo(1);
+    }
+
+    private static Timer predicateTimer(MeterRegistry registry, String operation, boolean nested) {
+        return registry.get("operation.search.predicate")
+                .tag("operation", operation)
+                .tag("nested", String.valueOf(nested))
+                .tag("manual", "none")
+                .timer();
+    }
+}
@@ -0,0 +1,171 @@
+package ru.sergkorot.dynamic.nested;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.cache.QueryCacheProperties;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.enums.NestedStrategy;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Exists strategy must find the same rows as in/not in subquery, including null values of field and subquery
+ */
+class NestedStrategyTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final PageRequest PAGE = PageRequest.of(0, 50, Sort.by("id"));
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("nested_strategy", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void notInExcludesNullFieldWithBothStrategies() {
+        List<ComplexSearchParam> request = complex(param("surname", "nst:notIn", nested(param("name", "eq", "Name3"))));
+
+        for (boolean cached : new boolean[]{false, true}) {
+            assertThat(ids(NestedStrategy.SUBQUERY, cached, request)).hasSize(11);
+            assertThat(lastSelect()).contains(" not in").doesNotContain("exists");
+
+            assertThat(ids(NestedStrategy.EXISTS, cached, request)).hasSize(11);
+            assertThat(lastSelect()).contains("not exists").contains("is not null").doesNotContain(" not in");
+        }
+    }
+
+    @Test
+    void notInFindsNothingWhenSubqueryReturnsNullWithBothStrategies() {
+        List<ComplexSearchParam> request = complex(param("surname", "nst:notIn", nested(param("name", "like", "name1%"))));
+
+        for (boolean cached : new boolean[]{false, true}) {
+            assertThat(ids(NestedStrategy.SUBQUERY, cached, request)).isEmpty();
+            assertThat(ids(NestedStrategy.EXISTS, cached, request)).isEmpty();
+        }
+    }
+
+    @Test
+    void notInFindsNullFieldWhenSubqueryIsEmptyWithBothStrategies() {
+        List<ComplexSearchParam> request = complex(param("surname", "nst:notIn", nested(param("name", "eq", "nobody"))));
+
+        for (boolean cached : new boolean[]{false, true}) {
+            assertThat(ids(NestedStrategy.SUBQUERY, cached, request)).hasSize(20);
+            assertThat(ids(NestedStrategy.EXISTS, cached, request)).hasSize(20);
+            assertThat(lastSelect()).contains("not exists").doesNotContain(" not in");
+        }
+    }
+
+    @Test
+    void strategiesFindTheSameRows() {
+        List<List<ComplexSearchParam>> requests = List.of(
+                complex(param("surname", "nst:in", nested(param("age", "gt", "30")))),
+                complex(param("surname", "nst:in", nested(param("name", "like", "name1%")))),
+                complex(param("age", "nst:notIn", nested(param("age", "lt", "10")))),
+                complex(param("age", "nst:notIn", nested(param("surname", "isNull", null)))),
+                complex(param("department.name", "nst:notIn", nested(param("age", "gt", "50")))),
+                complex(param("age", "nst:notIn", nested(param("age", "gt", "100"))))
+        );
+
+        for (List<ComplexSearchParam> request : requests) {
+            List<Long> expected = ids(NestedStrategy.SUBQUERY, false, request);
+            assertThat(ids(NestedStrategy.EXISTS, false, request)).isEqualTo(expected);
+            assertThat(lastSelect()).contains("exists");
+            assertThat(ids(NestedStrategy.EXISTS, true, request)).isEqualTo(expected);
+            assertThat(lastSelect()).contains("exists");
+        }
+    }
+
+    private static String lastSelect() {
+        for (int i = STATEMENTS.size() - 1; i >= 0; i--) {
+            if (STATEMENTS.get(i).startsWith("select") && !STATEMENTS.get(i).startsWith("select count")) {
+                return STATEMENTS.get(i);
+            }
+        }
+        throw new AssertionError("no select statement");
+    }
+
+    private static List<Long> ids(NestedStrategy strategy, boolean cached, List<ComplexSearchParam> request) {
+        NestedQueryProperties nestedQueryProperties = new NestedQueryProperties();
+        nestedQueryProperties.setDefaultStrategy(strategy);
+        QueryTemplateCache cache = cached
+                ? new QueryTemplateCache(new QueryCacheProperties(), nestedQueryProperties)
+                : null;
+        SpecificationOperationService<Person> service = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder()
+                        .queryTemplateCache(cache)
+                        .nestedQueryProperties(nestedQueryProperties)
+                        .attributeRegistry(attributeRegistry)
+                        .build()
+        );
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<Long> ids = service.findPage(entityManager, Person.class, request, GlueOperation.AND, PAGE)
+                    .getContent()
+                    .stream()
+                    .map(Person::getId)
+                    .toList();
+            if (cached) {
+                assertThat(cache.getMissCount()).as("request is templated").isEqualTo(1);
+            }
+            return ids;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static Map<String, Object> nested(BaseSearchParam... params) {
+        return Map.of("baseSearchParams", List.of(params), "internalGlue", GlueOperation.AND.name());
+    }
+}
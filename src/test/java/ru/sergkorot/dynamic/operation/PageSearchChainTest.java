@@ -0,0 +1,70 @@
+package ru.sergkorot.dynamic.operation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stages of page search are executed in order, each stage either finds page or passes search further
+ */
+class PageSearchChainTest {
+
+    private static final PageSearch<Person> SEARCH =
+            new PageSearch<>(null, Person.class, new GroupNode(GlueOperation.AND, List.of()), Pageable.unpaged(), false);
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void stagesAreExecutedInOrder() {
+        CountedPage<Person> page = new CountedPage<>(List.of(), Pageable.unpaged(), 7, true);
+        PageSearchChain<Person> chain = new PageSearchChain<>(List.of(
+                wrapping("cache"),
+                wrapping("admission"),
+                (search, next) -> {
+                    calls.add("query");
+                    return page;
+                },
+                wrapping("unreachable")
+        ));
+
+        assertThat(chain.find(SEARCH)).isSameAs(page);
+        assertThat(calls).containsExactly("cache", "admission", "query", "/admission", "/cache");
+    }
+
+    @Test
+    void stageMayReplaceSearch() {
+        PageSearchChain<Person> chain = new PageSearchChain<>(List.of(
+                (search, next) -> next.apply(new PageSearch<>(null, Person.class, search.tree(), search.pageable(), true)),
+                (search, next) -> new CountedPage<>(List.of(), search.pageable(), search.admitted() ? 1 : 0, true)
+        ));
+
+        assertThat(chain.find(SEARCH).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void chainWithoutLastStageIsRejected() {
+        assertThatThrownBy(() -> new PageSearchChain<Person>(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PageSearchChain<>(List.of(wrapping("cache"))).find(SEARCH))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(Person.class.getName());
+    }
+
+    private PageSearchStage<Person> wrapping(String name) {
+        return (search, next) -> {
+            calls.add(name);
+            CountedPage<Person> page = next.apply(search);
+            calls.add("/" + name);
+            return page;
+        };
+    }
+}
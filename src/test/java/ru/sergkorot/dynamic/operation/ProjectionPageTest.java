@@ -0,0 +1,309 @@
+package ru.sergkorot.dynamic.operation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.paging.KeysetPageRequest;
+import ru.sergkorot.dynamic.result.LocalResultCacheStore;
+import ru.sergkorot.dynamic.result.ResultCacheProperties;
+import ru.sergkorot.dynamic.result.SearchResultCache;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Tuple, DTO and interface projections read only selected columns and page, count and seek the same rows as entities
+ */
+class ProjectionPageTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final List<String> FIELDS = List.of("id", "name", "department.name");
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("projection_page", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void tupleSelectsOnlyRequestedColumns() {
+        SpecificationOperationService<Person> service = service(null);
+        PageRequest pageable = PageRequest.of(0, 5, Sort.by("id"));
+
+        inEntityManager(entityManager -> {
+            CountedPage<Tuple> page = service.findPage(entityManager, Person.class, adults(service), FIELDS, pageable);
+
+            assertThat(page.getContent()).hasSize(5);
+            Tuple first = page.getContent().get(0);
+            assertThat(first.getElements()).extracting(TupleElement::getAlias).containsExactlyElementsOf(FIELDS);
+            assertThat(first.get("id")).isEqualTo(4L);
+            assertThat(first.get("name")).isEqualTo("Name4");
+            assertThat(first.get("department.name")).isEqualTo("development");
+            assertThat(page.getTotalElements()).isEqualTo(13);
+            assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount())
+                    .as("entities are not loaded").isZero();
+            return null;
+        });
+        String select = STATEMENTS.stream().filter(sql -> !sql.startsWith("select count")).findFirst().orElseThrow();
+        assertThat(select).doesNotContain("surname").doesNotContain("birthdate").contains("left join");
+    }
+
+    @Test
+    void dtoRecordAndInterfaceProjectionsMatchEntities() {
+        SpecificationOperationService<Person> service = service(null);
+        PageRequest pageable = PageRequest.of(1, 4, Sort.by(Sort.Order.desc("name")));
+
+        inEntityManager(entityManager -> {
+            CountedPage<Person> entities = service.findPage(entityManager, Person.class,
+                    complex(param("age", "gt", "10")), GlueOperation.AND, pageable);
+            List<PersonRow> expected = entities.getContent()
+                    .stream()
+                    .map(person -> new PersonRow(person.getId(), person.getName(), person.getDepartment().getName()))
+                    .toList();
+
+            CountedPage<PersonRow> records = service.findPage(entityManager, Person.class, adults(service), PersonRow.class, FIELDS, pageable);
+            CountedPage<PersonDto> dtos = service.findPage(entityManager, Person.class, adults(service), PersonDto.class, FIELDS, pageable);
+            CountedPage<PersonView> views = service.findPage(entityManager, Person.class, adults(service), PersonView.class, FIELDS, pageable);
+
+            assertThat(records.getContent()).containsExactlyElementsOf(expected);
+            assertThat(dtos.getContent()).extracting(PersonDto::toRow).containsExactlyElementsOf(expected);
+            assertThat(views.getContent()).extracting(PersonView::toRow).containsExactlyElementsOf(expected);
+            for (CountedPage<?> page : List.of(records, dtos, views)) {
+                assertThat(page.getTotalElements()).isEqualTo(entities.getTotalElements());
+                assertThat(page.getNumber()).isEqualTo(1);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void countIsSkippedForLastShortPage() {
+        SpecificationOperationService<Person> service = service(null);
+
+        inEntityManager(entityManager -> {
+            CountedPage<PersonRow> full = service.findPage(entityManager, Person.class, adults(service), PersonRow.class, FIELDS,
+                    PageRequest.of(0, 5, Sort.by("id")));
+            assertThat(countStatements()).isEqualTo(1);
+
+            CountedPage<PersonRow> last = service.findPage(entityManager, Person.class, adults(service), PersonRow.class, FIELDS,
+                    PageRequest.of(2, 5, Sort.by("id")));
+            assertThat(countStatements()).as("total of short page is known from content").isEqualTo(1);
+
+            assertThat(full.getTotalElements()).isEqualTo(13);
+            assertThat(last.getContent()).hasSize(3);
+            assertThat(last.getTotalElements()).isEqualTo(13);
+            assertThat(last.isTotalExact()).isTrue();
+            return null;
+        });
+    }
+
+    @Test
+    void keysetWalksAllRowsForEachProjection() {
+        SpecificationOperationService<Person> service = service(null);
+        List<Sort.Order> byDepartment = List.of(Sort.Order.desc("department.name"), Sort.Order.asc("name"), Sort.Order.asc("id"));
+        List<Sort.Order> byName = List.of(Sort.Order.desc("name"), Sort.Order.asc("id"));
+
+        assertThat(seek(service, byDepartment, (page, entityManager) -> service.findPage(entityManager, Person.class,
+                adults(service).and(page.toSpecification()), FIELDS, page.toPageable()), tuple -> tuple.get("id", Long.class)))
+                .isEqualTo(sortedIds(service, byDepartment));
+        assertThat(seek(service, byDepartment, (page, entityManager) -> service.findPage(entityManager, Person.class,
+                adults(service).and(page.toSpecification()), PersonView.class, FIELDS, page.toPageable()), PersonView::getId))
+                .isEqualTo(sortedIds(service, byDepartment));
+        assertThat(seek(service, byName, (page, entityManager) -> service.findPage(entityManager, Person.class,
+                adults(service).and(page.toSpecification()), PersonRow.class, FIELDS, page.toPageable()), PersonRow::id))
+                .as("record is read by its components")
+                .isEqualTo(sortedIds(service, byName));
+    }
+
+    @Test
+    void keysetRequiresSelectedSortFields() {
+        SpecificationOperationService<Person> service = service(null);
+        KeysetPageRequest page = KeysetPageRequest.of(2, List.of(Sort.Order.asc("age"), Sort.Order.asc("id")), null, OBJECT_MAPPER);
+
+        inEntityManager(entityManager -> {
+            CountedPage<PersonRow> rows = service.findPage(entityManager, Person.class,
+                    adults(service).and(page.toSpecification()), PersonRow.class, FIELDS, page.toPageable());
+
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> page.nextCursor(rows.getContent()))
+                    .withMessage("sort field age is not selected by projection");
+            return null;
+        });
+    }
+
+    @Test
+    void projectionsBypassResultCache() {
+        SearchResultCache cache = new SearchResultCache(new LocalResultCacheStore(new ResultCacheProperties()), null);
+        SpecificationOperationService<Person> service = service(cache);
+        PageRequest pageable = PageRequest.of(0, 3, Sort.by("id"));
+        inEntityManager(entityManager -> service.findPage(entityManager, Person.class,
+                complex(param("age", "gt", "10")), GlueOperation.AND, pageable));
+
+        TestDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager.find(Person.class, 4L).setName("Changed4"));
+        try {
+            STATEMENTS.clear();
+            List<PersonRow> rows = inEntityManager(entityManager -> service.findPage(entityManager, Person.class,
+                    adults(service), PersonRow.class, FIELDS, pageable).getContent());
+
+            assertThat(rows.get(0).name()).isEqualTo("Changed4");
+            assertThat(STATEMENTS).anyMatch(sql -> sql.startsWith("select") && !sql.startsWith("select count"));
+        } finally {
+            TestDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager.find(Person.class, 4L).setName("Name4"));
+        }
+    }
+
+    private static List<Long> sortedIds(SpecificationOperationService<Person> service, List<Sort.Order> orders) {
+        return inEntityManager(entityManager -> service.findPage(entityManager, Person.class,
+                        complex(param("age", "gt", "10")), GlueOperation.AND, PageRequest.of(0, 50, Sort.by(orders)))
+                .getContent()
+                .stream()
+                .map(Person::getId)
+                .toList());
+    }
+
+    private static <R> List<Long> seek(SpecificationOperationService<Person> service,
+                                       List<Sort.Order> orders,
+                                       PageFinder<R> finder,
+                                       Function<R, Long> id) {
+        List<Long> ids = new ArrayList<>();
+        String[] cursor = new String[1];
+        int pages = 0;
+        do {
+            KeysetPageRequest page = KeysetPageRequest.of(3, orders, cursor[0], OBJECT_MAPPER);
+            inEntityManager(entityManager -> {
+                List<R> content = finder.find(page, entityManager).getContent();
+                content.stream().map(id).forEach(ids::add);
+                cursor[0] = page.nextCursor(content);
+                return null;
+            });
+            assertThat(++pages).isLessThanOrEqualTo(20);
+        } while (cursor[0] != null);
+        return ids;
+    }
+
+    private static Specification<Person> adults(SpecificationOperationService<Person> service) {
+        return service.buildComplexByParams(complex(param("age", "gt", "10")), GlueOperation.AND);
+    }
+
+    private static long countStatements() {
+        return STATEMENTS.stream().filter(sql -> sql.startsWith("select count")).count();
+    }
+
+    private static <R> R inEntityManager(Function<EntityManager, R> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return action.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static SpecificationOperationService<Person> service(SearchResultCache resultCache) {
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .resultCache(resultCache)
+                        .build()
+        );
+    }
+
+    @FunctionalInterface
+    private interface PageFinder<R> {
+        CountedPage<R> find(KeysetPageRequest page, EntityManager entityManager);
+    }
+
+    public record PersonRow(Long id, String name, String departmentName) {
+    }
+
+    public static class PersonDto {
+
+        private final Long id;
+        private final String name;
+        private final String departmentName;
+
+        public PersonDto(Long id, String name, String departmentName) {
+            this.id = id;
+            this.name = name;
+            this.departmentName = departmentName;
+        }
+
+        PersonRow toRow() {
+            return new PersonRow(id, name, departmentName);
+        }
+    }
+
+    public interface PersonView {
+
+        Long getId();
+
+        String getName();
+
+        DepartmentView getDepartment();
+
+        default PersonRow toRow() {
+            return new PersonRow(getId(), getName(), getDepartment().getName());
+        }
+    }
+
+    public interface DepartmentView {
+
+        String getName();
+    }
+}
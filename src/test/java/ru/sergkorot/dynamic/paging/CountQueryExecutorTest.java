@@ -0,0 +1,148 @@
+package ru.sergkorot.dynamic.paging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.cache.QueryCacheProperties;
+import ru.sergkorot.dynamic.cache.QueryTemplateCache;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.nested.NestedQueryProperties;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Totals above threshold are estimated by bounded count: 16 of 20 persons have age
+ */
+class CountQueryExecutorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final PageRequest PAGE = PageRequest.of(0, 2, Sort.by("id"));
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("count_query_executor", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void totalAboveThresholdIsEstimatedByBoundedCount() {
+        for (QueryTemplateCache cache : new QueryTemplateCache[]{null, templateCache()}) {
+            STATEMENTS.clear();
+            CountedPage<Person> page = findPage(service(cache, 5), param("age", "gt", "0"));
+
+            assertThat(page.getContent()).hasSize(2);
+            assertThat(page.getTotalElements()).isEqualTo(6);
+            assertThat(page.isTotalExact()).isFalse();
+            assertThat(lastStatement())
+                    .as("rows are counted in derived table by the database")
+                    .startsWith("select count(")
+                    .contains("from (select");
+        }
+    }
+
+    @Test
+    void totalUnderThresholdIsExact() {
+        for (QueryTemplateCache cache : new QueryTemplateCache[]{null, templateCache()}) {
+            CountedPage<Person> page = findPage(service(cache, 20), param("age", "gt", "0"));
+
+            assertThat(page.getTotalElements()).isEqualTo(16);
+            assertThat(page.isTotalExact()).isTrue();
+        }
+    }
+
+    @Test
+    void nestedConditionIsCountedInDerivedTable() {
+        BaseSearchParam nested = param("id", "nst:in", Map.of(
+                "baseSearchParams", List.of(param("age", "gt", "30")),
+                "internalGlue", GlueOperation.AND.name()
+        ));
+
+        CountedPage<Person> page = findPage(service(null, 100), nested);
+
+        assertThat(page.getTotalElements()).isEqualTo(8);
+        assertThat(page.isTotalExact()).isTrue();
+    }
+
+    private static CountedPage<Person> findPage(SpecificationOperationService<Person> service, BaseSearchParam param) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return service.findPage(entityManager, Person.class, complex(param), GlueOperation.AND, PAGE);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static String lastStatement() {
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+
+    private static QueryTemplateCache templateCache() {
+        return new QueryTemplateCache(new QueryCacheProperties(), new NestedQueryProperties());
+    }
+
+    private static SpecificationOperationService<Person> service(QueryTemplateCache cache, long estimateThreshold) {
+        CountProperties countProperties = new CountProperties();
+        countProperties.setEstimateThreshold(estimateThreshold);
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                OBJECT_MAPPER,
+                SearchFeatures.builder()
+                        .queryTemplateCache(cache)
+                        .attributeRegistry(attributeRegistry)
+                        .countQueryExecutor(new CountQueryExecutor(countProperties))
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package ru.sergkorot.dynamic.paging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Walking all pages by cursor must return every row once in order of the sort with nulls last
+ */
+class KeysetPageRequestTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("keyset_page_request");
+        TestDatabase.fill(entityManagerFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void nullableAscendingSortReturnsEveryRowOnce() {
+        assertPagesInOrder(List.of(Sort.Order.asc("age"), Sort.Order.asc("id")),
+                Comparator.comparing(Person::getAge, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Person::getId));
+    }
+
+    @Test
+    void nullableDescendingSortReturnsEveryRowOnce() {
+        assertPagesInOrder(List.of(Sort.Order.desc("surname"), Sort.Order.asc("age"), Sort.Order.desc("id")),
+                Comparator.comparing(Person::getSurname, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+                        .thenComparing(Person::getAge, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Person::getId, Comparator.reverseOrder()));
+    }
+
+    @Test
+    void associationSortIsReadByAttributePath() {
+        assertPagesInOrder(List.of(Sort.Order.desc("department.name"), Sort.Order.asc("id")),
+                Comparator.comparing((Person person) -> person.getDepartment().getName(), Comparator.reverseOrder())
+                        .thenComparing(Person::getId));
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String cursor = firstPageCursor(List.of(Sort.Order.asc("age"), Sort.Order.asc("id")));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> KeysetPageRequest.of(3, List.of(Sort.Order.desc("age"), Sort.Order.asc("id")), cursor, OBJECT_MAPPER))
+                .withMessageContaining("cursor was created for sorting");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> KeysetPageRequest.of(3, List.of(Sort.Order.asc("name"), Sort.Order.asc("id")), cursor, OBJECT_MAPPER));
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> KeysetPageRequest.of(3, List.of(Sort.Order.asc("id")), "not-a-cursor", OBJECT_MAPPER))
+                .withMessage("cursor is malformed");
+    }
+
+    @Test
+    void cursorRequiresAppliedSpecification() {
+        KeysetPageRequest page = KeysetPageRequest.of(1, List.of(Sort.Order.asc("id")), null, OBJECT_MAPPER);
+
+        assertThatIllegalStateException().isThrownBy(() -> page.nextCursor(List.of(new Person())));
+    }
+
+    private void assertPagesInOrder(List<Sort.Order> orders, Comparator<Person> expectedOrder) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            SimpleJpaRepository<Person, Long> repository = new SimpleJpaRepository<>(Person.class, entityManager);
+            List<Long> expected = repository.findAll().stream()
+                    .sorted(expectedOrder)
+                    .map(Person::getId)
+                    .toList();
+
+            List<Long> actual = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                KeysetPageRequest page = KeysetPageRequest.of(3, orders, cursor, OBJECT_MAPPER);
+                List<Person> content = repository.findAll(page.<Person>toSpecification(), page.toPageable()).getContent();
+                content.stream().map(Person::getId).forEach(actual::add);
+                cursor = page.nextCursor(content);
+                assertThat(++pages).isLessThanOrEqualTo(expected.size());
+            } while (cursor != null);
+
+            assertThat(actual).containsExactlyElementsOf(expected);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private String firstPageCursor(List<Sort.Order> orders) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            SimpleJpaRepository<Person, Long> repository = new SimpleJpaRepository<>(Person.class, entityManager);
+            KeysetPageRequest page = KeysetPageRequest.of(3, orders, null, OBJECT_MAPPER);
+            return page.nextCursor(repository.findAll(page.<Person>toSpecification(), page.toPageable()).getContent());
+        } finally {
+            entityManager.close();
+        }
+    }
+}
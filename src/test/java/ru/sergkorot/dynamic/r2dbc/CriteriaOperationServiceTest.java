@@ -0,0 +1,108 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import reactor.core.publisher.Flux;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+class CriteriaOperationServiceTest {
+
+    private static R2dbcEntityTemplate template;
+
+    @BeforeAll
+    static void setUp() {
+        template = new R2dbcEntityTemplate(H2ConnectionFactory.inMemory("criteria_operation_service"));
+        template.getDatabaseClient()
+                .sql("create table item (id bigint primary key, name varchar(255), price int)")
+                .then()
+                .block();
+        Flux.range(1, 20)
+                .concatMap(i -> template.getDatabaseClient()
+                        .sql("insert into item (id, name, price) values (:id, :name, :price)")
+                        .bind("id", (long) i)
+                        .bind("name", "item" + i)
+                        .bind("price", i * 10)
+                        .then())
+                .blockLast();
+    }
+
+    @Test
+    void nestedValuesUnderLimitAreResolved() {
+        CriteriaQueryProperties properties = new CriteriaQueryProperties();
+        properties.setMaxNestedValues(5);
+
+        List<Item> items = service(properties).search(Item.class,
+                        complex(param("id", "nst:in", nested(param("price", "lt", "60")))),
+                        GlueOperation.AND,
+                        Pageable.unpaged())
+                .collectList()
+                .block();
+
+        assertEquals(5, items.size());
+    }
+
+    @Test
+    void nestedValuesOverLimitAreRejected() {
+        CriteriaQueryProperties properties = new CriteriaQueryProperties();
+        properties.setMaxNestedValues(5);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> service(properties).search(Item.class,
+                                complex(param("id", "nst:in", nested(param("price", "lt", "70")))),
+                                GlueOperation.AND,
+                                Pageable.unpaged())
+                        .collectList()
+                        .block());
+
+        assertTrue(exception.getMessage().contains("more than 5 values"));
+    }
+
+    @Test
+    void containsIsAllowedForStringField() {
+        Long count = service(new CriteriaQueryProperties())
+                .count(Item.class, complex(param("name", "contains", "item1")), GlueOperation.AND)
+                .block();
+
+        assertEquals(11, count);
+    }
+
+    @Test
+    void containsIsRejectedForNonStringField() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service(new CriteriaQueryProperties())
+                        .count(Item.class, complex(param("price", "contains", "1")), GlueOperation.AND)
+                        .block());
+        assertThrows(IllegalArgumentException.class,
+                () -> service(new CriteriaQueryProperties())
+                        .count(Item.class, complex(param("id", "nst:in", nested(param("price", "like", "1")))), GlueOperation.AND)
+                        .block());
+    }
+
+    private static CriteriaOperationService service(CriteriaQueryProperties properties) {
+        return new CriteriaOperationService(
+                new CriteriaOperationProviderImpl(),
+                new CriteriaGlueOperationProviderImpl(),
+                List.of(),
+                new ObjectMapper(),
+                template,
+                properties
+        );
+    }
+
+    private static Map<String, Object> nested(Object... params) {
+        return Map.of("baseSearchParams", List.of(params), "internalGlue", GlueOperation.AND.name());
+    }
+}
@@ -0,0 +1,17 @@
+package ru.sergkorot.dynamic.r2dbc;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Table("item")
+public class Item {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private Integer price;
+}
@@ -0,0 +1,171 @@
+package ru.sergkorot.dynamic.result;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Department;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Cached pages hold identifiers only, are stored after commit and are not returned after changes of their entities
+ */
+class SearchResultCacheTest {
+
+    private static final Set<Class<?>> PERSON = Set.of(Person.class);
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static EntityAttributeRegistry attributeRegistry;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("search_result_cache");
+        TestDatabase.fill(entityManagerFactory);
+        attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void cachedPageIsLoadedIntoEntityManagerOfCaller() {
+        SpecificationOperationService<Person> service = service(newCache());
+        EntityManager first = entityManagerFactory.createEntityManager();
+        EntityManager second = entityManagerFactory.createEntityManager();
+        try {
+            CountedPage<Person> found = findPage(service, first);
+            CountedPage<Person> cached = findPage(service, second);
+
+            assertThat(cached.getContent()).extracting(Person::getId).containsExactly(3L, 4L);
+            assertThat(cached.getTotalElements()).isEqualTo(found.getTotalElements());
+            assertThat(cached.getContent()).allMatch(second::contains).noneMatch(first::contains);
+            assertThat(found.getContent()).allMatch(first::contains);
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void resultIsStoredOnlyAfterCommit() {
+        SearchResultCache cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<String> loader = () -> "result" + loads.incrementAndGet();
+
+        inTransaction(entityManager -> {
+            cache.get(entityManager, "key", PERSON, loader);
+            cache.get(entityManager, "key", PERSON, loader);
+        }, false);
+        assertThat(loads).as("transaction was rolled back").hasValue(2);
+
+        inTransaction(entityManager -> cache.get(entityManager, "key", PERSON, loader), true);
+        assertThat(get(cache, loader)).isEqualTo("result3");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void resultLoadedConcurrentlyWithChangeIsNotReturned() {
+        SearchResultCache cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        get(cache, () -> {
+            cache.evict(Person.class);
+            return "stale" + loads.incrementAndGet();
+        });
+        assertThat(get(cache, () -> "fresh" + loads.incrementAndGet())).isEqualTo("fresh2");
+        assertThat(get(cache, () -> "fresh" + loads.incrementAndGet())).isEqualTo("fresh2");
+
+        cache.evict(Department.class);
+        assertThat(get(cache, () -> "fresh" + loads.incrementAndGet())).as("other entity type").isEqualTo("fresh2");
+    }
+
+    @Test
+    void sessionWithNotFlushedChangesBypassesCache() {
+        SearchResultCache cache = newCache();
+        assertThat(get(cache, () -> "cached")).isEqualTo("cached");
+
+        inTransaction(entityManager -> {
+            entityManager.find(Person.class, 1L).setName("changed");
+            assertThat(cache.get(entityManager, "key", PERSON, () -> "loaded")).isEqualTo("loaded");
+        }, false);
+    }
+
+    private static String get(SearchResultCache cache, Supplier<String> loader) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return cache.get(entityManager, "key", PERSON, loader);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static void inTransaction(Consumer<EntityManager> action, boolean commit) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            action.accept(entityManager);
+            if (commit) {
+                entityManager.getTransaction().commit();
+            } else {
+                entityManager.getTransaction().rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static CountedPage<Person> findPage(SpecificationOperationService<Person> service, EntityManager entityManager) {
+        return service.findPage(entityManager, Person.class, complex(param("age", "lt", "15")), GlueOperation.AND,
+                PageRequest.of(1, 2, Sort.by("id")));
+    }
+
+    private static SearchResultCache newCache() {
+        return new SearchResultCache(new LocalResultCacheStore(new ResultCacheProperties()), null);
+    }
+
+    private static SpecificationOperationService<Person> service(SearchResultCache cache) {
+        return new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .resultCache(cache)
+                        .build()
+        );
+    }
+}
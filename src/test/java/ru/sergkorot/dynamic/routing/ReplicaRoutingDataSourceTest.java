@@ -0,0 +1,161 @@
+package ru.sergkorot.dynamic.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.sergkorot.dynamic.slow.ExplainCaptureDataSource;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing between two H2 databases: primary and replica have marker tables with their names
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private HikariDataSource primary;
+    private DataSource replica;
+    private ReplicaRoutingProperties properties;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource("routing_primary");
+        properties = new ReplicaRoutingProperties();
+        properties.setCheckInterval(Duration.ofHours(1));
+        replica = ReplicaRoutingPostProcessor.createReplica("first", replicaSettings("routing_replica"));
+        mark(primary, "primary");
+        mark(replica, "replica");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        primary.close();
+        if (replica instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void searchesAreRoutedToReplica() throws Exception {
+        try (ReplicaRoutingDataSource routing = routing(replica)) {
+            routing.checkReplicas();
+
+            assertThat(routing.getAvailableReplicas()).containsExactly("first");
+            assertThat(ReplicaRoutingContext.search(() -> marker(routing))).isEqualTo("replica");
+            assertThat(marker(routing)).as("connection outside of search").isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void writableTransactionUsesPrimary() throws Exception {
+        try (ReplicaRoutingDataSource routing = routing(replica)) {
+            routing.checkReplicas();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                assertThat(ReplicaRoutingContext.search(() -> marker(routing))).isEqualTo("primary");
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+                assertThat(ReplicaRoutingContext.search(() -> marker(routing))).isEqualTo("replica");
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+        }
+    }
+
+    @Test
+    void laggingOrFailedReplicaIsNotUsed() throws Exception {
+        properties.setLagQuery("select 10");
+        try (ReplicaRoutingDataSource routing = routing(replica)) {
+            routing.checkReplicas();
+
+            assertThat(routing.getAvailableReplicas()).isEmpty();
+            assertThat(ReplicaRoutingContext.search(() -> marker(routing))).isEqualTo("primary");
+        }
+
+        properties.setLagQuery("select 1");
+        ReplicaRoutingProperties.Replica missing = replicaSettings("routing_missing;IFEXISTS=TRUE");
+        missing.getPool().setConnectionTimeout(Duration.ofMillis(250));
+        try (ReplicaRoutingDataSource routing = routing(ReplicaRoutingPostProcessor.createReplica("missing", missing))) {
+            routing.checkReplicas();
+
+            assertThat(routing.getAvailableReplicas()).isEmpty();
+            assertThat(ReplicaRoutingContext.search(() -> marker(routing))).isEqualTo("primary");
+        }
+    }
+
+    @Test
+    void poolSettingsAreAppliedToReplica() {
+        ReplicaRoutingProperties.Replica settings = replicaSettings("routing_pool");
+        settings.getPool().setMaximumPoolSize(3);
+        settings.getPool().setConnectionTimeout(Duration.ofMillis(1500));
+
+        try (HikariDataSource pool = (HikariDataSource) ReplicaRoutingPostProcessor.createReplica("pooled", settings)) {
+            assertThat(pool.getPoolName()).isEqualTo("replica-pooled");
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(3);
+            assertThat(pool.getConnectionTimeout()).isEqualTo(1500);
+        }
+    }
+
+    @Test
+    void primaryIsClosedByItsOwnerOnly() throws Exception {
+        ReplicaRoutingDataSource routing = routing(replica);
+        routing.close();
+
+        assertThat(((HikariDataSource) replica).isClosed()).isTrue();
+        assertThat(primary.isClosed()).isFalse();
+
+        ReplicaRoutingPostProcessor postProcessor = new ReplicaRoutingPostProcessor(null);
+        assertThat(postProcessor.requiresDestruction(routing)).isTrue();
+        assertThat(postProcessor.requiresDestruction(new ExplainCaptureDataSource(routing))).as("wrapped routing").isTrue();
+        assertThat(postProcessor.requiresDestruction(primary)).isFalse();
+        postProcessor.postProcessBeforeDestruction(routing, "dataSource");
+        assertThat(primary.isClosed()).isTrue();
+    }
+
+    private ReplicaRoutingDataSource routing(DataSource replicaDataSource) {
+        return new ReplicaRoutingDataSource(primary, Map.of("first", replicaDataSource), properties);
+    }
+
+    private static ReplicaRoutingProperties.Replica replicaSettings(String name) {
+        ReplicaRoutingProperties.Replica settings = new ReplicaRoutingProperties.Replica();
+        settings.setUrl(TestDatabase.url(name));
+        settings.setUsername("sa");
+        settings.setPassword("");
+        return settings;
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(TestDatabase.url(name));
+        dataSource.setUsername("sa");
+        return dataSource;
+    }
+
+    private static void mark(DataSource dataSource, String name) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists marker(name varchar(20))");
+            statement.execute("delete from marker");
+            statement.execute("insert into marker values ('" + name + "')");
+        }
+    }
+
+    private static String marker(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select name from marker")) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
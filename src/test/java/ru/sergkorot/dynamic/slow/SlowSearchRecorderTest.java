@@ -0,0 +1,152 @@
+package ru.sergkorot.dynamic.slow;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.ast.ConditionNode;
+import ru.sergkorot.dynamic.ast.GroupNode;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingContext;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingDataSource;
+import ru.sergkorot.dynamic.routing.ReplicaRoutingProperties;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bounded fingerprints and explain of statements executed by replica
+ */
+class SlowSearchRecorderTest {
+
+    @Test
+    void leastRecentlyExecutedFingerprintsAreEvicted() {
+        SlowSearchProperties properties = new SlowSearchProperties();
+        properties.setMaxFingerprints(3);
+        try (SlowSearchRecorder recorder = new SlowSearchRecorder(properties, null)) {
+            String first = record(recorder, "first");
+            String second = record(recorder, "second");
+            String third = record(recorder, "third");
+            record(recorder, "first");
+            String fourth = record(recorder, "fourth");
+
+            assertThat(recorder.report(second)).isEmpty();
+            assertThat(recorder.report(first)).isPresent();
+            assertThat(recorder.report(third)).isPresent();
+            assertThat(recorder.report(fourth)).isPresent();
+            assertThat(recorder.report(first).orElseThrow().count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void concurrentRecordingKeepsBound() throws Exception {
+        SlowSearchProperties properties = new SlowSearchProperties();
+        properties.setMaxFingerprints(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (SlowSearchRecorder recorder = new SlowSearchRecorder(properties, null)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        record(recorder, "field" + (offset * 500 + i) % 700);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertThat(recorder.top(1000)).hasSizeLessThanOrEqualTo(50).isNotEmpty();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void statementOfReplicaIsExplainedByReplica() throws Exception {
+        ReplicaRoutingProperties routingProperties = new ReplicaRoutingProperties();
+        routingProperties.setCheckInterval(Duration.ofHours(1));
+        HikariDataSource primary = dataSource("explain_primary");
+        HikariDataSource replica = dataSource("explain_replica");
+        execute(replica, "create table if not exists replica_only(name varchar(20))");
+
+        ExplainCaptureDataSource dataSource = new ExplainCaptureDataSource(
+                new ReplicaRoutingDataSource(primary, Map.of("first", replica), routingProperties));
+        SlowSearchProperties properties = new SlowSearchProperties();
+        properties.setThreshold(Duration.ZERO);
+        properties.setExplain(true);
+        properties.setExplainSampleRate(1);
+        properties.setExplainInterval(Duration.ZERO);
+        properties.setExplainPrefix("EXPLAIN ");
+        try (dataSource; SlowSearchRecorder recorder = new SlowSearchRecorder(properties, () -> dataSource)) {
+            ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (routing.getAvailableReplicas().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            String fingerprint = SearchFingerprint.of("findPage", Person.class, tree("name"), Sort.unsorted()).id();
+
+            recorder.record("findPage", Person.class, tree("name"), Sort.unsorted(),
+                    () -> ReplicaRoutingContext.search(() -> query(dataSource, "select count(*) from replica_only where name = ?")));
+
+            while (recorder.report(fingerprint).orElseThrow().plans().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            List<SlowSearchReport.StatementPlan> plan = recorder.report(fingerprint).orElseThrow().plans();
+            assertThat(plan).hasSize(1);
+            assertThat(plan.get(0).plan()).containsIgnoringCase("replica_only").doesNotContain("not explained");
+        }
+        assertThat(replica.isClosed()).isTrue();
+        assertThat(primary.isClosed()).as("primary is closed by its owner").isFalse();
+        primary.close();
+    }
+
+    private static String record(SlowSearchRecorder recorder, String field) {
+        GroupNode tree = tree(field);
+        recorder.record("findPage", Person.class, tree, Sort.unsorted(), () -> null);
+        return SearchFingerprint.of("findPage", Person.class, tree, Sort.unsorted()).id();
+    }
+
+    private static GroupNode tree(String field) {
+        return new GroupNode(GlueOperation.AND, List.of(new ConditionNode(field, "eq", "value", false)));
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(TestDatabase.url(name));
+        dataSource.setUsername("sa");
+        return dataSource;
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static long query(DataSource dataSource, String sql) {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, "Name1");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
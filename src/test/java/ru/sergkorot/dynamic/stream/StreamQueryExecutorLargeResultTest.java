@@ -0,0 +1,72 @@
+package ru.sergkorot.dynamic.stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams 1M rows, surefire runs tests of this tag in separate JVM with small heap (see pom.xml),
+ * database is file based so rows are not kept in heap
+ */
+@Tag("large-result")
+class StreamQueryExecutorLargeResultTest {
+
+    private static final int ROWS = 1_000_000;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("stream_large_result", Map.of(
+                AvailableSettings.URL, "jdbc:h2:file:./target/h2/stream_large_result"
+        ));
+        TestDatabase.inTransaction(entityManagerFactory, entityManager -> entityManager
+                .createNativeQuery("insert into person (id, name, age) select x, concat('Name', x), mod(x, 100) from system_range(1, " + ROWS + ")")
+                .executeUpdate());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void millionRowsAreStreamedWithBoundedPersistenceContext() {
+        StreamProperties properties = new StreamProperties();
+        StreamQueryExecutor executor = new StreamQueryExecutor(properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+            AtomicLong rows = new AtomicLong();
+            AtomicInteger maxManaged = new AtomicInteger();
+            try (Stream<Person> persons = executor.stream(entityManager, StreamQueryExecutorTest.allPersons(entityManager))) {
+                persons.forEach(person -> {
+                    rows.incrementAndGet();
+                    maxManaged.accumulateAndGet(session.getPersistenceContextInternal().getNumberOfManagedEntities(), Math::max);
+                });
+            }
+
+            assertThat(rows.get()).isEqualTo(ROWS);
+            assertThat(maxManaged.get()).isLessThanOrEqualTo(properties.getClearInterval());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+}
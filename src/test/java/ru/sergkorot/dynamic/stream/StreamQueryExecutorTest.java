@@ -0,0 +1,92 @@
+package ru.sergkorot.dynamic.stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Streaming detaches only entities loaded by the stream, persons 1..20
+ */
+class StreamQueryExecutorTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("stream_query_executor");
+        TestDatabase.fill(entityManagerFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void entitiesManagedBeforeStreamingStayManaged() {
+        StreamProperties properties = new StreamProperties();
+        properties.setClearInterval(5);
+        StreamQueryExecutor executor = new StreamQueryExecutor(properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Person managed = entityManager.find(Person.class, 3L);
+            List<Person> streamed = new ArrayList<>();
+            try (Stream<Person> persons = executor.stream(entityManager, allPersons(entityManager))) {
+                persons.forEach(streamed::add);
+            }
+
+            assertThat(streamed).hasSize(20);
+            assertThat(entityManager.contains(managed)).isTrue();
+            assertThat(streamed.get(2)).isSameAs(managed);
+            assertThat(streamed.subList(0, 2)).noneMatch(entityManager::contains);
+            assertThat(streamed.subList(5, 20)).noneMatch(entityManager::contains);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void streamingFailsOnChangesWhichAreNotFlushed() {
+        StreamQueryExecutor executor = new StreamQueryExecutor(new StreamProperties());
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.find(Person.class, 3L).setName("changed");
+
+            assertThatIllegalStateException()
+                    .isThrownBy(() -> executor.stream(entityManager, allPersons(entityManager)))
+                    .withMessageContaining("not flushed");
+
+            entityManager.flush();
+            try (Stream<Person> persons = executor.stream(entityManager, allPersons(entityManager))) {
+                assertThat(persons.filter(person -> "changed".equals(person.getName())).count()).isEqualTo(1);
+            }
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    static CriteriaQuery<Person> allPersons(EntityManager entityManager) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Person> query = criteriaBuilder.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+        return query.select(root).orderBy(criteriaBuilder.asc(root.get("id")));
+    }
+}
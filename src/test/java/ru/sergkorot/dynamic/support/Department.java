@@ -0,0 +1,26 @@
+package ru.sergkorot.dynamic.support;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Association of the test model
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class Department {
+
+    @Id
+    private Long id;
+    private String name;
+
+    public Department(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.sergkorot.dynamic.support;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Entity of the test model, nullable columns and self reference are used for null and path handling
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "person", indexes = {
+        @Index(name = "person_name_idx", columnList = "name"),
+        @Index(name = "person_surname_age_idx", columnList = "surname, age")
+})
+public class Person {
+
+    @Id
+    private Long id;
+    private String name;
+    private String surname;
+    private Integer age;
+    private LocalDate birthDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Department department;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Person parent;
+
+    public Person(Long id, String name, String surname, Integer age, Department department) {
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+        this.age = age;
+        this.department = department;
+        this.birthDate = age == null ? null : LocalDate.of(2000, 1, 1).minusYears(age);
+    }
+}
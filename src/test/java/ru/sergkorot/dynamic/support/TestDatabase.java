@@ -0,0 +1,110 @@
+package ru.sergkorot.dynamic.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import ru.sergkorot.dynamic.model.BaseSearchParam;
+import ru.sergkorot.dynamic.model.ComplexSearchParam;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory H2 databases of the test model. Each database has its own name, so test classes do not share rows
+ */
+public final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Create entity manager factory over new in-memory database
+     *
+     * @param name       - name of the database
+     * @param properties - additional Hibernate properties
+     * @return EntityManagerFactory
+     */
+    public static EntityManagerFactory create(String name, Map<String, Object> properties) {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Department.class)
+                .addAnnotatedClass(Person.class)
+                .setProperty(AvailableSettings.URL, url(name))
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.PASS, "")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        properties.forEach((key, value) -> configuration.getProperties().put(key, value));
+        return configuration.buildSessionFactory();
+    }
+
+    public static EntityManagerFactory create(String name) {
+        return create(name, Map.of());
+    }
+
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Departments 1..3 and persons 1..20, every fifth person has no age and surname, person n > 10 has parent n - 10
+     *
+     * @param entityManagerFactory - factory of the database
+     */
+    public static void fill(EntityManagerFactory entityManagerFactory) {
+        inTransaction(entityManagerFactory, entityManager -> {
+            List<Department> departments = List.of(
+                    new Department(1L, "sales"),
+                    new Department(2L, "development"),
+                    new Department(3L, "support")
+            );
+            departments.forEach(entityManager::persist);
+            List<Person> persons = new ArrayList<>();
+            for (long i = 1; i <= 20; i++) {
+                boolean empty = i % 5 == 0;
+                Person person = new Person(i, "Name" + i, empty ? null : "surname" + i % 3, empty ? null : (int) (i * 3),
+                        departments.get((int) (i % 3)));
+                if (i > 10) {
+                    person.setParent(persons.get((int) i - 11));
+                }
+                persons.add(person);
+                entityManager.persist(person);
+            }
+        });
+    }
+
+    public static void inTransaction(EntityManagerFactory entityManagerFactory, Consumer<EntityManager> action) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            action.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    public static BaseSearchParam param(String name, String operation, Object value) {
+        BaseSearchParam param = new BaseSearchParam();
+        param.setName(name);
+        param.setOperation(operation);
+        param.setValue(value);
+        return param;
+    }
+
+    public static List<ComplexSearchParam> complex(GlueOperation internalGlue, BaseSearchParam... params) {
+        ComplexSearchParam complexSearchParam = new ComplexSearchParam();
+        complexSearchParam.setBaseSearchParams(List.of(params));
+        complexSearchParam.setInternalGlue(internalGlue);
+        return List.of(complexSearchParam);
+    }
+
+    public static List<ComplexSearchParam> complex(BaseSearchParam... params) {
+        return complex(GlueOperation.AND, params);
+    }
+}
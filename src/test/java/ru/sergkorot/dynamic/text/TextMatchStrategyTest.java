@@ -0,0 +1,112 @@
+package ru.sergkorot.dynamic.text;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.enums.TextMatchMode;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.util.SpecificationUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Text match modes over H2, persons 1..20 have names Name1..Name20
+ */
+class TextMatchStrategyTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        entityManagerFactory = TestDatabase.create("text_match_strategy");
+        TestDatabase.fill(entityManagerFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    void likeAndContainsModesAreConfiguredSeparately() {
+        TextMatchProperties properties = new TextMatchProperties();
+        properties.getLikeFields().put("name", TextMatchMode.PREFIX);
+        TextMatchStrategy strategy = new TextMatchStrategy(properties);
+
+        assertThat(strategy.likeModeFor("name")).isEqualTo(TextMatchMode.PREFIX);
+        assertThat(strategy.containsModeFor("name")).isEqualTo(TextMatchMode.SUBSTRING);
+        assertThat(ids(entityManagerFactory, strategy.like("Name2", "name"))).containsExactly(2L, 20L);
+        assertThat(ids(entityManagerFactory, strategy.contains("ame2", "name", Function.identity()))).containsExactly(2L, 20L);
+    }
+
+    @Test
+    void invalidTextSearchConfigIsRejected() {
+        TextMatchProperties properties = new TextMatchProperties();
+        properties.setTextSearchConfig("simple') or true or ('");
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new TextMatchStrategy(properties))
+                .withMessageContaining("does not match");
+        assertThatThrownBy(() -> ids(entityManagerFactory, SpecificationUtils.findByFullText("Name2", "Simple", "name")))
+                .hasStackTraceContaining("text search configuration Simple does not match");
+    }
+
+    @Test
+    void textSearchConfigIsRenderedInlineOnPostgres() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        EntityManagerFactory postgres = TestDatabase.create("text_match_strategy_postgres", Map.of(
+                AvailableSettings.STATEMENT_INSPECTOR, inspector,
+                AvailableSettings.DIALECT, PostgreSQLDialect.class.getName(),
+                AvailableSettings.HBM2DDL_AUTO, "none"
+        ));
+        try {
+            TextMatchProperties properties = new TextMatchProperties();
+            properties.setTextSearchConfig("english");
+            properties.getLikeFields().put("name", TextMatchMode.FULL_TEXT);
+            TextMatchStrategy strategy = new TextMatchStrategy(properties);
+
+            // H2 has no text search functions, only rendered SQL is checked
+            assertThatThrownBy(() -> ids(postgres, strategy.like("Name2", "name")));
+            assertThat(STATEMENTS).anySatisfy(sql -> assertThat(sql)
+                    .contains("to_tsvector(cast('english' as regconfig),")
+                    .contains("plainto_tsquery(cast('english' as regconfig), "));
+        } finally {
+            postgres.close();
+        }
+    }
+
+    private static List<Long> ids(EntityManagerFactory entityManagerFactory, Specification<Person> specification) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Person> query = criteriaBuilder.createQuery(Person.class);
+            Root<Person> root = query.from(Person.class);
+            query.where(specification.toPredicate(root, query, criteriaBuilder)).orderBy(criteriaBuilder.asc(root.get("id")));
+            return entityManager.createQuery(query).getResultList().stream().map(Person::getId).toList();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.sergkorot.dynamic.union;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.metamodel.EntityIndexes;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.paging.CountedPage;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Or branches are executed by entity manager of the caller: they see its not committed changes and return managed entities
+ */
+class UnionQueryExecutorTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static SpecificationOperationService<Person> service;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("union_query_executor", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        EntityAttributeRegistry attributeRegistry = new EntityAttributeRegistry(entityManagerFactory.getMetamodel(),
+                ApplicationConversionService.getSharedInstance());
+        EntityIndexes entityIndexes = new EntityIndexes(Map.of(), true);
+        entityIndexes.register(entityManagerFactory);
+        UnionProperties properties = new UnionProperties();
+        properties.setEnabled(true);
+        service = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder()
+                        .attributeRegistry(attributeRegistry)
+                        .unionQueryExecutor(new UnionQueryExecutor(properties, entityIndexes))
+                        .build()
+        );
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void branchesAreMergedInPageOrder() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CountedPage<Person> page = findPage(entityManager, PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "age")));
+
+            assertThat(page.getContent()).extracting(Person::getId).containsExactly(12L, 7L, 2L, 1L);
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(page.getContent()).allMatch(entityManager::contains);
+            assertThat(STATEMENTS.stream().filter(sql -> sql.contains(" where ") && sql.contains(" order by ")))
+                    .as("one query per branch, conditions on name are merged")
+                    .hasSize(2)
+                    .allMatch(sql -> sql.startsWith("select p1_0.id,p1_0.age from"));
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void branchesSeeChangesOfCallerTransaction() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(new Person(100L, "Name7", null, 1, null));
+            entityManager.flush();
+
+            CountedPage<Person> page = findPage(entityManager, PageRequest.of(0, 10, Sort.by("age")));
+
+            assertThat(page.getContent()).extracting(Person::getId).containsExactly(100L, 1L, 2L, 7L, 12L, 10L);
+            assertThat(page.getContent().get(0)).isSameAs(entityManager.find(Person.class, 100L));
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    private static CountedPage<Person> findPage(EntityManager entityManager, PageRequest pageable) {
+        return service.findPage(entityManager, Person.class,
+                complex(GlueOperation.OR,
+                        param("id", "in", List.of(1, 2)),
+                        param("name", "eq", "Name7"),
+                        param("name", "in", List.of("Name10", "Name12"))),
+                GlueOperation.OR,
+                pageable);
+    }
+}
@@ -0,0 +1,183 @@
+package ru.sergkorot.dynamic.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.jpa.domain.Specification;
+import ru.sergkorot.dynamic.inlist.InListProperties;
+import ru.sergkorot.dynamic.inlist.InListStrategy;
+import ru.sergkorot.dynamic.metamodel.EntityAttributeRegistry;
+import ru.sergkorot.dynamic.model.enums.GlueOperation;
+import ru.sergkorot.dynamic.operation.SearchFeatures;
+import ru.sergkorot.dynamic.operation.SpecificationGlueOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationProviderImpl;
+import ru.sergkorot.dynamic.operation.SpecificationOperationService;
+import ru.sergkorot.dynamic.support.Person;
+import ru.sergkorot.dynamic.support.TestDatabase;
+import ru.sergkorot.dynamic.text.TextMatchProperties;
+import ru.sergkorot.dynamic.text.TextMatchStrategy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.sergkorot.dynamic.support.TestDatabase.complex;
+import static ru.sergkorot.dynamic.support.TestDatabase.param;
+
+/**
+ * Dotted paths are joined once per query: joins are counted in generated SQL
+ */
+class PathUtilsTest {
+
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\b");
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EntityManagerFactory entityManagerFactory;
+    private static SpecificationOperationService<Person> service;
+
+    @BeforeAll
+    static void setUp() {
+        StatementInspector inspector = sql -> {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        };
+        entityManagerFactory = TestDatabase.create("path_utils", Map.of(AvailableSettings.STATEMENT_INSPECTOR, inspector));
+        TestDatabase.fill(entityManagerFactory);
+        EntityAttributeRegistry attributeRegistry =
+                new EntityAttributeRegistry(entityManagerFactory.getMetamodel(), ApplicationConversionService.getSharedInstance());
+        service = new SpecificationOperationService<>(
+                new SpecificationOperationProviderImpl<>(
+                        new InListStrategy(new InListProperties()),
+                        attributeRegistry,
+                        new TextMatchStrategy(new TextMatchProperties())
+                ),
+                new SpecificationGlueOperationProviderImpl<>(),
+                List.of(),
+                new ObjectMapper(),
+                SearchFeatures.builder().attributeRegistry(attributeRegistry).build()
+        );
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void fieldWithoutDotIsNotJoined() {
+        List<Person> persons = select((root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(PathUtils.get(root, query, "name"), "Name1"));
+
+        assertThat(persons).extracting(Person::getId).containsExactly(1L);
+        assertThat(joins()).isZero();
+    }
+
+    @Test
+    void dottedPathsShareJoin() {
+        List<Person> persons = select((root, query, criteriaBuilder) -> {
+            Path<String> name = PathUtils.get(root, query, "department.name");
+            Path<Long> id = PathUtils.get(root, query, "department.id");
+            assertThat(root.getJoins()).hasSize(1);
+            return criteriaBuilder.and(criteriaBuilder.equal(name, "sales"), criteriaBuilder.gt(id, 0L));
+        });
+
+        assertThat(persons).hasSize(6);
+        assertThat(joins()).isEqualTo(1);
+    }
+
+    @Test
+    void predicatesOfRequestShareJoins() {
+        List<Person> persons = select(service.buildComplexByParams(complex(
+                param("parent.department.name", "eq", "support"),
+                param("parent.name", "like", "Name%"),
+                param("department.name", "eq", "sales"),
+                param("parent.age", "gt", "0")
+        ), GlueOperation.AND));
+
+        assertThat(persons).extracting(Person::getId).containsExactly(12L, 18L);
+        assertThat(joins()).as("parent, department of parent and department").isEqualTo(3);
+    }
+
+    @Test
+    void predicatesUnderOrShareJoins() {
+        List<Person> persons = select(service.buildComplexByParams(complex(GlueOperation.OR,
+                param("department.name", "eq", "sales"),
+                param("department.name", "like", "sup%")
+        ), GlueOperation.AND));
+
+        assertThat(persons).hasSize(13);
+        assertThat(joins()).isEqualTo(1);
+    }
+
+    @Test
+    void existingFetchIsReused() {
+        List<Person> persons = select((root, query, criteriaBuilder) -> {
+            root.fetch("department", JoinType.LEFT);
+            return criteriaBuilder.equal(PathUtils.get(root, query, "department.name"), "support");
+        });
+
+        assertThat(persons).hasSize(7);
+        assertThat(persons).allMatch(person -> "support".equals(person.getDepartment().getName()));
+        assertThat(joins()).isEqualTo(1);
+    }
+
+    @Test
+    void associationIsJoinedWithLeftJoin() {
+        List<Person> persons = select((root, query, criteriaBuilder) ->
+                criteriaBuilder.isNull(PathUtils.get(root, query, "parent.name")));
+
+        assertThat(persons).as("persons without parent are kept").hasSize(10);
+        assertThat(STATEMENTS.get(0)).contains("left join");
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThatThrownBy(() -> select((root, query, criteriaBuilder) ->
+                criteriaBuilder.isNull(PathUtils.get(root, query, "department.unknown"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Person> select(Specification<Person> specification) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Person> query = criteriaBuilder.createQuery(Person.class);
+            Root<Person> root = query.from(Person.class);
+            query.where(specification.toPredicate(root, query, criteriaBuilder)).orderBy(criteriaBuilder.asc(root.get("id")));
+            return entityManager.createQuery(query).getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static int joins() {
+        assertThat(STATEMENTS).hasSize(1);
+        Matcher matcher = JOIN.matcher(STATEMENTS.get(0));
+        int joins = 0;
+        while (matcher.find()) {
+            joins++;
+        }
+        return joins;
+    }
+}